@@ -1,6 +1,7 @@
 import os
 import time
 import json
+import zlib
 import requests
 import mysql.connector
 
@@ -11,6 +12,11 @@ MYSQL_PASS = os.getenv("MYSQL_PASSWORD", "root")
 
 ES_HOST = os.getenv("ELASTIC_HOST", "http://localhost:9200")
 INDEX = os.getenv("ELASTIC_INDEX", "itinventory-equipments")
+TEMPLATE_FILE = os.getenv("ELASTIC_TEMPLATE_FILE", "/app/search/equipment-index-template.json")
+
+# Mesmo contrato da API (search.es.shards / search.routing.enabled): _routing = id_filial_atual
+SHARDS = int(os.getenv("ELASTIC_SHARDS", "1"))
+ROUTING = os.getenv("ELASTIC_ROUTING", "false").lower() == "true"
 
 
 def esperar_dependencias(segundos: int = 5):
@@ -18,37 +24,34 @@ def esperar_dependencias(segundos: int = 5):
     time.sleep(segundos)
 
 
+def registrar_template():
+    """
+    O mapping do índice pertence à aplicação (src/main/resources/search/equipment-index-template.json),
+    montado no container em ELASTIC_TEMPLATE_FILE. Registrar aqui garante o mesmo schema
+    mesmo quando o ETL roda antes da primeira subida da API.
+    """
+    if not os.path.exists(TEMPLATE_FILE):
+        print(f"Template '{TEMPLATE_FILE}' não encontrado; usando o template registrado pela API (se houver).")
+        return
+
+    with open(TEMPLATE_FILE, encoding="utf-8") as f:
+        template = json.load(f)
+    template["index_patterns"] = [INDEX]
+
+    url = f"{ES_HOST}/_index_template/{INDEX}-template"
+    resp = requests.put(url, json=template)
+    if resp.status_code in (200, 201):
+        print(" Index template registrado.")
+    else:
+        print(f"Falha ao registrar index template ({resp.status_code}): {resp.text[:1000]}")
+
+
 def criar_indice():
-    mapping = {
-        "mappings": {
-            "properties": {
-                "idEquipment": {"type": "long"},
-
-                "type": {"type": "keyword"},
-                "brand": {"type": "text", "fields": {"keyword": {"type": "keyword"}}},
-                "model": {"type": "text", "fields": {"keyword": {"type": "keyword"}}},
-                "assetNumber": {"type": "keyword"},
-                "status": {"type": "keyword"},
-                "location": {"type": "text", "fields": {"keyword": {"type": "keyword"}}},
-                "responsible": {"type": "text", "fields": {"keyword": {"type": "keyword"}}},
-
-                "acquisitionDate": {"type": "date"},
-                "acquisitionValue": {"type": "double"},
-
-                "ativo": {"type": "boolean"},
-                "criadoEm": {"type": "date"},
-                "atualizadoEm": {"type": "date"},
-
-                "categoriaId": {"type": "long"},
-                "filialAtualId": {"type": "long"},
-                "fornecedorId": {"type": "long"}
-            }
-        }
-    }
+    registrar_template()
 
     url = f"{ES_HOST}/{INDEX}"
-    print(f"📌 Criando índice '{INDEX}' em {url} ...")
-    resp = requests.put(url, json=mapping)
+    print(f"📌 Criando índice '{INDEX}' em {url} (shards={SHARDS}, routing={ROUTING}) ...")
+    resp = requests.put(url, json={"settings": {"number_of_shards": SHARDS}})
 
     if resp.status_code in (200, 201):
         print(" Índice criado.")
@@ -88,7 +91,8 @@ def carregar_equipments(conn):
               atualizado_em,
               id_categoria,
               id_filial_atual,
-              id_fornecedor
+              id_fornecedor,
+              change_seq
           FROM equipment
           WHERE ativo = 1; \
           """
@@ -100,10 +104,48 @@ def carregar_equipments(conn):
     return rows
 
 
-def montar_bulk(rows):
+def carregar_referencias(conn):
+    """
+    Nomes de filial, fornecedor e categoria em memória (tabelas pequenas): uma consulta por tabela
+    em vez de join por equipamento. Mesmos nomes que a aplicação usa (ReferenceNameCache.java).
+    """
+    consultas = {
+        "filial": "SELECT id_filial, nome FROM filial",
+        "fornecedor": "SELECT id_fornecedor, COALESCE(nome_fantasia, razao_social) FROM fornecedor",
+        "categoria": "SELECT id_categoria, nome FROM categoria_ativo",
+    }
+    refs = {}
+    cur = conn.cursor()
+    for chave, sql in consultas.items():
+        cur.execute(sql)
+        refs[chave] = {int(id_): nome for id_, nome in cur.fetchall()}
+    cur.close()
+    print(f" Referências: {len(refs['filial'])} filiais, {len(refs['fornecedor'])} fornecedores, "
+          f"{len(refs['categoria'])} categorias.")
+    return refs
+
+
+def checksum(*valores):
+    """
+    Mesmo checksum da aplicação (EquipmentChecksum.java) e do MySQL:
+    CRC32 de CONCAT_WS('|', ...) — nulos omitidos, data yyyy-MM-dd, valor com 2 casas.
+    """
+    partes = [str(v) for v in valores if v is not None]
+    return zlib.crc32("|".join(partes).encode("utf-8"))
+
+
+def ref_checksum(*pares):
+    """
+    Parcelas das referências (EquipmentChecksum.ofReferences): soma de CRC32(CONCAT_WS('|', id, nome))
+    por referência; sem referência = CRC32('') = 0.
+    """
+    return sum(checksum(id_, nome) for id_, nome in pares)
+
+
+def montar_bulk(rows, refs):
     """
     Formato NDJSON:
-    { "index": { "_index": "...", "_id": "..." } }
+    { "index": { "_index": "...", "_id": "...", "routing": "<id_filial_atual>" } }
     { ...doc... }
     """
     lines = []
@@ -111,7 +153,7 @@ def montar_bulk(rows):
     for (
             id_equipment, type_, brand, model, asset_number, status, location, responsible,
             acq_date, acq_value, ativo, criado_em, atualizado_em,
-            id_categoria, id_filial_atual, id_fornecedor
+            id_categoria, id_filial_atual, id_fornecedor, change_seq
     ) in rows:
 
         doc = {
@@ -132,10 +174,29 @@ def montar_bulk(rows):
 
             "categoriaId": int(id_categoria) if id_categoria is not None else None,
             "filialAtualId": int(id_filial_atual) if id_filial_atual is not None else None,
-            "fornecedorId": int(id_fornecedor) if id_fornecedor is not None else None
+            "fornecedorId": int(id_fornecedor) if id_fornecedor is not None else None,
+
+            "categoriaNome": refs["categoria"].get(id_categoria),
+            "filialNome": refs["filial"].get(id_filial_atual),
+            "fornecedorNome": refs["fornecedor"].get(id_fornecedor),
+
+            "checksum": checksum(
+                type_, brand, model, asset_number, status, location, responsible,
+                acq_date.isoformat() if acq_date else None,
+                f"{acq_value:.2f}" if acq_value is not None else None
+            ),
+            "refChecksum": ref_checksum(
+                (id_filial_atual, refs["filial"].get(id_filial_atual)),
+                (id_fornecedor, refs["fornecedor"].get(id_fornecedor)),
+                (id_categoria, refs["categoria"].get(id_categoria))
+            ),
+            # Versão da linha: a API não regride o documento com um evento de indexação atrasado
+            "changeSeq": int(change_seq or 0)
         }
 
         meta = {"index": {"_index": INDEX, "_id": str(id_equipment)}}
+        if ROUTING and id_filial_atual is not None:
+            meta["index"]["routing"] = str(id_filial_atual)
         lines.append(json.dumps(meta, ensure_ascii=False))
         lines.append(json.dumps(doc, ensure_ascii=False))
 
@@ -171,7 +232,8 @@ def main():
             print(" Nenhum equipment ATIVO encontrado. Encerrando.")
             return
 
-        bulk_body = montar_bulk(rows)
+        refs = carregar_referencias(conn)
+        bulk_body = montar_bulk(rows, refs)
         enviar_bulk(bulk_body)
         print(" ETL concluído.")
     finally:
@@ -231,6 +231,9 @@ CREATE TABLE IF NOT EXISTS equipment (
     id_filial_atual    BIGINT       NULL,
     id_fornecedor      BIGINT       NULL,
 
+    -- Última alteração feita pela API (equipment_change_sequence); 0 = carga inicial/ETL
+    change_seq         BIGINT       NOT NULL DEFAULT 0,
+
     CONSTRAINT fk_equipment_categoria
         FOREIGN KEY (id_categoria)
         REFERENCES categoria_ativo (id_categoria)
@@ -253,6 +256,102 @@ CREATE TABLE IF NOT EXISTS equipment (
 CREATE INDEX idx_equipment_status ON equipment (status);
 CREATE INDEX idx_equipment_type   ON equipment (`type`);
 CREATE INDEX idx_equipment_loc    ON equipment (location);
+-- Fallback da busca (ES fora): filtros + ordenação por data de aquisição
+CREATE INDEX idx_equipment_brand  ON equipment (brand);
+CREATE INDEX idx_equipment_model  ON equipment (model);
+CREATE INDEX idx_equipment_acq_date ON equipment (acquisition_date);
+CREATE INDEX idx_equipment_status_acq_date ON equipment (status, acquisition_date);
+-- Sincronização incremental (GET /api/equipments/changes): keyset (change_seq, id_equipment)
+CREATE INDEX idx_equipment_change_seq ON equipment (change_seq);
+
+
+-- ==========================================
+-- 7.1 TABELA DE SEQUÊNCIA DE PATRIMÔNIOS
+--    Nome: asset_number_sequence
+-- ==========================================
+-- Próximo número livre por prefixo (INV -> 42 = INV-00042).
+-- Cada instância da API reserva blocos (hi/lo) com SELECT ... FOR UPDATE.
+-- Prefixo sem linha é criado no primeiro uso, a partir do maior patrimônio existente.
+
+CREATE TABLE IF NOT EXISTS asset_number_sequence (
+    prefix        CHAR(3) PRIMARY KEY,
+    next_value    INT     NOT NULL
+) ENGINE=InnoDB;
+
+
+-- ==========================================
+-- 7.2 SINCRONIZAÇÃO INCREMENTAL
+--    Nomes: equipment_change_log, equipment_change_sequence, equipment_tombstone
+-- ==========================================
+-- Números de alteração: cada gravação da API insere uma linha na própria transação e usa o
+-- AUTO_INCREMENT como change_seq (sem lock até o commit; rollback descarta a reserva). A ordem é a
+-- da reserva, não a do commit: /changes só serve até o maior número reservado há mais de
+-- equipment.changes.commit-lag-ms. Linhas antigas são expurgadas junto com as lápides.
+
+CREATE TABLE IF NOT EXISTS equipment_change_log (
+    seq           BIGINT       AUTO_INCREMENT PRIMARY KEY,
+    allocated_em  DATETIME(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_equipment_change_log_allocated_em ON equipment_change_log (allocated_em);
+
+-- Linha única (id = 1). pruned_up_to: lápides até este número foram expurgadas
+-- (token anterior = recarga completa).
+CREATE TABLE IF NOT EXISTS equipment_change_sequence (
+    id            INT     PRIMARY KEY,
+    pruned_up_to  BIGINT  NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO equipment_change_sequence (id, pruned_up_to) VALUES (1, 0);
+
+-- Exclusões para os clientes offline (expiram após equipment.changes.tombstone-retention-days)
+CREATE TABLE IF NOT EXISTS equipment_tombstone (
+    id_equipment  BIGINT   PRIMARY KEY,
+    change_seq    BIGINT   NOT NULL,
+    deleted_em    DATETIME NOT NULL
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_equipment_tombstone_change_seq ON equipment_tombstone (change_seq);
+CREATE INDEX idx_equipment_tombstone_deleted_em ON equipment_tombstone (deleted_em);
+
+
+-- ==========================================
+-- 7.3 NOMES DE REFERÊNCIA PROPAGADOS AO ÍNDICE DE BUSCA
+--    Nome: reference_name_sync
+-- ==========================================
+-- Último nome de filial/fornecedor/categoria já aplicado aos documentos do Elasticsearch
+-- (ReferenceNameCache). Nome diferente do cadastro = update_by_query pendente, inclusive de
+-- alterações feitas com a aplicação parada. Preenchida pela própria aplicação.
+
+CREATE TABLE IF NOT EXISTS reference_name_sync (
+    referencia  VARCHAR(20)  NOT NULL,
+    id_ref      BIGINT       NOT NULL,
+    nome        VARCHAR(255) NULL,
+    PRIMARY KEY (referencia, id_ref)
+) ENGINE=InnoDB;
+
+
+-- ==========================================
+-- 7.4 ALERTAS DE BUSCAS SALVAS
+--    Nome: saved_search_match
+-- ==========================================
+-- Casamentos do percolator (SavedSearchPercolator) lidos por todas as instâncias, que entregam
+-- às conexões SSE abertas nelas (SavedSearchNotifier). Linhas antigas são expurgadas pela aplicação.
+-- Um alerta por (busca, equipamento, change_seq): lote percolado de novo após falha não duplica (INSERT IGNORE).
+
+CREATE TABLE IF NOT EXISTS saved_search_match (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    owner           VARCHAR(100) NOT NULL,
+    saved_search_id VARCHAR(64)  NOT NULL,
+    name            VARCHAR(255) NULL,
+    id_equipment    BIGINT       NOT NULL,
+    change_seq      BIGINT       NOT NULL DEFAULT 0,
+    criado_em       DATETIME(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_saved_search_match (saved_search_id, id_equipment, change_seq)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_saved_search_match_criado_em ON saved_search_match (criado_em);
 
 
 -- ==========================================
@@ -54,6 +54,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // IMPORTANTE: liberar página/dispatcher de erro
                         .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
+                        // Retomada de respostas assíncronas (CompletableFuture): a requisição original já foi autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/error").permitAll()
 
                         // Preflight CORS (OPTIONS)
@@ -62,6 +64,9 @@ public class SecurityConfig {
                         // Login público
                         .requestMatchers(POST, "/api/usuarios/login").permitAll()
 
+                        // Log de buscas lentas traz o texto pesquisado (pode conter nomes): somente ADMIN
+                        .requestMatchers("/actuator/slowqueries/**", "/actuator/slowqueries").hasRole("ADMIN")
+
                         // Actuator público
                         .requestMatchers("/actuator/**").permitAll()
 
@@ -71,8 +76,16 @@ public class SecurityConfig {
                         // USUÁRIOS (CRIAR) - somente ADMIN
                         .requestMatchers(POST, "/api/usuarios").hasRole("ADMIN")
 
+                        // Administração da busca (reconciliação do índice) - somente ADMIN
+                        .requestMatchers("/api/equipments/search/admin/**").hasRole("ADMIN")
+
+                        // Buscas salvas são pessoais: qualquer autenticado gerencia as suas
+                        .requestMatchers("/api/equipments/search/saved/**", "/api/equipments/search/saved").authenticated()
+
                         // EQUIPMENTS
                         .requestMatchers(DELETE, "/api/equipments/**").hasRole("ADMIN")
+                        // Consulta em lote (POST só pelo tamanho do corpo): mesma regra da leitura
+                        .requestMatchers(POST, "/api/equipments/lookup").hasAnyRole("ADMIN", "GESTOR_TI", "USUARIO", "ANALISTA_TI")
                         .requestMatchers(POST, "/api/equipments/**").hasAnyRole("ADMIN", "GESTOR_TI", "ANALISTA_TI")
                         .requestMatchers(PUT, "/api/equipments/**").hasAnyRole("ADMIN", "GESTOR_TI")
                         .requestMatchers(GET, "/api/equipments/**").hasAnyRole("ADMIN", "GESTOR_TI", "USUARIO", "ANALISTA_TI")
@@ -128,7 +141,7 @@ public class SecurityConfig {
         // ✅ Ajuste mínimo e mais robusto para não falhar preflight por header inesperado
         config.setAllowedHeaders(List.of("*"));
 
-        config.setExposedHeaders(List.of("Authorization", "Content-Disposition"));
+        config.setExposedHeaders(List.of("Authorization", "Content-Disposition", "X-Search-Degraded"));
 
         // JWT via Authorization header (sem cookies)
         config.setAllowCredentials(false);
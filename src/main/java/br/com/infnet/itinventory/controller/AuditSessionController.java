@@ -0,0 +1,44 @@
+package br.com.infnet.itinventory.controller;
+
+import br.com.infnet.itinventory.dto.AuditReportDTO;
+import br.com.infnet.itinventory.dto.AuditSessionCreateRequest;
+import br.com.infnet.itinventory.dto.EquipmentLookupRequest;
+import br.com.infnet.itinventory.service.AuditSessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Contagem física: abrir para um conjunto de localizações, enviar leituras em lotes, ver/encerrar.
+ */
+@RestController
+@RequestMapping("/api/equipments/audits")
+@RequiredArgsConstructor
+public class AuditSessionController {
+
+    private final AuditSessionService auditService;
+
+    @PostMapping
+    public ResponseEntity<AuditReportDTO> open(@RequestBody AuditSessionCreateRequest body) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(auditService.open(body.getLocations()));
+    }
+
+    /**
+     * Lote de leituras: {"ids":[...],"assetNumbers":[...]} (mesmo formato de /api/equipments/lookup).
+     */
+    @PostMapping("/{id}/scans")
+    public AuditReportDTO scan(@PathVariable String id, @RequestBody EquipmentLookupRequest scans) {
+        return auditService.scan(id, scans);
+    }
+
+    @GetMapping("/{id}")
+    public AuditReportDTO report(@PathVariable String id) {
+        return auditService.report(id);
+    }
+
+    @PostMapping("/{id}/close")
+    public AuditReportDTO close(@PathVariable String id) {
+        return auditService.close(id);
+    }
+}
@@ -6,9 +6,14 @@ import org.springframework.http.MediaType;
 import java.nio.charset.StandardCharsets;
 import java.util.stream.Collectors;
 
+import br.com.infnet.itinventory.dto.EquipmentChangesDTO;
+import br.com.infnet.itinventory.dto.EquipmentLookupRequest;
 import br.com.infnet.itinventory.dto.EquipmentRequestDTO;
 import br.com.infnet.itinventory.dto.EquipmentResponseDTO;
 import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.service.AssetNumberAllocator;
+import br.com.infnet.itinventory.service.EquipmentChangeLog;
+import br.com.infnet.itinventory.service.EquipmentLookupService;
 import br.com.infnet.itinventory.service.EquipmentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +21,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/equipments")
@@ -23,6 +33,10 @@ import org.springframework.web.bind.annotation.*;
 public class EquipmentController {
 
     private final EquipmentService service;
+    private final EquipmentLookupService lookupService;
+    private final EquipmentChangeLog changeLog;
+    private final AssetNumberAllocator assetNumberAllocator;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public Page<EquipmentResponseDTO> findAll(
@@ -34,6 +48,25 @@ public class EquipmentController {
         return service.list(page, size).map(this::toResponseDTO);
     }
 
+    /**
+     * Sincronização incremental: /api/equipments/changes?since=<nextToken anterior>&limit=500.
+     * Sem "since" = desde o início. Repetir com o nextToken enquanto hasMore; reset=true = refazer a carga.
+     */
+    @GetMapping("/changes")
+    public EquipmentChangesDTO changes(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") Integer limit
+    ) {
+        EquipmentChangeLog.Changes changes = changeLog.since(since, limit);
+        return new EquipmentChangesDTO(
+                changes.equipments().stream().map(this::toResponseDTO).toList(),
+                changes.deleted(),
+                changes.nextToken(),
+                changes.hasMore(),
+                changes.reset()
+        );
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<EquipmentResponseDTO> getById(@PathVariable Long id) {
         Equipment equipment = service.seekOrFail(id);
@@ -42,10 +75,38 @@ public class EquipmentController {
 
     @PostMapping
     public ResponseEntity<EquipmentResponseDTO> create(@Valid @RequestBody EquipmentRequestDTO dto) {
-        Equipment saved = service.save(toEntity(dto));
+        Equipment equipment = toEntity(dto);
+        // Sem assetNumber: próximo livre de assetPrefix, reservado antes de abrir a transação do cadastro
+        if (isBlank(equipment.getAssetNumber()) && !isBlank(dto.getAssetPrefix())) {
+            equipment.setAssetNumber(assetNumberAllocator.next(dto.getAssetPrefix()));
+        }
+        Equipment saved = service.save(equipment);
         return ResponseEntity.status(HttpStatus.CREATED).body(toResponseDTO(saved));
     }
 
+    /**
+     * Lote do coletor: {"ids":[...],"assetNumbers":[...]} -> {"found":[...],"notFound":[...]}.
+     * "found" é escrito à medida que cada bloco IN volta do banco.
+     */
+    @PostMapping(value = "/lookup", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> lookup(@RequestBody EquipmentLookupRequest request) {
+        lookupService.validate(request);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeName("found");
+                json.writeStartArray();
+                List<String> notFound = lookupService.lookup(request, e -> json.writePOJO(toResponseDTO(e)));
+                json.writeEndArray();
+                json.writeName("notFound");
+                json.writePOJO(notFound);
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<EquipmentResponseDTO> update(
             @PathVariable Long id,
@@ -125,6 +186,10 @@ public class EquipmentController {
                 .body(bytes);
     }
 
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
     private String safe(Object v) {
         if (v == null) return "";
         String s = v.toString();
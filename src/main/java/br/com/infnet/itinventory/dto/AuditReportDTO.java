@@ -0,0 +1,40 @@
+package br.com.infnet.itinventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Situação da contagem: ids encontrados (esperados e lidos), faltantes (esperados e não lidos)
+ * e inesperados (lidos, mas cadastrados em outra localização). "unknown" = leituras sem cadastro.
+ * Na resposta de cada lote de leituras vão só as contagens (listas omitidas).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditReportDTO {
+
+    private String sessionId;
+    private List<String> locations;
+    private Instant openedAt;
+    private boolean closed;
+
+    private int expectedCount;
+    private int scannedCount;
+    private int foundCount;
+    private int missingCount;
+    private int unexpectedCount;
+    private int unknownCount;
+
+    private List<Long> found;
+    private List<Long> missing;
+    private List<Long> unexpected;
+    private List<String> unknown;
+}
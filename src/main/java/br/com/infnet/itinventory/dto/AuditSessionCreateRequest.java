@@ -0,0 +1,20 @@
+package br.com.infnet.itinventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Abertura de contagem física: localizações exatamente como em equipment.location.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditSessionCreateRequest {
+
+    private List<String> locations;
+}
@@ -0,0 +1,25 @@
+package br.com.infnet.itinventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página da sincronização incremental: criados/alterados, ids excluídos e o token para continuar.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EquipmentChangesDTO {
+
+    private List<EquipmentResponseDTO> items;
+    private List<Long> deleted;
+    private String nextToken;
+    private boolean hasMore;
+    // true = token anterior ao expurgo das exclusões: apagar a base local e sincronizar de novo
+    private boolean reset;
+}
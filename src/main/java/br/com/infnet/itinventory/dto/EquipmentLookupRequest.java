@@ -0,0 +1,22 @@
+package br.com.infnet.itinventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Lote de leituras do coletor: ids e/ou números de patrimônio (INV-13, inv-00013...).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EquipmentLookupRequest {
+
+    private List<Long> ids;
+
+    private List<String> assetNumbers;
+}
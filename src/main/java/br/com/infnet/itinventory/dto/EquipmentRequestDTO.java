@@ -31,7 +31,7 @@ public class EquipmentRequestDTO {
         @Pattern(regexp = "^[^<>]*$", message = "O campo não pode conter os caracteres '<' e '>'.")
         private String model;
 
-        @NotBlank(message = "O número de patrimônio (assetNumber) é obrigatório.")
+        // Opcional no POST quando assetPrefix é informado (patrimônio gerado no servidor)
         @Size(max = 9, message = "O número de patrimônio deve ter no máximo 9 caracteres (ex.: INV-00123).")
         @Pattern(
                 regexp = "^[A-Z]{3}-\\d{5}$",
@@ -40,6 +40,9 @@ public class EquipmentRequestDTO {
                 message = "O número de patrimônio deve seguir o formato XXX-00000 (ex.: AAA-00123).")
         private String assetNumber;
 
+        @Pattern(regexp = "^[A-Z]{3}$", message = "O prefixo do patrimônio deve ter 3 letras maiúsculas (ex.: INV).")
+        private String assetPrefix;
+
         @NotNull(message = "O status é obrigatório.")
         private EquipmentStatus status;
 
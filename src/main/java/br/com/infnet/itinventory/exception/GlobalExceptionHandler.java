@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -65,6 +66,22 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(SearchUnavailableException.class)
+    public ResponseEntity<ApiError> handleSearchUnavailable(SearchUnavailableException ex, HttpServletRequest req) {
+        log.warn("Busca indisponível. path={}, message={}", safePath(req), safeMessage(ex.getMessage()));
+        return build(HttpStatus.SERVICE_UNAVAILABLE, "Busca indisponível", ex.getMessage(), req);
+    }
+
+    /**
+     * Constraint do banco (ex.: unique de asset_number) violada por gravações concorrentes
+     * que passaram juntas pela validação em memória.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiError> handleDataIntegrity(DataIntegrityViolationException ex, HttpServletRequest req) {
+        log.info("Violação de integridade. path={}, cause={}", safePath(req), safeMessage(ex.getMostSpecificCause().getMessage()));
+        return build(HttpStatus.CONFLICT, "Conflito de dados", "Registro conflita com outro já existente (ex.: assetNumber duplicado).", req);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiError> handleIllegalArgument(IllegalArgumentException ex, HttpServletRequest req) {
         log.info("Requisição inválida. path={}, message={}", safePath(req), safeMessage(ex.getMessage()));
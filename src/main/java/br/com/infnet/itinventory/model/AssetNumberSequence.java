@@ -0,0 +1,30 @@
+package br.com.infnet.itinventory.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Próximo número livre por prefixo de patrimônio (hi/lo): cada instância reserva um bloco
+ * [nextValue, nextValue + bloco) sob lock da linha e numera em memória.
+ */
+@NoArgsConstructor
+@Setter
+@Getter
+@Entity
+@Table(name = "asset_number_sequence")
+public class AssetNumberSequence {
+
+    @Id
+    @Column(name = "prefix", length = 3)
+    private String prefix; // INV
+
+    @Column(name = "next_value", nullable = false)
+    private Integer nextValue;
+
+    public AssetNumberSequence(String prefix, Integer nextValue) {
+        this.prefix = prefix;
+        this.nextValue = nextValue;
+    }
+}
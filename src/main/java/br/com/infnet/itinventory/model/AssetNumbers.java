@@ -0,0 +1,101 @@
+package br.com.infnet.itinventory.model;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Formato do número de patrimônio: AAA-99999 (prefixo de 3 letras + até 5 dígitos).
+ * Aceita INV-13, INV-0013, INV-00013 etc. e normaliza sempre para INV-00013.
+ *
+ * {@link #pack} codifica o patrimônio em um int (prefixo base 26 * 100000 + número; máximo
+ * 1.757.599.999), sem alocar: a chave do {@link br.com.infnet.itinventory.service.AssetNumberRegistry}.
+ */
+public final class AssetNumbers {
+
+    private static final Pattern PATTERN = Pattern.compile("^[A-Z]{3}-\\d{1,5}$");
+
+    /** Retorno de {@link #pack} para valor fora do padrão. */
+    public static final int INVALID = -1;
+
+    private static final int NUMBERS_PER_PREFIX = 100_000;
+    private static final int MAX_PACKED = 26 * 26 * 26 * NUMBERS_PER_PREFIX - 1;
+
+    private AssetNumbers() {
+    }
+
+    /**
+     * true se o valor (após trim/maiúsculas) está no formato de patrimônio.
+     */
+    public static boolean matches(String value) {
+        return value != null && PATTERN.matcher(value.trim().toUpperCase(Locale.ROOT)).matches();
+    }
+
+    /**
+     * Forma canônica (5 dígitos). Fora do padrão devolve o valor em maiúsculas, sem alterar.
+     */
+    public static String normalize(String value) {
+        if (value == null) return null;
+
+        String s = value.trim().toUpperCase(Locale.ROOT);
+        if (!PATTERN.matcher(s).matches()) {
+            return s;
+        }
+
+        String prefix = s.substring(0, 3);
+        int num = Integer.parseInt(s.substring(4)); // remove zeros à esquerda
+        return prefix + "-" + String.format("%05d", num);
+    }
+
+    /**
+     * Patrimônio -> int (mesmas regras de {@link #normalize}: ignora espaços nas pontas, caixa e zeros
+     * à esquerda). {@link #INVALID} se fora do padrão. Não aloca: seguro no caminho quente.
+     */
+    public static int pack(CharSequence value) {
+        if (value == null) return INVALID;
+
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) end--;
+        if (end - start < 5 || end - start > 9) return INVALID;
+
+        int prefix = 0;
+        for (int i = start; i < start + 3; i++) {
+            char c = value.charAt(i);
+            if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+            if (c < 'A' || c > 'Z') return INVALID;
+            prefix = prefix * 26 + (c - 'A');
+        }
+        if (value.charAt(start + 3) != '-') return INVALID;
+
+        int num = 0;
+        for (int i = start + 4; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return INVALID;
+            num = num * 10 + (c - '0');
+        }
+        return prefix * NUMBERS_PER_PREFIX + num;
+    }
+
+    /**
+     * Inverso de {@link #pack}: forma canônica (INV-00013).
+     */
+    public static String unpack(int packed) {
+        if (packed < 0 || packed > MAX_PACKED) {
+            throw new IllegalArgumentException("Patrimônio codificado inválido: " + packed);
+        }
+        int prefix = packed / NUMBERS_PER_PREFIX;
+        int num = packed % NUMBERS_PER_PREFIX;
+
+        char[] out = new char[9];
+        out[0] = (char) ('A' + prefix / (26 * 26));
+        out[1] = (char) ('A' + prefix / 26 % 26);
+        out[2] = (char) ('A' + prefix % 26);
+        out[3] = '-';
+        for (int i = 8; i >= 4; i--) {
+            out[i] = (char) ('0' + num % 10);
+            num /= 10;
+        }
+        return new String(out);
+    }
+}
@@ -51,22 +51,26 @@ public class Equipment {
     @Column(name = "acquisition_value", precision = 15, scale = 2)
     private BigDecimal acquisitionValue;
 
-    @PrePersist
-    @PreUpdate
-    private void normalizeAssetNumber() {
-        if (assetNumber == null) return;
+    // Referências (só ids; os nomes vão para o índice de busca via ReferenceNameCache)
+    @Column(name = "id_categoria")
+    private Long categoriaId;
 
-        String s = assetNumber.trim().toUpperCase();
+    @Column(name = "id_filial_atual")
+    private Long filialAtualId;
 
-        // aceita AAA-1..AAA-99999
-        if (!s.matches("^[A-Z]{3}-\\d{1,5}$")) {
-            return; // deixa o Bean Validation tratar se estiver inválido
-        }
+    @Column(name = "id_fornecedor")
+    private Long fornecedorId;
 
-        String prefix = s.substring(0, 3);
-        String digits = s.substring(4);
+    // Número da última alteração feita pela API (EquipmentChangeLog); 0 = carga inicial/ETL
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
 
-        int n = Integer.parseInt(digits); // remove zeros à esquerda
-        this.assetNumber = prefix + "-" + String.format("%05d", n);
+    @PrePersist
+    @PreUpdate
+    private void normalizeAssetNumber() {
+        // fora do padrão AAA-1..AAA-99999 fica como está: o Bean Validation trata
+        if (AssetNumbers.matches(assetNumber)) {
+            this.assetNumber = AssetNumbers.normalize(assetNumber);
+        }
     }
 }
\ No newline at end of file
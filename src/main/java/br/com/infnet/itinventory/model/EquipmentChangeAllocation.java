@@ -0,0 +1,26 @@
+package br.com.infnet.itinventory.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Número de alteração reservado por uma gravação (AUTO_INCREMENT de equipment_change_log), com o instante
+ * da reserva no relógio do MySQL. Inserido na própria transação da gravação: rollback descarta a linha.
+ */
+@NoArgsConstructor
+@Getter
+@Entity
+@Table(name = "equipment_change_log")
+public class EquipmentChangeAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "allocated_em", nullable = false, insertable = false, updatable = false)
+    private Instant allocatedAt;
+}
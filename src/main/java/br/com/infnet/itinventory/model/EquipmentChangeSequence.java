@@ -0,0 +1,33 @@
+package br.com.infnet.itinventory.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Estado da sincronização incremental (linha id = 1): até onde as lápides já foram expurgadas.
+ * Os números de alteração saem de equipment_change_log ({@link EquipmentChangeAllocation}).
+ */
+@NoArgsConstructor
+@Setter
+@Getter
+@Entity
+@Table(name = "equipment_change_sequence")
+public class EquipmentChangeSequence {
+
+    public static final int ROW_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    // Lápides até este número já foram expurgadas: token anterior exige sincronização completa
+    @Column(name = "pruned_up_to", nullable = false)
+    private Long prunedUpTo;
+
+    public EquipmentChangeSequence(Integer id, Long prunedUpTo) {
+        this.id = id;
+        this.prunedUpTo = prunedUpTo;
+    }
+}
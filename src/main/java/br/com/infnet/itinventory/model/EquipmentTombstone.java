@@ -0,0 +1,35 @@
+package br.com.infnet.itinventory.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Registro de exclusão para a sincronização incremental: o cliente offline remove o id localmente.
+ */
+@NoArgsConstructor
+@Setter
+@Getter
+@Entity
+@Table(name = "equipment_tombstone")
+public class EquipmentTombstone {
+
+    @Id
+    @Column(name = "id_equipment")
+    private Long id;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_em", nullable = false)
+    private Instant deletedAt;
+
+    public EquipmentTombstone(Long id, Long changeSeq, Instant deletedAt) {
+        this.id = id;
+        this.changeSeq = changeSeq;
+        this.deletedAt = deletedAt;
+    }
+}
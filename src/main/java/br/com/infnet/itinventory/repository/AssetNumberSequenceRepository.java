@@ -0,0 +1,22 @@
+package br.com.infnet.itinventory.repository;
+
+import br.com.infnet.itinventory.model.AssetNumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface AssetNumberSequenceRepository extends JpaRepository<AssetNumberSequence, String> {
+
+    // SELECT ... FOR UPDATE: serializa a reserva de blocos entre instâncias
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AssetNumberSequence s where s.prefix = :prefix")
+    Optional<AssetNumberSequence> findForUpdate(@Param("prefix") String prefix);
+
+    // Patrimônios são gravados normalizados (5 dígitos): o maior em texto é o maior número
+    @Query("select max(e.assetNumber) from Equipment e where e.assetNumber like concat(:prefix, '-%')")
+    Optional<String> findMaxAssetNumber(@Param("prefix") String prefix);
+}
@@ -0,0 +1,35 @@
+package br.com.infnet.itinventory.repository;
+
+import br.com.infnet.itinventory.model.EquipmentChangeAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface EquipmentChangeAllocationRepository extends JpaRepository<EquipmentChangeAllocation, Long> {
+
+    // Só a linha nova fica travada (AUTO_INCREMENT não segura lock até o commit)
+    @Modifying
+    @Query(value = "INSERT INTO equipment_change_log (allocated_em) VALUES (NOW(3))", nativeQuery = true)
+    int allocate();
+
+    // Por conexão: o número do allocate() desta transação
+    @Query(value = "SELECT LAST_INSERT_ID()", nativeQuery = true)
+    long lastAllocated();
+
+    // Maior número reservado há mais de lagMillis (relógio do MySQL, o mesmo do allocated_em)
+    @Query(value = "SELECT MAX(seq) FROM equipment_change_log "
+            + "WHERE allocated_em <= TIMESTAMPADD(MICROSECOND, -1000 * :lagMillis, NOW(3))", nativeQuery = true)
+    Optional<Long> findHorizon(@Param("lagMillis") long lagMillis);
+
+    @Query("select max(a.seq) from EquipmentChangeAllocation a")
+    Optional<Long> findMaxSeq();
+
+    // Mantém a maior reserva: é ela que segura o horizonte quando não há gravações recentes
+    @Modifying
+    @Query("delete from EquipmentChangeAllocation a where a.allocatedAt < :before and a.seq < :keep")
+    int deleteAllocatedBefore(@Param("before") Instant before, @Param("keep") long keep);
+}
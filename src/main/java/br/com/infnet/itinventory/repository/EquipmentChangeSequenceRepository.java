@@ -0,0 +1,18 @@
+package br.com.infnet.itinventory.repository;
+
+import br.com.infnet.itinventory.model.EquipmentChangeSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface EquipmentChangeSequenceRepository extends JpaRepository<EquipmentChangeSequence, Integer> {
+
+    // SELECT ... FOR UPDATE: só no expurgo diário das lápides (gravações não passam por aqui)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from EquipmentChangeSequence s where s.id = :id")
+    Optional<EquipmentChangeSequence> findForUpdate(@Param("id") Integer id);
+}
@@ -1,12 +1,37 @@
 package br.com.infnet.itinventory.repository;
 
 import br.com.infnet.itinventory.model.Equipment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
 
     Optional<Equipment> findByAssetNumber(String assetNumber);
 
+    List<Equipment> findByAssetNumberIn(Collection<String> assetNumbers);
+
+    // Só os ids (idx_equipment_loc cobre): conjunto esperado de uma auditoria
+    @Query("select e.id from Equipment e where e.location in :locations")
+    List<Long> findIdsByLocationIn(@Param("locations") Collection<String> locations);
+
+    // Sincronização incremental: keyset (change_seq, id) depois da posição do token (idx_equipment_change_seq)
+    @Query("select e from Equipment e where e.changeSeq <= :horizon "
+            + "and (e.changeSeq > :seq or (e.changeSeq = :seq and e.id > :id)) "
+            + "order by e.changeSeq, e.id")
+    List<Equipment> findChangedAfter(@Param("seq") long seq, @Param("id") long id,
+                                     @Param("horizon") long horizon, Pageable pageable);
+
+    // SELECT ... FOR UPDATE: edições do mesmo equipamento reservam o change_seq uma depois da outra
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from Equipment e where e.id = :id")
+    Optional<Equipment> findForUpdate(@Param("id") Long id);
+
 
 }
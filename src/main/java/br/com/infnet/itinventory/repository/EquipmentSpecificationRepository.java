@@ -0,0 +1,11 @@
+package br.com.infnet.itinventory.repository;
+
+import br.com.infnet.itinventory.model.Equipment;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Consultas dinâmicas (Specification) sobre equipment, usadas pelo fallback da busca.
+ */
+public interface EquipmentSpecificationRepository extends Repository<Equipment, Long>, JpaSpecificationExecutor<Equipment> {
+}
@@ -0,0 +1,29 @@
+package br.com.infnet.itinventory.repository;
+
+import br.com.infnet.itinventory.model.EquipmentTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface EquipmentTombstoneRepository extends JpaRepository<EquipmentTombstone, Long> {
+
+    // Keyset (change_seq, id) depois da posição do token
+    @Query("select t from EquipmentTombstone t where t.changeSeq <= :horizon "
+            + "and (t.changeSeq > :seq or (t.changeSeq = :seq and t.id > :id)) "
+            + "order by t.changeSeq, t.id")
+    List<EquipmentTombstone> findChangedAfter(@Param("seq") long seq, @Param("id") long id,
+                                              @Param("horizon") long horizon, Pageable pageable);
+
+    @Query("select max(t.changeSeq) from EquipmentTombstone t where t.deletedAt < :before")
+    Optional<Long> findMaxChangeSeqDeletedBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from EquipmentTombstone t where t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,33 @@
+package br.com.infnet.itinventory.search.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Geração do índice de busca: incrementa a cada escrita aplicada pelo indexador.
+ * Caches de resultado carimbam suas entradas com a geração vigente e descartam as antigas.
+ */
+@Component
+public class IndexGeneration {
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long lastAdvanceNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    public long current() {
+        return generation.get();
+    }
+
+    public long advance() {
+        lastAdvanceNanos = System.nanoTime();
+        return generation.incrementAndGet();
+    }
+
+    /**
+     * true se a última escrita foi há mais de windowMillis — tempo para o refresh do ES
+     * tornar a escrita visível às buscas.
+     */
+    public boolean settled(long windowMillis) {
+        return System.nanoTime() - lastAdvanceNanos >= windowMillis * 1_000_000L;
+    }
+}
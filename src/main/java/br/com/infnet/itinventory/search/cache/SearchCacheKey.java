@@ -0,0 +1,119 @@
+package br.com.infnet.itinventory.search.cache;
+
+import br.com.infnet.itinventory.search.doc.EquipmentBrowseSort;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+
+import java.util.Locale;
+
+/**
+ * Chave canônica do cache de resultados.
+ * Variações irrelevantes (caixa, espaços extras, string vazia vs null) caem na mesma entrada.
+ * A busca enviada ao ES sai de {@link #toRequest()} (mesma forma canônica): chave e consulta nunca divergem.
+ * Caixa pode ser ignorada porque texto e filtros keyword do índice passam pelo lowercase_normalizer.
+ */
+public record SearchCacheKey(
+        String kind,
+        String texto,
+        String status,
+        String type,
+        String location,
+        String brand,
+        Double minValue,
+        Double maxValue,
+        String dateFrom,
+        String dateTo,
+        Long filialId,
+        String sort,
+        int page,
+        int size
+) {
+
+    public static SearchCacheKey text(String texto, int page, int size) {
+        return new SearchCacheKey("text", normalizeText(texto),
+                null, null, null, null, null, null, null, null, null, null, page, size);
+    }
+
+    public static SearchCacheKey advanced(EquipmentSearchRequest req, int page, int size) {
+        return advanced(req, null, page, size);
+    }
+
+    /**
+     * sort só diferencia a chave no modo navegação (sem texto); com texto a ordem é sempre por relevância.
+     */
+    public static SearchCacheKey advanced(EquipmentSearchRequest req, EquipmentBrowseSort sort, int page, int size) {
+        if (req == null) {
+            return new SearchCacheKey("advanced", null,
+                    null, null, null, null, null, null, null, null, null, sortKey(sort), page, size);
+        }
+        String texto = normalizeText(req.texto());
+
+        return new SearchCacheKey(
+                "advanced",
+                texto,
+                upper(req.status()),
+                upper(req.type()),
+                lower(req.location()),
+                lower(req.brand()),
+                req.minValue(),
+                req.maxValue(),
+                trim(req.dateFrom()),
+                trim(req.dateTo()),
+                req.filialId(),
+                texto == null ? sortKey(sort) : null,
+                page,
+                size
+        );
+    }
+
+    /**
+     * Forma canônica de uma busca avançada sem passar pelo cache (ex.: query do percolator).
+     */
+    public static EquipmentSearchRequest canonical(EquipmentSearchRequest req) {
+        return advanced(req, 0, 0).toRequest();
+    }
+
+    /**
+     * Busca avançada canônica da chave: é a que vai ao ES (e a usada no aquecimento do cache).
+     */
+    public EquipmentSearchRequest toRequest() {
+        return new EquipmentSearchRequest(texto, status, type, location, brand,
+                minValue, maxValue, dateFrom, dateTo, filialId);
+    }
+
+    /**
+     * Estimativa (em bytes) do espaço ocupado pela própria chave no heap.
+     */
+    long estimatedBytes() {
+        return 104 + chars(texto) + chars(status) + chars(type) + chars(location)
+                + chars(brand) + chars(dateFrom) + chars(dateTo) + chars(sort);
+    }
+
+    private static String sortKey(EquipmentBrowseSort sort) {
+        return (sort == null ? EquipmentBrowseSort.DEFAULT : sort).toString();
+    }
+
+    private static String normalizeText(String s) {
+        String t = trim(s);
+        return t == null ? null : t.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String lower(String s) {
+        String t = trim(s);
+        return t == null ? null : t.toLowerCase(Locale.ROOT);
+    }
+
+    private static String upper(String s) {
+        String t = trim(s);
+        return t == null ? null : t.toUpperCase(Locale.ROOT);
+    }
+
+    private static String trim(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+
+    private static long chars(String s) {
+        return s == null ? 0 : 40L + 2L * s.length();
+    }
+}
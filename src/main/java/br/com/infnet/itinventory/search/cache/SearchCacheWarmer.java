@@ -0,0 +1,134 @@
+package br.com.infnet.itinventory.search.cache;
+
+import br.com.infnet.itinventory.search.doc.EquipmentBrowseSort;
+import br.com.infnet.itinventory.search.service.EquipmentSearchService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aquecimento dos caches de busca após deploy/restart.
+ *
+ * No desligamento o {@link SearchQueryLog} é gravado em search.warmup.file; na subida as
+ * search.warmup.top-n buscas mais frequentes são repetidas contra o {@link EquipmentSearchService}
+ * antes de a readiness virar ACCEPTING_TRAFFIC (listeners de ApplicationReadyEvent rodam antes),
+ * enchendo o cache de resultados e os caches do próprio ES (filtros, páginas do disco).
+ * Tudo limitado por search.warmup.timeout-ms: aquecimento nunca impede a aplicação de subir.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class SearchCacheWarmer {
+
+    private static final TypeReference<List<SearchQueryLog.Entry>> ENTRIES = new TypeReference<>() {};
+
+    private final SearchQueryLog queryLog;
+    private final EquipmentSearchService searchService;
+    private final ObjectMapper elasticsearchObjectMapper;
+
+    @Value("${search.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.warmup.file:./data/search-query-log.json}")
+    private String file;
+
+    @Value("${search.warmup.top-n:50}")
+    private int topN;
+
+    @Value("${search.warmup.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) return;
+
+        List<SearchQueryLog.Entry> entries = load();
+        if (entries.isEmpty()) return;
+
+        List<SearchQueryLog.Entry> top = entries.size() <= topN ? entries : entries.subList(0, Math.max(0, topN));
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        int warmed = 0;
+        int failed = 0;
+
+        for (SearchQueryLog.Entry entry : top) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                log.info("Aquecimento da busca interrompido pelo tempo limite. timeoutMs={}", timeoutMillis);
+                break;
+            }
+            try {
+                replay(entry.key()).get(remaining, TimeUnit.NANOSECONDS);
+                warmed++;
+            } catch (Exception e) {
+                failed++;
+                log.debug("Busca de aquecimento falhou. chave={} Motivo={}", entry.key(), e.getMessage());
+            }
+        }
+
+        // As repetições acima também foram contadas: as contagens persistidas prevalecem
+        queryLog.restore(entries);
+
+        log.info("Cache de busca aquecido. buscas={} falhas={} ms={}",
+                warmed, failed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @PreDestroy
+    public void save() {
+        if (!enabled) return;
+
+        List<SearchQueryLog.Entry> entries = queryLog.snapshot();
+        if (entries.isEmpty()) return;
+
+        Path target = Path.of(file);
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            // Grava em arquivo temporário e troca: um desligamento no meio não deixa JSON truncado
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            elasticsearchObjectMapper.writeValue(tmp.toFile(), entries);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Log de buscas salvo para aquecimento. arquivo={} buscas={}", target, entries.size());
+        } catch (IOException e) {
+            log.warn("Falha ao salvar log de buscas. arquivo={} Motivo={}", target, e.getMessage());
+        }
+    }
+
+    private CompletableFuture<?> replay(SearchCacheKey key) {
+        if ("text".equals(key.kind())) {
+            return searchService.buscarPorTexto(key.texto(), key.page(), key.size());
+        }
+        return searchService.buscaAvancada(key.toRequest(), EquipmentBrowseSort.parse(key.sort()), key.page(), key.size());
+    }
+
+    private List<SearchQueryLog.Entry> load() {
+        Path source = Path.of(file);
+        if (!Files.isRegularFile(source)) return List.of();
+
+        try {
+            return elasticsearchObjectMapper.readValue(source.toFile(), ENTRIES);
+        } catch (IOException e) {
+            // Arquivo de outra versão/corrompido: sobe frio, será regravado no próximo desligamento
+            log.warn("Log de buscas ilegível; subindo sem aquecimento. arquivo={} Motivo={}", source, e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package br.com.infnet.itinventory.search.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Frequência das buscas recentes (chave já normalizada pelo {@link SearchCacheKey}), para aquecer
+ * os caches depois de um deploy.
+ *
+ * Limitado a search.warmup.log-capacity chaves: ao encher, o quarto menos frequente sai (buscas
+ * populares sobrevivem a qualquer volume de buscas inéditas). O envelhecimento é feito na recarga
+ * ({@link #restore}): a cada restart o histórico anterior passa a valer metade.
+ *
+ * {@link #record} roda em toda busca: contadores LongAdder num ConcurrentHashMap, sem lock global.
+ * A remoção do quarto menos frequente roda numa thread por vez; enquanto ela acontece, buscas inéditas
+ * das outras threads não são contadas (as já conhecidas seguem contando). O tamanho passa da capacidade
+ * no máximo por inserções simultâneas.
+ */
+@Component
+public class SearchQueryLog {
+
+    private final int capacity;
+    private final Map<SearchCacheKey, LongAdder> counts = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public SearchQueryLog(@Value("${search.warmup.log-capacity:1000}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void record(SearchCacheKey key) {
+        if (key == null) return;
+
+        LongAdder count = counts.get(key);
+        if (count == null) {
+            if (counts.size() >= capacity && !evictLeastFrequent()) {
+                return; // outra thread está removendo
+            }
+            count = counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * As n buscas mais frequentes, da mais para a menos.
+     */
+    public List<Entry> top(int n) {
+        List<Entry> all = snapshot();
+        return all.size() <= n ? all : List.copyOf(all.subList(0, Math.max(0, n)));
+    }
+
+    /**
+     * Todas as entradas, da mais para a menos frequente.
+     */
+    public List<Entry> snapshot() {
+        List<Entry> out = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> out.add(new Entry(key, count.sum())));
+        out.sort(Comparator.comparingLong(Entry::count).reversed());
+        return out;
+    }
+
+    /**
+     * Recarrega contagens persistidas pela metade (substitui as atuais das mesmas chaves), respeitando a capacidade.
+     */
+    public void restore(Collection<Entry> entries) {
+        for (Entry e : entries) {
+            if (e.key() == null || e.count() <= 0) continue;
+            if (!counts.containsKey(e.key()) && counts.size() >= capacity) continue;
+
+            LongAdder count = new LongAdder();
+            count.add(Math.max(1, e.count() / 2));
+            counts.put(e.key(), count);
+        }
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    // Em lote (a cada capacity/4 chaves novas) para não ordenar o mapa a cada busca inédita
+    private boolean evictLeastFrequent() {
+        if (!evicting.compareAndSet(false, true)) return false;
+        try {
+            List<Entry> byCount = snapshot();
+            int toRemove = Math.max(1, byCount.size() - capacity * 3 / 4);
+            for (int i = byCount.size() - 1; i >= 0 && toRemove > 0; i--, toRemove--) {
+                counts.remove(byCount.get(i).key());
+            }
+        } finally {
+            evicting.set(false);
+        }
+        return true;
+    }
+
+    public record Entry(SearchCacheKey key, long count) {}
+}
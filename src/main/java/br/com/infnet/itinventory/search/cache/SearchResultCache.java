@@ -0,0 +1,215 @@
+package br.com.infnet.itinventory.search.cache;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache em memória (LRU, limitado por bytes) dos resultados de busca.
+ *
+ * Cada entrada guarda a geração do índice lida ANTES da consulta ao ES;
+ * se o indexador escreveu desde então, a entrada é descartada no próximo acesso.
+ * Logo após uma escrita (dentro do refresh interval do ES) nada é guardado,
+ * pois a busca ainda pode não enxergar o documento recém-indexado.
+ * A geração só conhece as escritas desta instância (outras réplicas, ETL e update_by_query não a avançam):
+ * search.cache.ttl-ms limita por quanto tempo uma entrada pode ficar desatualizada por elas.
+ * EquipmentDoc é mutável: o cache guarda cópias próprias e cada get devolve cópias novas, então quem
+ * altera o resultado recebido não altera a entrada (nem o que outra requisição recebe).
+ */
+@Component
+public class SearchResultCache {
+
+    // Cabeçalho + 17 referências (compressed oops)
+    private static final long DOC_OVERHEAD_BYTES = 88;
+    private static final long ENTRY_OVERHEAD_BYTES = 64;
+    private static final long BOXED_BYTES = 16;       // Long, Double
+    private static final long LOCAL_DATE_BYTES = 24;
+
+    private final IndexGeneration indexGeneration;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long refreshWindowMillis;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<SearchCacheKey, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    @Autowired
+    public SearchResultCache(
+            IndexGeneration indexGeneration,
+            MeterRegistry meterRegistry,
+            @Value("${search.cache.enabled:true}") boolean enabled,
+            @Value("${search.cache.max-bytes:33554432}") long maxBytes,
+            @Value("${search.cache.refresh-window-ms:1000}") long refreshWindowMillis,
+            @Value("${search.cache.ttl-ms:60000}") long ttlMillis
+    ) {
+        this(indexGeneration, meterRegistry, enabled, maxBytes, refreshWindowMillis, ttlMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * ttlMillis 0 = sem expiração por tempo; clock injetável para os testes.
+     */
+    SearchResultCache(IndexGeneration indexGeneration, MeterRegistry meterRegistry, boolean enabled, long maxBytes,
+                      long refreshWindowMillis, long ttlMillis, LongSupplier clock) {
+        this.indexGeneration = indexGeneration;
+        this.enabled = enabled;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.refreshWindowMillis = Math.max(0, refreshWindowMillis);
+        this.ttlMillis = Math.max(0, ttlMillis);
+        this.clock = clock;
+
+        FunctionCounter.builder("search.cache.hits", this, SearchResultCache::hitCount)
+                .description("Buscas respondidas pelo cache de resultados")
+                .register(meterRegistry);
+        FunctionCounter.builder("search.cache.misses", this, SearchResultCache::missCount)
+                .description("Buscas que precisaram ir ao Elasticsearch")
+                .register(meterRegistry);
+        FunctionCounter.builder("search.cache.evictions", this, SearchResultCache::evictionCount)
+                .register(meterRegistry);
+        Gauge.builder("search.cache.hit.ratio", this, SearchResultCache::hitRatio)
+                .description("Proporção de acertos do cache de resultados")
+                .register(meterRegistry);
+        Gauge.builder("search.cache.size", this, SearchResultCache::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devolve o resultado em cache ou null (ausente, desabilitado, de geração antiga ou expirado).
+     */
+    public synchronized List<EquipmentDoc> get(SearchCacheKey key) {
+        if (!enabled) return null;
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        if (entry.generation != indexGeneration.current() || expired(entry)) {
+            entries.remove(key);
+            currentBytes -= entry.bytes;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return copyOf(entry.docs);
+    }
+
+    /**
+     * @param generation geração lida antes de executar a busca (evita carimbar como "nova" uma resposta antiga)
+     */
+    public synchronized void put(SearchCacheKey key, long generation, List<EquipmentDoc> docs) {
+        if (!enabled || docs == null) return;
+        if (generation != indexGeneration.current()) return; // índice mudou durante a busca
+        if (!indexGeneration.settled(refreshWindowMillis)) return; // escrita recente ainda não visível
+
+        long bytes = ENTRY_OVERHEAD_BYTES + key.estimatedBytes() + estimateBytes(docs);
+        if (bytes > maxBytes) return;
+
+        Entry previous = entries.put(key, new Entry(copyOf(docs), generation, bytes, clock.getAsLong()));
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        currentBytes += bytes;
+
+        evictIfNeeded();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long sizeInBytes() {
+        return currentBytes;
+    }
+
+    public synchronized double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    synchronized long hitCount() {
+        return hits;
+    }
+
+    synchronized long missCount() {
+        return misses;
+    }
+
+    synchronized long evictionCount() {
+        return evictions;
+    }
+
+    private boolean expired(Entry entry) {
+        return ttlMillis > 0 && clock.getAsLong() - entry.storedAt >= ttlMillis;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<SearchCacheKey, Entry>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            currentBytes -= eldest.bytes;
+            evictions++;
+        }
+    }
+
+    private static List<EquipmentDoc> copyOf(List<EquipmentDoc> docs) {
+        return docs.stream().map(d -> d.toBuilder().build()).toList();
+    }
+
+    /**
+     * Todos os campos do EquipmentDoc: strings, números (boxed) e a data.
+     */
+    private static long estimateBytes(List<EquipmentDoc> docs) {
+        long total = 16L + 8L * docs.size();
+        for (EquipmentDoc d : docs) {
+            total += DOC_OVERHEAD_BYTES
+                    + boxed(d.getIdEquipment())
+                    + chars(d.getAssetNumber())
+                    + chars(d.getType())
+                    + chars(d.getStatus())
+                    + chars(d.getBrand())
+                    + chars(d.getModel())
+                    + chars(d.getLocation())
+                    + chars(d.getResponsible())
+                    + (d.getAcquisitionDate() == null ? 0 : LOCAL_DATE_BYTES)
+                    + boxed(d.getAcquisitionValue())
+                    + boxed(d.getFilialAtualId())
+                    + chars(d.getFilialNome())
+                    + boxed(d.getFornecedorId())
+                    + chars(d.getFornecedorNome())
+                    + boxed(d.getCategoriaId())
+                    + chars(d.getCategoriaNome());
+        }
+        return total;
+    }
+
+    private static long chars(String s) {
+        return s == null ? 0 : 40L + 2L * s.length();
+    }
+
+    private static long boxed(Number n) {
+        return n == null ? 0 : BOXED_BYTES;
+    }
+
+    private record Entry(List<EquipmentDoc> docs, long generation, long bytes, long storedAt) {}
+}
@@ -1,5 +1,6 @@
 package br.com.infnet.itinventory.search.config;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
@@ -26,10 +27,40 @@ public class ElasticsearchClientConfig {
     @Value("${search.es.port:9200}")
     private int port;
 
+    // Pool de conexões do Apache HttpAsyncClient (padrão da lib: 30 total / 10 por rota)
+    @Value("${search.es.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${search.es.max-connections-per-route:100}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${search.es.connect-timeout-ms:1000}")
+    private int connectTimeoutMs;
+
+    @Value("${search.es.socket-timeout-ms:10000}")
+    private int socketTimeoutMs;
+
+    // Espera máxima por uma conexão livre no pool
+    @Value("${search.es.connection-request-timeout-ms:1000}")
+    private int connectionRequestTimeoutMs;
+
+    // gzip no corpo das requisições e Accept-Encoding nas respostas
+    @Value("${search.es.compression:true}")
+    private boolean compression;
+
     @Bean
     public RestClient restClient() {
         //  explicito o "http"
-        return RestClient.builder(new HttpHost(host, port, "http")).build();
+        return RestClient.builder(new HttpHost(host, port, "http"))
+                .setCompressionEnabled(compression)
+                .setRequestConfigCallback(rc -> rc
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setSocketTimeout(socketTimeoutMs)
+                        .setConnectionRequestTimeout(connectionRequestTimeoutMs))
+                .setHttpClientConfigCallback(hc -> hc
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnectionsPerRoute))
+                .build();
     }
 
     // ESTE BEAN resolve com.fasterxml ObjectMapper
@@ -50,4 +81,10 @@ public class ElasticsearchClientConfig {
     public ElasticsearchClient elasticsearchClient(ElasticsearchTransport transport) {
         return new ElasticsearchClient(transport);
     }
-}
\ No newline at end of file
+
+    // Mesmo transport (mesmo pool); as respostas chegam nas threads de I/O do RestClient, sem bloquear threads da web
+    @Bean
+    public ElasticsearchAsyncClient elasticsearchAsyncClient(ElasticsearchTransport transport) {
+        return new ElasticsearchAsyncClient(transport);
+    }
+}
@@ -1,24 +1,40 @@
 package br.com.infnet.itinventory.search.config;
 
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @EnableAsync
+@EnableScheduling
 @Configuration
 public class SearchAsyncConfig {
 
     @Bean(name = "searchExecutor")
-    public Executor searchExecutor() {
+    public ThreadPoolTaskExecutor searchExecutor(MeterRegistry meterRegistry) {
         ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
         ex.setCorePoolSize(2);
         ex.setMaxPoolSize(4);
         ex.setQueueCapacity(500);
         ex.setThreadNamePrefix("search-index-");
+
+        // Fila cheia: rejeita; o listener conta e marca o id para nova tentativa
+        ex.setRejectedExecutionHandler((task, pool) -> {
+            throw new RejectedExecutionException("Fila de indexação cheia (" + pool.getQueue().size() + " tarefas).");
+        });
         ex.initialize();
+
+        Gauge.builder("search.index.executor.queued", ex, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Eventos de indexação aguardando na fila")
+                .register(meterRegistry);
+        Gauge.builder("search.index.executor.active", ex, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Workers de indexação ocupados")
+                .register(meterRegistry);
         return ex;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package br.com.infnet.itinventory.search.controller;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.dto.EquipmentSuggestion;
+import br.com.infnet.itinventory.search.embedded.EmbeddedEquipmentSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+/**
+ * Mesmos endpoints de busca do EquipmentSearchController, atendidos pelo índice embutido
+ * quando search.es.enabled=false.
+ */
+@ConditionalOnExpression("!${search.es.enabled:false} && ${search.embedded.enabled:true}")
+@RestController
+@RequestMapping("/api/equipments/search")
+@RequiredArgsConstructor
+public class EmbeddedEquipmentSearchController {
+
+    private final EmbeddedEquipmentSearchService searchService;
+
+    /**
+     * Busca simples: /api/equipments/search/search?q=DELL&page=0&size=10
+     */
+    @GetMapping("/search")
+    public List<EquipmentDoc> search(
+            @RequestParam("q") String q,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(defaultValue = "10") Integer size
+    ) {
+        return searchService.buscarPorTexto(q, page, size);
+    }
+
+    /**
+     * Autocomplete: /api/equipments/search/suggest?q=INV-000&size=8
+     */
+    @GetMapping("/suggest")
+    public List<EquipmentSuggestion> suggest(
+            @RequestParam("q") String q,
+            @RequestParam(defaultValue = "8") Integer size
+    ) {
+        return searchService.sugerir(q, size);
+    }
+
+    /**
+     * Busca avançada: /api/equipments/search/search/advanced?page=0&size=10
+     */
+    @PostMapping("/search/advanced")
+    public List<EquipmentDoc> advanced(
+            @RequestBody EquipmentSearchRequest req,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(defaultValue = "10") Integer size
+    ) {
+        return searchService.buscaAvancada(req, page, size);
+    }
+}
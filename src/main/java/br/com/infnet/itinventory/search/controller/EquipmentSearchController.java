@@ -1,13 +1,24 @@
 package br.com.infnet.itinventory.search.controller;
 
 import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.doc.EquipmentBrowseSort;
+import br.com.infnet.itinventory.search.doc.EquipmentSourceFields;
+import br.com.infnet.itinventory.search.dto.EquipmentBatchResult;
+import br.com.infnet.itinventory.search.dto.EquipmentFacetedResult;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchHit;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchPage;
 import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.dto.EquipmentSuggestion;
+import br.com.infnet.itinventory.search.resilience.EquipmentSearchFallback;
+import br.com.infnet.itinventory.search.resilience.GuardedResult;
+import br.com.infnet.itinventory.search.resilience.SearchGuard;
 import br.com.infnet.itinventory.search.service.EquipmentSearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
 @RestController
@@ -15,30 +26,180 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EquipmentSearchController {
 
+    static final String DEGRADED_HEADER = "X-Search-Degraded";
+
     private final EquipmentSearchService searchService;
+    private final EquipmentSearchFallback fallback;
+    private final SearchGuard guard;
 
     /**
      * Busca simples para front: /api/equipments/search?q=DELL&page=0&size=10
      */
     @GetMapping("/search")
-    public List<EquipmentDoc> search(
+    public CompletableFuture<ResponseEntity<List<EquipmentDoc>>> search(
             @RequestParam("q") String q,
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(defaultValue = "10") Integer size
-    ) throws IOException {
-        return searchService.buscarPorTexto(q, page, size);
+    ) {
+        return guard.execute(
+                () -> searchService.buscarPorTexto(q, page, size),
+                () -> fallback.buscarPorTexto(q, page, size)
+        ).thenApply(EquipmentSearchController::toResponse);
+    }
+
+    /**
+     * Busca simples com score/highlight e campos sob demanda:
+     * /api/equipments/search/search/hits?q=DELL&fields=id,assetNumber,brand,model,status&highlight=true
+     * Sem "fields": id, assetNumber, brand, model e status.
+     */
+    @GetMapping("/search/hits")
+    public CompletableFuture<ResponseEntity<List<EquipmentSearchHit>>> searchHits(
+            @RequestParam("q") String q,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean highlight
+    ) {
+        List<String> source = EquipmentSourceFields.parse(fields);
+        return guard.execute(
+                () -> searchService.buscarPorTextoHits(q, page, size, source, highlight),
+                () -> unscoredHits(fallback.buscarPorTexto(q, page, size), source)
+        ).thenApply(EquipmentSearchController::toResponse);
+    }
+
+    /**
+     * Autocomplete do campo de busca: /api/equipments/search/suggest?q=INV-000&size=8
+     * Máximo de 10 itens, somente id, assetNumber, brand, model e responsible.
+     */
+    @GetMapping("/suggest")
+    public List<EquipmentSuggestion> suggest(
+            @RequestParam("q") String q,
+            @RequestParam(defaultValue = "8") Integer size
+    ) {
+        return guard.call(() -> searchService.sugerir(q, size));
     }
 
     /**
      * Busca avançada para front: /api/equipments/search/advanced?page=0&size=10
      * Body (JSON): { "texto": "dell", "status": "ATIVO", "type": "NOTEBOOK", ... }
+     * Sem texto (navegação): &sort=acquisitionDate|acquisitionValue|assetNumber[,asc|desc] (padrão acquisitionDate,desc).
      */
     @PostMapping("/search/advanced")
-    public List<EquipmentDoc> advanced(
+    public CompletableFuture<ResponseEntity<List<EquipmentDoc>>> advanced(
             @RequestBody EquipmentSearchRequest req,
             @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String sort
+    ) {
+        EquipmentBrowseSort browseSort = EquipmentBrowseSort.parse(sort);
+        return guard.execute(
+                () -> searchService.buscaAvancada(req, browseSort, page, size),
+                () -> fallback.buscaAvancada(req, browseSort, page, size)
+        ).thenApply(EquipmentSearchController::toResponse);
+    }
+
+    /**
+     * Busca avançada com score/highlight e campos sob demanda:
+     * /api/equipments/search/search/advanced/hits?fields=id,assetNumber,status&highlight=false
+     */
+    @PostMapping("/search/advanced/hits")
+    public CompletableFuture<ResponseEntity<List<EquipmentSearchHit>>> advancedHits(
+            @RequestBody EquipmentSearchRequest req,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean highlight,
+            @RequestParam(required = false) String sort
+    ) {
+        List<String> source = EquipmentSourceFields.parse(fields);
+        EquipmentBrowseSort browseSort = EquipmentBrowseSort.parse(sort);
+        return guard.execute(
+                () -> searchService.buscaAvancadaHits(req, browseSort, page, size, source, highlight),
+                () -> unscoredHits(fallback.buscaAvancada(req, browseSort, page, size), source)
+        ).thenApply(EquipmentSearchController::toResponse);
+    }
+
+    /**
+     * Busca em lote (um único _msearch): /api/equipments/search/batch?size=5
+     * Body (JSON): [ { "status": "EM_MANUTENCAO" }, { "texto": "dell", "type": "NOTEBOOK" } ]
+     * Resposta na mesma ordem; erro de uma consulta não derruba as outras.
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<EquipmentBatchResult>>> batch(
+            @RequestBody List<EquipmentSearchRequest> reqs,
+            @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(defaultValue = "10") Integer size
-    ) throws IOException {
-        return searchService.buscaAvancada(req, page, size);
+    ) {
+        EquipmentSearchService.validarLote(reqs);
+        return guard.execute(
+                () -> searchService.buscaEmLote(reqs, page, size),
+                () -> reqs.stream().map(r -> fallbackBatchItem(r, page, size)).toList()
+        ).thenApply(EquipmentSearchController::toResponse);
+    }
+
+    /**
+     * Busca avançada com facetas: /api/equipments/search/search/advanced/facets?page=0&size=10
+     * Retorna hits + total + contagens por status/type/location/brand e histogramas de valor/data.
+     */
+    @PostMapping("/search/advanced/facets")
+    public EquipmentFacetedResult advancedWithFacets(
+            @RequestBody EquipmentSearchRequest req,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(defaultValue = "1000") Double valueInterval,
+            @RequestParam(defaultValue = "year") String dateInterval
+    ) {
+        return guard.call(() -> searchService.buscaAvancadaComFacetas(req, page, size, valueInterval, dateInterval));
+    }
+
+    /**
+     * Busca simples por cursor (paginação profunda): /api/equipments/search/search/scroll?q=DELL&size=50
+     * Próximas páginas: repetir a chamada com &cursor={nextCursor} até nextCursor == null.
+     */
+    @GetMapping("/search/scroll")
+    public EquipmentSearchPage searchScroll(
+            @RequestParam("q") String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") Integer size
+    ) {
+        return guard.call(() -> searchService.buscarPorTextoCursor(q, cursor, size));
+    }
+
+    /**
+     * Busca avançada por cursor: /api/equipments/search/search/advanced/scroll?size=50&cursor=...
+     * Body (JSON): o mesmo da busca avançada, reenviado a cada página.
+     */
+    @PostMapping("/search/advanced/scroll")
+    public EquipmentSearchPage advancedScroll(
+            @RequestBody EquipmentSearchRequest req,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") Integer size
+    ) {
+        return guard.call(() -> searchService.buscaAvancadaCursor(req, cursor, size));
+    }
+
+    private EquipmentBatchResult fallbackBatchItem(EquipmentSearchRequest req, int page, int size) {
+        try {
+            return EquipmentBatchResult.ok(fallback.buscaAvancada(req, page, size));
+        } catch (IllegalArgumentException e) {
+            return EquipmentBatchResult.failed(e.getMessage());
+        }
+    }
+
+    private static List<EquipmentSearchHit> unscoredHits(List<EquipmentDoc> docs, List<String> fields) {
+        return docs.stream()
+                .map(d -> new EquipmentSearchHit(d.getIdEquipment(), null, EquipmentSourceFields.project(d, fields), null))
+                .toList();
+    }
+
+    /**
+     * Resposta vinda do fallback (MySQL) é marcada com X-Search-Degraded: true.
+     */
+    private static <T> ResponseEntity<T> toResponse(GuardedResult<T> result) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (result.degraded()) {
+            ok.header(DEGRADED_HEADER, "true");
+        }
+        return ok.body(result.value());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package br.com.infnet.itinventory.search.controller;
+
+import br.com.infnet.itinventory.search.saved.SavedSearch;
+import br.com.infnet.itinventory.search.saved.SavedSearchCreateRequest;
+import br.com.infnet.itinventory.search.saved.SavedSearchNotifier;
+import br.com.infnet.itinventory.search.saved.SavedSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+@RestController
+@RequestMapping("/api/equipments/search/saved")
+@RequiredArgsConstructor
+public class SavedSearchController {
+
+    private final SavedSearchService savedSearchService;
+    private final SavedSearchNotifier notifier;
+
+    /**
+     * Salva uma busca avançada: {"name": "Servidores em manutenção - Matriz", "request": {...}}
+     */
+    @PostMapping
+    public ResponseEntity<SavedSearch> create(Authentication authentication, @RequestBody SavedSearchCreateRequest body)
+            throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedSearchService.create(owner(authentication), body));
+    }
+
+    @GetMapping
+    public List<SavedSearch> list(Authentication authentication) throws IOException {
+        return savedSearchService.list(owner(authentication));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(Authentication authentication, @PathVariable String id) throws IOException {
+        savedSearchService.delete(owner(authentication), id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Alertas em tempo real (SSE): evento "saved-search-match" sempre que um equipamento
+     * criado/alterado satisfaz uma das buscas salvas do usuário.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication authentication) {
+        return notifier.subscribe(owner(authentication));
+    }
+
+    private static String owner(Authentication authentication) {
+        if (authentication == null || authentication.getPrincipal() == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Principal inválido");
+        }
+        return authentication.getPrincipal().toString();
+    }
+}
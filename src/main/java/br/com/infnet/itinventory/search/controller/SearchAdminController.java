@@ -0,0 +1,26 @@
+package br.com.infnet.itinventory.search.controller;
+
+import br.com.infnet.itinventory.search.reconcile.EquipmentIndexReconciler;
+import br.com.infnet.itinventory.search.reconcile.ReconciliationReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+@RestController
+@RequestMapping("/api/equipments/search/admin")
+@RequiredArgsConstructor
+public class SearchAdminController {
+
+    private final EquipmentIndexReconciler reconciler;
+
+    /**
+     * Reconciliação sob demanda (além da agendada): /api/equipments/search/admin/reconcile
+     * Compara checksums por faixa de ids e repara só o que divergiu.
+     */
+    @PostMapping("/reconcile")
+    public ReconciliationReport reconcile() throws IOException {
+        return reconciler.reconcile();
+    }
+}
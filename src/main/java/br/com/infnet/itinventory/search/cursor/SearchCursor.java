@@ -0,0 +1,101 @@
+package br.com.infnet.itinventory.search.cursor;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Token de continuação da busca paginada por cursor (point-in-time + search_after).
+ * O front trata o valor como opaco: apenas devolve o "nextCursor" recebido.
+ */
+public record SearchCursor(String pitId, List<FieldValue> searchAfter) {
+
+    private static final byte VERSION = 1;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_LONG = 1;
+    private static final byte T_DOUBLE = 2;
+    private static final byte T_STRING = 3;
+    private static final byte T_BOOLEAN = 4;
+
+    public String encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeByte(VERSION);
+            out.writeUTF(pitId);
+            out.writeShort(searchAfter.size());
+
+            for (FieldValue v : searchAfter) {
+                switch (v._kind()) {
+                    case Long -> {
+                        out.writeByte(T_LONG);
+                        out.writeLong(v.longValue());
+                    }
+                    case Double -> {
+                        out.writeByte(T_DOUBLE);
+                        out.writeDouble(v.doubleValue());
+                    }
+                    case String -> {
+                        out.writeByte(T_STRING);
+                        out.writeUTF(v.stringValue());
+                    }
+                    case Boolean -> {
+                        out.writeByte(T_BOOLEAN);
+                        out.writeBoolean(v.booleanValue());
+                    }
+                    default -> out.writeByte(T_NULL);
+                }
+            }
+
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            // ByteArrayOutputStream não lança IOException na prática
+            throw new IllegalStateException("Falha ao gerar cursor de busca.", e);
+        }
+    }
+
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Cursor de busca não informado.");
+        }
+
+        try {
+            byte[] raw = Base64.getUrlDecoder().decode(token.trim());
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Cursor de busca inválido.");
+            }
+
+            String pitId = in.readUTF();
+            int count = in.readShort();
+            List<FieldValue> values = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                byte type = in.readByte();
+                values.add(switch (type) {
+                    case T_LONG -> FieldValue.of(in.readLong());
+                    case T_DOUBLE -> FieldValue.of(in.readDouble());
+                    case T_STRING -> FieldValue.of(in.readUTF());
+                    case T_BOOLEAN -> FieldValue.of(in.readBoolean());
+                    case T_NULL -> FieldValue.NULL;
+                    default -> throw new IllegalArgumentException("Cursor de busca inválido.");
+                });
+            }
+
+            return new SearchCursor(pitId, values);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de busca inválido.", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.infnet.itinventory.search.doc;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ordenação do modo navegação (busca avançada sem texto): um campo com doc values + direção.
+ *
+ * Parâmetro "sort": "acquisitionDate", "acquisitionValue,asc", "assetNumber,desc"...
+ * Vazio/null = acquisitionDate desc, a mesma ordem do index sorting (o ES encerra a coleta
+ * de cada segmento assim que tem a página: custo não cresce com o índice).
+ */
+public record EquipmentBrowseSort(String field, boolean ascending) {
+
+    public static final EquipmentBrowseSort DEFAULT = new EquipmentBrowseSort("acquisitionDate", false);
+
+    // Campo -> direção padrão quando só o campo é informado (true = asc)
+    private static final Map<String, Boolean> FIELDS = Map.of(
+            "acquisitionDate", false,
+            "acquisitionValue", false,
+            "assetNumber", true
+    );
+
+    public static EquipmentBrowseSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return DEFAULT;
+        }
+
+        String[] parts = sort.split(",", 2);
+        String field = parts[0].trim();
+        Boolean defaultAscending = FIELDS.get(field);
+        if (defaultAscending == null) {
+            throw new IllegalArgumentException("Campo inválido em sort: " + field
+                    + " (use acquisitionDate, acquisitionValue ou assetNumber).");
+        }
+        if (parts.length == 1 || parts[1].isBlank()) {
+            return new EquipmentBrowseSort(field, defaultAscending);
+        }
+
+        return switch (parts[1].trim().toLowerCase(Locale.ROOT)) {
+            case "asc" -> new EquipmentBrowseSort(field, true);
+            case "desc" -> new EquipmentBrowseSort(field, false);
+            default -> throw new IllegalArgumentException("Direção inválida em sort: use asc ou desc.");
+        };
+    }
+
+    /**
+     * true se a ordem coincide com o index sorting (acquisitionDate desc): permite early termination.
+     */
+    public boolean matchesIndexSort() {
+        return DEFAULT.equals(this);
+    }
+
+    @Override
+    public String toString() {
+        return field + (ascending ? ",asc" : ",desc");
+    }
+}
@@ -1,14 +1,23 @@
 package br.com.infnet.itinventory.search.doc;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.time.LocalDate;
 
+/**
+ * Documento indexado no Elasticsearch.
+ * O campo "description" (busca full-text unificada) é montado no próprio ES via copy_to
+ * (ver resources/search/equipment-index-template.json) e não trafega no _source.
+ */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true) // docs do ETL trazem campos extras (ativo, criadoEm, ...)
 public class EquipmentDoc {
 
     private Long idEquipment;
@@ -26,6 +35,11 @@ public class EquipmentDoc {
     private LocalDate acquisitionDate;
     private Double acquisitionValue;
 
-    // Campo opcional para busca full-text “unificada”
-    private String description;
-}
\ No newline at end of file
+    // Referências: ids do MySQL + nomes preenchidos na indexação (buscáveis via copy_to "description")
+    private Long filialAtualId;
+    private String filialNome;
+    private Long fornecedorId;
+    private String fornecedorNome;
+    private Long categoriaId;
+    private String categoriaNome;
+}
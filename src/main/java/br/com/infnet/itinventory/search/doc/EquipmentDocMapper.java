@@ -0,0 +1,84 @@
+package br.com.infnet.itinventory.search.doc;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.search.enrich.ReferenceNameCache;
+import br.com.infnet.itinventory.search.reconcile.EquipmentChecksum;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Conversão única Equipment (JPA) -> EquipmentDoc (Elasticsearch).
+ * Os nomes de filial/fornecedor/categoria não vêm da entidade: ver ReferenceNameCache#enrich.
+ */
+public final class EquipmentDocMapper {
+
+    private EquipmentDocMapper() {
+    }
+
+    public static EquipmentDoc toDoc(Equipment e) {
+        return EquipmentDoc.builder()
+                .idEquipment(e.getId())
+                .assetNumber(e.getAssetNumber())
+                .type(e.getType() != null ? e.getType().name() : null)
+                .status(e.getStatus() != null ? e.getStatus().name() : null)
+                .brand(e.getBrand())
+                .model(e.getModel())
+                .location(e.getLocation())
+                .responsible(e.getResponsible())
+                .acquisitionDate(e.getAcquisitionDate())
+                .acquisitionValue(e.getAcquisitionValue() != null ? e.getAcquisitionValue().doubleValue() : null)
+                .filialAtualId(e.getFilialAtualId())
+                .fornecedorId(e.getFornecedorId())
+                .categoriaId(e.getCategoriaId())
+                .build();
+    }
+
+    /**
+     * Documento completo, já com os nomes das referências (que entram no refChecksum).
+     */
+    public static EquipmentIndexDocument toIndexDocument(Equipment e, ReferenceNameCache referenceNames) {
+        EquipmentDoc doc = referenceNames.enrich(toDoc(e));
+        return new EquipmentIndexDocument(doc, EquipmentChecksum.of(e), EquipmentChecksum.ofReferences(doc),
+                e.getChangeSeq() == null ? 0L : e.getChangeSeq());
+    }
+
+    /**
+     * Campos do documento que mudaram entre "before" (doc antes da edição) e a entidade editada,
+     * com os valores novos (valor null = campo removido). Se algo mudou, inclui o novo "checksum"
+     * (refChecksum depende dos nomes: mudança de referência vai pelo documento completo, ver o indexador).
+     * Mapa vazio = nada indexável mudou.
+     */
+    public static Map<String, Object> changedFields(EquipmentDoc before, Equipment after) {
+        EquipmentDoc now = toDoc(after);
+        Map<String, Object> changed = new HashMap<>();
+
+        putIfChanged(changed, "assetNumber", before.getAssetNumber(), now.getAssetNumber());
+        putIfChanged(changed, "type", before.getType(), now.getType());
+        putIfChanged(changed, "status", before.getStatus(), now.getStatus());
+        putIfChanged(changed, "brand", before.getBrand(), now.getBrand());
+        putIfChanged(changed, "model", before.getModel(), now.getModel());
+        putIfChanged(changed, "location", before.getLocation(), now.getLocation());
+        putIfChanged(changed, "responsible", before.getResponsible(), now.getResponsible());
+        // Data como yyyy-MM-dd (mesmo formato do _source), independente do mapper do cliente ES
+        putIfChanged(changed, "acquisitionDate",
+                before.getAcquisitionDate() != null ? before.getAcquisitionDate().toString() : null,
+                now.getAcquisitionDate() != null ? now.getAcquisitionDate().toString() : null);
+        putIfChanged(changed, "acquisitionValue", before.getAcquisitionValue(), now.getAcquisitionValue());
+        putIfChanged(changed, "filialAtualId", before.getFilialAtualId(), now.getFilialAtualId());
+        putIfChanged(changed, "fornecedorId", before.getFornecedorId(), now.getFornecedorId());
+        putIfChanged(changed, "categoriaId", before.getCategoriaId(), now.getCategoriaId());
+
+        if (!changed.isEmpty()) {
+            changed.put("checksum", EquipmentChecksum.of(after));
+        }
+        return changed;
+    }
+
+    private static void putIfChanged(Map<String, Object> changed, String field, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            changed.put(field, after);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package br.com.infnet.itinventory.search.doc;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * O que o indexador grava no ES: os campos do EquipmentDoc + checksum/refChecksum para a reconciliação
+ * + changeSeq (equipment.change_seq, para o indexador não aplicar uma versão antiga por cima de uma nova).
+ * Ficam fora do EquipmentDoc para não vazar nas respostas da API.
+ */
+@Getter
+@RequiredArgsConstructor
+public class EquipmentIndexDocument {
+
+    @JsonUnwrapped
+    private final EquipmentDoc doc;
+
+    private final long checksum;
+
+    private final long refChecksum;
+
+    private final long changeSeq;
+}
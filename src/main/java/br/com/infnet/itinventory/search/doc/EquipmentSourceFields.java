@@ -0,0 +1,71 @@
+package br.com.infnet.itinventory.search.doc;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Campos do EquipmentDoc que podem ser pedidos no parâmetro "fields" (vira _source includes no ES).
+ */
+public final class EquipmentSourceFields {
+
+    // Padrão das listagens: o mínimo para montar a linha da tabela
+    public static final List<String> LIST_VIEW = List.of("idEquipment", "assetNumber", "brand", "model", "status");
+
+    private static final Set<String> ALLOWED = Set.of(
+            "idEquipment", "assetNumber", "type", "status", "brand", "model",
+            "location", "responsible", "acquisitionDate", "acquisitionValue",
+            "filialNome", "fornecedorNome", "categoriaNome"
+    );
+
+    private EquipmentSourceFields() {
+    }
+
+    /**
+     * "id,assetNumber,brand" -> [idEquipment, assetNumber, brand]. Vazio/null = LIST_VIEW.
+     */
+    public static List<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return LIST_VIEW;
+        }
+
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String raw : fields.split(",")) {
+            String f = raw.trim();
+            if (f.isEmpty()) continue;
+            if (f.equals("id")) f = "idEquipment";
+            if (!ALLOWED.contains(f)) {
+                throw new IllegalArgumentException("Campo inválido em fields: " + f);
+            }
+            parsed.add(f);
+        }
+        return parsed.isEmpty() ? LIST_VIEW : new ArrayList<>(parsed);
+    }
+
+    /**
+     * Cópia do doc somente com os campos pedidos (usado quando a resposta não vem do ES).
+     */
+    public static EquipmentDoc project(EquipmentDoc d, List<String> fields) {
+        EquipmentDoc.EquipmentDocBuilder b = EquipmentDoc.builder();
+        for (String f : fields) {
+            switch (f) {
+                case "idEquipment" -> b.idEquipment(d.getIdEquipment());
+                case "assetNumber" -> b.assetNumber(d.getAssetNumber());
+                case "type" -> b.type(d.getType());
+                case "status" -> b.status(d.getStatus());
+                case "brand" -> b.brand(d.getBrand());
+                case "model" -> b.model(d.getModel());
+                case "location" -> b.location(d.getLocation());
+                case "responsible" -> b.responsible(d.getResponsible());
+                case "acquisitionDate" -> b.acquisitionDate(d.getAcquisitionDate());
+                case "acquisitionValue" -> b.acquisitionValue(d.getAcquisitionValue());
+                case "filialNome" -> b.filialNome(d.getFilialNome());
+                case "fornecedorNome" -> b.fornecedorNome(d.getFornecedorNome());
+                case "categoriaNome" -> b.categoriaNome(d.getCategoriaNome());
+                default -> { }
+            }
+        }
+        return b.build();
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.infnet.itinventory.search.dto;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Resultado de uma consulta da busca em lote, na mesma posição do pedido.
+ * Falha isolada: error preenchido e items vazio, sem afetar as demais consultas.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EquipmentBatchResult(List<EquipmentDoc> items, String error) {
+
+    public static EquipmentBatchResult ok(List<EquipmentDoc> items) {
+        return new EquipmentBatchResult(items, null);
+    }
+
+    public static EquipmentBatchResult failed(String error) {
+        return new EquipmentBatchResult(List.of(), error);
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.infnet.itinventory.search.dto;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resposta da busca avançada com facetas: resultados + contagens para os filtros do front,
+ * tudo em uma única ida ao Elasticsearch.
+ *
+ * facets: status, type, location, brand (cada uma ignora o próprio filtro — multi-seleção).
+ * histograms: acquisitionValue e acquisitionDate (respeitam todos os filtros).
+ */
+public record EquipmentFacetedResult(
+        long total,
+        List<EquipmentDoc> items,
+        Map<String, List<FacetBucket>> facets,
+        Map<String, List<FacetBucket>> histograms
+) {}
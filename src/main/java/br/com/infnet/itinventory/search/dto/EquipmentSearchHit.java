@@ -0,0 +1,20 @@
+package br.com.infnet.itinventory.search.dto;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Item de busca com relevância e trechos destacados (<mark>...</mark>) por campo.
+ * doc traz somente os campos pedidos em "fields" (_source filtrado).
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record EquipmentSearchHit(
+        Long id,
+        Double score,
+        EquipmentDoc doc,
+        Map<String, List<String>> highlights
+) {
+}
@@ -0,0 +1,13 @@
+package br.com.infnet.itinventory.search.dto;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+
+import java.util.List;
+
+/**
+ * Página da busca por cursor. nextCursor == null indica que não há mais resultados.
+ */
+public record EquipmentSearchPage(
+        List<EquipmentDoc> items,
+        String nextCursor
+) {}
@@ -6,8 +6,10 @@ public record EquipmentSearchRequest(
         String status,
         String type,
         String location,
+        String brand,
         Double minValue,
         Double maxValue,
         String dateFrom,  // ISO: yyyy-MM-dd (ou yyyy-MM-ddTHH:mm:ssZ se usar datetime no ES)
-        String dateTo     // ISO
-) {}
\ No newline at end of file
+        String dateTo,    // ISO
+        Long filialId     // filial atual (id_filial_atual); com search.routing.enabled a busca vai a um único shard
+) {}
@@ -0,0 +1,12 @@
+package br.com.infnet.itinventory.search.dto;
+
+/**
+ * Item enxuto para o autocomplete do campo de busca.
+ */
+public record EquipmentSuggestion(
+        Long idEquipment,
+        String assetNumber,
+        String brand,
+        String model,
+        String responsible
+) {}
@@ -0,0 +1,9 @@
+package br.com.infnet.itinventory.search.dto;
+
+/**
+ * Bucket de agregação: valor (ou início da faixa, no caso de histogramas) + quantidade.
+ */
+public record FacetBucket(
+        String key,
+        long count
+) {}
@@ -0,0 +1,833 @@
+package br.com.infnet.itinventory.search.embedded;
+
+import br.com.infnet.itinventory.model.AssetNumbers;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória para a busca de equipamentos quando o Elasticsearch está desligado.
+ *
+ * Estruturas compactas:
+ * - termos em String[] por termId + int[] de termIds em ordem alfabética: termo exato por busca binária e
+ *   prefixo como a faixa entre duas buscas. Termos novos entram numa cauda curta fora de ordem, intercalada
+ *   quando enche; candidatos do fuzzy vêm de baldes (primeiro caractere, tamanho);
+ * - postings como arrays de int ordenados (ordinal interno do documento, sempre crescente);
+ * - colunas por documento em arrays primitivos; patrimônio como int ({@link AssetNumbers#pack}); campos
+ *   repetitivos (status, type, location, brand, model, responsible) codificados por dicionário.
+ *
+ * Atualização = remoção lógica (bitset de vivos) + novo ordinal. Quando os ordinais mortos
+ * superam os vivos (por remoção ou por atualizações repetidas) o índice é compactado.
+ *
+ * Na busca, os acumuladores de score (float por ordinal) saem de um pool pequeno (uma busca por vez em
+ * cada um; com threads virtuais um buffer por thread não seria reaproveitado) e só as posições tocadas
+ * são zeradas; a página sai de um heap top-k de ordinais (page + 1) * size,
+ * sem ordenar todos os acertos.
+ */
+public class EmbeddedEquipmentIndex {
+
+    private static final int NONE = -1;
+    private static final long NO_FILIAL = Long.MIN_VALUE;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_COMPACTION_DEAD = 1024;
+    private static final int PENDING_TERMS = 256;
+
+    // Patrimônio fora do formato AAA-99999 (ou sem forma canônica): o texto fica em rawAssetNumbers
+    private static final int RAW_ASSET = -2;
+    private static final int NO_ASSET = -3;
+
+    private static final float EXACT_WEIGHT = 3f;
+    private static final float PREFIX_WEIGHT = 2f;
+    private static final float FUZZY_WEIGHT = 1f;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^\\p{Alnum}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Buscas rodam em paralelo sob o read lock; pool vazio = buffer novo, descartado se o pool estiver cheio
+    private final ArrayBlockingQueue<ScoreBuffers> scoreBuffers =
+            new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    // Dicionário de termos e postings (índice = termId)
+    private String[] terms = new String[0];
+    private int termCount;
+    private int[] sortedTermIds = new int[0];   // [0, sortedTerms) em ordem alfabética
+    private int sortedTerms;
+    private final int[] pendingTermIds = new int[PENDING_TERMS];
+    private int pendingTerms;
+    private HashMap<Integer, IntList> fuzzyBuckets = new HashMap<>();
+    private ArrayList<IntList> postings = new ArrayList<>();
+
+    // Dicionários de valores repetitivos
+    private ValueDictionary statuses = new ValueDictionary();
+    private ValueDictionary types = new ValueDictionary();
+    private ValueDictionary locations = new ValueDictionary();
+    private ValueDictionary brands = new ValueDictionary();
+    private ValueDictionary models = new ValueDictionary();
+    private ValueDictionary responsibles = new ValueDictionary();
+
+    // Colunas por ordinal
+    private long[] equipmentIds = new long[0];
+    private int[] assetNumbers = new int[0];
+    private HashMap<Integer, String> rawAssetNumbers = new HashMap<>();
+    private int[] statusOrds = new int[0];
+    private int[] typeOrds = new int[0];
+    private int[] locationOrds = new int[0];
+    private int[] brandOrds = new int[0];
+    private int[] modelOrds = new int[0];
+    private int[] responsibleOrds = new int[0];
+    private double[] values = new double[0];    // NaN = sem valor
+    private int[] epochDays = new int[0];       // Integer.MIN_VALUE = sem data
+    private long[] filialIds = new long[0];     // NO_FILIAL = sem filial
+
+    private BitSet live = new BitSet();
+    private LongIntMap ordById = new LongIntMap();
+    private int docCount;
+    private int liveCount;
+
+    // =========================
+    // Escrita
+    // =========================
+
+    public void upsert(EquipmentDoc doc) {
+        if (doc == null || doc.getIdEquipment() == null) return;
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(doc.getIdEquipment());
+            addInternal(doc);
+            compactIfMostlyDead();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(long equipmentId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(equipmentId);
+            compactIfMostlyDead();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int deadOrdinals() {
+        lock.readLock().lock();
+        try {
+            return docCount - liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =========================
+    // Busca
+    // =========================
+
+    /**
+     * Mesma semântica da busca avançada do ES: texto (OR entre termos, ranking por relevância)
+     * + filtros exatos (status, type, location, brand, filial) + ranges de valor e data.
+     * Sem texto, ordena por acquisitionDate desc (mesma ordem do index sorting no ES).
+     */
+    public List<EquipmentDoc> search(EquipmentSearchRequest req, int page, int size) {
+        int safePage = Math.max(0, page);
+        int safeSize = Math.max(1, size);
+
+        LocalDate dateFrom = parseDate(req != null ? req.dateFrom() : null);
+        LocalDate dateTo = parseDate(req != null ? req.dateTo() : null);
+
+        lock.readLock().lock();
+        try {
+            DocFilter filter = buildFilter(req, dateFrom, dateTo);
+            if (filter == null) {
+                return List.of(); // valor de filtro inexistente no índice
+            }
+
+            List<String> queryTokens = req != null ? tokenize(req.texto()) : List.of();
+
+            long from = (long) safePage * safeSize;
+            long wanted = from + safeSize;
+            int[] ordered;
+
+            if (queryTokens.isEmpty()) {
+                TopK top = new TopK((int) Math.min(wanted, liveCount), null);
+                for (int ord = live.nextSetBit(0); ord >= 0; ord = live.nextSetBit(ord + 1)) {
+                    if (filter.accept(ord)) top.offer(ord);
+                }
+                ordered = top.sorted();
+            } else {
+                ScoreBuffers buffers = acquireBuffers();
+                // Falha no meio da pontuação deixa o buffer sujo: não volta ao pool
+                IntList touched = scoreTokens(queryTokens, buffers);
+                try {
+                    TopK top = new TopK((int) Math.min(wanted, touched.size), buffers.scores);
+                    for (int i = 0; i < touched.size; i++) {
+                        int ord = touched.data[i];
+                        if (live.get(ord) && filter.accept(ord)) top.offer(ord);
+                    }
+                    ordered = top.sorted();
+                } finally {
+                    // Devolve o buffer zerado: só as posições tocadas por esta busca
+                    for (int i = 0; i < touched.size; i++) buffers.scores[touched.data[i]] = 0f;
+                    scoreBuffers.offer(buffers);
+                }
+            }
+
+            if (from >= ordered.length) return List.of();
+
+            List<EquipmentDoc> result = new ArrayList<>(ordered.length - (int) from);
+            for (int i = (int) from; i < ordered.length; i++) {
+                result.add(docAt(ordered[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Para cada termo da consulta, cada documento recebe o melhor peso entre as expansões
+     * (exato > prefixo > fuzzy); os pesos dos termos são somados.
+     */
+    private IntList scoreTokens(List<String> queryTokens, ScoreBuffers buffers) {
+        float[] scores = buffers.scores;
+        float[] best = buffers.best;
+        IntList touched = new IntList();
+        IntList tokenTouched = new IntList();
+
+        for (String token : queryTokens) {
+            tokenTouched.clear();
+
+            for (Map.Entry<Integer, Float> m : expand(token).entrySet()) {
+                IntList posting = postings.get(m.getKey());
+                float w = m.getValue();
+                for (int i = 0; i < posting.size; i++) {
+                    int ord = posting.data[i];
+                    if (best[ord] == 0f) tokenTouched.add(ord);
+                    if (w > best[ord]) best[ord] = w;
+                }
+            }
+
+            for (int i = 0; i < tokenTouched.size; i++) {
+                int ord = tokenTouched.data[i];
+                if (scores[ord] == 0f) touched.add(ord);
+                scores[ord] += best[ord];
+                best[ord] = 0f;
+            }
+        }
+        return touched;
+    }
+
+    private ScoreBuffers acquireBuffers() {
+        ScoreBuffers buffers = scoreBuffers.poll();
+        if (buffers == null) buffers = new ScoreBuffers();
+        buffers.ensure(docCount);
+        return buffers;
+    }
+
+    private Map<Integer, Float> expand(String token) {
+        Map<Integer, Float> matches = new HashMap<>();
+
+        int exact = termId(token);
+        if (exact != NONE) matches.put(exact, EXACT_WEIGHT);
+
+        // Faixa [token, token + MAX_VALUE) do dicionário ordenado, sem o próprio token
+        int expansions = 0;
+        int from = lowerBound(token);
+        int to = lowerBound(token + Character.MAX_VALUE);
+        for (int i = from; i < to && expansions < MAX_PREFIX_EXPANSIONS; i++) {
+            int id = sortedTermIds[i];
+            if (id == exact) continue;
+            matches.merge(id, PREFIX_WEIGHT, Math::max);
+            expansions++;
+        }
+        for (int i = 0; i < pendingTerms && expansions < MAX_PREFIX_EXPANSIONS; i++) {
+            int id = pendingTermIds[i];
+            if (id == exact || !terms[id].startsWith(token)) continue;
+            matches.merge(id, PREFIX_WEIGHT, Math::max);
+            expansions++;
+        }
+
+        // Fuzziness "AUTO" (como no ES); o primeiro caractere precisa coincidir (prefix_length = 1)
+        int maxEdits = token.length() <= 2 ? 0 : token.length() <= 5 ? 1 : 2;
+        for (int length = token.length() - maxEdits; maxEdits > 0 && length <= token.length() + maxEdits; length++) {
+            IntList bucket = fuzzyBuckets.get(fuzzyBucket(token.charAt(0), length));
+            if (bucket == null) continue;
+            for (int i = 0; i < bucket.size; i++) {
+                int id = bucket.data[i];
+                if (withinEditDistance(token, terms[id], maxEdits)) {
+                    matches.merge(id, FUZZY_WEIGHT, Math::max);
+                }
+            }
+        }
+        return matches;
+    }
+
+    // =========================
+    // Dicionário de termos
+    // =========================
+
+    private int termId(String term) {
+        int i = lowerBound(term);
+        if (i < sortedTerms && terms[sortedTermIds[i]].equals(term)) return sortedTermIds[i];
+        for (int p = 0; p < pendingTerms; p++) {
+            if (terms[pendingTermIds[p]].equals(term)) return pendingTermIds[p];
+        }
+        return NONE;
+    }
+
+    /**
+     * Primeira posição do dicionário ordenado com termo >= key.
+     */
+    private int lowerBound(String key) {
+        int lo = 0, hi = sortedTerms;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (terms[sortedTermIds[mid]].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int addTerm(String term) {
+        int id = termCount++;
+        if (id == terms.length) terms = Arrays.copyOf(terms, Math.max(1024, id + (id >> 1)));
+        terms[id] = term;
+        postings.add(new IntList());
+        fuzzyBuckets.computeIfAbsent(fuzzyBucket(term.charAt(0), term.length()), k -> new IntList()).add(id);
+
+        pendingTermIds[pendingTerms++] = id;
+        if (pendingTerms == PENDING_TERMS) mergePendingTerms();
+        return id;
+    }
+
+    /**
+     * Ordena a cauda (inserção: no máximo PENDING_TERMS) e intercala com o dicionário ordenado.
+     */
+    private void mergePendingTerms() {
+        for (int i = 1; i < pendingTerms; i++) {
+            int id = pendingTermIds[i];
+            int j = i - 1;
+            while (j >= 0 && terms[pendingTermIds[j]].compareTo(terms[id]) > 0) {
+                pendingTermIds[j + 1] = pendingTermIds[j];
+                j--;
+            }
+            pendingTermIds[j + 1] = id;
+        }
+
+        int[] merged = new int[Math.max(sortedTermIds.length, sortedTerms + pendingTerms)];
+        int a = 0, b = 0, out = 0;
+        while (a < sortedTerms || b < pendingTerms) {
+            if (b == pendingTerms || (a < sortedTerms
+                    && terms[sortedTermIds[a]].compareTo(terms[pendingTermIds[b]]) < 0)) {
+                merged[out++] = sortedTermIds[a++];
+            } else {
+                merged[out++] = pendingTermIds[b++];
+            }
+        }
+        sortedTermIds = merged;
+        sortedTerms = out;
+        pendingTerms = 0;
+    }
+
+    private static int fuzzyBucket(char first, int length) {
+        return (first << 16) | Math.min(length, 0xFFFF);
+    }
+
+    private DocFilter buildFilter(EquipmentSearchRequest req, LocalDate dateFrom, LocalDate dateTo) {
+        if (req == null) {
+            return new DocFilter(NONE, NONE, NONE, NONE, null, null, null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+
+        int status = NONE, type = NONE, location = NONE, brand = NONE;
+
+        if (isSet(req.status())) {
+            status = statuses.find(req.status());
+            if (status == NONE) return null;
+        }
+        if (isSet(req.type())) {
+            type = types.find(req.type());
+            if (type == NONE) return null;
+        }
+        if (isSet(req.location())) {
+            location = locations.find(req.location());
+            if (location == NONE) return null;
+        }
+        if (isSet(req.brand())) {
+            brand = brands.find(req.brand());
+            if (brand == NONE) return null;
+        }
+
+        return new DocFilter(
+                status, type, location, brand, req.filialId(),
+                req.minValue(), req.maxValue(),
+                dateFrom != null ? (int) dateFrom.toEpochDay() : Integer.MIN_VALUE,
+                dateTo != null ? (int) dateTo.toEpochDay() : Integer.MAX_VALUE
+        );
+    }
+
+    private final class DocFilter {
+        private final int status, type, location, brand;
+        private final Long filialId;
+        private final Double minValue, maxValue;
+        private final int minDay, maxDay;
+        private final boolean hasDateRange;
+
+        private DocFilter(int status, int type, int location, int brand, Long filialId,
+                          Double minValue, Double maxValue, int minDay, int maxDay) {
+            this.status = status;
+            this.type = type;
+            this.location = location;
+            this.brand = brand;
+            this.filialId = filialId;
+            this.minValue = minValue;
+            this.maxValue = maxValue;
+            this.minDay = minDay;
+            this.maxDay = maxDay;
+            this.hasDateRange = minDay != Integer.MIN_VALUE || maxDay != Integer.MAX_VALUE;
+        }
+
+        boolean accept(int ord) {
+            if (status != NONE && statusOrds[ord] != status) return false;
+            if (type != NONE && typeOrds[ord] != type) return false;
+            if (location != NONE && locationOrds[ord] != location) return false;
+            if (brand != NONE && brandOrds[ord] != brand) return false;
+            if (filialId != null && filialIds[ord] != filialId) return false;
+
+            if (minValue != null || maxValue != null) {
+                double v = values[ord];
+                if (Double.isNaN(v)) return false;
+                if (minValue != null && v < minValue) return false;
+                if (maxValue != null && v > maxValue) return false;
+            }
+
+            if (hasDateRange) {
+                int d = epochDays[ord];
+                if (d == Integer.MIN_VALUE) return false;
+                return d >= minDay && d <= maxDay;
+            }
+            return true;
+        }
+    }
+
+    // =========================
+    // Internos (sempre sob write lock)
+    // =========================
+
+    private void addInternal(EquipmentDoc d) {
+        int ord = docCount++;
+        ensureCapacity(docCount);
+
+        equipmentIds[ord] = d.getIdEquipment();
+        assetNumbers[ord] = packAssetNumber(ord, d.getAssetNumber());
+        statusOrds[ord] = statuses.ordOf(d.getStatus());
+        typeOrds[ord] = types.ordOf(d.getType());
+        locationOrds[ord] = locations.ordOf(d.getLocation());
+        brandOrds[ord] = brands.ordOf(d.getBrand());
+        modelOrds[ord] = models.ordOf(d.getModel());
+        responsibleOrds[ord] = responsibles.ordOf(d.getResponsible());
+        values[ord] = d.getAcquisitionValue() != null ? d.getAcquisitionValue() : Double.NaN;
+        epochDays[ord] = d.getAcquisitionDate() != null ? (int) d.getAcquisitionDate().toEpochDay() : Integer.MIN_VALUE;
+        filialIds[ord] = d.getFilialAtualId() != null ? d.getFilialAtualId() : NO_FILIAL;
+
+        live.set(ord);
+        liveCount++;
+        ordById.put(d.getIdEquipment(), ord);
+
+        Set<String> docTokens = new LinkedHashSet<>();
+        if (d.getAssetNumber() != null) {
+            docTokens.add(normalize(d.getAssetNumber()));
+        }
+        docTokens.addAll(tokenize(d.getAssetNumber()));
+        docTokens.addAll(tokenize(d.getBrand()));
+        docTokens.addAll(tokenize(d.getModel()));
+        docTokens.addAll(tokenize(d.getLocation()));
+        docTokens.addAll(tokenize(d.getResponsible()));
+
+        for (String t : docTokens) {
+            int termId = termId(t);
+            if (termId == NONE) termId = addTerm(t);
+            postings.get(termId).add(ord);
+        }
+    }
+
+    private int packAssetNumber(int ord, String assetNumber) {
+        if (assetNumber == null) return NO_ASSET;
+        int packed = AssetNumbers.pack(assetNumber);
+        // Só guarda como int o que volta igual em unpack (forma canônica); o resto fica como texto
+        if (packed != AssetNumbers.INVALID && AssetNumbers.unpack(packed).equals(assetNumber)) return packed;
+        rawAssetNumbers.put(ord, assetNumber);
+        return RAW_ASSET;
+    }
+
+    private String assetNumberAt(int ord) {
+        int packed = assetNumbers[ord];
+        if (packed == NO_ASSET) return null;
+        return packed == RAW_ASSET ? rawAssetNumbers.get(ord) : AssetNumbers.unpack(packed);
+    }
+
+    private void removeInternal(long equipmentId) {
+        int ord = ordById.remove(equipmentId);
+        if (ord != NONE) {
+            live.clear(ord);
+            liveCount--;
+            rawAssetNumbers.remove(ord);
+        }
+    }
+
+    private void compactIfMostlyDead() {
+        if (docCount - liveCount > Math.max(MIN_COMPACTION_DEAD, liveCount)) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<EquipmentDoc> docs = new ArrayList<>(liveCount);
+        for (int ord = live.nextSetBit(0); ord >= 0; ord = live.nextSetBit(ord + 1)) {
+            docs.add(docAt(ord));
+        }
+        reset();
+        docs.forEach(this::addInternal);
+    }
+
+    private void reset() {
+        terms = new String[0];
+        termCount = 0;
+        sortedTermIds = new int[0];
+        sortedTerms = 0;
+        pendingTerms = 0;
+        fuzzyBuckets = new HashMap<>();
+        postings = new ArrayList<>();
+        rawAssetNumbers = new HashMap<>();
+        statuses = new ValueDictionary();
+        types = new ValueDictionary();
+        locations = new ValueDictionary();
+        brands = new ValueDictionary();
+        models = new ValueDictionary();
+        responsibles = new ValueDictionary();
+        live = new BitSet();
+        ordById = new LongIntMap();
+        docCount = 0;
+        liveCount = 0;
+        ensureCapacity(0);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= equipmentIds.length) return;
+
+        int cap = Math.max(1024, Math.max(needed, equipmentIds.length + (equipmentIds.length >> 1)));
+        equipmentIds = Arrays.copyOf(equipmentIds, cap);
+        assetNumbers = Arrays.copyOf(assetNumbers, cap);
+        statusOrds = Arrays.copyOf(statusOrds, cap);
+        typeOrds = Arrays.copyOf(typeOrds, cap);
+        locationOrds = Arrays.copyOf(locationOrds, cap);
+        brandOrds = Arrays.copyOf(brandOrds, cap);
+        modelOrds = Arrays.copyOf(modelOrds, cap);
+        responsibleOrds = Arrays.copyOf(responsibleOrds, cap);
+        values = Arrays.copyOf(values, cap);
+        epochDays = Arrays.copyOf(epochDays, cap);
+        filialIds = Arrays.copyOf(filialIds, cap);
+    }
+
+    private EquipmentDoc docAt(int ord) {
+        return EquipmentDoc.builder()
+                .idEquipment(equipmentIds[ord])
+                .assetNumber(assetNumberAt(ord))
+                .status(statuses.value(statusOrds[ord]))
+                .type(types.value(typeOrds[ord]))
+                .location(locations.value(locationOrds[ord]))
+                .brand(brands.value(brandOrds[ord]))
+                .model(models.value(modelOrds[ord]))
+                .responsible(responsibles.value(responsibleOrds[ord]))
+                .acquisitionValue(Double.isNaN(values[ord]) ? null : values[ord])
+                .acquisitionDate(epochDays[ord] == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDays[ord]))
+                .filialAtualId(filialIds[ord] == NO_FILIAL ? null : filialIds[ord])
+                .build();
+    }
+
+    // =========================
+    // Utilitários
+    // =========================
+
+    static String normalize(String s) {
+        String n = Normalizer.normalize(s.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(n).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String s) {
+        if (s == null || s.isBlank()) return List.of();
+
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String t : NON_ALNUM.split(normalize(s))) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Levenshtein limitado: aborta assim que a linha inteira passa de maxEdits.
+     */
+    static boolean withinEditDistance(String a, String b, int maxEdits) {
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > maxEdits) return false;
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[b.length()] <= maxEdits;
+    }
+
+    private static boolean isSet(String s) {
+        return s != null && !s.isBlank();
+    }
+
+    private static LocalDate parseDate(String s) {
+        if (!isSet(s)) return null;
+        String v = s.trim();
+        try {
+            // Aceita yyyy-MM-dd ou datetime ISO (usa só a data)
+            return LocalDate.parse(v.length() > 10 ? v.substring(0, 10) : v);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data inválida (use yyyy-MM-dd): " + v);
+        }
+    }
+
+    /**
+     * Dicionário valor -> ordinal. A chave é normalizada (caixa/acentos), como o normalizer do ES.
+     */
+    private static final class ValueDictionary {
+        private final Map<String, Integer> ords = new HashMap<>();
+        private final ArrayList<String> display = new ArrayList<>();
+
+        int ordOf(String value) {
+            if (value == null) return NONE;
+            return ords.computeIfAbsent(normalize(value), k -> {
+                display.add(value);
+                return display.size() - 1;
+            });
+        }
+
+        int find(String value) {
+            Integer ord = ords.get(normalize(value));
+            return ord == null ? NONE : ord;
+        }
+
+        String value(int ord) {
+            return ord == NONE ? null : display.get(ord);
+        }
+    }
+
+    /**
+     * Acumuladores de score por ordinal. Entre buscas ficam zerados (scoreTokens zera "best" ao somar;
+     * search zera "scores" nas posições tocadas). Crescem com o índice e não encolhem.
+     */
+    private static final class ScoreBuffers {
+        private float[] scores = new float[0];
+        private float[] best = new float[0];
+
+        void ensure(int docCount) {
+            if (scores.length >= docCount) return;
+            int cap = Math.max(docCount, scores.length + (scores.length >> 1));
+            scores = new float[cap];
+            best = new float[cap];
+        }
+    }
+
+    /**
+     * Heap binário de ordinais com os k melhores (raiz = o pior dos mantidos): O(n log k), sem boxing.
+     * Ordem: score desc (com texto) ou acquisitionDate desc (sem texto), desempate por id asc.
+     */
+    private final class TopK {
+        private final int[] heap;
+        private final float[] scores;
+        private int size;
+
+        private TopK(int k, float[] scores) {
+            this.heap = new int[Math.max(0, k)];
+            this.scores = scores;
+        }
+
+        void offer(int ord) {
+            if (size < heap.length) {
+                heap[size] = ord;
+                siftUp(size++);
+            } else if (heap.length > 0 && before(ord, heap[0])) {
+                heap[0] = ord;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Esvazia o heap e devolve os ordinais do melhor para o pior.
+         */
+        int[] sorted() {
+            int[] out = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                out[i] = heap[0];
+                heap[0] = heap[--size];
+                siftDown(0);
+            }
+            return out;
+        }
+
+        private boolean before(int a, int b) {
+            if (scores != null) {
+                int byScore = Float.compare(scores[a], scores[b]);
+                if (byScore != 0) return byScore > 0;
+            } else {
+                int byDate = Integer.compare(epochDays[a], epochDays[b]);
+                if (byDate != 0) return byDate > 0;
+            }
+            return equipmentIds[a] < equipmentIds[b];
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(heap[parent], heap[i])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && before(heap[worst], heap[left])) worst = left;
+                if (right < size && before(heap[worst], heap[right])) worst = right;
+                if (worst == i) return;
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+    }
+
+    /**
+     * Lista de int sem boxing.
+     */
+    private static final class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size << 1);
+            data[size++] = v;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Mapa long -> int com endereçamento aberto (sondagem linear, remoção por backward shift).
+     * Chave 0 marca slot livre (ids do MySQL começam em 1).
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[1024];
+        private int[] vals = new int[1024];
+        private int size;
+
+        void put(long key, int value) {
+            if ((size + 1) * 4 >= keys.length * 3) grow();
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == 0) size++;
+            keys[i] = key;
+            vals[i] = value;
+        }
+
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != 0) {
+                if (keys[i] == key) {
+                    int value = vals[i];
+                    shiftBack(i, mask);
+                    size--;
+                    return value;
+                }
+                i = (i + 1) & mask;
+            }
+            return NONE;
+        }
+
+        private void shiftBack(int hole, int mask) {
+            int j = hole;
+            while (true) {
+                j = (j + 1) & mask;
+                if (keys[j] == 0) break;
+                int home = slot(keys[j], mask);
+                boolean between = (hole <= j) ? (hole < home && home <= j) : (hole < home || home <= j);
+                if (!between) {
+                    keys[hole] = keys[j];
+                    vals[hole] = vals[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldVals = vals;
+            keys = new long[oldKeys.length << 1];
+            vals = new int[oldKeys.length << 1];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) put(oldKeys[i], oldVals[i]);
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
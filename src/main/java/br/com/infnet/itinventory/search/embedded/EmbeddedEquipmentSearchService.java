@@ -0,0 +1,90 @@
+package br.com.infnet.itinventory.search.embedded;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.doc.EquipmentDocMapper;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.dto.EquipmentSuggestion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Busca de equipamentos em processo, usada quando o Elasticsearch está desligado.
+ * Mesma API da busca via ES (texto, busca avançada e sugestão), sobre o {@link EmbeddedEquipmentIndex}.
+ *
+ * O índice é reconstruído a partir do MySQL na subida e mantido pelos EquipmentIndexEvent
+ * (via EmbeddedEquipmentIndexer).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnExpression("!${search.es.enabled:false} && ${search.embedded.enabled:true}")
+public class EmbeddedEquipmentSearchService {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGEST_SIZE = 10;
+
+    private final EquipmentRepository equipmentRepository;
+    private final EmbeddedEquipmentIndex index = new EmbeddedEquipmentIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            int page = 0;
+            Page<Equipment> batch;
+            do {
+                batch = equipmentRepository.findAll(PageRequest.of(page++, REBUILD_PAGE_SIZE, Sort.by("id")));
+                batch.forEach(e -> index.upsert(EquipmentDocMapper.toDoc(e)));
+            } while (batch.hasNext());
+
+            log.info("Índice de busca embutido carregado. docs={} tempoMs={}", index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Falha na carga não deve impedir o CRUD de subir
+            log.warn("Falha ao carregar índice de busca embutido. Motivo={}", e.getMessage(), e);
+        }
+    }
+
+    public void index(EquipmentDoc doc) {
+        index.upsert(doc);
+    }
+
+    public void remove(Long equipmentId) {
+        if (equipmentId != null) {
+            index.delete(equipmentId);
+        }
+    }
+
+    public List<EquipmentDoc> buscarPorTexto(String texto, int page, int size) {
+        return index.search(
+                new EquipmentSearchRequest(texto, null, null, null, null, null, null, null, null, null),
+                page, size
+        );
+    }
+
+    public List<EquipmentDoc> buscaAvancada(EquipmentSearchRequest req, int page, int size) {
+        return index.search(req, page, size);
+    }
+
+    public List<EquipmentSuggestion> sugerir(String texto, int size) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+
+        int safeSize = Math.min(Math.max(1, size), MAX_SUGGEST_SIZE);
+        return buscarPorTexto(texto, 0, safeSize).stream()
+                .map(d -> new EquipmentSuggestion(
+                        d.getIdEquipment(), d.getAssetNumber(), d.getBrand(), d.getModel(), d.getResponsible()))
+                .toList();
+    }
+}
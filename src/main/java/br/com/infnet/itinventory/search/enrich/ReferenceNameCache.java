@@ -0,0 +1,357 @@
+package br.com.infnet.itinventory.search.enrich;
+
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import br.com.infnet.itinventory.search.reconcile.EquipmentChecksum;
+import br.com.infnet.itinventory.search.saved.SavedSearchPercolator;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.UpdateByQueryResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Nomes de filial, fornecedor e categoria em memória, para enriquecer o documento na indexação
+ * sem join por documento. As tabelas de referência são pequenas: recarregadas inteiras a cada
+ * search.reference.refresh-ms.
+ *
+ * Quando um nome muda (ou a referência some), só os documentos que apontam para aquele id são
+ * reescritos no ES, via update_by_query. O que já foi propagado fica em reference_name_sync (MySQL):
+ * a comparação é com essa tabela, não com o snapshot anterior da instância, então uma troca feita com a
+ * aplicação parada é propagada na subida e, com várias instâncias, a primeira que pegar o lock
+ * (GET_LOCK) propaga e as demais já encontram a tabela em dia.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class ReferenceNameCache {
+
+    public enum Reference {
+        FILIAL("filialAtualId", "filialNome", "SELECT id_filial, nome FROM filial"),
+        FORNECEDOR("fornecedorId", "fornecedorNome", "SELECT id_fornecedor, COALESCE(nome_fantasia, razao_social) FROM fornecedor"),
+        CATEGORIA("categoriaId", "categoriaNome", "SELECT id_categoria, nome FROM categoria_ativo");
+
+        private final String idField;
+        private final String nameField;
+        private final String sql;
+
+        Reference(String idField, String nameField, String sql) {
+            this.idField = idField;
+            this.nameField = nameField;
+            this.sql = sql;
+        }
+
+        public String idField() {
+            return idField;
+        }
+
+        public String nameField() {
+            return nameField;
+        }
+    }
+
+    // Parcela da referência no refChecksum: soma a diferença só se o doc tinha o nome anterior; em
+    // qualquer outro estado -1 (não bate com o MySQL: a reconciliação reindexa o documento)
+    private static final String ADJUST_CHECKSUM =
+            "if (ctx._source[params.nameField] == params.anterior && ctx._source.refChecksum != null) "
+                    + "{ ctx._source.refChecksum += params.delta } else { ctx._source.refChecksum = -1 } ";
+    // Idempotente: repetir (conflito de versão, outra instância) não soma a diferença duas vezes
+    static final String SCRIPT_RENAME = "if (ctx._source[params.nameField] == params.nome) { ctx.op = 'noop' } else { "
+            + ADJUST_CHECKSUM + "ctx._source[params.nameField] = params.nome }";
+    static final String SCRIPT_REMOVE = ADJUST_CHECKSUM
+            + "ctx._source.remove(params.nameField); ctx._source.remove(params.idField)";
+
+    private static final String LOCK_NAME = "itinventory.reference-name-sync";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int PERCOLATE_PAGE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ElasticsearchClient esClient;
+    private final IndexGeneration indexGeneration;
+    private final SavedSearchPercolator percolator;
+
+    @Value("${search.es.index:itinventory-equipments}")
+    private String indexName;
+
+    private volatile Map<Reference, Map<Long, String>> names = new EnumMap<>(Reference.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<Reference, Map<Long, String>> loaded = loadAll();
+        if (loaded != null) {
+            replace(loaded);
+            log.info("Nomes de referência carregados. filiais={} fornecedores={} categorias={}",
+                    get(Reference.FILIAL).size(), get(Reference.FORNECEDOR).size(), get(Reference.CATEGORIA).size());
+            propagate(loaded);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.reference.refresh-ms:60000}",
+            initialDelayString = "${search.reference.refresh-ms:60000}")
+    public void refresh() {
+        Map<Reference, Map<Long, String>> loaded = loadAll();
+        if (loaded == null) return;
+
+        replace(loaded);
+        propagate(loaded);
+    }
+
+    /**
+     * Leva ao índice as diferenças entre os nomes atuais e os já propagados (reference_name_sync).
+     * Só uma instância por vez; quem não pega o lock segue (a outra já está propagando).
+     */
+    private void propagate(Map<Reference, Map<Long, String>> current) {
+        try {
+            Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+                if (!namedLock(con, "SELECT GET_LOCK(?, 0)")) {
+                    return false;
+                }
+                try {
+                    sync(current);
+                    return true;
+                } finally {
+                    namedLock(con, "SELECT RELEASE_LOCK(?)");
+                }
+            });
+            if (!Boolean.TRUE.equals(ran)) {
+                log.debug("Propagação de nomes de referência em andamento em outra instância");
+            }
+        } catch (Exception e) {
+            // Fica para o próximo ciclo: a tabela só registra o que chegou ao índice
+            log.warn("Falha ao propagar nomes de referência. Motivo={}", e.getMessage(), e);
+        }
+    }
+
+    private void sync(Map<Reference, Map<Long, String>> current) {
+        Map<Reference, Map<Long, String>> synced = loadSynced();
+
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> removals = new ArrayList<>();
+        long updated = 0;
+        for (Reference ref : Reference.values()) {
+            Map<Long, String> before = synced.getOrDefault(ref, Map.of());
+            Map<Long, String> after = current.getOrDefault(ref, Map.of());
+
+            for (Map.Entry<Long, String> e : changed(before, after).entrySet()) {
+                Long id = e.getKey();
+                long docs = reindex(ref, id, before.get(id), e.getValue());
+                if (docs < 0) continue; // não registra: tenta de novo no próximo ciclo
+                updated += docs;
+                if (docs > 0 && e.getValue() != null) {
+                    enqueueReferencing(ref, id);
+                }
+                if (e.getValue() == null) {
+                    removals.add(new Object[]{ref.name(), id});
+                } else {
+                    upserts.add(new Object[]{ref.name(), id, e.getValue()});
+                }
+            }
+            // Ids novos só são registrados: os documentos já são indexados com o nome atual
+            after.forEach((id, nome) -> {
+                if (!before.containsKey(id)) upserts.add(new Object[]{ref.name(), id, nome});
+            });
+        }
+
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO reference_name_sync (referencia, id_ref, nome) VALUES (?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE nome = VALUES(nome)", upserts);
+        }
+        if (!removals.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM reference_name_sync WHERE referencia = ? AND id_ref = ?", removals);
+        }
+        if (updated > 0) {
+            indexGeneration.advance();
+            log.info("Nomes de referência alterados; documentos atualizados no índice={}", updated);
+        }
+    }
+
+    /**
+     * Preenche filialNome / fornecedorNome / categoriaNome a partir dos ids do doc.
+     */
+    public EquipmentDoc enrich(EquipmentDoc doc) {
+        doc.setFilialNome(name(Reference.FILIAL, doc.getFilialAtualId()));
+        doc.setFornecedorNome(name(Reference.FORNECEDOR, doc.getFornecedorId()));
+        doc.setCategoriaNome(name(Reference.CATEGORIA, doc.getCategoriaId()));
+        return doc;
+    }
+
+    /**
+     * Atualização parcial que troca alguma referência (o nome e o refChecksum dependem do documento inteiro).
+     */
+    public static boolean changesReference(Map<String, Object> changedFields) {
+        for (Reference ref : Reference.values()) {
+            if (changedFields.containsKey(ref.idField())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ids que já existiam e mudaram de nome (valor = nome novo) ou deixaram de existir (valor = null).
+     * Ids novos não entram: nenhum documento aponta para eles ainda.
+     */
+    static Map<Long, String> changed(Map<Long, String> before, Map<Long, String> after) {
+        Map<Long, String> diff = new HashMap<>();
+        before.forEach((id, nome) -> {
+            String now = after.get(id);
+            if (!Objects.equals(nome, now)) {
+                diff.put(id, now);
+            }
+        });
+        return diff;
+    }
+
+    void replace(Map<Reference, Map<Long, String>> loaded) {
+        this.names = loaded;
+    }
+
+    private String name(Reference ref, Long id) {
+        return id == null ? null : get(ref).get(id);
+    }
+
+    private Map<Long, String> get(Reference ref) {
+        return names.getOrDefault(ref, Map.of());
+    }
+
+    private Map<Reference, Map<Long, String>> loadAll() {
+        try {
+            Map<Reference, Map<Long, String>> loaded = new EnumMap<>(Reference.class);
+            for (Reference ref : Reference.values()) {
+                Map<Long, String> byId = new HashMap<>();
+                jdbcTemplate.query(ref.sql, rs -> {
+                    byId.put(rs.getLong(1), rs.getString(2));
+                });
+                loaded.put(ref, Map.copyOf(byId));
+            }
+            return loaded;
+        } catch (Exception e) {
+            // Mantém o último snapshot: melhor nome um pouco velho do que documento sem nome
+            log.warn("Falha ao carregar nomes de referência. Motivo={}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Documentos com o nome novo podem passar a casar buscas salvas (texto livre cobre os nomes):
+     * entram na fila do percolator como uma escrita da API. Referência removida não gera casamento novo.
+     */
+    private void enqueueReferencing(Reference ref, Long id) {
+        try {
+            List<FieldValue> after = List.of();
+            while (true) {
+                List<FieldValue> searchAfter = after;
+                SearchResponse<Void> page = esClient.search(s -> {
+                    s.index(indexName)
+                            .size(PERCOLATE_PAGE)
+                            .trackTotalHits(t -> t.enabled(false))
+                            .source(src -> src.fetch(false))
+                            .query(q -> q.term(t -> t.field(ref.idField()).value(id)))
+                            .sort(so -> so.field(f -> f.field("idEquipment").order(SortOrder.Asc)));
+                    if (!searchAfter.isEmpty()) {
+                        s.searchAfter(searchAfter);
+                    }
+                    return s;
+                }, Void.class);
+
+                List<Hit<Void>> hits = page.hits().hits();
+                hits.forEach(h -> percolator.enqueue(Long.valueOf(h.id()), h.routing()));
+                if (hits.size() < PERCOLATE_PAGE) return;
+                after = hits.get(hits.size() - 1).sort();
+            }
+        } catch (Exception e) {
+            log.warn("Falha ao enfileirar para percolação os documentos de {} id={}. Motivo={}", ref, id, e.getMessage());
+        }
+    }
+
+    private Map<Reference, Map<Long, String>> loadSynced() {
+        Map<Reference, Map<Long, String>> synced = new EnumMap<>(Reference.class);
+        jdbcTemplate.query("SELECT referencia, id_ref, nome FROM reference_name_sync", rs -> {
+            synced.computeIfAbsent(Reference.valueOf(rs.getString(1)), r -> new HashMap<>())
+                    .put(rs.getLong(2), rs.getString(3));
+        });
+        return synced;
+    }
+
+    private static boolean namedLock(Connection con, String sql) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setString(1, LOCK_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    /**
+     * Documentos atualizados, ou -1 se não deu para concluir (falha, ou conflitos de versão que persistiram:
+     * o doc foi regravado no meio do update_by_query e é tentado de novo, o script é idempotente).
+     */
+    long reindex(Reference ref, Long id, String anterior, String nome) {
+        Map<String, JsonData> params = new HashMap<>();
+        params.put("idField", JsonData.of(ref.idField()));
+        params.put("nameField", JsonData.of(ref.nameField()));
+        // Referência removida: o MySQL zera a FK (ON DELETE SET NULL) e a parcela passa a ser CRC32('') = 0
+        long parcela = nome != null ? EquipmentChecksum.reference(id, nome) : 0;
+        params.put("delta", JsonData.of(parcela - EquipmentChecksum.reference(id, anterior)));
+        if (anterior != null) {
+            params.put("anterior", JsonData.of(anterior));
+        }
+        if (nome != null) {
+            params.put("nome", JsonData.of(nome));
+        }
+
+        long updated = 0;
+        try {
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                UpdateByQueryResponse response = esClient.updateByQuery(u -> u
+                        .index(indexName)
+                        .query(q -> q.term(t -> t.field(ref.idField()).value(id)))
+                        .script(s -> s.source(nome != null ? SCRIPT_RENAME : SCRIPT_REMOVE).params(params))
+                        .conflicts(Conflicts.Proceed)
+                );
+                updated += response.updated() != null ? response.updated() : 0;
+                if (!response.failures().isEmpty()) {
+                    log.warn("Falhas no update_by_query de {} id={}. falhas={} primeira={}", ref, id,
+                            response.failures().size(), response.failures().get(0).cause().reason());
+                    return -1;
+                }
+                long conflicts = response.versionConflicts() != null ? response.versionConflicts() : 0;
+                if (conflicts == 0) {
+                    return updated;
+                }
+                log.debug("Conflitos de versão no update_by_query de {} id={}. conflitos={} tentativa={}",
+                        ref, id, conflicts, attempt);
+            }
+            log.warn("Conflitos de versão persistiram no update_by_query de {} id={} após {} tentativas; "
+                    + "fica para o próximo ciclo", ref, id, MAX_ATTEMPTS);
+            return -1;
+
+        } catch (Exception e) {
+            log.warn("Falha no update_by_query de {} id={}. Motivo={}", ref, id, e.getMessage(), e);
+            return -1;
+        }
+    }
+}
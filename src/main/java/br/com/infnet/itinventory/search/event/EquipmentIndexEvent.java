@@ -1,7 +1,49 @@
 package br.com.infnet.itinventory.search.event;
 
-public record EquipmentIndexEvent(Long equipmentId, EquipmentIndexOperation operation)
+import java.time.Instant;
+import java.util.Map;
 
-    {
+/**
+ * Publicado dentro da transação do CRUD. committedAt é carimbado pelo listener no AFTER_COMMIT
+ * (na publicação o commit ainda não aconteceu) e é a origem das métricas de atraso do índice.
+ *
+ * changedFields (só em UPSERT de edição): campos do documento que mudaram, já com os valores novos.
+ * null = documento inteiro (criação, ou quando não há diff disponível).
+ *
+ * filialId: filial atual do equipamento, usada como routing no índice quando o documento não é relido
+ * do MySQL (edição parcial e remoção).
+ *
+ * changeSeq (só na edição parcial): equipment.change_seq gravado pela edição. Os eventos podem ser
+ * aplicados fora de ordem no searchExecutor; o indexador usa o número para não regredir o documento.
+ */
+public record EquipmentIndexEvent(
+        Long equipmentId,
+        EquipmentIndexOperation operation,
+        Long filialId,
+        Map<String, Object> changedFields,
+        Long changeSeq,
+        Instant committedAt
+) {
 
-}
\ No newline at end of file
+    public EquipmentIndexEvent(Long equipmentId, EquipmentIndexOperation operation) {
+        this(equipmentId, operation, null, null, null, null);
+    }
+
+    public EquipmentIndexEvent(Long equipmentId, EquipmentIndexOperation operation, Long filialId) {
+        this(equipmentId, operation, filialId, null, null, null);
+    }
+
+    public static EquipmentIndexEvent partial(Long equipmentId, Long filialId, long changeSeq,
+                                              Map<String, Object> changedFields) {
+        return new EquipmentIndexEvent(equipmentId, EquipmentIndexOperation.UPSERT, filialId,
+                Map.copyOf(changedFields), changeSeq, null);
+    }
+
+    public boolean isPartial() {
+        return operation == EquipmentIndexOperation.UPSERT && changedFields != null;
+    }
+
+    public EquipmentIndexEvent committed(Instant at) {
+        return new EquipmentIndexEvent(equipmentId, operation, filialId, changedFields, changeSeq, at);
+    }
+}
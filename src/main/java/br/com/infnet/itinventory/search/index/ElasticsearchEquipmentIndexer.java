@@ -2,88 +2,206 @@ package br.com.infnet.itinventory.search.index;
 
 import br.com.infnet.itinventory.model.Equipment;
 import br.com.infnet.itinventory.repository.EquipmentRepository;
-import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.doc.EquipmentDocMapper;
+import br.com.infnet.itinventory.search.doc.EquipmentIndexDocument;
+import br.com.infnet.itinventory.search.enrich.ReferenceNameCache;
+import br.com.infnet.itinventory.search.saved.SavedSearchPercolator;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.elasticsearch.core.UpdateResponse;
+import co.elastic.clients.json.JsonData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Eventos do mesmo equipamento podem ser aplicados fora de ordem (várias threads no searchExecutor).
+ * Toda escrita leva o equipment.change_seq da versão que está gravando e é condicional ao changeSeq
+ * já indexado (script no _update): documento completo só substitui versão igual ou anterior;
+ * edição parcial só se aplica sobre versão anterior. Parcial atrasada vira releitura completa do MySQL
+ * (a versão mais nova no índice pode ter vindo de outra parcial, sem os campos desta).
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @ConditionalOnProperty(name = "search.es.enabled", havingValue = "true")
 public class ElasticsearchEquipmentIndexer implements EquipmentIndexer {
 
-    private static final String INDEX = "itinv-equipments";
+    // Documento sem changeSeq (ETL antigo) aceita qualquer versão
+    static final String SCRIPT_REPLACE = "if (ctx._source.changeSeq != null && ctx._source.changeSeq > params.changeSeq) "
+            + "{ ctx.op = 'noop' } else { ctx._source.clear(); ctx._source.putAll(params.doc) }";
+    static final String SCRIPT_PARTIAL = "if (ctx._source.changeSeq != null && ctx._source.changeSeq >= params.changeSeq) "
+            + "{ ctx.op = 'noop' } else { ctx._source.putAll(params.doc); ctx._source.changeSeq = params.changeSeq }";
 
     private final ElasticsearchClient esClient;
     private final EquipmentRepository equipmentRepository;
+    private final IndexGeneration indexGeneration;
+    private final ReferenceNameCache referenceNames;
+    private final SavedSearchPercolator percolator;
+    private final EquipmentRouting routing;
+
+    @Value("${search.es.index:itinventory-equipments}")
+    private String indexName;
+
+    // false (padrão): visível após o refresh interval do índice
+    // wait_for: a chamada só retorna depois do refresh (latência de escrita maior, atraso medido exato)
+    @Value("${search.index.refresh:false}")
+    private String refreshPolicy;
 
     @Override
-    public void upsert(Long equipmentId) {
+    public boolean upsert(Long equipmentId) {
         try {
             Equipment eq = equipmentRepository.findById(equipmentId).orElse(null);
             if (eq == null) {
                 // Se não existe mais no MySQL, garanta delete no ES para evitar “ghost docs”
-                delete(equipmentId);
-                return;
+                return delete(equipmentId);
             }
 
-            EquipmentDoc doc = toDoc(eq);
+            EquipmentIndexDocument doc = EquipmentDocMapper.toIndexDocument(eq, referenceNames);
+            String docRouting = routing.of(eq.getFilialAtualId());
 
-            esClient.index(i -> i
-                    .index(INDEX)
-                    .id(String.valueOf(equipmentId))   // _id do ES = ID do MySQL
-                    .document(doc)
+            UpdateResponse<EquipmentIndexDocument> response = esClient.update(u -> u
+                            .index(indexName)
+                            .id(String.valueOf(equipmentId))   // _id do ES = ID do MySQL
+                            .routing(docRouting)
+                            .refresh(refresh())
+                            .script(sc -> sc.source(SCRIPT_REPLACE).params(Map.of(
+                                    "doc", JsonData.of(doc),
+                                    "changeSeq", JsonData.of(doc.getChangeSeq()))))
+                            .upsert(doc),
+                    EquipmentIndexDocument.class
             );
+            if (response.result() == Result.NoOp) {
+                // Índice já tem versão mais nova (leitura do MySQL ultrapassada por outro evento)
+                return true;
+            }
+            indexGeneration.advance();
+            percolator.enqueue(equipmentId, docRouting);
+            return true;
 
         } catch (Exception e) {
             // Não estourar erro para o usuário do CRUD
             log.warn("Falha ao indexar equipment id={} op=UPSERT. Motivo={}", equipmentId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * _update só com os campos alterados (a aplicação não relê a linha no MySQL), condicional ao changeSeq.
+     */
+    @Override
+    public boolean update(Long equipmentId, Long filialId, long changeSeq, Map<String, Object> changedFields) {
+        // Mudou de filial com routing ligado: o documento muda de shard (remove a cópia antiga e grava a nova)
+        if (routing.enabled() && changedFields.containsKey("filialAtualId")) {
+            return deleteAnyShard(equipmentId) && upsert(equipmentId);
+        }
+        // Campo que virou null precisa sumir do _source (doc é NON_NULL): só a reindexação completa faz isso.
+        // Referência trocada: nome e refChecksum saem do documento completo
+        if (changedFields.values().stream().anyMatch(Objects::isNull) || ReferenceNameCache.changesReference(changedFields)) {
+            return upsert(equipmentId);
+        }
+
+        try {
+            String docRouting = routing.of(filialId);
+
+            UpdateResponse<Map> response = esClient.update(u -> u
+                            .index(indexName)
+                            .id(String.valueOf(equipmentId))
+                            .routing(docRouting)
+                            .refresh(refresh())
+                            .script(sc -> sc.source(SCRIPT_PARTIAL).params(Map.of(
+                                    "doc", JsonData.of(changedFields),
+                                    "changeSeq", JsonData.of(changeSeq)))),
+                    Map.class
+            );
+            if (response.result() == Result.NoOp) {
+                // Evento atrasado: índice já passou desta versão, mas talvez sem estes campos
+                log.debug("Atualização parcial fora de ordem; reindexando equipment id={} changeSeq={}",
+                        equipmentId, changeSeq);
+                return upsert(equipmentId);
+            }
+            indexGeneration.advance();
+            percolator.enqueue(equipmentId, docRouting);
+            return true;
+
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                // Doc ainda não está no índice (ex.: evento de criação perdido): vai o documento completo
+                return upsert(equipmentId);
+            }
+            log.warn("Falha ao atualizar equipment id={} op=UPDATE campos={}. Motivo={}",
+                    equipmentId, changedFields.keySet(), e.getMessage(), e);
+            return false;
+        } catch (Exception e) {
+            log.warn("Falha ao atualizar equipment id={} op=UPDATE campos={}. Motivo={}",
+                    equipmentId, changedFields.keySet(), e.getMessage(), e);
+            return false;
         }
     }
 
+    /**
+     * Filial desconhecida (ex.: linha já removida do MySQL): com routing ligado o documento pode estar
+     * em qualquer shard.
+     */
     @Override
-    public void delete(Long equipmentId) {
+    public boolean delete(Long equipmentId) {
+        return routing.enabled() ? deleteAnyShard(equipmentId) : delete(equipmentId, null);
+    }
+
+    @Override
+    public boolean delete(Long equipmentId, Long filialId) {
         try {
             esClient.delete(d -> d
-                    .index(INDEX)
+                    .index(indexName)
                     .id(String.valueOf(equipmentId))
+                    .routing(routing.of(filialId))
+                    .refresh(refresh())
             );
+            indexGeneration.advance();
+            return true;
         } catch (Exception e) {
             log.warn("Falha ao remover equipment id={} op=DELETE. Motivo={}", equipmentId, e.getMessage(), e);
+            return false;
         }
     }
 
-    private EquipmentDoc toDoc(Equipment e) {
-        return EquipmentDoc.builder()
-                .idEquipment(e.getId())
-                .assetNumber(e.getAssetNumber())
-                .type(e.getType() != null ? e.getType().name() : null)
-                .status(e.getStatus() != null ? e.getStatus().name() : null)
-                .brand(e.getBrand())
-                .model(e.getModel())
-                .location(e.getLocation())
-                .responsible(e.getResponsible())
-                .acquisitionDate(e.getAcquisitionDate())
-                .acquisitionValue(e.getAcquisitionValue() != null ? e.getAcquisitionValue().doubleValue() : null)
-                .description(buildDescription(e))
-                .build();
+    /**
+     * delete_by_query por _id em todos os shards (o delete comum só procura no shard do routing informado).
+     */
+    private boolean deleteAnyShard(Long equipmentId) {
+        try {
+            esClient.deleteByQuery(d -> d
+                    .index(indexName)
+                    .query(q -> q.ids(i -> i.values(String.valueOf(equipmentId))))
+                    .refresh(refresh() != Refresh.False)
+            );
+            indexGeneration.advance();
+            return true;
+        } catch (Exception e) {
+            log.warn("Falha ao remover equipment id={} op=DELETE em todos os shards. Motivo={}",
+                    equipmentId, e.getMessage(), e);
+            return false;
+        }
     }
 
-    private String buildDescription(Equipment e) {
-        // Campo “full text” opcional para multi_match mais eficiente
-        return String.join(" | ",
-                safe(e.getAssetNumber()),
-                safe(e.getBrand()),
-                safe(e.getModel()),
-                safe(e.getLocation()),
-                safe(e.getResponsible())
-        );
+    @Override
+    public boolean searchableOnReturn() {
+        return refresh() != Refresh.False;
     }
 
-    private String safe(String s) {
-        return s == null ? "" : s;
+    private Refresh refresh() {
+        return switch (refreshPolicy.trim().toLowerCase()) {
+            case "wait_for" -> Refresh.WaitFor;
+            case "true" -> Refresh.True;
+            default -> Refresh.False;
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package br.com.infnet.itinventory.search.index;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import br.com.infnet.itinventory.search.doc.EquipmentDocMapper;
+import br.com.infnet.itinventory.search.embedded.EmbeddedEquipmentSearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnExpression("!${search.es.enabled:false} && ${search.embedded.enabled:true}")
+public class EmbeddedEquipmentIndexer implements EquipmentIndexer {
+
+    private final EmbeddedEquipmentSearchService searchService;
+    private final EquipmentRepository equipmentRepository;
+
+    @Override
+    public boolean upsert(Long equipmentId) {
+        try {
+            Equipment eq = equipmentRepository.findById(equipmentId).orElse(null);
+            if (eq == null) {
+                return delete(equipmentId);
+            }
+
+            searchService.index(EquipmentDocMapper.toDoc(eq));
+            return true;
+        } catch (Exception e) {
+            log.warn("Falha ao indexar equipment id={} op=UPSERT (busca embutida). Motivo={}", equipmentId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(Long equipmentId) {
+        searchService.remove(equipmentId);
+        return true;
+    }
+
+    // Índice em memória: visível assim que o upsert/remove retorna
+    @Override
+    public boolean searchableOnReturn() {
+        return true;
+    }
+}
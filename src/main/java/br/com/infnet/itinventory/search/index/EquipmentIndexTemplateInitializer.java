@@ -0,0 +1,72 @@
+package br.com.infnet.itinventory.search.index;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+
+/**
+ * Registra o index template do índice de equipamentos na subida da aplicação
+ * e cria o índice se ainda não existir.
+ *
+ * O mapping (keyword com normalizer, doc_values, copy_to para "description", index sorting
+ * por acquisitionDate) fica em resources/search/equipment-index-template.json — a aplicação
+ * é a dona do schema; o ETL apenas grava documentos.
+ *
+ * O número de shards (search.es.shards) só vale na criação do índice; com routing por filial
+ * (search.routing.enabled) é ele que define quantos shards uma busca sem filial consulta.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class EquipmentIndexTemplateInitializer {
+
+    static final String TEMPLATE_RESOURCE = "search/equipment-index-template.json";
+
+    private final ElasticsearchClient esClient;
+
+    @Value("${search.es.index:itinventory-equipments}")
+    private String indexName;
+
+    @Value("${search.es.shards:1}")
+    private int shards;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            String templateName = indexName + "-template";
+
+            try (InputStream json = new ClassPathResource(TEMPLATE_RESOURCE).getInputStream()) {
+                esClient.indices().putIndexTemplate(t -> t
+                        .withJson(json)
+                        .name(templateName)
+                        .indexPatterns(indexName)
+                );
+            }
+
+            boolean exists = esClient.indices().exists(e -> e.index(indexName)).value();
+            if (!exists) {
+                esClient.indices().create(c -> c
+                        .index(indexName)
+                        .settings(s -> s.numberOfShards(String.valueOf(shards)))
+                );
+                log.info("Índice de busca criado a partir do template. index={} template={} shards={}",
+                        indexName, templateName, shards);
+            } else {
+                // Mudanças de mapping em campos existentes só valem após reindexação (ex.: rodar o ETL em índice novo)
+                log.info("Index template atualizado; índice já existente mantido. index={} template={}", indexName, templateName);
+            }
+        } catch (Exception e) {
+            // ES fora do ar não deve impedir o CRUD de subir
+            log.warn("Falha ao registrar index template do Elasticsearch. index={} Motivo={}", indexName, e.getMessage(), e);
+        }
+    }
+}
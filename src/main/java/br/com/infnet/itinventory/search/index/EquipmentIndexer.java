@@ -1,7 +1,35 @@
 package br.com.infnet.itinventory.search.index;
 
+import java.util.Map;
+
 public interface EquipmentIndexer {
 
-    void upsert(Long equipmentId);
-    void delete(Long equipmentId);
+    /**
+     * @return true se a alteração foi aplicada ao índice (false = falhou e foi só logada)
+     */
+    boolean upsert(Long equipmentId);
+    boolean delete(Long equipmentId);
+
+    /**
+     * Remoção com a filial conhecida (routing do documento no índice). Padrão: ignora a filial.
+     */
+    default boolean delete(Long equipmentId, Long filialId) {
+        return delete(equipmentId);
+    }
+
+    /**
+     * Atualização parcial: só os campos alterados, com os valores já conhecidos (sem reler o MySQL).
+     * filialId = filial atual (routing); changeSeq = equipment.change_seq da edição (ordem entre eventos).
+     * Padrão: reindexa o documento inteiro.
+     */
+    default boolean update(Long equipmentId, Long filialId, long changeSeq, Map<String, Object> changedFields) {
+        return upsert(equipmentId);
+    }
+
+    /**
+     * true se, ao retornar, a alteração já aparece nas buscas (sem esperar refresh).
+     */
+    default boolean searchableOnReturn() {
+        return false;
+    }
 }
@@ -0,0 +1,36 @@
+package br.com.infnet.itinventory.search.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routing customizado do índice de equipamentos: _routing = filialAtualId.
+ *
+ * Todos os equipamentos de uma filial ficam no mesmo shard, e a busca de uma filial consulta só ele.
+ * Sem filial o documento usa o routing padrão (_id). Ligar/desligar exige reindexar (rodar o ETL em índice novo):
+ * documentos gravados com outro routing não são encontrados por get/update/delete.
+ *
+ * Desbalanceamento: o shard é hash(filial) % shards, então uma filial grande (ou várias filiais que caem
+ * no mesmo shard) concentra documentos e carga de busca num shard só, e ele não se divide. Se o tamanho
+ * dos shards divergir muito, recriar o índice com index.routing_partition_size > 1 (cada filial espalhada
+ * em N shards; a busca consulta N em vez de 1) ou desligar o routing.
+ */
+@Component
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class EquipmentRouting {
+
+    @Value("${search.routing.enabled:false}")
+    private boolean enabled;
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Valor de _routing para a filial (null = routing padrão).
+     */
+    public String of(Long filialId) {
+        return enabled && filialId != null ? String.valueOf(filialId) : null;
+    }
+}
@@ -1,19 +1,19 @@
 package br.com.infnet.itinventory.search.index;
 
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
 @Service
-@ConditionalOnProperty(name = "search.es.enabled", havingValue = "false", matchIfMissing = true)
+@ConditionalOnExpression("!${search.es.enabled:false} && !${search.embedded.enabled:true}")
 public class NoOpEquipmentIndexer implements EquipmentIndexer {
 
     @Override
-    public void upsert(Long equipmentId) {
-
+    public boolean upsert(Long equipmentId) {
+        return false;
     }
 
     @Override
-    public void delete(Long equipmentId) {
-
+    public boolean delete(Long equipmentId) {
+        return false;
     }
-}
\ No newline at end of file
+}
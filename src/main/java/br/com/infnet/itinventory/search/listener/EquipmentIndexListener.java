@@ -3,28 +3,156 @@ package br.com.infnet.itinventory.search.listener;
 import br.com.infnet.itinventory.search.event.EquipmentIndexEvent;
 import br.com.infnet.itinventory.search.event.EquipmentIndexOperation;
 import br.com.infnet.itinventory.search.index.EquipmentIndexer;
-import lombok.RequiredArgsConstructor;
+import br.com.infnet.itinventory.search.metrics.IndexLagMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * No AFTER_COMMIT carimba o evento com o instante do commit e o entrega ao searchExecutor.
+ * (Submissão manual em vez de @Async: a tarefa carrega o commit, o que permite medir o tempo de fila.)
+ *
+ * Fila cheia: o id fica marcado para nova tentativa (um evento por id, o mais recente; edição parcial vira
+ * releitura completa do MySQL) e é reenviado a cada search.index.retry-ms. A marcação é limitada a
+ * search.index.retry-capacity ids; acima disso o evento é descartado e só a reconciliação o corrige.
+ * "search.index.executor.rejected" conta só a primeira rejeição de cada evento (reenvio recusado não
+ * conta de novo); "search.index.retry.pending" é o total de ids marcados.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class EquipmentIndexListener {
 
     private final EquipmentIndexer indexer;
+    private final ThreadPoolTaskExecutor searchExecutor;
+    private final IndexLagMetrics lagMetrics;
+    private final int retryCapacity;
+    private final Counter rejectedCounter;
+
+    // Eventos rejeitados com a fila cheia, por id (o mais recente prevalece)
+    private final Map<Long, EquipmentIndexEvent> rejected = new ConcurrentHashMap<>();
+
+    public EquipmentIndexListener(
+            EquipmentIndexer indexer,
+            @Qualifier("searchExecutor") ThreadPoolTaskExecutor searchExecutor,
+            IndexLagMetrics lagMetrics,
+            MeterRegistry meterRegistry,
+            @Value("${search.index.retry-capacity:10000}") int retryCapacity
+    ) {
+        this.indexer = indexer;
+        this.searchExecutor = searchExecutor;
+        this.lagMetrics = lagMetrics;
+        this.retryCapacity = retryCapacity;
+
+        this.rejectedCounter = Counter.builder("search.index.executor.rejected")
+                .description("Eventos de indexação rejeitados com a fila do searchExecutor cheia")
+                .register(meterRegistry);
+        Gauge.builder("search.index.retry.pending", rejected, Map::size)
+                .description("Ids aguardando nova tentativa de indexação (rejeitados com a fila cheia)")
+                .register(meterRegistry);
+    }
 
-    @Async("searchExecutor")
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void onEquipmentIndexEvent(EquipmentIndexEvent event) {
+        EquipmentIndexEvent committed = event.committed(lagMetrics.now());
         try {
+            searchExecutor.execute(new IndexTask(committed));
+        } catch (TaskRejectedException e) {
+            // Não falha o CRUD (já commitado): marca o id para o retryRejected
+            markRejected(committed);
+        }
+    }
+
+    /**
+     * Reenvia os ids rejeitados enquanto a fila aceitar; o que sobrar espera a próxima rodada.
+     */
+    @Scheduled(fixedDelayString = "${search.index.retry-ms:1000}")
+    public void retryRejected() {
+        Iterator<Map.Entry<Long, EquipmentIndexEvent>> it = rejected.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, EquipmentIndexEvent> entry = it.next();
+            EquipmentIndexEvent event = entry.getValue();
+            try {
+                searchExecutor.execute(new IndexTask(event));
+            } catch (TaskRejectedException e) {
+                return;
+            }
+            // Só remove se não chegou evento mais novo do mesmo id durante o envio
+            rejected.remove(entry.getKey(), event);
+        }
+    }
+
+    int pendingRetries() {
+        return rejected.size();
+    }
+
+    private void markRejected(EquipmentIndexEvent event) {
+        rejectedCounter.increment();
+        // Um evento por id: a parcial substituiria a anterior e perderia os campos dela; relê o documento inteiro
+        EquipmentIndexEvent retry = event.isPartial()
+                ? new EquipmentIndexEvent(event.equipmentId(), event.operation(), event.filialId()).committed(event.committedAt())
+                : event;
+
+        if (rejected.size() >= retryCapacity && !rejected.containsKey(event.equipmentId())) {
+            // Sem espaço: a reconciliação do índice corrige a divergência
+            log.warn("Fila de indexação cheia e tentativas pendentes no limite; evento descartado equipmentId={} op={}",
+                    event.equipmentId(), event.operation());
+            return;
+        }
+        rejected.put(event.equipmentId(), retry);
+        log.debug("Fila de indexação cheia; evento marcado para nova tentativa equipmentId={} op={}",
+                event.equipmentId(), event.operation());
+    }
+
+    /**
+     * Commit mais antigo entre os ids marcados para nova tentativa (vazio se não há nenhum).
+     * Percorre a marcação inteira (até search.index.retry-capacity): só para o health.
+     */
+    public Optional<Instant> oldestRejectedCommit() {
+        Instant oldest = null;
+        for (EquipmentIndexEvent event : rejected.values()) {
+            Instant at = event.committedAt();
+            if (at != null && (oldest == null || at.isBefore(oldest))) oldest = at;
+        }
+        return Optional.ofNullable(oldest);
+    }
+
+    /**
+     * Commit mais antigo ainda aguardando na fila (vazio se a fila está vazia).
+     */
+    public Optional<Instant> oldestQueuedCommit() {
+        Runnable head = searchExecutor.getThreadPoolExecutor().getQueue().peek();
+        return head instanceof IndexTask task ? Optional.of(task.event().committedAt()) : Optional.empty();
+    }
+
+    void apply(EquipmentIndexEvent event) {
+        lagMetrics.dequeued(event.committedAt());
+        try {
+            boolean applied;
             if (event.operation() == EquipmentIndexOperation.DELETE) {
-                indexer.delete(event.equipmentId());
+                applied = indexer.delete(event.equipmentId(), event.filialId());
+            } else if (event.isPartial()) {
+                applied = indexer.update(event.equipmentId(), event.filialId(), event.changeSeq(), event.changedFields());
             } else {
-                indexer.upsert(event.equipmentId());
+                applied = indexer.upsert(event.equipmentId());
+            }
+
+            if (applied) {
+                lagMetrics.applied(event.committedAt(), indexer.searchableOnReturn());
             }
         } catch (Exception e) {
             // Segurança extra: indexer já trata, mas aqui já garante isolamento total
@@ -32,4 +160,22 @@ public class EquipmentIndexListener {
                     event.equipmentId(), event.operation(), e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    private final class IndexTask implements Runnable {
+
+        private final EquipmentIndexEvent event;
+
+        private IndexTask(EquipmentIndexEvent event) {
+            this.event = event;
+        }
+
+        EquipmentIndexEvent event() {
+            return event;
+        }
+
+        @Override
+        public void run() {
+            apply(event);
+        }
+    }
+}
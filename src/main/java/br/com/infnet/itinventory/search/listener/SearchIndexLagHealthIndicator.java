@@ -0,0 +1,53 @@
+package br.com.infnet.itinventory.search.listener;
+
+import br.com.infnet.itinventory.search.metrics.IndexLagMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * "searchIndexLag" no health (e no grupo readiness): DEGRADED quando a busca está mais atrasada
+ * que o SLO em relação ao MySQL. Não tira a instância do balanceador (HTTP 200): o índice é
+ * compartilhado, então o atraso não melhora trocando de instância.
+ *
+ * Atraso atual = maior entre o evento mais antigo ainda pendente (na fila ou marcado para nova tentativa
+ * depois de rejeitado com a fila cheia) e a última escrita aplicada (recente).
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndexLagHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Índice de busca atrasado em relação ao MySQL");
+
+    private static final Duration RECENT_WINDOW = Duration.ofMinutes(1);
+
+    private final EquipmentIndexListener listener;
+    private final IndexLagMetrics lagMetrics;
+
+    @Value("${search.index.lag-slo-ms:5000}")
+    private long sloMillis;
+
+    @Override
+    public Health health() {
+        Duration queued = listener.oldestQueuedCommit().map(lagMetrics::since).orElse(Duration.ZERO);
+        Duration retrying = listener.oldestRejectedCommit().map(lagMetrics::since).orElse(Duration.ZERO);
+        Duration pending = queued.compareTo(retrying) >= 0 ? queued : retrying;
+        Duration applied = lagMetrics.recentAppliedLag(RECENT_WINDOW);
+        Duration lag = pending.compareTo(applied) >= 0 ? pending : applied;
+
+        Health.Builder builder = lag.toMillis() > sloMillis ? Health.status(DEGRADED) : Health.up();
+        return builder
+                .withDetail("lagMs", lag.toMillis())
+                .withDetail("oldestQueuedMs", queued.toMillis())
+                .withDetail("oldestRetryMs", retrying.toMillis())
+                .withDetail("pendingRetries", listener.pendingRetries())
+                .withDetail("lastAppliedLagMs", applied.toMillis())
+                .withDetail("sloMs", sloMillis)
+                .build();
+    }
+}
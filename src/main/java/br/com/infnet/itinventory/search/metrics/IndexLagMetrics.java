@@ -0,0 +1,85 @@
+package br.com.infnet.itinventory.search.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Atraso do índice de busca, sempre medido a partir do commit no MySQL:
+ * - dequeued: o worker do searchExecutor pegou o evento (tempo de fila);
+ * - indexed: a escrita no índice retornou;
+ * - searchable: a alteração já aparece nas buscas. Exato quando o indexador garante isso no retorno
+ *   (search.index.refresh=wait_for ou busca embutida); com refresh=false é estimado pelo pior caso,
+ *   indexed + search.index.refresh-interval-ms (o refresh_interval do índice).
+ */
+@Component
+public class IndexLagMetrics {
+
+    private final Timer dequeued;
+    private final Timer indexed;
+    private final Timer searchable;
+    private final Duration refreshInterval;
+    private final Clock clock = Clock.systemUTC();
+
+    // Última escrita aplicada: base do health de atraso
+    private final AtomicReference<Applied> lastApplied = new AtomicReference<>();
+
+    public IndexLagMetrics(
+            MeterRegistry meterRegistry,
+            @Value("${search.index.refresh-interval-ms:1000}") long refreshIntervalMillis
+    ) {
+        this.refreshInterval = Duration.ofMillis(Math.max(0, refreshIntervalMillis));
+        this.dequeued = lagTimer(meterRegistry, "dequeued");
+        this.indexed = lagTimer(meterRegistry, "indexed");
+        this.searchable = lagTimer(meterRegistry, "searchable");
+    }
+
+    public Instant now() {
+        return clock.instant();
+    }
+
+    public void dequeued(Instant committedAt) {
+        dequeued.record(since(committedAt));
+    }
+
+    public void applied(Instant committedAt, boolean searchableOnReturn) {
+        Instant at = now();
+        Duration lag = Duration.between(committedAt, at);
+        indexed.record(lag);
+        // Sem garantia no retorno, o documento aparece no máximo no próximo refresh do índice
+        searchable.record(searchableOnReturn ? lag : lag.plus(refreshInterval));
+        lastApplied.set(new Applied(at, lag));
+    }
+
+    /**
+     * Atraso da última escrita aplicada, se ela ocorreu dentro da janela (escritas antigas não contam).
+     */
+    public Duration recentAppliedLag(Duration window) {
+        Applied last = lastApplied.get();
+        if (last == null || last.at().isBefore(now().minus(window))) {
+            return Duration.ZERO;
+        }
+        return last.lag();
+    }
+
+    public Duration since(Instant committedAt) {
+        return Duration.between(committedAt, now());
+    }
+
+    private static Timer lagTimer(MeterRegistry registry, String stage) {
+        return Timer.builder("search.index.lag")
+                .description("Atraso desde o commit no MySQL até a etapa do pipeline de indexação")
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private record Applied(Instant at, Duration lag) {}
+}
@@ -0,0 +1,139 @@
+package br.com.infnet.itinventory.search.metrics;
+
+import br.com.infnet.itinventory.search.cache.SearchCacheKey;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Latência das buscas por tipo (text, advanced, ...), combinação de filtros presentes e resultado.
+ *
+ * - search.client.latency: tempo visto pela aplicação (rede + fila do cliente + (des)serialização);
+ * - search.es.took: tempo reportado pelo próprio ES ("took") — a diferença entre os dois é overhead nosso.
+ * A tag outcome separa success, timeout (timed_out do ES, timeout de socket/conexão ou 408/504) e error,
+ * para falhas rápidas não puxarem os percentis para baixo. Percentis calculados no cliente, sem histograma
+ * publicado: a tag filters tem até 256 combinações e cada uma multiplicaria os buckets.
+ * Buscas acima de search.slow-query.threshold-ms vão para o {@link SlowQueryLog}, com o outcome.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String TIMEOUT = "timeout";
+    public static final String ERROR = "error";
+
+    private static final String CLIENT_LATENCY = "search.client.latency";
+    private static final String ES_TOOK = "search.es.took";
+
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryLog slowQueryLog;
+
+    // Timer por nome+tags: evita montar o builder e consultar o registry a cada busca
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private record MeterKey(String name, String type, String filters, String outcome) {
+    }
+
+    /**
+     * @param startNanos System.nanoTime() de antes do envio
+     * @param tookMillis "took" da resposta do ES (null se não houver)
+     */
+    public void record(String type, SearchCacheKey request, long startNanos, Long tookMillis) {
+        record(type, request, startNanos, tookMillis, SUCCESS);
+    }
+
+    /**
+     * Busca resolvida fora do ES (sem took).
+     */
+    public void record(String type, SearchCacheKey request, long startNanos) {
+        record(type, request, startNanos, null, SUCCESS);
+    }
+
+    /**
+     * Resposta do ES: timed_out=true (resultado parcial) conta como timeout.
+     */
+    public void record(String type, SearchCacheKey request, long startNanos, ResponseBody<?> response) {
+        record(type, request, startNanos, response.took(), response.timedOut() ? TIMEOUT : SUCCESS);
+    }
+
+    /**
+     * Busca que não voltou (exceção do cliente ou do ES).
+     */
+    public void recordFailure(String type, SearchCacheKey request, long startNanos, Throwable error) {
+        record(type, request, startNanos, null, outcome(error));
+    }
+
+    private void record(String type, SearchCacheKey request, long startNanos, Long tookMillis, String outcome) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        String filters = filtersTag(request);
+
+        timer(CLIENT_LATENCY, type, filters, outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (tookMillis != null) {
+            timer(ES_TOOK, type, filters, outcome).record(tookMillis, TimeUnit.MILLISECONDS);
+        }
+
+        long clientMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (slowQueryLog.isSlow(clientMillis)) {
+            slowQueryLog.add(new SlowQuery(Instant.now(), type, filters, outcome, clientMillis, tookMillis, request));
+            log.info("Busca lenta. tipo={} filtros={} resultado={} clienteMs={} tookMs={}",
+                    type, filters, outcome, clientMillis, tookMillis);
+        }
+    }
+
+    private Timer timer(String name, String type, String filters, String outcome) {
+        return timers.computeIfAbsent(new MeterKey(name, type, filters, outcome), k -> Timer.builder(k.name())
+                .description(CLIENT_LATENCY.equals(k.name())
+                        ? "Tempo da busca visto pela aplicação"
+                        : "Tempo da busca reportado pelo Elasticsearch (took)")
+                .tag("type", k.type())
+                .tag("filters", k.filters())
+                .tag("outcome", k.outcome())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+    }
+
+    static String outcome(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof InterruptedIOException) {
+                return TIMEOUT; // SocketTimeoutException, ConnectTimeoutException
+            }
+            if (t instanceof ElasticsearchException es && (es.status() == 408 || es.status() == 504)) {
+                return TIMEOUT;
+            }
+        }
+        return ERROR;
+    }
+
+    /**
+     * Nomes dos filtros presentes, em ordem fixa ("texto+status+value"); "none" sem filtros.
+     * Só nomes — nunca valores — para manter a cardinalidade da tag limitada.
+     */
+    static String filtersTag(SearchCacheKey k) {
+        if (k == null) return "none";
+
+        StringJoiner j = new StringJoiner("+");
+        if (k.texto() != null) j.add("texto");
+        if (k.status() != null) j.add("status");
+        if (k.type() != null) j.add("type");
+        if (k.location() != null) j.add("location");
+        if (k.brand() != null) j.add("brand");
+        if (k.minValue() != null || k.maxValue() != null) j.add("value");
+        if (k.dateFrom() != null || k.dateTo() != null) j.add("date");
+        if (k.filialId() != null) j.add("filial");
+        return j.length() == 0 ? "none" : j.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.infnet.itinventory.search.metrics;
+
+import br.com.infnet.itinventory.search.cache.SearchCacheKey;
+
+import java.time.Instant;
+
+/**
+ * Entrada do log de buscas lentas. "request" é a forma canônica da busca (a mesma chave do cache),
+ * então variações de caixa/espaços da mesma consulta aparecem iguais. outcome = success, timeout ou error.
+ */
+public record SlowQuery(
+        Instant at,
+        String type,
+        String filters,
+        String outcome,
+        long clientMillis,
+        Long tookMillis,
+        SearchCacheKey request
+) {
+}
@@ -0,0 +1,37 @@
+package br.com.infnet.itinventory.search.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /actuator/slowqueries: últimas buscas acima do limite (mais recente primeiro).
+ * DELETE /actuator/slowqueries: limpa o log.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @ReadOperation
+    public Map<String, Object> slowQueries() {
+        List<SlowQuery> recent = slowQueryLog.recent();
+        return Map.of(
+                "thresholdMs", slowQueryLog.thresholdMillis(),
+                "count", recent.size(),
+                "queries", recent
+        );
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryLog.clear();
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.infnet.itinventory.search.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ring buffer das buscas mais lentas que o limite configurado.
+ * Tamanho fixo: ao encher, a entrada mais antiga é sobrescrita (memória constante, sem alocação extra).
+ */
+@Component
+public class SlowQueryLog {
+
+    private final long thresholdMillis;
+    private final SlowQuery[] buffer;
+
+    private int next;
+    private int count;
+
+    public SlowQueryLog(
+            @Value("${search.slow-query.threshold-ms:500}") long thresholdMillis,
+            @Value("${search.slow-query.capacity:100}") int capacity
+    ) {
+        this.thresholdMillis = Math.max(0, thresholdMillis);
+        this.buffer = new SlowQuery[Math.max(1, capacity)];
+    }
+
+    public long thresholdMillis() {
+        return thresholdMillis;
+    }
+
+    public boolean isSlow(long clientMillis) {
+        return clientMillis >= thresholdMillis;
+    }
+
+    public synchronized void add(SlowQuery query) {
+        buffer[next] = query;
+        next = (next + 1) % buffer.length;
+        if (count < buffer.length) count++;
+    }
+
+    /**
+     * Entradas da mais recente para a mais antiga.
+     */
+    public synchronized List<SlowQuery> recent() {
+        List<SlowQuery> out = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            out.add(buffer[(next - i + buffer.length) % buffer.length]);
+        }
+        return out;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(buffer, null);
+        next = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.infnet.itinventory.search.reconcile;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import java.util.zip.CRC32;
+
+/**
+ * Checksum (CRC32) do conteúdo indexável de um equipamento.
+ *
+ * Calculado em três lugares que PRECISAM concordar byte a byte:
+ * - aqui (Java), gravado nos campos "checksum" e "refChecksum" do documento pelo indexador;
+ * - no MySQL ({@link #SQL_EXPRESSION} sobre {@link #SQL_FROM}), para comparar faixas de ids sem trazer linhas;
+ * - no ETL (docker/infra/etl/etl.py, funções checksum e ref_checksum).
+ * Formato: valores unidos por "|" na ordem abaixo, nulos omitidos (como CONCAT_WS),
+ * data em yyyy-MM-dd e valor com 2 casas decimais.
+ *
+ * A reconciliação compara checksum + refChecksum. refChecksum é a soma, por referência (filial, fornecedor,
+ * categoria), do CRC32 de "id|nome": parcelas independentes para que a troca de um nome (update_by_query do
+ * ReferenceNameCache) ajuste o documento somando só a diferença da parcela, sem reler o equipamento.
+ * Referência ausente = CRC32('') = 0. Os nomes seguem as mesmas consultas de ReferenceNameCache.Reference.
+ */
+public final class EquipmentChecksum {
+
+    public static final String SQL_FROM = "equipment e "
+            + "LEFT JOIN filial f ON f.id_filial = e.id_filial_atual "
+            + "LEFT JOIN fornecedor fo ON fo.id_fornecedor = e.id_fornecedor "
+            + "LEFT JOIN categoria_ativo c ON c.id_categoria = e.id_categoria";
+
+    public static final String SQL_EXPRESSION =
+            "(CRC32(CONCAT_WS('|', e.`type`, e.brand, e.model, e.asset_number, e.status, e.location, e.responsible, "
+                    + "DATE_FORMAT(e.acquisition_date, '%Y-%m-%d'), e.acquisition_value)) "
+                    + "+ CRC32(CONCAT_WS('|', e.id_filial_atual, f.nome)) "
+                    + "+ CRC32(CONCAT_WS('|', e.id_fornecedor, COALESCE(fo.nome_fantasia, fo.razao_social))) "
+                    + "+ CRC32(CONCAT_WS('|', e.id_categoria, c.nome)))";
+
+    private EquipmentChecksum() {
+    }
+
+    public static long of(Equipment e) {
+        CRC32 crc = new CRC32();
+        crc.update(canonical(e).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Parcela das referências de um documento já enriquecido (ReferenceNameCache#enrich).
+     */
+    public static long ofReferences(EquipmentDoc doc) {
+        return reference(doc.getFilialAtualId(), doc.getFilialNome())
+                + reference(doc.getFornecedorId(), doc.getFornecedorNome())
+                + reference(doc.getCategoriaId(), doc.getCategoriaNome());
+    }
+
+    public static long reference(Long id, String nome) {
+        StringJoiner j = new StringJoiner("|");
+        add(j, id != null ? id.toString() : null);
+        add(j, nome);
+        CRC32 crc = new CRC32();
+        crc.update(j.toString().getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    static String canonical(Equipment e) {
+        StringJoiner j = new StringJoiner("|");
+        add(j, e.getType() != null ? e.getType().name() : null);
+        add(j, e.getBrand());
+        add(j, e.getModel());
+        add(j, e.getAssetNumber());
+        add(j, e.getStatus() != null ? e.getStatus().name() : null);
+        add(j, e.getLocation());
+        add(j, e.getResponsible());
+        add(j, e.getAcquisitionDate() != null ? e.getAcquisitionDate().toString() : null);
+        add(j, e.getAcquisitionValue() != null
+                ? e.getAcquisitionValue().setScale(2, RoundingMode.HALF_UP).toPlainString()
+                : null);
+        return j.toString();
+    }
+
+    private static void add(StringJoiner j, String value) {
+        if (value != null) j.add(value);
+    }
+}
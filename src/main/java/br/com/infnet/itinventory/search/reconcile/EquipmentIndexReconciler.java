@@ -0,0 +1,326 @@
+package br.com.infnet.itinventory.search.reconcile;
+
+import br.com.infnet.itinventory.exception.EquipmentBusinessException;
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.doc.EquipmentDocMapper;
+import br.com.infnet.itinventory.search.doc.EquipmentIndexDocument;
+import br.com.infnet.itinventory.search.enrich.ReferenceNameCache;
+import br.com.infnet.itinventory.search.index.EquipmentRouting;
+import br.com.infnet.itinventory.search.saved.SavedSearchPercolator;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.aggregations.HistogramBucket;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reconciliação MySQL x Elasticsearch sem recarga total.
+ *
+ * 1. Divide o espaço de ids em faixas de tamanho fixo e calcula, por faixa, quantidade + soma dos
+ *    checksums: no MySQL com GROUP BY (CRC32 em SQL) e no ES com histogram + sum (campo "checksum").
+ *    Nenhuma linha/documento trafega nesta etapa.
+ * 2. Só nas faixas divergentes compara id a id.
+ * 3. Reindexa (bulk) os ids ausentes/desatualizados no ES e remove os que não existem mais no MySQL.
+ *    Com routing por filial, o delete usa o _routing lido do próprio hit e um documento que mudou de
+ *    filial tem a cópia do shard antigo removida.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class EquipmentIndexReconciler {
+
+    private static final int BULK_CHUNK = 500;
+
+    // Mesmo critério do ETL: só equipamentos ativos vão para o índice
+    private static final String SQL_RANGES =
+            "SELECT FLOOR(e.id_equipment / ?) AS bucket, COUNT(*) AS cnt, SUM(" + EquipmentChecksum.SQL_EXPRESSION + ") AS crc "
+                    + "FROM " + EquipmentChecksum.SQL_FROM + " WHERE e.ativo = 1 GROUP BY bucket";
+
+    private static final String SQL_RANGE_IDS =
+            "SELECT e.id_equipment, " + EquipmentChecksum.SQL_EXPRESSION + " AS crc "
+                    + "FROM " + EquipmentChecksum.SQL_FROM + " WHERE e.ativo = 1 AND e.id_equipment >= ? AND e.id_equipment < ?";
+
+    private final ElasticsearchClient esClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final EquipmentRepository equipmentRepository;
+    private final IndexGeneration indexGeneration;
+    private final ReferenceNameCache referenceNames;
+    private final EquipmentRouting routing;
+    private final SavedSearchPercolator percolator;
+
+    @Value("${search.es.index:itinventory-equipments}")
+    private String indexName;
+
+    @Value("${search.reconcile.range-size:1000}")
+    private int rangeSize;
+
+    @Value("${search.reconcile.enabled:true}")
+    private boolean scheduleEnabled;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${search.reconcile.cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        if (!scheduleEnabled) return;
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Falha na reconciliação agendada do índice de busca. Motivo={}", e.getMessage(), e);
+        }
+    }
+
+    public ReconciliationReport reconcile() throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new EquipmentBusinessException("Reconciliação do índice já está em andamento.");
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            Map<Long, RangeChecksum> db = databaseRanges();
+            Map<Long, RangeChecksum> es = indexRanges();
+            Set<Long> differing = differingRanges(db, es);
+
+            List<Long> toIndex = new ArrayList<>();
+            List<Long> toDelete = new ArrayList<>();
+            Map<Long, String> indexedRouting = new HashMap<>();
+            for (Long bucket : differing) {
+                drillDown(bucket, toIndex, toDelete, indexedRouting);
+            }
+
+            // Só no ES: pode ter sido criado depois da leitura do MySQL. Confirma antes de apagar.
+            if (!toDelete.isEmpty()) {
+                Set<Long> nowActive = activeIds(toDelete);
+                toDelete.removeAll(nowActive);
+                toIndex.addAll(nowActive);
+            }
+
+            RepairCounts repaired = repair(toIndex, toDelete, indexedRouting);
+            if (repaired.indexed() + repaired.deleted() > 0) {
+                indexGeneration.advance();
+            }
+
+            ReconciliationReport report = new ReconciliationReport(
+                    Math.max(db.size(), es.size()),
+                    differing.size(),
+                    repaired.indexed(),
+                    repaired.deleted(),
+                    repaired.failed(),
+                    System.currentTimeMillis() - start
+            );
+            log.info("Reconciliação do índice concluída. {}", report);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    static Set<Long> differingRanges(Map<Long, RangeChecksum> db, Map<Long, RangeChecksum> es) {
+        Set<Long> all = new TreeSet<>(db.keySet());
+        all.addAll(es.keySet());
+
+        Set<Long> differing = new TreeSet<>();
+        for (Long bucket : all) {
+            if (!Objects.equals(db.get(bucket), es.get(bucket))) {
+                differing.add(bucket);
+            }
+        }
+        return differing;
+    }
+
+    private Map<Long, RangeChecksum> databaseRanges() {
+        Map<Long, RangeChecksum> ranges = new HashMap<>();
+        jdbcTemplate.query(SQL_RANGES, rs -> {
+            ranges.put(rs.getLong("bucket"), new RangeChecksum(rs.getLong("cnt"), rs.getLong("crc")));
+        }, rangeSize);
+        return ranges;
+    }
+
+    private Map<Long, RangeChecksum> indexRanges() throws IOException {
+        SearchResponse<Void> response = esClient.search(s -> s
+                        .index(indexName)
+                        .size(0)
+                        .trackTotalHits(t -> t.enabled(false))
+                        .aggregations("ranges", a -> a
+                                .histogram(h -> h.field("idEquipment").interval((double) rangeSize).minDocCount(1))
+                                .aggregations("checksum", c -> c.sum(sum -> sum.field("checksum")))
+                                .aggregations("refChecksum", c -> c.sum(sum -> sum.field("refChecksum")))
+                        ),
+                Void.class
+        );
+
+        Map<Long, RangeChecksum> ranges = new HashMap<>();
+        for (HistogramBucket b : response.aggregations().get("ranges").histogram().buckets().array()) {
+            long bucket = (long) Math.floor(b.key() / rangeSize);
+            // Soma de até range-size valores de 32 bits (x4 com as referências): exata em double
+            long sum = (long) b.aggregations().get("checksum").sum().value()
+                    + (long) b.aggregations().get("refChecksum").sum().value();
+            ranges.put(bucket, new RangeChecksum(b.docCount(), sum));
+        }
+        return ranges;
+    }
+
+    private void drillDown(
+            long bucket, List<Long> toIndex, List<Long> toDelete, Map<Long, String> indexedRouting
+    ) throws IOException {
+        long from = bucket * rangeSize;
+        long to = from + rangeSize;
+
+        Map<Long, Long> db = new HashMap<>();
+        jdbcTemplate.query(SQL_RANGE_IDS, rs -> {
+            db.put(rs.getLong("id_equipment"), rs.getLong("crc"));
+        }, from, to);
+
+        SearchResponse<IdChecksum> response = esClient.search(s -> s
+                        .index(indexName)
+                        .size(rangeSize)
+                        .trackTotalHits(t -> t.enabled(false))
+                        .source(src -> src.filter(f -> f.includes("checksum", "refChecksum")))
+                        .query(q -> q.range(r -> r.number(n -> n
+                                .field("idEquipment")
+                                .gte((double) from)
+                                .lt((double) to)))),
+                IdChecksum.class
+        );
+
+        Map<Long, Long> es = new HashMap<>();
+        for (Hit<IdChecksum> h : response.hits().hits()) {
+            Long id = Long.valueOf(h.id());
+            es.put(id, h.source() != null ? h.source().total() : null);
+            indexedRouting.put(id, h.routing()); // null = routing padrão
+        }
+
+        db.forEach((id, crc) -> {
+            if (!crc.equals(es.get(id))) toIndex.add(id);
+        });
+        es.keySet().forEach(id -> {
+            if (!db.containsKey(id)) toDelete.add(id);
+        });
+    }
+
+    private Set<Long> activeIds(List<Long> ids) {
+        Set<Long> active = new HashSet<>();
+        for (List<Long> chunk : chunks(ids)) {
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            active.addAll(jdbcTemplate.queryForList(
+                    "SELECT id_equipment FROM equipment WHERE ativo = 1 AND id_equipment IN (" + placeholders + ")",
+                    Long.class, chunk.toArray()));
+        }
+        return active;
+    }
+
+    private RepairCounts repair(List<Long> toIndex, List<Long> toDelete, Map<Long, String> indexedRouting) throws IOException {
+        int indexed = 0, deleted = 0, failed = 0;
+
+        for (List<Long> chunk : chunks(toIndex)) {
+            List<BulkOperation> ops = new ArrayList<>();
+            Set<Long> missing = new HashSet<>(chunk);
+            Map<Long, String> reindexed = new HashMap<>();
+            int moved = 0;
+
+            for (Equipment e : equipmentRepository.findAllById(chunk)) {
+                missing.remove(e.getId());
+                EquipmentIndexDocument doc = EquipmentDocMapper.toIndexDocument(e, referenceNames);
+                String docRouting = routing.of(e.getFilialAtualId());
+
+                // Mudou de filial (ou de política de routing): a cópia antiga ficaria duplicada em outro shard
+                if (indexedRouting.containsKey(e.getId()) && !Objects.equals(indexedRouting.get(e.getId()), docRouting)) {
+                    ops.add(deleteOp(e.getId(), indexedRouting));
+                    moved++;
+                }
+                ops.add(BulkOperation.of(o -> o.index(i -> i
+                        .index(indexName)
+                        .id(String.valueOf(e.getId()))
+                        .routing(docRouting)
+                        .document(doc))));
+                reindexed.put(e.getId(), docRouting);
+            }
+            // Removido do MySQL entre a comparação e o reparo
+            missing.forEach(id -> ops.add(deleteOp(id, indexedRouting)));
+
+            int errors = bulk(ops);
+            failed += errors;
+            indexed += ops.size() - missing.size() - moved - errors;
+            // Documento corrigido pode passar a casar buscas salvas, como numa escrita da API
+            reindexed.forEach(percolator::enqueue);
+        }
+
+        for (List<Long> chunk : chunks(toDelete)) {
+            int errors = bulk(chunk.stream().map(id -> deleteOp(id, indexedRouting)).toList());
+            failed += errors;
+            deleted += chunk.size() - errors;
+        }
+
+        return new RepairCounts(indexed, deleted, failed);
+    }
+
+    private BulkOperation deleteOp(Long id, Map<Long, String> indexedRouting) {
+        return BulkOperation.of(o -> o.delete(d -> d
+                .index(indexName)
+                .id(String.valueOf(id))
+                .routing(indexedRouting.get(id))));
+    }
+
+    private int bulk(List<BulkOperation> ops) throws IOException {
+        if (ops.isEmpty()) return 0;
+
+        BulkResponse response = esClient.bulk(b -> b.operations(ops));
+        if (!response.errors()) return 0;
+
+        int errors = 0;
+        for (var item : response.items()) {
+            // delete de doc inexistente (404) não é erro para a reconciliação
+            if (item.error() != null && item.status() != 404) {
+                errors++;
+                log.warn("Falha ao reparar doc no índice. id={} Motivo={}", item.id(), item.error().reason());
+            }
+        }
+        return errors;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += BULK_CHUNK) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + BULK_CHUNK)));
+        }
+        return chunks;
+    }
+
+    record RangeChecksum(long count, long checksumSum) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record IdChecksum(Long checksum, Long refChecksum) {
+
+        /**
+         * null (doc sem algum dos campos, ex.: indexado antes do refChecksum) nunca bate com o MySQL.
+         */
+        Long total() {
+            return checksum == null || refChecksum == null ? null : checksum + refChecksum;
+        }
+    }
+
+    private record RepairCounts(int indexed, int deleted, int failed) {}
+}
@@ -0,0 +1,14 @@
+package br.com.infnet.itinventory.search.reconcile;
+
+/**
+ * Resumo de uma execução da reconciliação MySQL x Elasticsearch.
+ */
+public record ReconciliationReport(
+        int rangesCompared,
+        int rangesDiffering,
+        int reindexed,
+        int deleted,
+        int failed,
+        long tookMillis
+) {
+}
@@ -0,0 +1,157 @@
+package br.com.infnet.itinventory.search.resilience;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.model.EquipmentStatus;
+import br.com.infnet.itinventory.model.EquipmentType;
+import br.com.infnet.itinventory.repository.EquipmentSpecificationRepository;
+import br.com.infnet.itinventory.search.doc.EquipmentBrowseSort;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.doc.EquipmentDocMapper;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import jakarta.persistence.criteria.Predicate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Busca degradada direto no MySQL, usada quando o Elasticsearch está fora (breaker aberto, timeout).
+ *
+ * Mesmos filtros da busca avançada: status, type, location, brand, filial e ranges de valor/data,
+ * todos cobertos por índices da tabela equipment. Sem relevância: ordena pelo campo de navegação
+ * (padrão acquisition_date desc).
+ * O texto livre vira prefixo (LIKE 'x%') por termo — nunca '%x%', que varreria a tabela — em
+ * assetNumber/brand/model/location, todas indexadas: o OR entre as colunas depende do index_merge
+ * (sort_union) do MySQL; sem ele, cai num scan filtrado pelos demais predicados. Responsável fica de fora
+ * (sem índice; no modo degradado, busca por pessoa só pelo ES).
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class EquipmentSearchFallback {
+
+    private static final String[] TEXT_COLUMNS = {"brand", "model", "location"};
+
+    private final EquipmentSpecificationRepository equipmentRepository;
+
+    @Transactional(readOnly = true)
+    public List<EquipmentDoc> buscarPorTexto(String texto, int page, int size) {
+        return buscaAvancada(new EquipmentSearchRequest(texto, null, null, null, null, null, null, null, null, null), page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public List<EquipmentDoc> buscaAvancada(EquipmentSearchRequest req, int page, int size) {
+        return buscaAvancada(req, EquipmentBrowseSort.DEFAULT, page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public List<EquipmentDoc> buscaAvancada(EquipmentSearchRequest req, EquipmentBrowseSort sort, int page, int size) {
+        int safePage = Math.max(0, page);
+        int safeSize = Math.max(1, size);
+
+        EquipmentBrowseSort s = sort != null ? sort : EquipmentBrowseSort.DEFAULT;
+        Sort.Order primary = s.ascending() ? Sort.Order.asc(s.field()) : Sort.Order.desc(s.field());
+        PageRequest pageable = PageRequest.of(safePage, safeSize, Sort.by(primary, Sort.Order.asc("id")));
+
+        return equipmentRepository.findAll(toSpecification(req), pageable).stream()
+                .map(EquipmentDocMapper::toDoc)
+                .toList();
+    }
+
+    private Specification<Equipment> toSpecification(EquipmentSearchRequest req) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (req == null) {
+                return cb.conjunction();
+            }
+
+            if (isSet(req.status())) {
+                EquipmentStatus status = parseEnum(EquipmentStatus.class, req.status());
+                predicates.add(status != null ? cb.equal(root.get("status"), status) : cb.disjunction());
+            }
+            if (isSet(req.type())) {
+                EquipmentType type = parseEnum(EquipmentType.class, req.type());
+                predicates.add(type != null ? cb.equal(root.get("type"), type) : cb.disjunction());
+            }
+
+            // Collation padrão do MySQL já ignora caixa/acentos: igualdade simples usa o índice
+            if (isSet(req.location())) {
+                predicates.add(cb.equal(root.get("location"), req.location().trim()));
+            }
+            if (isSet(req.brand())) {
+                predicates.add(cb.equal(root.get("brand"), req.brand().trim()));
+            }
+
+            if (req.filialId() != null) {
+                predicates.add(cb.equal(root.get("filialAtualId"), req.filialId()));
+            }
+
+            if (req.minValue() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("acquisitionValue"), BigDecimal.valueOf(req.minValue())));
+            }
+            if (req.maxValue() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("acquisitionValue"), BigDecimal.valueOf(req.maxValue())));
+            }
+
+            LocalDate dateFrom = parseDate(req.dateFrom());
+            if (dateFrom != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("acquisitionDate"), dateFrom));
+            }
+            LocalDate dateTo = parseDate(req.dateTo());
+            if (dateTo != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("acquisitionDate"), dateTo));
+            }
+
+            // Cada termo precisa casar (prefixo) com algum campo, ou ser o assetNumber exato
+            if (isSet(req.texto())) {
+                for (String token : req.texto().trim().split("\\s+")) {
+                    String prefix = escapeLike(token) + "%";
+                    List<Predicate> any = new ArrayList<>();
+                    any.add(cb.equal(root.get("assetNumber"), token.toUpperCase(Locale.ROOT)));
+                    for (String column : TEXT_COLUMNS) {
+                        any.add(cb.like(root.get(column), prefix, '\\'));
+                    }
+                    predicates.add(cb.or(any.toArray(Predicate[]::new)));
+                }
+            }
+
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null; // valor inexistente: nenhum resultado (mesmo comportamento do term no ES)
+        }
+    }
+
+    private static LocalDate parseDate(String s) {
+        if (!isSet(s)) return null;
+        String v = s.trim();
+        try {
+            return LocalDate.parse(v.length() > 10 ? v.substring(0, 10) : v);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data inválida (use yyyy-MM-dd): " + v);
+        }
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static boolean isSet(String s) {
+        return s != null && !s.isBlank();
+    }
+}
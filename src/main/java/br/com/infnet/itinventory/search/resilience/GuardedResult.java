@@ -0,0 +1,15 @@
+package br.com.infnet.itinventory.search.resilience;
+
+/**
+ * Resultado de uma busca protegida; degraded = veio do fallback (MySQL), não do Elasticsearch.
+ */
+public record GuardedResult<T>(T value, boolean degraded) {
+
+    public static <T> GuardedResult<T> ok(T value) {
+        return new GuardedResult<>(value, false);
+    }
+
+    public static <T> GuardedResult<T> fallback(T value) {
+        return new GuardedResult<>(value, true);
+    }
+}
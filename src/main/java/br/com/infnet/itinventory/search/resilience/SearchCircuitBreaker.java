@@ -0,0 +1,120 @@
+package br.com.infnet.itinventory.search.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por taxa de falha em janela deslizante (últimas N chamadas).
+ *
+ * CLOSED: tudo passa; se a taxa de falhas da janela atingir o limite, abre.
+ * OPEN: nada passa até expirar o tempo de abertura.
+ * HALF_OPEN: uma única chamada de teste; sucesso fecha, falha reabre.
+ */
+public class SearchCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final LongSupplier clockMillis;
+
+    private final boolean[] window;
+    private int position;
+    private int calls;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public SearchCircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+        this(windowSize, minimumCalls, failureRateThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    SearchCircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis, LongSupplier clockMillis) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.clockMillis = clockMillis;
+        this.window = new boolean[this.windowSize];
+    }
+
+    /**
+     * @return true se a chamada pode seguir; quem recebe true DEVE reportar onSuccess/onFailure/onIgnored.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clockMillis.getAsLong() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) return false;
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+
+        if (calls >= minimumCalls && (double) failures / calls >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Chamada que não chegou a medir a saúde do cluster (ex.: requisição inválida).
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (calls == windowSize) {
+            if (window[position]) failures--;
+        } else {
+            calls++;
+        }
+        window[position] = failed;
+        if (failed) failures++;
+        position = (position + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clockMillis.getAsLong();
+        probeInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probeInFlight = false;
+        calls = 0;
+        failures = 0;
+        position = 0;
+    }
+}
@@ -0,0 +1,274 @@
+package br.com.infnet.itinventory.search.resilience;
+
+import br.com.infnet.itinventory.exception.SearchUnavailableException;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker + bulkhead (semáforo) + timeout em volta das chamadas ao Elasticsearch.
+ *
+ * - Bulkhead: no máximo N buscas simultâneas no ES; excedente vai direto ao fallback (sem fila).
+ *   A vaga só é devolvida quando o ES responde de fato (não no timeout): com o cluster travado,
+ *   as requisições presas seguram as vagas e o excedente nem abre conexão.
+ * - Timeout: chamada que passa do limite conta como falha e cai no fallback (assíncrona) ou vira 503
+ *   (síncrona, que roda numa thread virtual para o chamador poder parar de esperar), então a latência
+ *   de cauda fica limitada mesmo com o cluster travado.
+ * - Breaker aberto: nem tenta o ES.
+ * - Fallback (JDBC) limitado a search.resilience.fallback-max-concurrent execuções simultâneas,
+ *   para o desvio não esgotar o pool de conexões do CRUD; sem vaga em timeout-ms vira 503.
+ * Latência das chamadas ao ES publicada em "search.es.latency" (p50/p95/p99).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class SearchGuard {
+
+    private final SearchCircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final Semaphore fallbackPermits;
+    private final long timeoutMillis;
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final MeterRegistry meterRegistry;
+
+    // Fallback faz JDBC: não pode rodar na thread de I/O do cliente ES
+    private final ExecutorService fallbackExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // Chamadas síncronas ao ES: o chamador espera no máximo timeoutMillis
+    private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public SearchGuard(
+            MeterRegistry meterRegistry,
+            @Value("${search.resilience.window-size:20}") int windowSize,
+            @Value("${search.resilience.minimum-calls:10}") int minimumCalls,
+            @Value("${search.resilience.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${search.resilience.open-duration-ms:30000}") long openDurationMillis,
+            @Value("${search.resilience.timeout-ms:2000}") long timeoutMillis,
+            @Value("${search.resilience.max-concurrent:50}") int maxConcurrent,
+            @Value("${search.resilience.fallback-max-concurrent:8}") int fallbackMaxConcurrent
+    ) {
+        this(new SearchCircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openDurationMillis),
+                meterRegistry, timeoutMillis, maxConcurrent, fallbackMaxConcurrent);
+    }
+
+    SearchGuard(SearchCircuitBreaker breaker, MeterRegistry meterRegistry, long timeoutMillis, int maxConcurrent,
+                int fallbackMaxConcurrent) {
+        this.breaker = breaker;
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+        this.fallbackPermits = new Semaphore(Math.max(1, fallbackMaxConcurrent));
+        this.timeoutMillis = timeoutMillis;
+        this.meterRegistry = meterRegistry;
+
+        this.successTimer = latencyTimer(meterRegistry, "success");
+        this.failureTimer = latencyTimer(meterRegistry, "failure");
+
+        Gauge.builder("search.breaker.state", this, g -> g.breaker.state().ordinal())
+                .description("Estado do circuit breaker da busca (0=CLOSED, 1=OPEN, 2=HALF_OPEN)")
+                .register(meterRegistry);
+        Gauge.builder("search.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+        Gauge.builder("search.fallback.available", fallbackPermits, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Executa a busca assíncrona protegida; em falha, timeout, breaker aberto ou bulkhead cheio
+     * devolve o resultado do fallback marcado como degradado.
+     * Erros do cliente (requisição inválida) não acionam fallback: são propagados.
+     */
+    public <T> CompletableFuture<GuardedResult<T>> execute(Supplier<CompletableFuture<T>> call, Supplier<T> fallback) {
+        if (!bulkhead.tryAcquire()) {
+            return fallback(fallback, "bulkhead");
+        }
+        if (!breaker.tryAcquirePermission()) {
+            bulkhead.release();
+            return fallback(fallback, "open");
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            breaker.onIgnored();
+            throw e;
+        }
+
+        // Vaga presa até a resposta real do ES; o timeout vale só para quem espera (cópia)
+        future.whenComplete((value, error) -> bulkhead.release());
+        CompletableFuture<T> bounded = future.copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+
+        return bounded
+                .handle((value, error) -> {
+                    Throwable cause = unwrap(error);
+                    record(start, cause);
+                    return cause;
+                })
+                .thenCompose(cause -> {
+                    if (cause == null) {
+                        return CompletableFuture.completedFuture(GuardedResult.ok(bounded.join()));
+                    }
+                    if (isClientError(cause)) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    log.warn("Busca no Elasticsearch falhou; usando fallback. Motivo={}", cause.toString());
+                    return fallback(fallback, "error");
+                });
+    }
+
+    /**
+     * Versão síncrona (endpoints sem fallback): breaker aberto, bulkhead cheio, timeout ou falha do
+     * cluster viram SearchUnavailableException (503). Como no assíncrono, a vaga do bulkhead fica presa
+     * até o ES responder, mesmo depois do timeout.
+     */
+    public <T> T call(Callable<T> call) {
+        if (!bulkhead.tryAcquire()) {
+            rejected("bulkhead");
+            throw new SearchUnavailableException("Busca sobrecarregada. Tente novamente em instantes.");
+        }
+        if (!breaker.tryAcquirePermission()) {
+            bulkhead.release();
+            rejected("open");
+            throw new SearchUnavailableException("Busca temporariamente indisponível. Tente novamente em instantes.");
+        }
+
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = callExecutor.submit(() -> {
+                try {
+                    return call.call();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            breaker.onIgnored();
+            throw new SearchUnavailableException("Busca indisponível. Tente novamente em instantes.", e);
+        }
+
+        try {
+            T value = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            record(start, null);
+            return value;
+        } catch (TimeoutException e) {
+            record(start, e);
+            rejected("timeout");
+            throw new SearchUnavailableException("Busca demorou demais. Tente novamente em instantes.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.onIgnored();
+            throw new SearchUnavailableException("Busca interrompida. Tente novamente em instantes.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            record(start, cause);
+            if (isClientError(cause) && cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new SearchUnavailableException("Falha ao consultar a busca. Tente novamente em instantes.", cause);
+        }
+    }
+
+    public SearchCircuitBreaker.State state() {
+        return breaker.state();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fallbackExecutor.shutdown();
+        callExecutor.shutdown();
+    }
+
+    private void record(long startNanos, Throwable error) {
+        long elapsed = System.nanoTime() - startNanos;
+
+        if (error == null || isClientError(error)) {
+            successTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            breaker.onSuccess();
+        } else {
+            failureTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            breaker.onFailure();
+        }
+    }
+
+    private <T> CompletableFuture<GuardedResult<T>> fallback(Supplier<T> fallback, String reason) {
+        rejected(reason);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                if (!fallbackPermits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    rejected("fallback_saturated");
+                    throw new SearchUnavailableException("Busca sobrecarregada. Tente novamente em instantes.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SearchUnavailableException("Busca interrompida. Tente novamente em instantes.", e);
+            }
+            try {
+                return GuardedResult.fallback(fallback.get());
+            } finally {
+                fallbackPermits.release();
+            }
+        }, fallbackExecutor);
+    }
+
+    private void rejected(String reason) {
+        Counter.builder("search.fallback")
+                .description("Buscas desviadas do Elasticsearch (fallback ou 503)")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Requisição inválida (400) ou recurso inexistente (404) não indicam cluster doente.
+     * 429 (rejeição por sobrecarga) conta como falha.
+     */
+    private static boolean isClientError(Throwable t) {
+        if (t instanceof IllegalArgumentException) return true;
+        if (t instanceof ElasticsearchException ee) {
+            int status = ee.status();
+            return status >= 400 && status < 500 && status != 429;
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    private static Timer latencyTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("search.es.latency")
+                .description("Latência das chamadas de busca ao Elasticsearch")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.infnet.itinventory.search.saved;
+
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+
+/**
+ * Busca avançada salva por um usuário (documento no índice percolator).
+ */
+public record SavedSearch(
+        String id,
+        String name,
+        EquipmentSearchRequest request,
+        String createdAt
+) {
+}
@@ -0,0 +1,9 @@
+package br.com.infnet.itinventory.search.saved;
+
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+
+public record SavedSearchCreateRequest(
+        String name,
+        EquipmentSearchRequest request
+) {
+}
@@ -0,0 +1,11 @@
+package br.com.infnet.itinventory.search.saved;
+
+/**
+ * Notificação enviada ao dono da busca salva: o equipamento passou a casar (ou continua casando após mudar).
+ */
+public record SavedSearchMatch(
+        String savedSearchId,
+        String name,
+        Long equipmentId
+) {
+}
@@ -0,0 +1,152 @@
+package br.com.infnet.itinventory.search.saved;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canal push (Server-Sent Events) das buscas salvas: uma conexão aberta por aba/cliente,
+ * agrupadas pelo dono. O front deixa de reexecutar a busca em polling.
+ *
+ * As conexões SSE são desta instância, mas a percolação roda na instância que recebeu a escrita:
+ * {@link #publish} grava os casamentos em saved_search_match (MySQL) e cada instância lê a tabela a cada
+ * search.saved.stream-poll-ms, entregando às suas conexões. A leitura repassa os últimos
+ * search.saved.stream-lookback-seconds (insert com id menor que commita depois do maior não se perde);
+ * ids já entregues são ignorados. Linhas mais velhas que search.saved.match-retention-minutes são apagadas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class SavedSearchNotifier {
+
+    static final String EVENT_NAME = "saved-search-match";
+
+    private static final int DELIVERED_CAPACITY = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    // Ids já entregues dentro da janela de releitura
+    private final Set<Long> delivered = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > DELIVERED_CAPACITY;
+        }
+    });
+
+    // -1 = ainda não leu: começa do fim da tabela (quem conecta não recebe histórico)
+    private long cursor = -1;
+
+    @Value("${search.saved.stream-timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${search.saved.stream-lookback-seconds:5}")
+    private int lookbackSeconds;
+
+    @Value("${search.saved.match-retention-minutes:60}")
+    private int retentionMinutes;
+
+    public SseEmitter subscribe(String owner) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitters.computeIfAbsent(owner, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+
+        Runnable remove = () -> remove(owner, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * Registra os casamentos para todas as instâncias (a entrega sai do {@link #poll}) em um batch.
+     * Um alerta por (busca, equipamento, change_seq): repetir o mesmo casamento (lote percolado de novo
+     * após falha) não duplica a linha.
+     */
+    public void publish(List<Alert> alerts) {
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO saved_search_match "
+                        + "(owner, saved_search_id, name, id_equipment, change_seq) VALUES (?, ?, ?, ?, ?)",
+                alerts, alerts.size(), (ps, alert) -> {
+                    ps.setString(1, alert.owner());
+                    ps.setString(2, alert.match().savedSearchId());
+                    ps.setString(3, alert.match().name());
+                    ps.setLong(4, alert.match().equipmentId());
+                    ps.setLong(5, alert.changeSeq());
+                });
+    }
+
+    /**
+     * Casamento a gravar: dono da busca + notificação + change_seq do documento percolado.
+     */
+    public record Alert(String owner, SavedSearchMatch match, long changeSeq) {
+    }
+
+    @Scheduled(fixedDelayString = "${search.saved.stream-poll-ms:1000}")
+    public synchronized void poll() {
+        try {
+            if (cursor < 0) {
+                Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM saved_search_match", Long.class);
+                cursor = max != null ? max : 0;
+                return;
+            }
+
+            jdbcTemplate.query("SELECT id, owner, saved_search_id, name, id_equipment FROM saved_search_match "
+                            + "WHERE id > ? OR criado_em >= TIMESTAMPADD(SECOND, ?, NOW(3)) ORDER BY id",
+                    rs -> {
+                        long id = rs.getLong(1);
+                        cursor = Math.max(cursor, id);
+                        if (delivered.add(id)) {
+                            deliver(rs.getString(2), new SavedSearchMatch(rs.getString(3), rs.getString(4), rs.getLong(5)));
+                        }
+                    }, cursor, -lookbackSeconds);
+        } catch (Exception e) {
+            log.warn("Falha ao ler alertas de buscas salvas. Motivo={}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.saved.match-cleanup-ms:600000}")
+    public void prune() {
+        try {
+            jdbcTemplate.update("DELETE FROM saved_search_match WHERE criado_em < TIMESTAMPADD(MINUTE, ?, NOW(3))",
+                    -retentionMinutes);
+        } catch (Exception e) {
+            log.warn("Falha ao expurgar alertas de buscas salvas. Motivo={}", e.getMessage());
+        }
+    }
+
+    void deliver(String owner, SavedSearchMatch match) {
+        Set<SseEmitter> subscribers = emitters.get(owner);
+        if (subscribers == null) return;
+
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(match));
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectou: descarta a conexão
+                remove(owner, emitter);
+                log.debug("Conexão SSE de buscas salvas encerrada. owner={} Motivo={}", owner, e.getMessage());
+            }
+        }
+    }
+
+    private void remove(String owner, SseEmitter emitter) {
+        emitters.computeIfPresent(owner, (k, set) -> {
+            set.remove(emitter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
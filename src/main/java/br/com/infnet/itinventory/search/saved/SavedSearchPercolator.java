@@ -0,0 +1,177 @@
+package br.com.infnet.itinventory.search.saved;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.get.GetResult;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetOperation;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Percola em lote os equipamentos alterados contra todas as buscas salvas.
+ *
+ * O indexador só enfileira o id; a cada flush um _mget traz os documentos atuais e um único
+ * percolate (documents = lote inteiro) devolve as buscas satisfeitas, com o slot de cada documento.
+ * Ids repetidos no intervalo viram uma só percolação. O routing de cada documento vem junto com o id
+ * (com routing por filial o _mget sem ele procuraria no shard errado).
+ * Lote que falha volta para a fila (tenta no próximo flush). As buscas casadas vêm em páginas de
+ * search.saved.max-matches, até o limite de resultados do índice (acima dele, log de truncamento); cada
+ * página é gravada em um batch. Páginas já gravadas de um lote que falha adiante são percoladas de novo,
+ * mas não duplicam alertas: a chave é (busca, equipamento, changeSeq do documento).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class SavedSearchPercolator {
+
+    private static final String SLOT_FIELD = "_percolator_document_slot";
+    private static final String CHANGE_SEQ_FIELD = "changeSeq";
+    private static final String NO_ROUTING = "";
+    // index.max_result_window padrão: from + size além disso é recusado pelo ES
+    private static final int MAX_RESULT_WINDOW = 10_000;
+
+    private final ElasticsearchClient esClient;
+    private final SavedSearchNotifier notifier;
+
+    @Value("${search.es.index:itinventory-equipments}")
+    private String equipmentIndex;
+
+    @Value("${search.saved.index:itinventory-saved-searches}")
+    private String savedIndex;
+
+    @Value("${search.saved.batch-size:200}")
+    private int batchSize;
+
+    // Buscas salvas casadas por página do percolate
+    @Value("${search.saved.max-matches:1000}")
+    private int maxMatches;
+
+    // id -> routing do documento (NO_ROUTING = padrão)
+    private final Map<Long, String> pending = new ConcurrentHashMap<>();
+
+    public void enqueue(Long equipmentId) {
+        enqueue(equipmentId, null);
+    }
+
+    public void enqueue(Long equipmentId, String routing) {
+        pending.put(equipmentId, routing != null ? routing : NO_ROUTING);
+    }
+
+    @Scheduled(fixedDelayString = "${search.saved.flush-ms:1000}")
+    public void flush() {
+        while (!pending.isEmpty()) {
+            Map<Long, String> batch = drain();
+            try {
+                percolate(batch);
+            } catch (Exception e) {
+                // De volta à fila; um enqueue mais novo do mesmo id (routing atual) prevalece
+                batch.forEach(pending::putIfAbsent);
+                log.warn("Falha ao percolar lote de equipamentos alterados; lote devolvido à fila. tamanho={} Motivo={}",
+                        batch.size(), e.getMessage(), e);
+                return;
+            }
+        }
+    }
+
+    private Map<Long, String> drain() {
+        Map<Long, String> batch = new LinkedHashMap<>();
+        Iterator<Map.Entry<Long, String>> it = pending.entrySet().iterator();
+        while (it.hasNext() && batch.size() < batchSize) {
+            Map.Entry<Long, String> e = it.next();
+            batch.put(e.getKey(), e.getValue());
+            it.remove();
+        }
+        return batch;
+    }
+
+    @SuppressWarnings("rawtypes")
+    void percolate(Map<Long, String> batch) throws IOException {
+        List<MultiGetOperation> docs = batch.entrySet().stream()
+                .map(e -> MultiGetOperation.of(o -> {
+                    o.id(String.valueOf(e.getKey()));
+                    if (!NO_ROUTING.equals(e.getValue())) o.routing(e.getValue());
+                    return o;
+                }))
+                .toList();
+
+        MgetResponse<Map> current = esClient.mget(m -> m
+                        .index(equipmentIndex)
+                        .docs(docs),
+                Map.class
+        );
+
+        List<Long> slots = new ArrayList<>();
+        List<Long> changeSeqs = new ArrayList<>();
+        List<JsonData> documents = new ArrayList<>();
+        for (MultiGetResponseItem<Map> item : current.docs()) {
+            if (!item.isResult()) continue;
+            GetResult<Map> doc = item.result();
+            if (doc.found() && doc.source() != null) {
+                slots.add(Long.valueOf(doc.id()));
+                // Documento sem changeSeq (ETL antigo) = 0
+                changeSeqs.add(doc.source().get(CHANGE_SEQ_FIELD) instanceof Number n ? n.longValue() : 0L);
+                documents.add(JsonData.of(doc.source()));
+            }
+        }
+        if (documents.isEmpty()) return;
+
+        int pageSize = Math.max(1, Math.min(maxMatches, MAX_RESULT_WINDOW));
+        int notified = 0;
+        for (int from = 0; from < MAX_RESULT_WINDOW; from += pageSize) {
+            int offset = from;
+            int size = Math.min(pageSize, MAX_RESULT_WINDOW - from);
+            // _doc + preference fixa: ordem estável entre as páginas (mesmas cópias dos shards)
+            SearchResponse<SavedSearchSource> matches = esClient.search(s -> s
+                            .index(savedIndex)
+                            .from(offset)
+                            .size(size)
+                            .preference("saved-search-percolator")
+                            .sort(so -> so.doc(d -> d))
+                            .source(src -> src.filter(f -> f.includes("owner", "name")))
+                            .query(q -> q.percolate(p -> p.field("query").documents(documents))),
+                    SavedSearchSource.class
+            );
+
+            List<Hit<SavedSearchSource>> hits = matches.hits().hits();
+            List<SavedSearchNotifier.Alert> alerts = new ArrayList<>();
+            for (Hit<SavedSearchSource> hit : hits) {
+                SavedSearchSource saved = hit.source();
+                JsonData slotField = hit.fields().get(SLOT_FIELD);
+                if (saved == null || slotField == null) continue;
+
+                for (Object slot : slotField.to(List.class)) {
+                    int index = ((Number) slot).intValue();
+                    alerts.add(new SavedSearchNotifier.Alert(saved.owner(),
+                            new SavedSearchMatch(hit.id(), saved.name(), slots.get(index)), changeSeqs.get(index)));
+                }
+            }
+            if (!alerts.isEmpty()) {
+                notifier.publish(alerts);
+                notified += alerts.size();
+            }
+            if (hits.size() < size) {
+                log.debug("Percolação de buscas salvas. documentos={} notificacoes={}", documents.size(), notified);
+                return;
+            }
+        }
+        log.warn("Percolação truncada em {} buscas salvas casadas; as demais não foram notificadas. documentos={}",
+                MAX_RESULT_WINDOW, documents.size());
+    }
+}
@@ -0,0 +1,170 @@
+package br.com.infnet.itinventory.search.saved;
+
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.service.EquipmentSearchService;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.json.JsonpUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Buscas salvas guardadas como consultas percolator em um índice próprio.
+ *
+ * O índice replica o mapping dos equipamentos (mesmos campos/analisadores) + o campo "query"
+ * do tipo percolator: assim um único percolate com os documentos alterados responde quais
+ * buscas salvas (de todos os usuários) eles satisfazem.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class SavedSearchService {
+
+    private static final String TEMPLATE_RESOURCE = "search/equipment-index-template.json";
+
+    private final ElasticsearchClient esClient;
+    private final EquipmentSearchService searchService;
+    private final ObjectMapper elasticsearchObjectMapper;
+
+    @Value("${search.saved.index:itinventory-saved-searches}")
+    private String savedIndex;
+
+    @Value("${search.saved.max-per-user:50}")
+    private int maxPerUser;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            ObjectNode template = (ObjectNode) readTemplate().path("template");
+            ObjectNode properties = percolatorProperties(template);
+
+            if (!esClient.indices().exists(e -> e.index(savedIndex)).value()) {
+                ObjectNode body = elasticsearchObjectMapper.createObjectNode();
+                body.putObject("settings").set("analysis", template.path("settings").path("analysis"));
+                body.putObject("mappings").set("properties", properties);
+
+                esClient.indices().create(c -> c
+                        .index(savedIndex)
+                        .withJson(new StringReader(body.toString())));
+                log.info("Índice de buscas salvas criado. index={}", savedIndex);
+            } else {
+                // Campos novos do índice de equipamentos precisam existir aqui para as consultas percolarem
+                ObjectNode body = elasticsearchObjectMapper.createObjectNode();
+                body.set("properties", properties);
+                esClient.indices().putMapping(p -> p
+                        .index(savedIndex)
+                        .withJson(new StringReader(body.toString())));
+            }
+        } catch (Exception e) {
+            log.warn("Falha ao preparar índice de buscas salvas. index={} Motivo={}", savedIndex, e.getMessage(), e);
+        }
+    }
+
+    public SavedSearch create(String owner, SavedSearchCreateRequest body) throws IOException {
+        if (body == null || body.name() == null || body.name().isBlank()) {
+            throw new IllegalArgumentException("Nome da busca salva é obrigatório.");
+        }
+        if (body.request() == null) {
+            throw new IllegalArgumentException("Filtros da busca salva são obrigatórios.");
+        }
+
+        long existing = esClient.count(c -> c
+                .index(savedIndex)
+                .query(q -> q.term(t -> t.field("owner").value(owner)))
+        ).count();
+        if (existing >= maxPerUser) {
+            throw new IllegalArgumentException("Limite de " + maxPerUser + " buscas salvas por usuário.");
+        }
+
+        // Valida e monta a mesma query da busca avançada (datas inválidas -> 400)
+        Query query = searchService.advancedQuery(body.request());
+
+        String name = body.name().trim();
+        String createdAt = Instant.now().toString();
+
+        ObjectNode doc = elasticsearchObjectMapper.createObjectNode();
+        doc.put("owner", owner);
+        doc.put("name", name);
+        doc.put("createdAt", createdAt);
+        doc.set("request", elasticsearchObjectMapper.valueToTree(body.request()));
+        doc.set("query", elasticsearchObjectMapper.readTree(JsonpUtils.toJsonString(query, esClient._jsonpMapper())));
+
+        String id = esClient.index(i -> i
+                .index(savedIndex)
+                .refresh(Refresh.WaitFor)
+                .document(doc)
+        ).id();
+
+        return new SavedSearch(id, name, body.request(), createdAt);
+    }
+
+    public List<SavedSearch> list(String owner) throws IOException {
+        return esClient.search(s -> s
+                                .index(savedIndex)
+                                .size(maxPerUser)
+                                .source(src -> src.filter(f -> f.excludes("query")))
+                                .query(q -> q.term(t -> t.field("owner").value(owner)))
+                                .sort(so -> so.field(f -> f.field("createdAt").order(SortOrder.Desc))),
+                        SavedSearchSource.class
+                ).hits().hits().stream()
+                .filter(h -> h.source() != null)
+                .map(h -> new SavedSearch(h.id(), h.source().name(), h.source().request(), h.source().createdAt()))
+                .toList();
+    }
+
+    public void delete(String owner, String id) throws IOException {
+        GetResponse<SavedSearchSource> current = esClient.get(g -> g
+                        .index(savedIndex)
+                        .id(id)
+                        .sourceExcludes("query"),
+                SavedSearchSource.class
+        );
+
+        // Busca de outro usuário responde igual a inexistente
+        if (!current.found() || current.source() == null || !Objects.equals(owner, current.source().owner())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Busca salva não encontrada.");
+        }
+
+        esClient.delete(d -> d.index(savedIndex).id(id).refresh(Refresh.WaitFor));
+    }
+
+    private ObjectNode percolatorProperties(ObjectNode template) {
+        ObjectNode properties = ((ObjectNode) template.path("mappings").path("properties")).deepCopy();
+        properties.putObject("query").put("type", "percolator");
+        properties.putObject("owner").put("type", "keyword");
+        properties.putObject("name").put("type", "keyword");
+        properties.putObject("createdAt").put("type", "date");
+        ObjectNode request = properties.putObject("request");
+        request.put("type", "object");
+        request.put("enabled", false);
+        return properties;
+    }
+
+    private JsonNode readTemplate() throws IOException {
+        try (InputStream json = new ClassPathResource(TEMPLATE_RESOURCE).getInputStream()) {
+            return elasticsearchObjectMapper.readTree(json);
+        }
+    }
+}
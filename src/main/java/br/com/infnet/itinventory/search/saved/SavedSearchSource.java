@@ -0,0 +1,16 @@
+package br.com.infnet.itinventory.search.saved;
+
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * _source do índice de buscas salvas, lido sempre sem o campo "query" (percolator).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+record SavedSearchSource(
+        String owner,
+        String name,
+        EquipmentSearchRequest request,
+        String createdAt
+) {
+}
@@ -0,0 +1,44 @@
+package br.com.infnet.itinventory.search.service;
+
+import br.com.infnet.itinventory.model.AssetNumbers;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.doc.EquipmentDocMapper;
+import br.com.infnet.itinventory.search.enrich.ReferenceNameCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Atalho da busca por texto: número de patrimônio exato (ex.: "INV-13", "inv-00013") é uma consulta
+ * por chave única, resolvida no índice UNIQUE de asset_number do MySQL em vez de multi_match fuzzy no ES.
+ *
+ * Vazio = não é patrimônio ou não existe no banco: a busca segue normalmente para o ES
+ * (que ainda pode achar parecidos por fuzziness).
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
+public class AssetNumberLookup {
+
+    private final EquipmentRepository equipmentRepository;
+    private final ReferenceNameCache referenceNames;
+
+    @Transactional(readOnly = true)
+    public Optional<EquipmentDoc> find(String texto) {
+        if (!AssetNumbers.matches(texto)) {
+            return Optional.empty();
+        }
+
+        return equipmentRepository.findByAssetNumber(AssetNumbers.normalize(texto))
+                .map(e -> {
+                    // Mesmo documento que o ES devolveria (inclui os nomes de filial/fornecedor/categoria)
+                    EquipmentDoc doc = EquipmentDocMapper.toDoc(e);
+                    referenceNames.enrich(doc);
+                    return doc;
+                });
+    }
+}
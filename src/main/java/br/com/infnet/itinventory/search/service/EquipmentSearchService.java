@@ -1,215 +1,902 @@
 package br.com.infnet.itinventory.search.service;
 
-import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.search.doc.EquipmentBrowseSort;
 import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.doc.EquipmentSourceFields;
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.cache.SearchCacheKey;
+import br.com.infnet.itinventory.search.cache.SearchQueryLog;
+import br.com.infnet.itinventory.search.cache.SearchResultCache;
+import br.com.infnet.itinventory.search.cursor.SearchCursor;
+import br.com.infnet.itinventory.search.dto.EquipmentBatchResult;
+import br.com.infnet.itinventory.search.dto.EquipmentFacetedResult;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchPage;
+import br.com.infnet.itinventory.search.dto.FacetBucket;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchHit;
 import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.dto.EquipmentSuggestion;
+import br.com.infnet.itinventory.search.metrics.SearchMetrics;
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOptions;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.RequestItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HighlightField;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import org.springframework.beans.factory.annotation.Value;
 
-import co.elastic.clients.elasticsearch._types.Refresh;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 
+@Slf4j
 @ConditionalOnProperty(prefix = "search.es", name = "enabled", havingValue = "true")
 @Service
 @RequiredArgsConstructor
 public class EquipmentSearchService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    private static final int FACET_SIZE = 50;
+    private static final int MAX_SUGGEST_SIZE = 10;
+    private static final int MAX_BATCH_QUERIES = 50;
+
+    // Subcampos search_as_you_type (gerados no mapping do índice) + shingles para frases
+    private static final List<String> SUGGEST_FIELDS = List.of(
+            "assetNumber.prefix^3",
+            "assetNumber.prefix._2gram^3",
+            "brand.prefix^2",
+            "brand.prefix._2gram^2",
+            "model.prefix^2",
+            "model.prefix._2gram^2",
+            "model.prefix._3gram^2",
+            "responsible.prefix",
+            "responsible.prefix._2gram",
+            "responsible.prefix._3gram"
+    );
+
+    private static final List<String> SUGGEST_SOURCE_FIELDS = List.of(
+            "idEquipment", "assetNumber", "brand", "model", "responsible"
+    );
+
+    // Agregação usa o keyword "cru" (exibição no dropdown); filtro usa o keyword normalizado (case/acentos)
+    private static final Map<String, String> FACET_FIELDS = new LinkedHashMap<>();
+    private static final Map<String, String> FILTER_FIELDS = new LinkedHashMap<>();
+
+    static {
+        FACET_FIELDS.put("status", "status");
+        FACET_FIELDS.put("type", "type");
+        FACET_FIELDS.put("location", "location.raw");
+        FACET_FIELDS.put("brand", "brand.raw");
+
+        FILTER_FIELDS.put("status", "status");
+        FILTER_FIELDS.put("type", "type");
+        FILTER_FIELDS.put("location", "location.keyword");
+        FILTER_FIELDS.put("brand", "brand.keyword");
+        FILTER_FIELDS.put("filial", "filialAtualId");
+    }
+
+    // "description" é copy_to (fora do _source): o highlight é feito nos campos de origem
+    private static final Map<String, HighlightField> HIGHLIGHT_FIELDS = Map.of(
+            "assetNumber", HighlightField.of(f -> f),
+            "brand", HighlightField.of(f -> f),
+            "model", HighlightField.of(f -> f),
+            "location", HighlightField.of(f -> f),
+            "responsible", HighlightField.of(f -> f)
+    );
+
+    private static final List<String> TEXT_FIELDS = List.of(
+            "assetNumber^3",
+            "brand^2",
+            "model^2",
+            "responsible",
+            "location",
+            "description"
+    );
 
     @Value("${search.es.index:itinventory-equipments}")
     private String indexName;
 
+    // Tempo de vida do point-in-time entre uma página e a próxima
+    @Value("${search.es.pit-keep-alive:2m}")
+    private String pitKeepAlive;
+
+    // Limite de tempo no ES para o autocomplete (resultado parcial é melhor que atraso na digitação)
+    @Value("${search.es.suggest-timeout:100ms}")
+    private String suggestTimeout;
+
+    // Facetas e cursor (chamadas síncronas): o ES para de coletar no mesmo prazo em que o SearchGuard desiste
+    @Value("${search.resilience.timeout-ms:2000}")
+    private long searchTimeoutMillis;
+
+    // Documentos indexados com _routing = filialAtualId: busca com filialId consulta um único shard
+    @Value("${search.routing.enabled:false}")
+    private boolean routingEnabled;
+
     private final ElasticsearchClient esClient;
+    private final ElasticsearchAsyncClient esAsyncClient;
+    private final SearchResultCache resultCache;
+    private final IndexGeneration indexGeneration;
+    private final SearchMetrics searchMetrics;
+    private final AssetNumberLookup assetNumberLookup;
+    private final SearchQueryLog queryLog;
 
     /**
      * Busca simples por texto (full-text), com relevância e fuzziness.
      * Ideal para campo de busca do front.
      */
     public SearchResponse<EquipmentDoc> buscarPorTextoRaw(String texto, int page, int size) throws IOException {
+        SearchCacheKey key = SearchCacheKey.text(texto, page, size);
+        long start = System.nanoTime();
+        SearchResponse<EquipmentDoc> response;
+        try {
+            response = esClient.search(textSearchRequest(texto, page, size), EquipmentDoc.class);
+        } catch (IOException | RuntimeException e) {
+            searchMetrics.recordFailure("text", key, start, e);
+            throw e;
+        }
+        searchMetrics.record("text", key, start, response);
+        return response;
+    }
+
+    /**
+     * Conveniência: retorna somente a lista de docs.
+     * Não bloqueia a thread chamadora: a consulta vai pelo cliente assíncrono.
+     * Patrimônio exato ("INV-13") é resolvido no MySQL sem ir ao ES (ver {@link AssetNumberLookup}).
+     */
+    public CompletableFuture<List<EquipmentDoc>> buscarPorTexto(String texto, int page, int size) {
+        Optional<List<EquipmentDoc>> exact = exactAssetNumber(texto, page, size);
+        if (exact.isPresent()) {
+            return CompletableFuture.completedFuture(exact.get());
+        }
+        return cachedSearch("text", SearchCacheKey.text(texto, page, size), () -> textSearchRequest(texto, page, size));
+    }
+
+    /**
+     * Busca avançada: combina texto + filtros opcionais (status, type, location, filial) + range (valor, data).
+     */
+    public CompletableFuture<List<EquipmentDoc>> buscaAvancada(EquipmentSearchRequest req, int page, int size) {
+        return buscaAvancada(req, EquipmentBrowseSort.DEFAULT, page, size);
+    }
+
+    /**
+     * Com texto: ordem por relevância (sort é ignorado).
+     * Sem texto (navegação, ex.: "últimas aquisições da filial X"): constant_score só com filtros,
+     * ordenado pelo campo pedido via doc values e sem contagem total. Na ordem padrão (acquisitionDate desc,
+     * igual ao index sorting) cada segmento para de coletar assim que tem a página.
+     */
+    public CompletableFuture<List<EquipmentDoc>> buscaAvancada(
+            EquipmentSearchRequest req, EquipmentBrowseSort sort, int page, int size
+    ) {
+        if (isOnlyText(req)) {
+            Optional<List<EquipmentDoc>> exact = exactAssetNumber(req.texto(), page, size);
+            if (exact.isPresent()) {
+                return CompletableFuture.completedFuture(exact.get());
+            }
+        }
+
+        int safePage = Math.max(0, page);
+        int safeSize = Math.max(1, size);
+        SearchCacheKey key = SearchCacheKey.advanced(req, sort, safePage, safeSize);
+        EquipmentSearchRequest canonical = key.toRequest();
+        boolean browse = isBrowse(canonical);
+
+        return cachedSearch(browse ? "browse" : "advanced", key,
+                () -> SearchRequest.of(s -> {
+                    s.index(indexName)
+                            .from(safePage * safeSize)
+                            .size(safeSize)
+                            .routing(routing(canonical))
+                            .query(searchQuery(canonical, browse))
+                            .sort(searchSort(sort, browse));
+                    if (browse) {
+                        s.trackTotalHits(t -> t.enabled(false));
+                    } else {
+                        s.trackScores(true);
+                    }
+                    return s;
+                }));
+    }
+
+    /**
+     * Consulta o cache; em caso de miss envia a busca pelo cliente assíncrono.
+     * O future completa na thread de I/O do RestClient (só mapeia hits e grava no cache).
+     */
+    private CompletableFuture<List<EquipmentDoc>> cachedSearch(
+            String type, SearchCacheKey key, Supplier<SearchRequest> request
+    ) {
+        queryLog.record(key);
+        List<EquipmentDoc> cached = resultCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        long generation = indexGeneration.current();
+        long start = System.nanoTime();
+
+        return esAsyncClient.search(request.get(), EquipmentDoc.class)
+                .whenComplete((response, error) -> {
+                    if (error != null) searchMetrics.recordFailure(type, key, start, error);
+                })
+                .thenApply(response -> {
+                    searchMetrics.record(type, key, start, response);
+                    List<EquipmentDoc> docs = response.hits().hits().stream()
+                            .map(Hit::source)
+                            .filter(Objects::nonNull)
+                            .toList();
+
+                    resultCache.put(key, generation, docs);
+                    return docs;
+                });
+    }
+
+    /**
+     * Busca simples com score e, se pedido, trechos destacados.
+     * _source reduzido aos campos de "fields" (listagens trafegam só o necessário).
+     */
+    public CompletableFuture<List<EquipmentSearchHit>> buscarPorTextoHits(
+            String texto, int page, int size, List<String> fields, boolean highlight
+    ) {
+        Optional<List<EquipmentDoc>> exact = exactAssetNumber(texto, page, size);
+        if (exact.isPresent()) {
+            // Mesmo formato do fallback: sem score nem highlight, doc projetado nos campos pedidos
+            return CompletableFuture.completedFuture(exact.get().stream()
+                    .map(d -> new EquipmentSearchHit(d.getIdEquipment(), null, EquipmentSourceFields.project(d, fields), null))
+                    .toList());
+        }
+        return searchHits("text_hits", SearchCacheKey.text(texto, page, size),
+                buildTextQuery(texto), null, page, size, fields, highlight);
+    }
+
+    /**
+     * Busca avançada com score, highlight opcional e _source filtrado.
+     * Sem texto segue o modo navegação de {@link #buscaAvancada(EquipmentSearchRequest, EquipmentBrowseSort, int, int)}
+     * (hits sem score).
+     */
+    public CompletableFuture<List<EquipmentSearchHit>> buscaAvancadaHits(
+            EquipmentSearchRequest req, int page, int size, List<String> fields, boolean highlight
+    ) {
+        return buscaAvancadaHits(req, EquipmentBrowseSort.DEFAULT, page, size, fields, highlight);
+    }
+
+    public CompletableFuture<List<EquipmentSearchHit>> buscaAvancadaHits(
+            EquipmentSearchRequest req, EquipmentBrowseSort sort, int page, int size, List<String> fields, boolean highlight
+    ) {
+        SearchCacheKey key = SearchCacheKey.advanced(req, sort, page, size);
+        EquipmentSearchRequest canonical = key.toRequest();
+        boolean browse = isBrowse(canonical);
+        return searchHits(browse ? "browse_hits" : "advanced_hits", key,
+                searchQuery(canonical, browse), searchSort(sort, browse), browse, routing(canonical), page, size, fields, highlight);
+    }
+
+    private CompletableFuture<List<EquipmentSearchHit>> searchHits(
+            String type, SearchCacheKey key, Query query, String routing,
+            int page, int size, List<String> fields, boolean highlight
+    ) {
+        return searchHits(type, key, query, searchSort(null, false), false, routing, page, size, fields, highlight);
+    }
+
+    private CompletableFuture<List<EquipmentSearchHit>> searchHits(
+            String type, SearchCacheKey key, Query query, List<SortOptions> sort, boolean browse, String routing,
+            int page, int size, List<String> fields, boolean highlight
+    ) {
+        int safePage = Math.max(0, page);
+        int safeSize = Math.max(1, size);
+
+        SearchRequest request = SearchRequest.of(s -> {
+            s.index(indexName)
+                    .routing(routing)
+                    .from(safePage * safeSize)
+                    .size(safeSize)
+                    .query(query)
+                    .source(src -> src.filter(f -> f.includes(fields)))
+                    .sort(sort);
+            if (browse) {
+                s.trackTotalHits(t -> t.enabled(false));
+            }
+            // Highlight só quando a tela vai exibir (custo de reanalisar os campos de cada hit)
+            if (highlight && !browse) {
+                s.highlight(h -> h
+                        .preTags("<mark>")
+                        .postTags("</mark>")
+                        .requireFieldMatch(false)
+                        .fields(HIGHLIGHT_FIELDS)
+                );
+            }
+            return s;
+        });
+
+        long start = System.nanoTime();
+
+        return esAsyncClient.search(request, EquipmentDoc.class)
+                .whenComplete((response, error) -> {
+                    if (error != null) searchMetrics.recordFailure(type, key, start, error);
+                })
+                .thenApply(response -> {
+                    searchMetrics.record(type, key, start, response);
+                    return response.hits().hits().stream()
+                            .filter(h -> h.source() != null)
+                            .map(h -> new EquipmentSearchHit(
+                                    Long.valueOf(h.id()), // _id do ES = ID do MySQL (não depende de idEquipment estar em fields)
+                                    h.score(),
+                                    h.source(),
+                                    h.highlight()
+                            ))
+                            .toList();
+                });
+    }
+
+    private SearchRequest textSearchRequest(String texto, int page, int size) {
         int safePage = Math.max(0, page);
         int safeSize = Math.max(1, size);
         int from = safePage * safeSize;
 
-        return esClient.search(s -> s
+        return SearchRequest.of(s -> s
+                .index(indexName)
+                .from(from)
+                .size(safeSize)
+                .trackScores(true)
+                .query(buildTextQuery(texto))
+                .sort(so -> so.score(sc -> sc.order(SortOrder.Desc)))
+        );
+    }
+
+    /**
+     * Limite de consultas por lote. Público para o controller validar antes do guard: lote inválido
+     * é erro do cliente (400), não falha do ES (não conta no breaker nem cai no fallback).
+     */
+    public static void validarLote(List<EquipmentSearchRequest> reqs) {
+        if (reqs != null && reqs.size() > MAX_BATCH_QUERIES) {
+            throw new IllegalArgumentException("Máximo de " + MAX_BATCH_QUERIES + " consultas por lote.");
+        }
+    }
+
+    /**
+     * Várias buscas avançadas em um único _msearch (widgets do dashboard).
+     * Resultados na ordem do pedido; consultas já em cache não vão ao ES; falha de uma consulta
+     * (query inválida, shard com erro) vira "error" só naquela posição.
+     */
+    public CompletableFuture<List<EquipmentBatchResult>> buscaEmLote(List<EquipmentSearchRequest> reqs, int page, int size) {
+        if (reqs == null || reqs.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        validarLote(reqs);
+
+        int safePage = Math.max(0, page);
+        int safeSize = Math.max(1, size);
+
+        EquipmentBatchResult[] results = new EquipmentBatchResult[reqs.size()];
+        SearchCacheKey[] keys = new SearchCacheKey[reqs.size()];
+        List<Integer> pending = new ArrayList<>();
+        List<RequestItem> searches = new ArrayList<>();
+
+        long generation = indexGeneration.current();
+
+        for (int i = 0; i < reqs.size(); i++) {
+            keys[i] = SearchCacheKey.advanced(reqs.get(i), safePage, safeSize);
+            EquipmentSearchRequest req = keys[i].toRequest();
+            queryLog.record(keys[i]);
+
+            List<EquipmentDoc> cached = resultCache.get(keys[i]);
+            if (cached != null) {
+                results[i] = EquipmentBatchResult.ok(cached);
+                continue;
+            }
+
+            try {
+                // Widgets do dashboard costumam ser só filtros: esses vão no modo navegação (ordem padrão)
+                boolean browse = isBrowse(req);
+                Query query = searchQuery(req, browse);
+                List<SortOptions> sort = searchSort(EquipmentBrowseSort.DEFAULT, browse);
+                searches.add(RequestItem.of(r -> r
+                        .header(h -> h.index(indexName).routing(routing(req)))
+                        .body(b -> b
+                                .from(safePage * safeSize)
+                                .size(safeSize)
+                                .query(query)
+                                .trackTotalHits(t -> t.enabled(false))
+                                .sort(sort))
+                ));
+                pending.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = EquipmentBatchResult.failed(e.getMessage());
+            }
+        }
+
+        if (searches.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(results));
+        }
+
+        long start = System.nanoTime();
+
+        return esAsyncClient.msearch(MsearchRequest.of(m -> m.searches(searches)), EquipmentDoc.class)
+                .whenComplete((response, error) -> {
+                    if (error != null) searchMetrics.recordFailure("batch", null, start, error);
+                })
+                .thenApply(response -> {
+                    // Um registro por _msearch (sem chave: o lote mistura filtros diferentes)
+                    searchMetrics.record("batch", null, start, response.took());
+                    List<MultiSearchResponseItem<EquipmentDoc>> items = response.responses();
+                    for (int j = 0; j < pending.size(); j++) {
+                        int i = pending.get(j);
+                        MultiSearchResponseItem<EquipmentDoc> item = items.get(j);
+
+                        if (item.isResult()) {
+                            List<EquipmentDoc> docs = item.result().hits().hits().stream()
+                                    .map(Hit::source)
+                                    .filter(Objects::nonNull)
+                                    .toList();
+                            resultCache.put(keys[i], generation, docs);
+                            results[i] = EquipmentBatchResult.ok(docs);
+                        } else {
+                            String reason = item.failure().error().reason();
+                            log.info("Consulta do lote falhou. posicao={} Motivo={}", i, reason);
+                            results[i] = EquipmentBatchResult.failed(reason != null ? reason : item.failure().error().type());
+                        }
+                    }
+                    return Arrays.asList(results);
+                });
+    }
+
+    /**
+     * Autocomplete (typeahead) por assetNumber, brand, model e responsible.
+     *
+     * Usa os subcampos search_as_you_type ("*.prefix") com multi_match bool_prefix: sem fuzziness,
+     * sem highlight, sem contagem total e com _source reduzido — custo mínimo por tecla digitada.
+     */
+    public List<EquipmentSuggestion> sugerir(String texto, int size) throws IOException {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+
+        int safeSize = Math.min(MAX_SUGGEST_SIZE, Math.max(1, size));
+
+        SearchCacheKey key = SearchCacheKey.text(texto, 0, safeSize);
+        long start = System.nanoTime();
+        SearchResponse<EquipmentDoc> response;
+        try {
+            response = esClient.search(s -> s
                         .index(indexName)
-                        .from(from)
                         .size(safeSize)
-                        .trackScores(true)
+                        .timeout(suggestTimeout)
+                        .trackTotalHits(t -> t.enabled(false))
+                        .source(src -> src.filter(f -> f.includes(SUGGEST_SOURCE_FIELDS)))
                         .query(q -> q
                                 .multiMatch(m -> m
-                                        .query(texto)
-                                        .fields(
-                                                "assetNumber^3",
-                                                "brand^2",
-                                                "model^2",
-                                                "responsible",
-                                                "location",
-                                                "description"
-                                        )
-                                        .fuzziness("AUTO")
+                                        .query(texto.trim())
+                                        .type(TextQueryType.BoolPrefix)
+                                        .fields(SUGGEST_FIELDS)
                                 )
-                        )
-                        .highlight(h -> h
-                                .preTags("<mark>")
-                                .postTags("</mark>")
-                                .fields("description", hf -> hf)
-                        )
-                        .sort(so -> so.score(sc -> sc.order(SortOrder.Desc))),
+                        ),
                 EquipmentDoc.class
-        );
-    }
+            );
+        } catch (IOException | RuntimeException e) {
+            searchMetrics.recordFailure("suggest", key, start, e);
+            throw e;
+        }
+        searchMetrics.record("suggest", key, start, response);
 
-    /**
-     * Conveniência: retorna somente a lista de docs.
-     */
-    public java.util.List<EquipmentDoc> buscarPorTexto(String texto, int page, int size) throws IOException {
-        SearchResponse<EquipmentDoc> response = buscarPorTextoRaw(texto, page, size);
         return response.hits().hits().stream()
-                .map(h -> h.source())
+                .map(Hit::source)
                 .filter(Objects::nonNull)
+                .map(d -> new EquipmentSuggestion(
+                        d.getIdEquipment(),
+                        d.getAssetNumber(),
+                        d.getBrand(),
+                        d.getModel(),
+                        d.getResponsible()
+                ))
                 .toList();
     }
 
     /**
-     * Busca avançada: combina texto + filtros opcionais (status, type, location) + range (valor, data).
+     * Busca avançada + facetas em uma única requisição.
+     *
+     * Os filtros de termo (status, type, location, brand) vão em post_filter: os hits respeitam todos,
+     * mas a contagem de cada faceta ignora o próprio filtro (o dropdown continua mostrando as outras opções).
+     * Texto e ranges ficam na query principal e restringem tudo, inclusive as facetas.
      */
-    public java.util.List<EquipmentDoc> buscaAvancada(EquipmentSearchRequest req, int page, int size) throws IOException {
+    public EquipmentFacetedResult buscaAvancadaComFacetas(
+            EquipmentSearchRequest request, int page, int size, double valueInterval, String dateInterval
+    ) throws IOException {
         int safePage = Math.max(0, page);
         int safeSize = Math.max(1, size);
         int from = safePage * safeSize;
 
-        SearchResponse<EquipmentDoc> response = esClient.search(s -> s
-                        .index(indexName)
-                        .from(from)
-                        .size(safeSize)
-                        .trackScores(true)
-                        .query(q -> q.bool(b -> {
-
-                            // Texto livre (opcional)
-                            if (req != null && req.texto() != null && !req.texto().isBlank()) {
-                                b.must(m -> m.multiMatch(mm -> mm
-                                        .query(req.texto())
-                                        .fields(
-                                                "assetNumber^3",
-                                                "brand^2",
-                                                "model^2",
-                                                "responsible",
-                                                "location",
-                                                "description"
-                                        )
-                                        .fuzziness("AUTO")
-                                ));
-                            }
-
-                            // Filtros por termo (idealmente campos keyword no mapping)
-                            if (req != null && req.status() != null && !req.status().isBlank()) {
-                                b.filter(f -> f.term(t -> t.field("status").value(req.status())));
-                            }
-                            if (req != null && req.type() != null && !req.type().isBlank()) {
-                                b.filter(f -> f.term(t -> t.field("type").value(req.type())));
-                            }
-                            if (req != null && req.location() != null && !req.location().isBlank()) {
-                                b.filter(f -> f.term(t -> t.field("location").value(req.location())));
-                            }
-
-                            // Range de valor (opcional)
-                            if (req != null && (req.minValue() != null || req.maxValue() != null)) {
-                                b.filter(f -> f.range(r -> r.number(n -> {
-                                    n.field("acquisitionValue");
-                                    if (req.minValue() != null) n.gte(req.minValue());
-                                    if (req.maxValue() != null) n.lte(req.maxValue());
-                                    return n;
-                                })));
-                            }
-
-                            // Range de data (opcional)
-                            if (req != null && (
-                                    (req.dateFrom() != null && !req.dateFrom().isBlank()) ||
-                                            (req.dateTo() != null && !req.dateTo().isBlank())
-                            )) {
-                                b.filter(f -> f.range(r -> r.date(d -> {
-                                    d.field("acquisitionDate");
-                                    if (req.dateFrom() != null && !req.dateFrom().isBlank()) d.gte(req.dateFrom());
-                                    if (req.dateTo() != null && !req.dateTo().isBlank()) d.lte(req.dateTo());
-                                    return d;
-                                })));
-                            }
-
-                            return b;
-                        }))
-                        .highlight(h -> h
-                                .preTags("<mark>")
-                                .postTags("</mark>")
-                                .fields("description", hf -> hf)
-                        )
-                        .sort(so -> so.score(sc -> sc.order(SortOrder.Desc))),
+        if (valueInterval <= 0) {
+            throw new IllegalArgumentException("valueInterval deve ser maior que zero.");
+        }
+        CalendarInterval calendarInterval = parseCalendarInterval(dateInterval);
+
+        SearchCacheKey key = SearchCacheKey.advanced(request, safePage, safeSize);
+        EquipmentSearchRequest req = key.toRequest();
+        Map<String, Query> termFilters = buildTermFilters(req);
+
+        long start = System.nanoTime();
+        SearchResponse<EquipmentDoc> response;
+        try {
+            response = esClient.search(s -> {
+                    s.index(indexName)
+                            .routing(routing(req))
+                            .from(from)
+                            .size(safeSize)
+                            .timeout(searchTimeoutMillis + "ms")
+                            .trackTotalHits(t -> t.enabled(true))
+                            .query(q -> q.bool(b -> {
+                                applyTextAndRanges(b, req);
+                                return b;
+                            }))
+                            .postFilter(allOf(termFilters.values()))
+                            .sort(so -> so.score(sc -> sc.order(SortOrder.Desc)));
+
+                    // Uma faceta por dimensão, filtrada por todos os OUTROS filtros de termo
+                    FACET_FIELDS.forEach((facet, field) -> {
+                        Map<String, Query> others = new LinkedHashMap<>(termFilters);
+                        others.remove(facet);
+                        s.aggregations(facet, a -> a
+                                .filter(allOf(others.values()))
+                                .aggregations("values", v -> v.terms(t -> t.field(field).size(FACET_SIZE)))
+                        );
+                    });
+
+                    // Histogramas respeitam todos os filtros
+                    s.aggregations("histograms", a -> a
+                            .filter(allOf(termFilters.values()))
+                            .aggregations("acquisitionValue", h -> h.histogram(hv -> hv
+                                    .field("acquisitionValue")
+                                    .interval(valueInterval)
+                                    .minDocCount(1)))
+                            .aggregations("acquisitionDate", h -> h.dateHistogram(hd -> hd
+                                    .field("acquisitionDate")
+                                    .calendarInterval(calendarInterval)
+                                    .format("yyyy-MM-dd")
+                                    .minDocCount(1)))
+                    );
+                    return s;
+                },
                 EquipmentDoc.class
-        );
+            );
+        } catch (IOException | RuntimeException e) {
+            searchMetrics.recordFailure("facets", key, start, e);
+            throw e;
+        }
+        searchMetrics.record("facets", key, start, response);
 
-        return response.hits().hits().stream()
-                .map(h -> h.source())
+        List<EquipmentDoc> items = response.hits().hits().stream()
+                .map(Hit::source)
                 .filter(Objects::nonNull)
                 .toList();
+
+        long total = response.hits().total() != null ? response.hits().total().value() : items.size();
+
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        FACET_FIELDS.keySet().forEach(facet -> facets.put(facet, readTermsFacet(response.aggregations().get(facet))));
+
+        Map<String, Aggregate> histAggs = response.aggregations().get("histograms").filter().aggregations();
+        Map<String, List<FacetBucket>> histograms = new LinkedHashMap<>();
+        histograms.put("acquisitionValue", histAggs.get("acquisitionValue").histogram().buckets().array().stream()
+                .map(b -> new FacetBucket(String.valueOf(b.key()), b.docCount()))
+                .toList());
+        histograms.put("acquisitionDate", histAggs.get("acquisitionDate").dateHistogram().buckets().array().stream()
+                .map(b -> new FacetBucket(b.keyAsString() != null ? b.keyAsString() : String.valueOf(b.key()), b.docCount()))
+                .toList());
+
+        return new EquipmentFacetedResult(total, items, facets, histograms);
     }
-    public void upsert(Equipment e) {
-        try {
-            EquipmentDoc doc = toDoc(e);
 
-            esClient.index(i -> i
-                    .index(indexName)
-                    .id(String.valueOf(e.getId()))     // _id = ID do MySQL
-                    .document(doc)
-                    .refresh(Refresh.WaitFor)          // opcional, ajuda no “near real-time” do teste
-            );
-        } catch (IOException ex) {
-            throw new IllegalStateException("Falha ao indexar equipamento no Elasticsearch. id=" + e.getId(), ex);
+    /**
+     * Busca simples paginada por cursor (point-in-time + search_after).
+     * Sem cursor abre um PIT novo; com cursor continua exatamente de onde a página anterior parou.
+     */
+    public EquipmentSearchPage buscarPorTextoCursor(String texto, String cursor, int size) throws IOException {
+        if (cursor == null || cursor.isBlank()) {
+            Optional<List<EquipmentDoc>> exact = exactAssetNumber(texto, 0, size);
+            if (exact.isPresent()) {
+                return new EquipmentSearchPage(exact.get(), null);
+            }
         }
+        return searchWithCursor("text_cursor", SearchCacheKey.text(texto, 0, size), buildTextQuery(texto), null, cursor, size);
     }
 
-    public void deleteById(Long id) {
+    /**
+     * Busca avançada paginada por cursor. O front deve reenviar o mesmo corpo a cada página.
+     */
+    public EquipmentSearchPage buscaAvancadaCursor(EquipmentSearchRequest req, String cursor, int size) throws IOException {
+        SearchCacheKey key = SearchCacheKey.advanced(req, 0, size);
+        EquipmentSearchRequest canonical = key.toRequest();
+        return searchWithCursor("advanced_cursor", key, buildAdvancedQuery(canonical), routing(canonical), cursor, size);
+    }
+
+    /**
+     * Custo constante por página: o ES não precisa coletar e descartar "from" documentos,
+     * e o PIT congela a visão do índice entre as páginas (sem duplicados/pulos durante indexação).
+     * Desempate por idEquipment garante ordem total mesmo com scores iguais.
+     * Com routing, o PIT já nasce restrito ao shard da filial (a busca com PIT não aceita routing).
+     */
+    private EquipmentSearchPage searchWithCursor(
+            String type, SearchCacheKey key, Query query, String routing, String cursor, int size
+    ) throws IOException {
+        int safeSize = Math.min(MAX_CURSOR_PAGE_SIZE, Math.max(1, size));
+
+        SearchCursor current = (cursor == null || cursor.isBlank()) ? null : SearchCursor.decode(cursor);
+        String pitId = (current != null) ? current.pitId() : openPointInTime(routing);
+
+        long start = System.nanoTime();
+        SearchResponse<EquipmentDoc> response;
         try {
-            esClient.delete(d -> d
-                    .index(indexName)
-                    .id(String.valueOf(id))
-                    .refresh(Refresh.WaitFor)
+            response = esClient.search(s -> {
+                        s.pit(p -> p.id(pitId).keepAlive(k -> k.time(pitKeepAlive)))
+                                .size(safeSize)
+                                .timeout(searchTimeoutMillis + "ms")
+                                .trackScores(true)
+                                .trackTotalHits(t -> t.enabled(false))
+                                .query(query)
+                                .sort(so -> so.score(sc -> sc.order(SortOrder.Desc)))
+                                .sort(so -> so.field(f -> f.field("idEquipment").order(SortOrder.Asc)));
+                        if (current != null && !current.searchAfter().isEmpty()) {
+                            s.searchAfter(current.searchAfter());
+                        }
+                        return s;
+                    },
+                    EquipmentDoc.class
             );
-        } catch (IOException ex) {
-            throw new IllegalStateException("Falha ao remover equipamento no Elasticsearch. id=" + id, ex);
-        }
-    }
-    private EquipmentDoc toDoc(Equipment e) {
-        return EquipmentDoc.builder()
-                .idEquipment(e.getId())
-                .assetNumber(e.getAssetNumber())
-                .type(e.getType() != null ? e.getType().name() : null)
-                .status(e.getStatus() != null ? e.getStatus().name() : null)
-                .brand(e.getBrand())
-                .model(e.getModel())
-                .location(e.getLocation())
-                .responsible(e.getResponsible())
-                .acquisitionDate(e.getAcquisitionDate())
-                .acquisitionValue(e.getAcquisitionValue() != null ? e.getAcquisitionValue().doubleValue() : null)
-                .description(buildDescription(e))
-                .build();
-    }
-
-    private String buildDescription(Equipment e) {
-        // campo "unificado" para multi_match / highlight
-        StringBuilder sb = new StringBuilder();
-        if (e.getAssetNumber() != null) sb.append(e.getAssetNumber()).append(" ");
-        if (e.getBrand() != null) sb.append(e.getBrand()).append(" ");
-        if (e.getModel() != null) sb.append(e.getModel()).append(" ");
-        if (e.getResponsible() != null) sb.append(e.getResponsible()).append(" ");
-        if (e.getLocation() != null) sb.append(e.getLocation()).append(" ");
-        return sb.toString().trim();
+        } catch (ElasticsearchException e) {
+            searchMetrics.recordFailure(type, key, start, e);
+            if (e.status() == 404) {
+                throw new IllegalArgumentException("Cursor de busca expirado. Reinicie a busca.", e);
+            }
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            searchMetrics.recordFailure(type, key, start, e);
+            throw e;
+        }
+        searchMetrics.record(type, key, start, response);
+
+        List<Hit<EquipmentDoc>> hits = response.hits().hits();
+        List<EquipmentDoc> items = hits.stream()
+                .map(Hit::source)
+                .filter(Objects::nonNull)
+                .toList();
+
+        // O ES pode devolver um pitId atualizado: sempre propague o mais recente
+        String nextPitId = response.pitId() != null ? response.pitId() : pitId;
+
+        if (hits.size() < safeSize) {
+            closePointInTime(nextPitId);
+            return new EquipmentSearchPage(items, null);
+        }
+
+        List<FieldValue> lastSort = hits.get(hits.size() - 1).sort();
+        return new EquipmentSearchPage(items, new SearchCursor(nextPitId, lastSort).encode());
+    }
+
+    private String openPointInTime(String routing) throws IOException {
+        return esClient.openPointInTime(o -> o
+                .index(indexName)
+                .routing(routing)
+                .keepAlive(k -> k.time(pitKeepAlive))
+        ).id();
+    }
+
+    private void closePointInTime(String pitId) {
+        try {
+            esClient.closePointInTime(c -> c.id(pitId));
+        } catch (Exception e) {
+            // PIT expira sozinho pelo keep_alive; falha aqui não deve afetar a resposta
+            log.debug("Falha ao fechar point-in-time. Motivo={}", e.getMessage());
+        }
     }
 
+    private Query buildTextQuery(String texto) {
+        return Query.of(q -> q
+                .multiMatch(m -> m
+                        .query(texto)
+                        .fields(TEXT_FIELDS)
+                        .fuzziness("AUTO")
+                )
+        );
+    }
+
+    /**
+     * Patrimônio exato encontrado no MySQL: o único resultado possível (só existe na primeira página).
+     * Vazio = seguir para o ES. A consulta usa o índice UNIQUE de asset_number (bloqueante, mas de custo fixo).
+     */
+    private Optional<List<EquipmentDoc>> exactAssetNumber(String texto, int page, int size) {
+        long start = System.nanoTime();
+        Optional<EquipmentDoc> doc = assetNumberLookup.find(texto);
+        if (doc.isEmpty()) {
+            return Optional.empty();
+        }
+        searchMetrics.record("asset_number", SearchCacheKey.text(texto, page, size), start);
+        return Optional.of(page <= 0 ? List.of(doc.get()) : List.of());
+    }
+
+    /**
+     * Busca avançada com só o texto preenchido (caixa de busca do front usando o endpoint avançado).
+     */
+    private static boolean isOnlyText(EquipmentSearchRequest req) {
+        return req != null && !isBrowse(req)
+                && isBlank(req.status()) && isBlank(req.type()) && isBlank(req.location()) && isBlank(req.brand())
+                && req.minValue() == null && req.maxValue() == null
+                && isBlank(req.dateFrom()) && isBlank(req.dateTo())
+                && req.filialId() == null;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
 
+    private static boolean isBrowse(EquipmentSearchRequest req) {
+        return req == null || req.texto() == null || req.texto().isBlank();
+    }
+
+    /**
+     * Navegação: os filtros em constant_score (nenhum cálculo de relevância por documento).
+     */
+    private Query searchQuery(EquipmentSearchRequest req, boolean browse) {
+        Query query = buildAdvancedQuery(req);
+        return browse ? Query.of(q -> q.constantScore(c -> c.filter(query))) : query;
+    }
+
+    /**
+     * Relevância, ou o campo de navegação (doc values). Fora da ordem do index sorting entra o desempate
+     * por idEquipment (valores iguais): na ordem padrão o desempate impediria o early termination.
+     */
+    private static List<SortOptions> searchSort(EquipmentBrowseSort sort, boolean browse) {
+        if (!browse) {
+            return List.of(SortOptions.of(so -> so.score(sc -> sc.order(SortOrder.Desc))));
+        }
+
+        EquipmentBrowseSort s = sort != null ? sort : EquipmentBrowseSort.DEFAULT;
+        SortOptions primary = SortOptions.of(so -> so.field(f -> f
+                .field(s.field())
+                .order(s.ascending() ? SortOrder.Asc : SortOrder.Desc)
+                .missing("_last")));
+        if (s.matchesIndexSort()) {
+            return List.of(primary);
+        }
+        return List.of(primary, SortOptions.of(so -> so.field(f -> f.field("idEquipment").order(SortOrder.Asc))));
+    }
+
+    /**
+     * Mesma query da busca avançada (sem paginação/ordenação): usada também como consulta do percolator
+     * nas buscas salvas, para que o alerta e a busca na tela concordem.
+     */
+    public Query advancedQuery(EquipmentSearchRequest req) {
+        return buildAdvancedQuery(SearchCacheKey.canonical(req));
+    }
+
+    private Query buildAdvancedQuery(EquipmentSearchRequest req) {
+        Map<String, Query> termFilters = buildTermFilters(req);
+
+        return Query.of(q -> q.bool(b -> {
+            applyTextAndRanges(b, req);
+            termFilters.values().forEach(b::filter);
+            return b;
+        }));
+    }
+
+    /**
+     * Texto livre (must) + ranges de valor/data (filter). Usado tanto na busca avançada
+     * quanto como query principal da busca facetada.
+     */
+    private void applyTextAndRanges(BoolQuery.Builder b, EquipmentSearchRequest req) {
+        if (req == null) {
+            return;
+        }
+
+        // Texto livre (opcional)
+        if (req.texto() != null && !req.texto().isBlank()) {
+            b.must(m -> m.multiMatch(mm -> mm
+                    .query(req.texto())
+                    .fields(TEXT_FIELDS)
+                    .fuzziness("AUTO")
+            ));
+        }
+
+        // Range de valor (opcional)
+        if (req.minValue() != null || req.maxValue() != null) {
+            b.filter(f -> f.range(r -> r.number(n -> {
+                n.field("acquisitionValue");
+                if (req.minValue() != null) n.gte(req.minValue());
+                if (req.maxValue() != null) n.lte(req.maxValue());
+                return n;
+            })));
+        }
+
+        // Range de data (opcional)
+        if ((req.dateFrom() != null && !req.dateFrom().isBlank()) ||
+                (req.dateTo() != null && !req.dateTo().isBlank())) {
+            b.filter(f -> f.range(r -> r.date(d -> {
+                d.field("acquisitionDate");
+                if (req.dateFrom() != null && !req.dateFrom().isBlank()) d.gte(req.dateFrom());
+                if (req.dateTo() != null && !req.dateTo().isBlank()) d.lte(req.dateTo());
+                return d;
+            })));
+        }
+    }
+
+    /**
+     * Filtros por termo, indexados pelo nome da faceta correspondente.
+     */
+    private Map<String, Query> buildTermFilters(EquipmentSearchRequest req) {
+        Map<String, Query> filters = new LinkedHashMap<>();
+        if (req == null) {
+            return filters;
+        }
+
+        // Já canônico (SearchCacheKey): status/type em maiúsculas, demais sem espaços nas pontas
+        putTermFilter(filters, "status", req.status());
+        putTermFilter(filters, "type", req.type());
+        putTermFilter(filters, "location", req.location());
+        putTermFilter(filters, "brand", req.brand());
+        putTermFilter(filters, "filial", req.filialId() != null ? String.valueOf(req.filialId()) : null);
+        return filters;
+    }
+
+    /**
+     * Routing da busca: só quando habilitado e a busca é de uma filial. O filtro por filialAtualId
+     * continua na query (o shard da filial também guarda documentos de outras filiais).
+     */
+    private String routing(EquipmentSearchRequest req) {
+        if (!routingEnabled || req == null || req.filialId() == null) {
+            return null;
+        }
+        return String.valueOf(req.filialId());
+    }
+
+    private void putTermFilter(Map<String, Query> filters, String facet, String value) {
+        if (value != null && !value.isBlank()) {
+            String field = FILTER_FIELDS.get(facet);
+            filters.put(facet, Query.of(q -> q.term(t -> t.field(field).value(value))));
+        }
+    }
+
+    private Query allOf(Collection<Query> filters) {
+        if (filters.isEmpty()) {
+            return Query.of(q -> q.matchAll(m -> m));
+        }
+        return Query.of(q -> q.bool(b -> b.filter(List.copyOf(filters))));
+    }
+
+    private List<FacetBucket> readTermsFacet(Aggregate aggregate) {
+        return aggregate.filter().aggregations().get("values").sterms().buckets().array().stream()
+                .map(b -> new FacetBucket(b.key().stringValue(), b.docCount()))
+                .toList();
+    }
+
+    private CalendarInterval parseCalendarInterval(String dateInterval) {
+        String v = (dateInterval == null) ? "" : dateInterval.trim().toLowerCase();
+        return switch (v) {
+            case "month" -> CalendarInterval.Month;
+            case "quarter" -> CalendarInterval.Quarter;
+            case "", "year" -> CalendarInterval.Year;
+            default -> throw new IllegalArgumentException("dateInterval inválido: use month, quarter ou year.");
+        };
+    }
 }
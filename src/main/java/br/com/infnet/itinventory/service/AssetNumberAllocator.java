@@ -0,0 +1,142 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.exception.EquipmentBusinessException;
+import br.com.infnet.itinventory.model.AssetNumberSequence;
+import br.com.infnet.itinventory.model.AssetNumbers;
+import br.com.infnet.itinventory.repository.AssetNumberSequenceRepository;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Próximo patrimônio livre de um prefixo, gerado no servidor (hi/lo).
+ *
+ * Cada instância reserva blocos de equipment.asset-number.block-size números em asset_number_sequence
+ * (SELECT ... FOR UPDATE + UPDATE, transação própria) e numera em memória até o bloco acabar: uma ida
+ * ao banco por bloco, não por item, e sem colisão entre nós. Números pulados (rollback, restart)
+ * ficam como lacunas. Patrimônios escolhidos pelo cliente dentro do bloco são pulados via
+ * {@link AssetNumberRegistry} (quando ele não sabe responder, confere no banco); a unique key de
+ * asset_number segue como garantia final. Chamar fora da transação do cadastro: a reserva abre
+ * transação própria e, aninhada, seguraria duas conexões por requisição.
+ */
+@Slf4j
+@Component
+public class AssetNumberAllocator {
+
+    private static final int MAX_NUMBER = 99_999;
+
+    private final AssetNumberSequenceRepository sequenceRepository;
+    private final AssetNumberRegistry assetNumberRegistry;
+    private final EquipmentRepository equipmentRepository;
+    private final TransactionTemplate requiresNew;
+    private final int blockSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public AssetNumberAllocator(
+            AssetNumberSequenceRepository sequenceRepository,
+            AssetNumberRegistry assetNumberRegistry,
+            EquipmentRepository equipmentRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${equipment.asset-number.block-size:100}") int blockSize
+    ) {
+        this.sequenceRepository = sequenceRepository;
+        this.assetNumberRegistry = assetNumberRegistry;
+        this.equipmentRepository = equipmentRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Próximo patrimônio livre do prefixo (ex.: INV -> INV-00042).
+     */
+    public String next(String prefix) {
+        String p = normalizePrefix(prefix);
+        int base = AssetNumbers.pack(p + "-0");
+        Block block = blocks.computeIfAbsent(p, k -> new Block());
+
+        block.lock.lock();
+        try {
+            while (true) {
+                if (block.next >= block.limit) {
+                    reserve(p, block);
+                }
+                String candidate = AssetNumbers.unpack(base + block.next++);
+                // Já usado por um patrimônio informado pelo cliente: pula
+                if (isFree(candidate)) {
+                    return candidate;
+                }
+            }
+        } finally {
+            block.lock.unlock();
+        }
+    }
+
+    private boolean isFree(String candidate) {
+        long id = assetNumberRegistry.idOf(candidate);
+        if (id == AssetNumberRegistry.UNKNOWN) {
+            // Registro ainda carregando ou desligado: confere no banco
+            return equipmentRepository.findByAssetNumber(candidate).isEmpty();
+        }
+        return id == AssetNumberRegistry.ABSENT;
+    }
+
+    // Com o lock do bloco do prefixo
+    private void reserve(String prefix, Block block) {
+        int start;
+        try {
+            start = requiresNew.execute(status -> reserveInTransaction(prefix));
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância criou a linha do prefixo ao mesmo tempo: agora ela existe
+            start = requiresNew.execute(status -> reserveInTransaction(prefix));
+        }
+
+        if (start > MAX_NUMBER) {
+            throw new EquipmentBusinessException("Números de patrimônio esgotados para o prefixo " + prefix + ".");
+        }
+        block.next = start;
+        block.limit = Math.min(start + blockSize, MAX_NUMBER + 1);
+        log.debug("Bloco de patrimônios reservado. prefixo={} inicio={} fim={}", prefix, block.next, block.limit - 1);
+    }
+
+    private int reserveInTransaction(String prefix) {
+        AssetNumberSequence sequence = sequenceRepository.findForUpdate(prefix).orElse(null);
+        if (sequence == null) {
+            // Primeiro uso do prefixo: começa depois do maior patrimônio já cadastrado
+            int start = sequenceRepository.findMaxAssetNumber(prefix)
+                    .map(max -> AssetNumbers.pack(max) - AssetNumbers.pack(prefix + "-0") + 1)
+                    .orElse(1);
+            sequenceRepository.saveAndFlush(new AssetNumberSequence(prefix, start + blockSize));
+            return start;
+        }
+
+        int start = sequence.getNextValue();
+        sequence.setNextValue(start + blockSize);
+        sequenceRepository.save(sequence);
+        return start;
+    }
+
+    private static String normalizePrefix(String prefix) {
+        String p = prefix == null ? "" : prefix.trim().toUpperCase();
+        if (!p.matches("[A-Z]{3}")) {
+            throw new EquipmentBusinessException("assetPrefix deve ter 3 letras (ex.: INV).");
+        }
+        return p;
+    }
+
+    private static final class Block {
+        final ReentrantLock lock = new ReentrantLock();
+        int next;
+        int limit; // exclusivo; next >= limit = precisa reservar
+    }
+}
@@ -0,0 +1,312 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.model.AssetNumbers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Patrimônio -> id do equipamento em memória, para checar unicidade e resolver patrimônios sem ir ao banco.
+ *
+ * Chave = {@link AssetNumbers#pack} (int), valor = id (long), em uma tabela de endereçamento aberto
+ * (sondagem linear, arrays primitivos, ocupação máxima de 50%): consulta sem alocação, na casa dos
+ * nanossegundos. Leituras usam leitura otimista do StampedLock (sem bloquear); escritas são raras.
+ *
+ * Carregado inteiro na subida e a cada equipment.asset-registry.refresh-ms (corrige escritas feitas fora
+ * da aplicação); as escritas da aplicação entram no AFTER_COMMIT ({@link #onCommit}). A unique key
+ * de asset_number no banco continua sendo a garantia final.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AssetNumberRegistry {
+
+    /** Registro não sabe responder (desligado, ainda carregando ou patrimônio fora do padrão): consultar o banco. */
+    public static final long UNKNOWN = 0L;
+    /** Patrimônio livre. */
+    public static final long ABSENT = -1L;
+
+    private static final String SQL = "SELECT id_equipment, asset_number FROM equipment WHERE asset_number IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${equipment.asset-registry.enabled:true}")
+    private boolean enabled;
+
+    private final StampedLock lock = new StampedLock();
+    private Table table = new Table(16);
+    private volatile boolean loaded;
+
+    // Escritas aplicadas durante uma recarga: reaplicadas no snapshot novo antes da troca
+    private List<long[]> journal;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${equipment.asset-registry.refresh-ms:3600000}",
+            initialDelayString = "${equipment.asset-registry.refresh-ms:3600000}")
+    public void reload() {
+        if (!enabled) return;
+
+        long stamp = lock.writeLock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        Table fresh;
+        int[] skipped = new int[1];
+        try {
+            Table[] building = {new Table(16)};
+            jdbcTemplate.query(SQL, rs -> {
+                int key = AssetNumbers.pack(rs.getString(2));
+                if (key == AssetNumbers.INVALID) {
+                    skipped[0]++; // legado fora do padrão: continua resolvido pelo banco
+                    return;
+                }
+                building[0] = apply(building[0], key, rs.getLong(1), true);
+            });
+            fresh = building[0];
+        } catch (Exception e) {
+            // Mantém o snapshot anterior (ou o modo "consultar o banco", se nunca carregou)
+            log.warn("Falha ao carregar registro de patrimônios. Motivo={}", e.getMessage());
+            fresh = null;
+        }
+
+        stamp = lock.writeLock();
+        try {
+            if (fresh != null) {
+                for (long[] op : journal) {
+                    fresh = apply(fresh, (int) op[0], op[1], op[2] == 1);
+                }
+                table = fresh;
+                loaded = true;
+            }
+            journal = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        if (fresh != null) {
+            log.info("Registro de patrimônios carregado. patrimonios={} foraDoPadrao={}", fresh.size, skipped[0]);
+        }
+    }
+
+    /**
+     * Id dono do patrimônio, {@link #ABSENT} se livre ou {@link #UNKNOWN} se o registro não sabe responder.
+     */
+    public long idOf(CharSequence assetNumber) {
+        int key = AssetNumbers.pack(assetNumber);
+        if (key == AssetNumbers.INVALID || !loaded) return UNKNOWN;
+
+        long stamp = lock.tryOptimisticRead();
+        long id = table.get(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = table.get(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * {@link #idOf} em lote (mesma posição da entrada), sob uma única leitura otimista.
+     */
+    public long[] idsOf(List<? extends CharSequence> assetNumbers) {
+        long[] out = new long[assetNumbers.size()];
+        if (!loaded) return out; // tudo UNKNOWN
+
+        int[] keys = new int[out.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = AssetNumbers.pack(assetNumbers.get(i));
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        lookup(table, keys, out);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                lookup(table, keys, out);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return out;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return table.size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Agenda a troca previous -> current para depois do commit da transação corrente
+     * (sem transação, aplica na hora). Rollback não altera o registro.
+     */
+    public void onCommit(Long equipmentId, String previous, String current) {
+        if (!enabled || equipmentId == null) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change(equipmentId, previous, current);
+                }
+            });
+        } else {
+            change(equipmentId, previous, current);
+        }
+    }
+
+    void change(long equipmentId, String previous, String current) {
+        int oldKey = AssetNumbers.pack(previous);
+        int newKey = AssetNumbers.pack(current);
+        if (oldKey == newKey) return;
+
+        long stamp = lock.writeLock();
+        try {
+            if (oldKey != AssetNumbers.INVALID) {
+                table = write(oldKey, equipmentId, false);
+            }
+            if (newKey != AssetNumbers.INVALID) {
+                table = write(newKey, equipmentId, true);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Sob o write lock
+    private Table write(int key, long id, boolean put) {
+        if (journal != null) {
+            journal.add(new long[]{key, id, put ? 1 : 0});
+        }
+        return apply(table, key, id, put);
+    }
+
+    private static Table apply(Table t, int key, long id, boolean put) {
+        if (!put) {
+            t.remove(key, id);
+            return t;
+        }
+        Table target = t.size + 1 > t.keys.length / 2 ? t.grow() : t;
+        target.put(key, id);
+        return target;
+    }
+
+    private static void lookup(Table t, int[] keys, long[] out) {
+        for (int i = 0; i < keys.length; i++) {
+            out[i] = keys[i] == AssetNumbers.INVALID ? UNKNOWN : t.get(keys[i]);
+        }
+    }
+
+    /**
+     * Tabela de endereçamento aberto int -> long. Remoção por deslocamento para trás (sem lápides).
+     * Crescimento gera uma tabela nova: quem lê sempre vê keys/ids do mesmo tamanho.
+     */
+    private static final class Table {
+
+        private static final int EMPTY = -1;
+
+        final int[] keys;
+        final long[] ids;
+        int size;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            ids = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        long get(int key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            for (int probes = 0; probes <= mask; probes++) {
+                int k = keys[i];
+                if (k == key) return ids[i];
+                if (k == EMPTY) return ABSENT;
+                i = (i + 1) & mask;
+            }
+            return ABSENT;
+        }
+
+        void put(int key, long id) {
+            if (size + 1 > keys.length / 2) {
+                throw new IllegalStateException("Tabela cheia; use grow()");
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) size++;
+            keys[i] = key;
+            ids[i] = id;
+        }
+
+        /**
+         * Remove só se o patrimônio ainda aponta para este id (evento atrasado não apaga o dono novo).
+         */
+        void remove(int key, long id) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) return;
+                i = (i + 1) & mask;
+            }
+            if (ids[i] != id) return;
+
+            // Puxa para a vaga as entradas seguintes cuja posição ideal não fica entre a vaga e elas
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (keys[j] == EMPTY) break;
+                int home = slot(keys[j], mask);
+                boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (!stays) {
+                    keys[i] = keys[j];
+                    ids[i] = ids[j];
+                    i = j;
+                }
+            }
+            keys[i] = EMPTY;
+            ids[i] = 0;
+            size--;
+        }
+
+        Table grow() {
+            Table bigger = new Table(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) bigger.put(keys[i], ids[i]);
+            }
+            return bigger;
+        }
+
+        private static int slot(int key, int mask) {
+            int h = key * 0x9E3779B9; // Fibonacci hashing: espalha prefixos/números sequenciais
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
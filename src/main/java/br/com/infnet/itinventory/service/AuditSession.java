@@ -0,0 +1,127 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.dto.AuditReportDTO;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Uma contagem física em andamento. Esperados e lidos são bitmaps indexados pelo id do equipamento
+ * (ids de AUTO_INCREMENT são densos: 500 mil ids = ~62 KB por conjunto). As contagens andam com cada
+ * leitura nova (resposta de cada lote sem percorrer os bitmaps); as listas found/missing/unexpected só
+ * saem de and/andNot no relatório completo. Cada sessão tem o próprio monitor: sessões não disputam lock.
+ */
+class AuditSession {
+
+    private final String id;
+    private final List<String> locations;
+    private final Instant openedAt;
+    private final BitSet expected;
+    private final BitSet scanned = new BitSet();
+    private final Set<String> unknown = new LinkedHashSet<>();
+    private final int maxUnknown;
+    private final int expectedCount;
+    private int scannedCount;
+    private int foundCount;
+    private volatile Instant lastActivity;
+
+    AuditSession(String id, List<String> locations, BitSet expected, int maxUnknown) {
+        this.id = id;
+        this.locations = List.copyOf(locations);
+        this.openedAt = Instant.now();
+        this.expected = expected;
+        this.expectedCount = expected.cardinality();
+        this.maxUnknown = maxUnknown;
+        this.lastActivity = openedAt;
+    }
+
+    String id() {
+        return id;
+    }
+
+    Instant lastActivity() {
+        return lastActivity;
+    }
+
+    synchronized void scan(long[] equipmentIds, List<String> notFound) {
+        for (long equipmentId : equipmentIds) {
+            int bit = Math.toIntExact(equipmentId);
+            // Releitura do mesmo equipamento não conta de novo
+            if (scanned.get(bit)) continue;
+            scanned.set(bit);
+            scannedCount++;
+            if (expected.get(bit)) foundCount++;
+        }
+        for (String entry : notFound) {
+            if (unknown.size() >= maxUnknown) break;
+            unknown.add(entry);
+        }
+        lastActivity = Instant.now();
+    }
+
+    /**
+     * Só as contagens (resposta de cada lote de leituras): O(1), sem copiar os bitmaps.
+     */
+    synchronized AuditReportDTO summary() {
+        return counts(false).build();
+    }
+
+    AuditReportDTO report(boolean closed) {
+        AuditReportDTO.AuditReportDTOBuilder report;
+        BitSet read;
+        List<String> unknownCopy;
+        synchronized (this) {
+            report = counts(closed);
+            read = (BitSet) scanned.clone();
+            unknownCopy = new ArrayList<>(unknown);
+        }
+
+        // expected não muda depois da abertura: só a cópia de scanned precisa do monitor
+        BitSet found = (BitSet) expected.clone();
+        found.and(read);
+        BitSet missing = (BitSet) expected.clone();
+        missing.andNot(read);
+        BitSet unexpected = read;
+        unexpected.andNot(expected);
+
+        return report.found(ids(found))
+                .missing(ids(missing))
+                .unexpected(ids(unexpected))
+                .unknown(unknownCopy)
+                .build();
+    }
+
+    private AuditReportDTO.AuditReportDTOBuilder counts(boolean closed) {
+        return AuditReportDTO.builder()
+                .sessionId(id)
+                .locations(locations)
+                .openedAt(openedAt)
+                .closed(closed)
+                .expectedCount(expectedCount)
+                .scannedCount(scannedCount)
+                .foundCount(foundCount)
+                .missingCount(expectedCount - foundCount)
+                .unexpectedCount(scannedCount - foundCount)
+                .unknownCount(unknown.size());
+    }
+
+    static BitSet bitmap(List<Long> equipmentIds) {
+        BitSet bits = new BitSet();
+        for (Long equipmentId : equipmentIds) {
+            bits.set(Math.toIntExact(equipmentId));
+        }
+        return bits;
+    }
+
+    private static List<Long> ids(BitSet bits) {
+        List<Long> out = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            out.add((long) i);
+        }
+        return out;
+    }
+}
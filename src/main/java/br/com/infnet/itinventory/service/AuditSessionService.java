@@ -0,0 +1,137 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.dto.AuditReportDTO;
+import br.com.infnet.itinventory.dto.EquipmentLookupRequest;
+import br.com.infnet.itinventory.exception.EquipmentBusinessException;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sessões de contagem física por conjunto de localizações.
+ *
+ * Na abertura, os ids cadastrados nas localizações viram o bitmap "esperado"; as leituras do coletor
+ * (ids e/ou patrimônios) são resolvidas pelo {@link EquipmentLookupService} e marcadas no bitmap "lido".
+ * O relatório cruza os dois. Sessões ficam em memória desta instância e expiram após
+ * equipment.audit.idle-minutes sem leituras.
+ */
+@Slf4j
+@Service
+public class AuditSessionService {
+
+    private final EquipmentRepository equipmentRepository;
+    private final EquipmentLookupService lookupService;
+    private final int maxSessions;
+    private final int maxUnknown;
+    private final Duration idleTimeout;
+
+    private final Map<String, AuditSession> sessions = new ConcurrentHashMap<>();
+
+    public AuditSessionService(
+            EquipmentRepository equipmentRepository,
+            EquipmentLookupService lookupService,
+            @Value("${equipment.audit.max-sessions:50}") int maxSessions,
+            @Value("${equipment.audit.max-unknown:10000}") int maxUnknown,
+            @Value("${equipment.audit.idle-minutes:720}") long idleMinutes
+    ) {
+        this.equipmentRepository = equipmentRepository;
+        this.lookupService = lookupService;
+        this.maxSessions = maxSessions;
+        this.maxUnknown = maxUnknown;
+        this.idleTimeout = Duration.ofMinutes(idleMinutes);
+    }
+
+    public AuditReportDTO open(List<String> locations) {
+        List<String> distinct = locations == null ? List.of() : locations.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(l -> !l.isEmpty())
+                .distinct()
+                .toList();
+        if (distinct.isEmpty()) {
+            throw new EquipmentBusinessException("Informe ao menos uma localização.");
+        }
+        if (sessions.size() >= maxSessions) {
+            throw new EquipmentBusinessException("Limite de auditorias abertas atingido: " + maxSessions);
+        }
+
+        List<Long> expectedIds = equipmentRepository.findIdsByLocationIn(distinct);
+        AuditSession session = new AuditSession(UUID.randomUUID().toString(), distinct,
+                AuditSession.bitmap(expectedIds), maxUnknown);
+        sessions.put(session.id(), session);
+
+        log.info("Auditoria aberta. id={} localizacoes={} esperados={}", session.id(), distinct.size(), expectedIds.size());
+        return session.summary();
+    }
+
+    /**
+     * Marca um lote de leituras; pode ser chamado várias vezes (e em paralelo) durante a contagem.
+     * Responde só as contagens; as listas saem em {@link #report} e {@link #close}.
+     */
+    public AuditReportDTO scan(String sessionId, EquipmentLookupRequest scans) {
+        AuditSession session = seekOrFail(sessionId);
+
+        long[] ids = new long[size(scans)];
+        int[] n = {0};
+        List<String> notFound = lookupService.lookup(scans, e -> ids[n[0]++] = e.getId());
+
+        session.scan(Arrays.copyOf(ids, n[0]), notFound);
+        return session.summary();
+    }
+
+    public AuditReportDTO report(String sessionId) {
+        return seekOrFail(sessionId).report(false);
+    }
+
+    /**
+     * Encerra e devolve o relatório final; a sessão deixa de existir.
+     */
+    public AuditReportDTO close(String sessionId) {
+        AuditSession session = sessions.remove(sessionId);
+        if (session == null) {
+            throw notFound(sessionId);
+        }
+        return session.report(true);
+    }
+
+    @Scheduled(fixedDelayString = "${equipment.audit.cleanup-ms:600000}")
+    public void expireIdle() {
+        Instant limit = Instant.now().minus(idleTimeout);
+        sessions.values().removeIf(session -> {
+            boolean idle = session.lastActivity().isBefore(limit);
+            if (idle) log.info("Auditoria expirada por inatividade. id={}", session.id());
+            return idle;
+        });
+    }
+
+    private AuditSession seekOrFail(String sessionId) {
+        AuditSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw notFound(sessionId);
+        }
+        return session;
+    }
+
+    private static ResponseStatusException notFound(String sessionId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Auditoria não encontrada: " + sessionId);
+    }
+
+    private static int size(EquipmentLookupRequest scans) {
+        if (scans == null) return 0;
+        return (scans.getIds() == null ? 0 : scans.getIds().size())
+                + (scans.getAssetNumbers() == null ? 0 : scans.getAssetNumbers().size());
+    }
+}
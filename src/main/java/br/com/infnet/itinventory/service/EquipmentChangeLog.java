@@ -0,0 +1,192 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.model.EquipmentChangeSequence;
+import br.com.infnet.itinventory.model.EquipmentTombstone;
+import br.com.infnet.itinventory.repository.EquipmentChangeAllocationRepository;
+import br.com.infnet.itinventory.repository.EquipmentChangeSequenceRepository;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import br.com.infnet.itinventory.repository.EquipmentTombstoneRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Sincronização incremental dos tablets offline: GET /api/equipments/changes?since=token.
+ *
+ * Cada gravação da API marca equipment.change_seq (ou grava uma lápide, na exclusão) com um número
+ * reservado em equipment_change_log (AUTO_INCREMENT, inserido na própria transação: sem lock global,
+ * gravações concorrentes não se esperam). Os números saem na ordem da reserva, não do commit: uma
+ * gravação mais lenta pode commitar um número menor depois de um maior. Por isso a leitura só vai até
+ * o horizonte, o maior número reservado há mais de equipment.changes.commit-lag-ms; nenhuma gravação
+ * dura tanto, então tudo até ele já commitou e retomar de um token não perde alterações. O custo é
+ * o atraso: uma alteração entra no fluxo commit-lag-ms depois de gravada.
+ *
+ * Só as gravações da API avançam change_seq. Mudanças feitas direto no banco não entram no fluxo:
+ * o ON DELETE SET NULL das FKs de filial/fornecedor/categoria, UPDATEs manuais e cargas em massa
+ * (change_seq 0). Para publicá-las, reservar um número e gravá-lo nos equipamentos afetados na mesma
+ * transação (ver README).
+ *
+ * O token é opaco (posição keyset change_seq + id e o pruned_up_to vigente na emissão, em Base64url).
+ * Lápides expiram após equipment.changes.tombstone-retention-days; token emitido antes de um expurgo
+ * que passou da sua posição responde reset=true (e um token de início, que não volta a cair no reset).
+ */
+@Slf4j
+@Service
+public class EquipmentChangeLog {
+
+    private static final byte TOKEN_VERSION = 1;
+    private static final int TOKEN_BYTES = 1 + 3 * Long.BYTES;
+
+    private final EquipmentRepository equipmentRepository;
+    private final EquipmentTombstoneRepository tombstoneRepository;
+    private final EquipmentChangeSequenceRepository sequenceRepository;
+    private final EquipmentChangeAllocationRepository allocationRepository;
+    private final int maxLimit;
+    private final Duration tombstoneRetention;
+    private final long commitLagMillis;
+
+    public EquipmentChangeLog(
+            EquipmentRepository equipmentRepository,
+            EquipmentTombstoneRepository tombstoneRepository,
+            EquipmentChangeSequenceRepository sequenceRepository,
+            EquipmentChangeAllocationRepository allocationRepository,
+            @Value("${equipment.changes.max-limit:5000}") int maxLimit,
+            @Value("${equipment.changes.tombstone-retention-days:90}") long retentionDays,
+            @Value("${equipment.changes.commit-lag-ms:10000}") long commitLagMillis
+    ) {
+        this.equipmentRepository = equipmentRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.allocationRepository = allocationRepository;
+        this.maxLimit = maxLimit;
+        this.tombstoneRetention = Duration.ofDays(retentionDays);
+        this.commitLagMillis = Math.max(0, commitLagMillis);
+    }
+
+    /**
+     * Uma página de alterações. equipments/deleted em ordem de alteração; nextToken sempre presente.
+     */
+    public record Changes(List<Equipment> equipments, List<Long> deleted, String nextToken, boolean hasMore, boolean reset) {
+    }
+
+    /**
+     * Próximo número de alteração. Roda dentro da transação da gravação: rollback descarta a reserva.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next() {
+        allocationRepository.allocate();
+        return allocationRepository.lastAllocated();
+    }
+
+    @Transactional
+    public void recordDelete(Long equipmentId) {
+        tombstoneRepository.save(new EquipmentTombstone(equipmentId, next(), Instant.now()));
+    }
+
+    @Transactional(readOnly = true)
+    public Changes since(String token, int limit) {
+        int size = Math.min(maxLimit, Math.max(1, limit));
+        long[] position = decode(token);
+        long seq = position[0];
+        long id = position[1];
+        long watermark = position[2];
+
+        // Primeira leitura da transação: as páginas abaixo veem tudo o que commitou até o horizonte
+        long horizon = allocationRepository.findHorizon(commitLagMillis).orElse(0L);
+        long prunedUpTo = sequenceRepository.findById(EquipmentChangeSequence.ROW_ID)
+                .map(EquipmentChangeSequence::getPrunedUpTo)
+                .orElse(0L);
+        // seq -1 = início: a carga completa não depende de lápides. Token emitido depois do expurgo
+        // (inclusive as páginas de uma recarga) já não tinha como receber as lápides expurgadas.
+        if (seq >= 0 && watermark < prunedUpTo && seq < prunedUpTo) {
+            // Exclusões entre o token e o expurgo se perderam: o cliente refaz a carga do zero
+            return new Changes(List.of(), List.of(), encode(-1, 0, prunedUpTo), false, true);
+        }
+
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Equipment> changed = equipmentRepository.findChangedAfter(seq, id, horizon, page);
+        List<EquipmentTombstone> removed = tombstoneRepository.findChangedAfter(seq, id, horizon, page);
+
+        // Intercala as duas listas por (change_seq, id) até encher a página
+        List<Equipment> equipments = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        int e = 0;
+        int t = 0;
+        while (equipments.size() + deleted.size() < size && (e < changed.size() || t < removed.size())) {
+            boolean takeEquipment = t >= removed.size() || (e < changed.size()
+                    && compare(changed.get(e).getChangeSeq(), changed.get(e).getId(),
+                    removed.get(t).getChangeSeq(), removed.get(t).getId()) < 0);
+            if (takeEquipment) {
+                Equipment next = changed.get(e++);
+                equipments.add(next);
+                seq = next.getChangeSeq();
+                id = next.getId();
+            } else {
+                EquipmentTombstone next = removed.get(t++);
+                deleted.add(next.getId());
+                seq = next.getChangeSeq();
+                id = next.getId();
+            }
+        }
+
+        boolean hasMore = e < changed.size() || t < removed.size();
+        return new Changes(equipments, deleted, encode(seq, id, prunedUpTo), hasMore, false);
+    }
+
+    @Scheduled(cron = "${equipment.changes.prune-cron:0 0 4 * * *}")
+    @Transactional
+    public void pruneTombstones() {
+        Instant before = Instant.now().minus(tombstoneRetention);
+        tombstoneRepository.findMaxChangeSeqDeletedBefore(before).ifPresent(maxSeq -> {
+            EquipmentChangeSequence sequence = sequenceRepository.findForUpdate(EquipmentChangeSequence.ROW_ID)
+                    .orElseThrow();
+            sequence.setPrunedUpTo(Math.max(sequence.getPrunedUpTo(), maxSeq));
+            int removed = tombstoneRepository.deleteDeletedBefore(before);
+            log.info("Lápides de equipamentos expurgadas. removidas={} ate={}", removed, sequence.getPrunedUpTo());
+        });
+
+        // Reservas antigas abaixo do horizonte não servem mais; a do horizonte fica para ele não recuar
+        allocationRepository.findHorizon(commitLagMillis).ifPresent(horizon ->
+                allocationRepository.deleteAllocatedBefore(Instant.now().minus(Duration.ofDays(1)), horizon));
+    }
+
+    private static int compare(long seqA, long idA, long seqB, long idB) {
+        int bySeq = Long.compare(seqA, seqB);
+        return bySeq != 0 ? bySeq : Long.compare(idA, idB);
+    }
+
+    static String encode(long seq, long id, long watermark) {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES).put(TOKEN_VERSION).putLong(seq).putLong(id).putLong(watermark);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Sem token = desde o início (inclui change_seq 0, da carga inicial).
+     */
+    static long[] decode(String token) {
+        if (token == null || token.isBlank()) {
+            return new long[]{-1, 0, 0};
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token.trim()));
+            if (buffer.remaining() != TOKEN_BYTES || buffer.get() != TOKEN_VERSION) {
+                throw new IllegalArgumentException("Token de sincronização inválido.");
+            }
+            return new long[]{buffer.getLong(), buffer.getLong(), buffer.getLong()};
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Token de sincronização inválido.", e);
+        }
+    }
+}
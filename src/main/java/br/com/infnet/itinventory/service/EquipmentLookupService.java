@@ -0,0 +1,166 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.dto.EquipmentLookupRequest;
+import br.com.infnet.itinventory.exception.EquipmentBusinessException;
+import br.com.infnet.itinventory.model.AssetNumbers;
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Resolve em lote as leituras de um turno do coletor (ids e patrimônios) em vez de um GET por item.
+ *
+ * Patrimônios passam primeiro pelo {@link AssetNumberRegistry} (patrimônio -> id em memória); o que ele
+ * resolve vira id e vai junto com os ids pedidos em consultas IN pela chave primária, em blocos de
+ * equipment.lookup.chunk-size. O resto é consultado por asset_number IN: o que o registro não sabe
+ * responder (fora do padrão, ainda carregando), o que mudou de dono desde a última sincronização e
+ * também o que ele dá como livre (pode ter sido cadastrado fora da API depois da última recarga).
+ * Cada bloco é entregue assim que chega, para a resposta ir sendo escrita sem juntar tudo em memória.
+ */
+@Service
+public class EquipmentLookupService {
+
+    private final EquipmentRepository equipmentRepository;
+    private final AssetNumberRegistry assetNumberRegistry;
+    private final int maxItems;
+    private final int chunkSize;
+
+    public EquipmentLookupService(
+            EquipmentRepository equipmentRepository,
+            AssetNumberRegistry assetNumberRegistry,
+            @Value("${equipment.lookup.max-items:50000}") int maxItems,
+            @Value("${equipment.lookup.chunk-size:1000}") int chunkSize
+    ) {
+        this.equipmentRepository = equipmentRepository;
+        this.assetNumberRegistry = assetNumberRegistry;
+        this.maxItems = maxItems;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Limite do lote; chamado antes de começar a escrever a resposta (depois não dá mais para responder 400).
+     */
+    public void validate(EquipmentLookupRequest request) {
+        if (request == null) {
+            throw new EquipmentBusinessException("Lote de consulta não pode ser nulo.");
+        }
+        int total = size(request.getIds()) + size(request.getAssetNumbers());
+        if (total == 0) {
+            throw new EquipmentBusinessException("Informe ids e/ou assetNumbers.");
+        }
+        if (total > maxItems) {
+            throw new EquipmentBusinessException("Lote excede o limite de " + maxItems + " itens: " + total);
+        }
+    }
+
+    /**
+     * Entrega cada equipamento encontrado (uma vez só, mesmo se pedido por id e por patrimônio)
+     * e devolve as entradas não encontradas, como vieram na requisição.
+     */
+    public List<String> lookup(EquipmentLookupRequest request, Consumer<Equipment> onFound) {
+        validate(request);
+
+        Set<Long> emitted = new HashSet<>();
+        List<String> notFound = new ArrayList<>();
+
+        // Patrimônio normalizado -> como veio (para reportar não encontrados no formato do coletor)
+        Map<String, String> assets = new LinkedHashMap<>();
+        for (String raw : nonNull(request.getAssetNumbers())) {
+            if (raw == null) continue;
+            String normalized = AssetNumbers.normalize(raw);
+            if (normalized == null || normalized.isBlank()) {
+                notFound.add(raw);
+                continue;
+            }
+            assets.putIfAbsent(normalized, raw);
+        }
+
+        List<String> assetKeys = new ArrayList<>(assets.keySet());
+        long[] registryIds = assetNumberRegistry.idsOf(assetKeys);
+
+        // id resolvido pelo registro -> patrimônio pedido (conferido quando a linha chegar)
+        Map<Long, String> expectedAsset = new LinkedHashMap<>();
+        Set<String> askDatabase = new LinkedHashSet<>();
+        for (int i = 0; i < assetKeys.size(); i++) {
+            long id = registryIds[i];
+            if (id > 0) {
+                expectedAsset.put(id, assetKeys.get(i));
+            } else {
+                askDatabase.add(assetKeys.get(i));
+            }
+        }
+
+        Set<Long> requestedIds = new LinkedHashSet<>(nonNull(request.getIds()));
+        requestedIds.remove(null);
+        Set<Long> ids = new LinkedHashSet<>(requestedIds);
+        ids.addAll(expectedAsset.keySet());
+
+        Set<Long> loaded = new HashSet<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(ids))) {
+            for (Equipment equipment : equipmentRepository.findAllById(chunk)) {
+                loaded.add(equipment.getId());
+                String expected = expectedAsset.get(equipment.getId());
+                boolean assetMatches = expected == null || expected.equals(equipment.getAssetNumber());
+                if (!assetMatches) {
+                    // Registro desatualizado (escrita fora da API): confere pelo patrimônio
+                    askDatabase.add(expected);
+                }
+                if (assetMatches || requestedIds.contains(equipment.getId())) {
+                    emit(equipment, emitted, onFound);
+                }
+            }
+        }
+
+        for (Long id : requestedIds) {
+            if (!loaded.contains(id)) notFound.add(String.valueOf(id));
+        }
+        expectedAsset.forEach((id, asset) -> {
+            if (!loaded.contains(id)) askDatabase.add(asset);
+        });
+
+        Set<String> foundAssets = new HashSet<>();
+        for (List<String> chunk : chunks(new ArrayList<>(askDatabase))) {
+            for (Equipment equipment : equipmentRepository.findByAssetNumberIn(chunk)) {
+                foundAssets.add(equipment.getAssetNumber());
+                emit(equipment, emitted, onFound);
+            }
+        }
+        for (String asset : askDatabase) {
+            if (!foundAssets.contains(asset)) notFound.add(assets.get(asset));
+        }
+
+        return notFound;
+    }
+
+    private static void emit(Equipment equipment, Set<Long> emitted, Consumer<Equipment> onFound) {
+        if (emitted.add(equipment.getId())) {
+            onFound.accept(equipment);
+        }
+    }
+
+    private <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> out = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += chunkSize) {
+            out.add(values.subList(from, Math.min(values.size(), from + chunkSize)));
+        }
+        return out;
+    }
+
+    private static <T> List<T> nonNull(List<T> values) {
+        return values == null ? List.of() : values;
+    }
+
+    private static int size(List<?> values) {
+        return values == null ? 0 : values.size();
+    }
+}
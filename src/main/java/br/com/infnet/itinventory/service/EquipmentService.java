@@ -1,11 +1,14 @@
 package br.com.infnet.itinventory.service;
 
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.doc.EquipmentDocMapper;
 import br.com.infnet.itinventory.search.event.EquipmentIndexEvent;
 import br.com.infnet.itinventory.search.event.EquipmentIndexOperation;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 import br.com.infnet.itinventory.exception.EquipmentBusinessException;
 import br.com.infnet.itinventory.exception.EquipmentNotFoundException;
+import br.com.infnet.itinventory.model.AssetNumbers;
 import br.com.infnet.itinventory.model.Equipment;
 import br.com.infnet.itinventory.repository.EquipmentRepository;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +16,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -21,23 +25,37 @@ public class EquipmentService {
 
     private final EquipmentRepository equipmentRepository;
     private final ApplicationEventPublisher publisher;
+    private final AssetNumberRegistry assetNumberRegistry;
+    private final EquipmentChangeLog changeLog;
     @Value("${search.es.enabled:false}")
     private boolean esEnabled;
+    @Value("${search.embedded.enabled:true}")
+    private boolean embeddedEnabled;
 
 
+    /**
+     * Patrimônio gerado no servidor chega aqui já preenchido: o {@link AssetNumberAllocator} é chamado
+     * pelo controller, fora desta transação (a reserva de bloco usa transação e conexão próprias).
+     */
     @Transactional
     public Equipment save(Equipment equipment) {
         validateRequiredFields(equipment);
 
+        if (equipment.getAssetNumber() == null || equipment.getAssetNumber().isBlank()) {
+            throw new EquipmentBusinessException("Informe assetNumber ou assetPrefix (patrimônio gerado).");
+        }
+
         equipment.setAssetNumber(normalizeAssetNumber(equipment.getAssetNumber()));
 
-        if (equipmentRepository.findByAssetNumber(equipment.getAssetNumber()).isPresent()) {
+        if (ownerOf(equipment.getAssetNumber()).isPresent()) {
             throw new EquipmentBusinessException("assetNumber já existe: " + equipment.getAssetNumber());
         }
 
+        equipment.setChangeSeq(changeLog.next());
         Equipment saved = equipmentRepository.save(equipment);
+        assetNumberRegistry.onCommit(saved.getId(), null, saved.getAssetNumber());
 
-        if (esEnabled) {
+        if (indexEventsEnabled()) {
             publisher.publishEvent(new EquipmentIndexEvent(saved.getId(), EquipmentIndexOperation.UPSERT));
         }
 
@@ -46,11 +64,13 @@ public class EquipmentService {
 
     @Transactional
     public void delete(Long id) {
-        seekOrFail(id);
+        Equipment located = lockOrFail(id);
         equipmentRepository.deleteById(id);
+        changeLog.recordDelete(id);
+        assetNumberRegistry.onCommit(id, located.getAssetNumber(), null);
 
-        if (esEnabled) {
-            publisher.publishEvent(new EquipmentIndexEvent(id, EquipmentIndexOperation.DELETE));
+        if (indexEventsEnabled()) {
+            publisher.publishEvent(new EquipmentIndexEvent(id, EquipmentIndexOperation.DELETE, located.getFilialAtualId()));
         }
     }
 
@@ -69,6 +89,17 @@ public class EquipmentService {
         return findById(id).orElseThrow(() -> new EquipmentNotFoundException(id));
     }
 
+    /**
+     * Como {@link #seekOrFail}, com lock da linha até o commit: o change_seq de um mesmo equipamento
+     * só cresce (entre transações os números commitam fora de ordem, ver {@link EquipmentChangeLog}).
+     */
+    private Equipment lockOrFail(Long id) {
+        if (id == null) {
+            throw new EquipmentBusinessException("Id não pode ser nulo.");
+        }
+        return equipmentRepository.findForUpdate(id).orElseThrow(() -> new EquipmentNotFoundException(id));
+    }
+
     /**
      * PUT = update completo (replace).
      * A entidade localizada é sobrescrita pelos valores do payload (exceto id).
@@ -80,17 +111,26 @@ public class EquipmentService {
         }
 
         validateRequiredFields(newEquipment);
+        // PUT é replace: patrimônio gerado só existe no cadastro
+        if (newEquipment.getAssetNumber() == null || newEquipment.getAssetNumber().isBlank()) {
+            throw new EquipmentBusinessException("assetNumber é obrigatório.");
+        }
 
-        Equipment located = seekOrFail(id);
+        Equipment located = lockOrFail(id);
 
         String normalized = normalizeAssetNumber(newEquipment.getAssetNumber());
 
-        equipmentRepository.findByAssetNumber(normalized).ifPresent(existing -> {
-            if (!existing.getId().equals(located.getId())) {
+        ownerOf(normalized).ifPresent(ownerId -> {
+            if (!ownerId.equals(located.getId())) {
                 throw new EquipmentBusinessException("assetNumber já existe: " + normalized);
             }
         });
 
+        String previousAssetNumber = located.getAssetNumber();
+
+        // Estado indexado antes da edição: o evento leva só o que mudou
+        EquipmentDoc before = EquipmentDocMapper.toDoc(located);
+
         located.setType(newEquipment.getType());
         located.setBrand(newEquipment.getBrand());
         located.setModel(newEquipment.getModel());
@@ -100,11 +140,18 @@ public class EquipmentService {
         located.setResponsible(newEquipment.getResponsible());
         located.setAcquisitionDate(newEquipment.getAcquisitionDate());
         located.setAcquisitionValue(newEquipment.getAcquisitionValue());
+        located.setChangeSeq(changeLog.next());
 
         Equipment saved = equipmentRepository.save(located);
-
-        if (esEnabled) {
-            publisher.publishEvent(new EquipmentIndexEvent(saved.getId(), EquipmentIndexOperation.UPSERT));
+        assetNumberRegistry.onCommit(saved.getId(), previousAssetNumber, saved.getAssetNumber());
+
+        if (indexEventsEnabled()) {
+            Map<String, Object> changed = EquipmentDocMapper.changedFields(before, saved);
+            // PUT sem mudança em campo indexado: nada a reindexar
+            if (!changed.isEmpty()) {
+                publisher.publishEvent(EquipmentIndexEvent.partial(
+                        saved.getId(), saved.getFilialAtualId(), saved.getChangeSeq(), changed));
+            }
         }
 
         return saved;
@@ -123,6 +170,13 @@ public class EquipmentService {
     // =========================
     // Validações mínimas
     // =========================
+    /**
+     * Eventos de indexação só fazem sentido se há um índice para manter (ES ou busca embutida).
+     */
+    private boolean indexEventsEnabled() {
+        return esEnabled || embeddedEnabled;
+    }
+
     private void validateRequiredFields(Equipment equipment) {
         if (equipment == null) throw new EquipmentBusinessException("Equipamento não pode ser nulo.");
         if (equipment.getType() == null) throw new EquipmentBusinessException("Tipo é obrigatório.");
@@ -134,21 +188,21 @@ public class EquipmentService {
 
     }
 
-    private String normalizeAssetNumber(String assetNumber) {
-        if (assetNumber == null) return null;
-
-        String s = assetNumber.trim().toUpperCase();
-
-        // Aceita INV-13, INV-0013, INV-00013 etc.
-        // e normaliza sempre para INV-00013 (5 dígitos)
-        if (s.matches("^[A-Z]{3}-\\d{1,5}$")) {
-            String prefix = s.substring(0, 3);
-            String digits = s.substring(4); // depois do "AAA-"
-            int num = Integer.parseInt(digits); // remove zeros à esquerda
-            return prefix + "-" + String.format("%05d", num);
+    /**
+     * Id do equipamento que já usa o patrimônio. Livre no registro em memória responde sem consulta
+     * (o caso comum no cadastro); ocupado é só "provavelmente ocupado" (a entrada pode ser de um
+     * equipamento já excluído ou renumerado fora da API) e, como o não saber responder, é conferido
+     * no banco. A unique key é a garantia final.
+     */
+    private Optional<Long> ownerOf(String assetNumber) {
+        if (assetNumberRegistry.idOf(assetNumber) == AssetNumberRegistry.ABSENT) {
+            return Optional.empty();
         }
+        return equipmentRepository.findByAssetNumber(assetNumber).map(Equipment::getId);
+    }
 
-        // Se vier fora do padrão, devolve como está (DTO já valida com regex)
-        return s;
+    private String normalizeAssetNumber(String assetNumber) {
+        // Fora do padrão devolve como está (DTO já valida com regex)
+        return AssetNumbers.normalize(assetNumber);
     }
 }
@@ -0,0 +1,176 @@
+package br.com.infnet.itinventory.search.cache;
+
+import br.com.infnet.itinventory.search.doc.EquipmentBrowseSort;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.metrics.SearchMetrics;
+import br.com.infnet.itinventory.search.metrics.SlowQueryLog;
+import br.com.infnet.itinventory.search.service.AssetNumberLookup;
+import br.com.infnet.itinventory.search.service.EquipmentSearchService;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Log de buscas salvo no desligamento e repetido na subida (contra um "ES" local que conta as consultas).
+ */
+class SearchCacheWarmerTest {
+
+    private static final String SEARCH_RESPONSE = """
+            {"took":1,"timed_out":false,
+             "_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+             "hits":{"max_score":1.0,"hits":[{"_index":"itinventory-equipments","_id":"1","_score":1.0,
+               "_source":{"idEquipment":1,"assetNumber":"INV-00001","brand":"Dell"}}]}}
+            """;
+
+    @TempDir
+    Path dir;
+
+    private FakeElasticsearch es;
+    private final AtomicInteger esCalls = new AtomicInteger();
+    private final ObjectMapper json = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        es = FakeElasticsearch.start(request -> {
+            esCalls.incrementAndGet();
+            return FakeElasticsearch.Response.ok(SEARCH_RESPONSE);
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        es.close();
+    }
+
+    @Test
+    void restart_shouldReplayTopSearches_beforeTraffic_andCarryAgedCounts() throws Exception {
+        Path file = dir.resolve("query-log.json");
+        EquipmentSearchRequest emUso = new EquipmentSearchRequest(null, "EM_USO", null, null, null, null, null, null, null, 3L);
+        EquipmentBrowseSort byValue = EquipmentBrowseSort.parse("acquisitionValue");
+
+        // "Antes do deploy": tráfego real alimenta o log e é salvo no desligamento
+        SearchQueryLog before = new SearchQueryLog(100);
+        EquipmentSearchService oldInstance = service(before);
+        for (int i = 0; i < 4; i++) {
+            oldInstance.buscarPorTexto("Dell  Latitude", 0, 10).get(5, TimeUnit.SECONDS);
+        }
+        oldInstance.buscaAvancada(emUso, byValue, 0, 20).get(5, TimeUnit.SECONDS);
+        oldInstance.buscarPorTexto("raramente buscado", 0, 10).get(5, TimeUnit.SECONDS);
+        warmer(before, oldInstance, file, 2).save();
+        assertTrue(Files.isRegularFile(file));
+
+        // "Depois do deploy": caches frios, só as 2 mais frequentes são repetidas
+        SearchQueryLog after = new SearchQueryLog(100);
+        EquipmentSearchService newInstance = service(after);
+        esCalls.set(0);
+        warmer(after, newInstance, file, 2).warmUp();
+        assertEquals(2, esCalls.get());
+
+        // Primeira busca do usuário já sai do cache; a que ficou fora do top-n ainda vai ao ES
+        newInstance.buscarPorTexto("dell latitude", 0, 10).get(5, TimeUnit.SECONDS);
+        newInstance.buscaAvancada(emUso, byValue, 0, 20).get(5, TimeUnit.SECONDS);
+        assertEquals(2, esCalls.get());
+        newInstance.buscarPorTexto("raramente buscado", 0, 10).get(5, TimeUnit.SECONDS);
+        assertEquals(3, esCalls.get());
+
+        // Histórico vale metade após o restart (4 -> 2) + a busca nova; a repetição do aquecimento não conta
+        assertEquals(3, after.top(1).get(0).count());
+        assertEquals(SearchCacheKey.text("dell latitude", 0, 10), after.top(1).get(0).key());
+    }
+
+    @Test
+    void warmUp_shouldStartCold_whenFileIsMissingOrCorrupt() throws Exception {
+        Path file = dir.resolve("query-log.json");
+        SearchQueryLog log = new SearchQueryLog(100);
+        EquipmentSearchService service = service(log);
+
+        warmer(log, service, file, 50).warmUp();
+        Files.writeString(file, "{não é json");
+        warmer(log, service, file, 50).warmUp();
+
+        assertEquals(0, esCalls.get());
+        assertEquals(0, log.size());
+    }
+
+    @Test
+    void queryLog_shouldStayBounded_andKeepPopularSearches() {
+        SearchQueryLog log = new SearchQueryLog(4);
+        SearchCacheKey popular = SearchCacheKey.text("dell", 0, 10);
+        for (int i = 0; i < 8; i++) log.record(popular);
+
+        for (int i = 0; i < 200; i++) {
+            log.record(SearchCacheKey.text("busca " + i, 0, 10));
+        }
+
+        assertEquals(4, log.size());
+        assertEquals(new SearchQueryLog.Entry(popular, 8), log.top(1).get(0));
+    }
+
+    @Test
+    void queryLog_shouldCountConcurrentRecords_withoutLosingIncrements() throws Exception {
+        SearchQueryLog log = new SearchQueryLog(100);
+        SearchCacheKey popular = SearchCacheKey.text("dell", 0, 10);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        log.record(popular);
+                        log.record(SearchCacheKey.text("busca " + thread + "-" + i, 0, 10));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) task.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(new SearchQueryLog.Entry(popular, 8_000), log.top(1).get(0));
+        assertTrue(log.size() <= 100 + 8, "tamanho=" + log.size()); // no máximo uma inserção simultânea por thread além do limite
+    }
+
+    private EquipmentSearchService service(SearchQueryLog queryLog) {
+        IndexGeneration generation = new IndexGeneration();
+        EquipmentSearchService service = new EquipmentSearchService(
+                es.client(),
+                es.asyncClient(),
+                new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 0, 0),
+                generation,
+                new SearchMetrics(new SimpleMeterRegistry(), new SlowQueryLog(500, 100)),
+                mock(AssetNumberLookup.class),
+                queryLog
+        );
+        ReflectionTestUtils.setField(service, "indexName", "itinventory-equipments");
+        return service;
+    }
+
+    private SearchCacheWarmer warmer(SearchQueryLog queryLog, EquipmentSearchService service, Path file, int topN) {
+        SearchCacheWarmer warmer = new SearchCacheWarmer(queryLog, service, json);
+        ReflectionTestUtils.setField(warmer, "enabled", true);
+        ReflectionTestUtils.setField(warmer, "file", file.toString());
+        ReflectionTestUtils.setField(warmer, "topN", topN);
+        ReflectionTestUtils.setField(warmer, "timeoutMillis", 5000L);
+        return warmer;
+    }
+}
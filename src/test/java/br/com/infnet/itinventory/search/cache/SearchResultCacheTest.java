@@ -0,0 +1,156 @@
+package br.com.infnet.itinventory.search.cache;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+
+    private final IndexGeneration generation = new IndexGeneration();
+
+    @Test
+    void get_shouldReturnCachedResult_forEquivalentRequests() {
+        SearchResultCache cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 0, 0);
+
+        EquipmentSearchRequest stored = new EquipmentSearchRequest("  Dell ", "em_uso", null, "", null, null, null, null, null, null);
+        EquipmentSearchRequest asked = new EquipmentSearchRequest("dell", "EM_USO", null, null, null, null, null, null, null, null);
+
+        cache.put(SearchCacheKey.advanced(stored, 0, 10), generation.current(), List.of(doc(1L)));
+
+        // Mesma busca escrita de forma diferente deve cair na mesma entrada
+        List<EquipmentDoc> result = cache.get(SearchCacheKey.advanced(asked, 0, 10));
+
+        assertNotNull(result);
+        assertEquals(1L, result.get(0).getIdEquipment());
+        assertEquals(1.0, cache.hitRatio());
+    }
+
+    @Test
+    void get_shouldMiss_afterIndexGenerationAdvances() {
+        SearchResultCache cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 0, 0);
+        SearchCacheKey key = SearchCacheKey.text("dell", 0, 10);
+
+        cache.put(key, generation.current(), List.of(doc(1L)));
+        generation.advance(); // indexador aplicou uma escrita
+
+        assertNull(cache.get(key));
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    void put_shouldIgnoreResult_whenIndexChangedDuringSearch() {
+        SearchResultCache cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 0, 0);
+        SearchCacheKey key = SearchCacheKey.text("dell", 0, 10);
+
+        long before = generation.current();
+        generation.advance(); // escrita concorrente enquanto a busca rodava
+        cache.put(key, before, List.of(doc(1L)));
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsed_whenOverByteBudget() {
+        SearchResultCache cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 2_000, 0, 0);
+
+        for (int i = 0; i < 20; i++) {
+            cache.put(SearchCacheKey.text("q" + i, 0, 10), generation.current(), List.of(doc((long) i)));
+        }
+
+        assertTrue(cache.sizeInBytes() <= 2_000);
+        assertNull(cache.get(SearchCacheKey.text("q0", 0, 10)));
+        assertNotNull(cache.get(SearchCacheKey.text("q19", 0, 10)));
+    }
+
+    @Test
+    void put_shouldSkip_whileRecentWriteMayNotBeSearchableYet() {
+        SearchResultCache cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 60_000, 0);
+        SearchCacheKey key = SearchCacheKey.text("dell", 0, 10);
+
+        generation.advance(); // escrita acabou de acontecer (refresh do ES ainda pendente)
+        cache.put(key, generation.current(), List.of(doc(1L)));
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void get_shouldMiss_afterTtl_evenWithoutLocalWrites() {
+        AtomicLong now = new AtomicLong(1_000);
+        SearchResultCache cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 0,
+                30_000, now::get);
+        SearchCacheKey key = SearchCacheKey.text("dell", 0, 10);
+
+        cache.put(key, generation.current(), List.of(doc(1L)));
+        now.addAndGet(29_999);
+        assertNotNull(cache.get(key));
+
+        // Escrita de outra instância não avança a geração local: só o TTL tira a entrada
+        now.addAndGet(1);
+        assertNull(cache.get(key));
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    void get_shouldReturnCopies_soCallersCannotChangeTheEntry() {
+        SearchResultCache cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 0, 0);
+        SearchCacheKey key = SearchCacheKey.text("dell", 0, 10);
+        EquipmentDoc stored = doc(1L);
+
+        cache.put(key, generation.current(), List.of(stored));
+        stored.setBrand("HP"); // quem guardou continua com a referência
+        cache.get(key).get(0).setModel("Outro"); // quem leu também
+
+        EquipmentDoc cached = cache.get(key).get(0);
+        assertEquals("Dell", cached.getBrand());
+        assertEquals("Latitude 5420", cached.getModel());
+    }
+
+    @Test
+    void put_shouldCountReferenceNamesInEstimate() {
+        SearchResultCache cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 0, 0);
+        cache.put(SearchCacheKey.text("a", 0, 10), generation.current(), List.of(doc(1L)));
+        long plain = cache.sizeInBytes();
+
+        EquipmentDoc withReferences = doc(1L).toBuilder()
+                .filialAtualId(7L).filialNome("Filial São Paulo - Centro")
+                .fornecedorId(3L).fornecedorNome("Distribuidora de Informática Ltda")
+                .categoriaId(2L).categoriaNome("Notebooks corporativos")
+                .build();
+        cache.clear();
+        cache.put(SearchCacheKey.text("a", 0, 10), generation.current(), List.of(withReferences));
+
+        // 3 strings (40 + 2 por caractere) + 3 Long
+        long names = 3 * 40 + 2L * ("Filial São Paulo - Centro".length()
+                + "Distribuidora de Informática Ltda".length() + "Notebooks corporativos".length());
+        assertEquals(plain + names + 3 * 16, cache.sizeInBytes());
+    }
+
+    @Test
+    void advanced_shouldCanonicalizeRequest_usedForKeyAndQuery() {
+        EquipmentSearchRequest raw = new EquipmentSearchRequest("  Dell   Latitude ", " em_uso", null, " Matriz - TI ",
+                " Dell ", null, null, " 2024-01-01 ", null, 3L);
+
+        SearchCacheKey key = SearchCacheKey.advanced(raw, 0, 10);
+        EquipmentSearchRequest canonical = key.toRequest();
+
+        assertEquals(new EquipmentSearchRequest("dell latitude", "EM_USO", null, "matriz - ti", "dell",
+                null, null, "2024-01-01", null, 3L), canonical);
+        assertEquals(key, SearchCacheKey.advanced(canonical, 0, 10)); // idempotente
+    }
+
+    private EquipmentDoc doc(Long id) {
+        return EquipmentDoc.builder()
+                .idEquipment(id)
+                .assetNumber("INV-00001")
+                .brand("Dell")
+                .model("Latitude 5420")
+                .status("EM_USO")
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.infnet.itinventory.search.controller;
+
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.resilience.EquipmentSearchFallback;
+import br.com.infnet.itinventory.search.resilience.SearchGuard;
+import br.com.infnet.itinventory.search.service.EquipmentSearchService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class EquipmentSearchControllerTest {
+
+    private final EquipmentSearchService searchService = mock(EquipmentSearchService.class);
+    private final EquipmentSearchFallback fallback = mock(EquipmentSearchFallback.class);
+    private final SearchGuard guard = mock(SearchGuard.class);
+
+    private final EquipmentSearchController controller = new EquipmentSearchController(searchService, fallback, guard);
+
+    @Test
+    void batch_shouldRejectOversizedBatch_beforeGuard() {
+        List<EquipmentSearchRequest> tooMany = Collections.nCopies(51,
+                new EquipmentSearchRequest("dell", null, null, null, null, null, null, null, null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> controller.batch(tooMany, 0, 5));
+
+        // 400 direto: não conta como falha do ES nem roda 51 consultas no MySQL
+        verifyNoInteractions(guard, searchService, fallback);
+    }
+}
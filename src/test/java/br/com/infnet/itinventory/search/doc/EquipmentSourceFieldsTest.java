@@ -0,0 +1,36 @@
+package br.com.infnet.itinventory.search.doc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentSourceFieldsTest {
+
+    @Test
+    void parse_shouldDefaultToListView_andAcceptIdAlias() {
+        assertEquals(EquipmentSourceFields.LIST_VIEW, EquipmentSourceFields.parse(null));
+        assertEquals(List.of("idEquipment", "brand"), EquipmentSourceFields.parse(" id , brand,brand "));
+    }
+
+    @Test
+    void parse_shouldRejectUnknownFields() {
+        assertThrows(IllegalArgumentException.class, () -> EquipmentSourceFields.parse("assetNumber,description"));
+    }
+
+    @Test
+    void project_shouldKeepOnlyRequestedFields() {
+        EquipmentDoc full = EquipmentDoc.builder()
+                .idEquipment(7L).assetNumber("INV-00007").brand("Dell").model("Latitude 5420")
+                .status("EM_USO").location("Matriz - TI").responsible("Maria Souza")
+                .build();
+
+        EquipmentDoc lean = EquipmentSourceFields.project(full, List.of("assetNumber", "status"));
+
+        assertEquals("INV-00007", lean.getAssetNumber());
+        assertEquals("EM_USO", lean.getStatus());
+        assertNull(lean.getIdEquipment());
+        assertNull(lean.getResponsible());
+    }
+}
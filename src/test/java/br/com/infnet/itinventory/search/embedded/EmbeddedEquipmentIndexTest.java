@@ -0,0 +1,171 @@
+package br.com.infnet.itinventory.search.embedded;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedEquipmentIndexTest {
+
+    private final EmbeddedEquipmentIndex index = new EmbeddedEquipmentIndex();
+
+    @Test
+    void search_shouldMatchByPrefixAndFuzzyTerms_rankingExactFirst() {
+        index.upsert(doc(1L, "INV-00001", "Dell", "Latitude 5420", "EM_USO", "Matriz - TI", 4500.0, "2023-01-10"));
+        index.upsert(doc(2L, "INV-00002", "Lenovo", "ThinkPad T14", "EM_USO", "Filial Sul", 5200.0, "2022-06-01"));
+        index.upsert(doc(3L, "INV-00003", "Dellx", "Monitor P2422H", "EM_ESTOQUE", "Matriz - TI", 1200.0, "2021-03-15"));
+
+        // "dell" exato no 1, prefixo no 3
+        assertEquals(List.of(1L, 3L), ids(index.search(text("dell"), 0, 10)));
+
+        // Erro de digitação (fuzzy AUTO: 1 edição para termos de 3 a 5 letras)
+        assertEquals(List.of(2L), ids(index.search(text("lenovp"), 0, 10)));
+
+        // Prefixo com acento/caixa diferentes
+        assertEquals(List.of(1L), ids(index.search(text("LATITUDÉ"), 0, 10)));
+    }
+
+    @Test
+    void search_shouldApplyTermFiltersAndRanges() {
+        index.upsert(doc(1L, "INV-00001", "Dell", "Latitude 5420", "EM_USO", "Matriz - TI", 4500.0, "2023-01-10"));
+        index.upsert(doc(2L, "INV-00002", "Dell", "Latitude 7420", "EM_USO", "Filial Sul", 7200.0, "2022-06-01"));
+        index.upsert(doc(3L, "INV-00003", "Dell", "Latitude 3420", "EM_ESTOQUE", "Matriz - TI", 3200.0, "2021-03-15"));
+
+        EquipmentSearchRequest byStatusAndLocation =
+                new EquipmentSearchRequest("dell", "em_uso", null, "matriz - ti", null, null, null, null, null, null);
+        assertEquals(List.of(1L), ids(index.search(byStatusAndLocation, 0, 10)));
+
+        EquipmentSearchRequest byRanges =
+                new EquipmentSearchRequest(null, null, null, null, null, 3000.0, 5000.0, "2021-01-01", "2023-12-31", null);
+        // Sem texto: ordem por acquisitionDate desc
+        assertEquals(List.of(1L, 3L), ids(index.search(byRanges, 0, 10)));
+
+        EquipmentSearchRequest unknownStatus =
+                new EquipmentSearchRequest(null, "DESCARTADO", null, null, null, null, null, null, null, null);
+        assertTrue(index.search(unknownStatus, 0, 10).isEmpty());
+    }
+
+    @Test
+    void upsertAndDelete_shouldKeepOnlyLatestVersionSearchable() {
+        index.upsert(doc(1L, "INV-00001", "Dell", "Latitude 5420", "EM_USO", "Matriz - TI", 4500.0, "2023-01-10"));
+        index.upsert(doc(1L, "INV-00001", "HP", "EliteBook 840", "EM_USO", "Matriz - TI", 4500.0, "2023-01-10"));
+
+        assertTrue(index.search(text("dell"), 0, 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search(text("elitebook"), 0, 10)));
+
+        index.delete(1L);
+
+        assertTrue(index.search(text("elitebook"), 0, 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void delete_shouldCompactAndKeepSurvivorsSearchable() {
+        for (long id = 1; id <= 5_000; id++) {
+            index.upsert(doc(id, "INV-" + String.format("%05d", id), "Dell", "Latitude " + id, "EM_USO", "Matriz - TI", 1000.0 + id, "2023-01-10"));
+        }
+        for (long id = 1; id <= 4_000; id++) {
+            index.delete(id);
+        }
+
+        assertEquals(1_000, index.size());
+        assertEquals(List.of(4001L), ids(index.search(text("INV-04001"), 0, 1)));
+        assertEquals(10, index.search(text("dell"), 0, 10).size());
+    }
+
+    @Test
+    void upsert_shouldCompact_whenRepeatedUpdatesLeaveMostOrdinalsDead() {
+        for (long id = 1; id <= 100; id++) {
+            index.upsert(doc(id, "INV-" + String.format("%05d", id), "Dell", "Latitude", "EM_USO", "Matriz - TI", 1000.0, "2023-01-10"));
+        }
+        // Só edições, nenhuma remoção: cada uma deixa um ordinal morto
+        for (int round = 0; round < 30; round++) {
+            for (long id = 1; id <= 100; id++) {
+                index.upsert(doc(id, "INV-" + String.format("%05d", id), "Dell", "Latitude " + round, "EM_USO", "Matriz - TI", 1000.0, "2023-01-10"));
+            }
+        }
+
+        assertEquals(100, index.size());
+        assertTrue(index.deadOrdinals() <= 1024, "mortos=" + index.deadOrdinals());
+        assertEquals(100, index.search(text("dell"), 0, 200).size());
+    }
+
+    @Test
+    void search_shouldPageInRankingOrder() {
+        for (long id = 1; id <= 50; id++) {
+            // Datas decrescentes com o id, empates a cada 5 (desempate por id)
+            String date = LocalDate.parse("2023-01-01").minusDays(id / 5).toString();
+            index.upsert(doc(id, "INV-" + String.format("%05d", id), "Dell", "Latitude", "EM_USO", "Matriz - TI", 1000.0, date));
+        }
+        index.upsert(doc(51L, "INV-00051", "Dell", "ThinkPad", "EM_USO", "Matriz - TI", 1000.0, "2020-01-01"));
+
+        List<Long> browse = new ArrayList<>();
+        for (int page = 0; page < 6; page++) {
+            browse.addAll(ids(index.search(text(null), page, 10)));
+        }
+        assertEquals(LongStream.rangeClosed(1, 51).boxed().toList(), browse);
+
+        // Com texto: só o 51 casa os dois termos e sobe para o topo; o resto empata e segue por id
+        assertEquals(List.of(51L, 1L, 2L), ids(index.search(text("dell thinkpad"), 0, 3)));
+        assertEquals(List.of(3L, 4L, 5L), ids(index.search(text("dell thinkpad"), 1, 3)));
+        assertTrue(index.search(text("dell thinkpad"), 20, 3).isEmpty());
+    }
+
+    @Test
+    void search_shouldFindTermsInSortedDictionaryAndPendingTail() {
+        // 300 modelos distintos: parte já intercalada no dicionário ordenado, parte ainda na cauda
+        for (long id = 1; id <= 300; id++) {
+            index.upsert(doc(id, "INV-" + String.format("%05d", id), "Dell", "Model" + id, "EM_USO", "Matriz - TI", 1000.0, "2023-01-10"));
+        }
+
+        assertEquals(List.of(7L), ids(index.search(text("model7"), 0, 1)));
+        assertEquals(List.of(299L), ids(index.search(text("model299"), 0, 1)));
+        // Exato e prefixo (model290..model299, dos dois lados) à frente dos fuzzy
+        assertEquals(LongStream.concat(LongStream.of(29), LongStream.rangeClosed(290, 299)).boxed().toList(),
+                ids(index.search(text("model29"), 0, 11)));
+        // Fuzzy: até 2 edições em termo de 8 caracteres, só entre termos de 6 a 10
+        List<Long> fuzzy = ids(index.search(text("modxl123"), 0, 300));
+        assertTrue(fuzzy.contains(123L), fuzzy.toString());
+        assertFalse(fuzzy.contains(1L), fuzzy.toString());
+    }
+
+    @Test
+    void search_shouldReturnAssetNumberAsIndexed_packedOrNot() {
+        index.upsert(doc(1L, "INV-00001", "Dell", "Latitude", "EM_USO", "Matriz - TI", 1000.0, "2023-01-10"));
+        index.upsert(doc(2L, "inv-2", "Dell", "Latitude", "EM_USO", "Matriz - TI", 1000.0, "2023-01-09"));
+        index.upsert(doc(3L, "LEGADO/77", "Dell", "Latitude", "EM_USO", "Matriz - TI", 1000.0, "2023-01-08"));
+
+        List<String> assets = index.search(text("latitude"), 0, 10).stream().map(EquipmentDoc::getAssetNumber).toList();
+        assertEquals(List.of("INV-00001", "inv-2", "LEGADO/77"), assets);
+    }
+
+    private static EquipmentSearchRequest text(String texto) {
+        return new EquipmentSearchRequest(texto, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static List<Long> ids(List<EquipmentDoc> docs) {
+        return docs.stream().map(EquipmentDoc::getIdEquipment).toList();
+    }
+
+    private static EquipmentDoc doc(Long id, String asset, String brand, String model, String status,
+                                    String location, Double value, String date) {
+        return EquipmentDoc.builder()
+                .idEquipment(id)
+                .assetNumber(asset)
+                .type("NOTEBOOK")
+                .brand(brand)
+                .model(model)
+                .status(status)
+                .location(location)
+                .responsible("Maria Souza")
+                .acquisitionValue(value)
+                .acquisitionDate(LocalDate.parse(date))
+                .build();
+    }
+}
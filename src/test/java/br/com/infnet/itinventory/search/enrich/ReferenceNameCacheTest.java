@@ -0,0 +1,106 @@
+package br.com.infnet.itinventory.search.enrich;
+
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.enrich.ReferenceNameCache.Reference;
+import br.com.infnet.itinventory.search.reconcile.EquipmentChecksum;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceNameCacheTest {
+
+    private ReferenceNameCache cacheWith(Map<Long, String> filiais, Map<Long, String> fornecedores) {
+        ReferenceNameCache cache = new ReferenceNameCache(null, null, null, null);
+        Map<Reference, Map<Long, String>> names = new EnumMap<>(Reference.class);
+        names.put(Reference.FILIAL, filiais);
+        names.put(Reference.FORNECEDOR, fornecedores);
+        names.put(Reference.CATEGORIA, Map.of());
+        cache.replace(names);
+        return cache;
+    }
+
+    @Test
+    void enrich_shouldFillNamesFromIds() {
+        ReferenceNameCache cache = cacheWith(Map.of(1L, "Filial SP"), Map.of(7L, "Dell Brasil"));
+
+        EquipmentDoc doc = EquipmentDoc.builder().filialAtualId(1L).fornecedorId(7L).categoriaId(99L).build();
+        cache.enrich(doc);
+
+        assertEquals("Filial SP", doc.getFilialNome());
+        assertEquals("Dell Brasil", doc.getFornecedorNome());
+        assertNull(doc.getCategoriaNome()); // id sem nome conhecido
+    }
+
+    @Test
+    void changesReference_shouldFlagOnlyReferenceIds() {
+        assertTrue(ReferenceNameCache.changesReference(Map.of("filialAtualId", 2L, "status", "EM_USO")));
+        assertFalse(ReferenceNameCache.changesReference(Map.of("status", "EM_USO")));
+    }
+
+    @Test
+    void changed_shouldReportRenamedAndRemovedIds_butNotNewOnes() {
+        Map<Long, String> diff = ReferenceNameCache.changed(
+                Map.of(1L, "Filial SP", 2L, "Filial RJ", 3L, "Filial BH"),
+                Map.of(1L, "Filial SP", 2L, "Filial Rio", 4L, "Filial POA"));
+
+        assertEquals(2, diff.size());
+        assertEquals("Filial Rio", diff.get(2L));
+        assertTrue(diff.containsKey(3L));
+        assertNull(diff.get(3L)); // removida: nome e id saem do doc
+    }
+
+    @Test
+    void reindex_shouldRetryVersionConflicts_withChecksumDelta() throws Exception {
+        Deque<String> responses = new ArrayDeque<>(List.of(updateByQuery(2, 1), updateByQuery(1, 0)));
+        List<JsonNode> requests = new ArrayList<>();
+        ObjectMapper json = new ObjectMapper();
+
+        try (FakeElasticsearch es = FakeElasticsearch.start(request -> {
+            requests.add(json.readTree(request.body()));
+            return FakeElasticsearch.Response.ok(responses.poll());
+        })) {
+            ReferenceNameCache cache = new ReferenceNameCache(null, es.client(), null, null);
+            ReflectionTestUtils.setField(cache, "indexName", "itinventory-equipments");
+
+            assertEquals(3, cache.reindex(Reference.FILIAL, 2L, "Filial RJ", "Filial Rio"));
+        }
+
+        // Doc regravado no meio do primeiro update_by_query: repetido (script idempotente)
+        assertEquals(2, requests.size());
+        JsonNode script = requests.get(1).get("script");
+        assertEquals(ReferenceNameCache.SCRIPT_RENAME, script.get("source").asText());
+        assertEquals("Filial RJ", script.at("/params/anterior").asText());
+        assertEquals(EquipmentChecksum.reference(2L, "Filial Rio") - EquipmentChecksum.reference(2L, "Filial RJ"),
+                script.at("/params/delta").asLong());
+    }
+
+    @Test
+    void reindex_shouldGiveUp_whenConflictsPersist() throws Exception {
+        try (FakeElasticsearch es = FakeElasticsearch.start(request -> FakeElasticsearch.Response.ok(updateByQuery(0, 1)))) {
+            ReferenceNameCache cache = new ReferenceNameCache(null, es.client(), null, null);
+            ReflectionTestUtils.setField(cache, "indexName", "itinventory-equipments");
+
+            // -1: a linha de reference_name_sync não é atualizada e o próximo ciclo tenta de novo
+            assertEquals(-1, cache.reindex(Reference.FILIAL, 2L, "Filial RJ", "Filial Rio"));
+        }
+    }
+
+    private static String updateByQuery(int updated, int conflicts) {
+        return """
+                {"took":3,"timed_out":false,"total":%d,"updated":%d,"deleted":0,"batches":1,
+                 "version_conflicts":%d,"noops":0,"retries":{"bulk":0,"search":0},"throttled_millis":0,
+                 "requests_per_second":-1.0,"throttled_until_millis":0,"failures":[]}
+                """.formatted(updated + conflicts, updated, conflicts);
+    }
+}
@@ -0,0 +1,168 @@
+package br.com.infnet.itinventory.search.index;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.model.EquipmentStatus;
+import br.com.infnet.itinventory.model.EquipmentType;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.enrich.ReferenceNameCache;
+import br.com.infnet.itinventory.search.saved.SavedSearchPercolator;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * _update contra um "ES" local que responde, em ordem, o que cada teste enfileirar.
+ */
+class ElasticsearchEquipmentIndexerTest {
+
+    private static final String UPDATED = """
+            {"_index":"itinventory-equipments","_id":"10","_version":2,"result":"updated",
+             "_shards":{"total":1,"successful":1,"failed":0},"_seq_no":3,"_primary_term":1}
+            """;
+    private static final String NOOP = UPDATED.replace("\"updated\"", "\"noop\"");
+    private static final String MISSING = """
+            {"error":{"root_cause":[{"type":"document_missing_exception","reason":"[10]: document missing"}],
+             "type":"document_missing_exception","reason":"[10]: document missing"},"status":404}
+            """;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final Deque<FakeElasticsearch.Response> responses = new ArrayDeque<>();
+    private final List<JsonNode> requests = new ArrayList<>();
+
+    private final EquipmentRepository repository = mock(EquipmentRepository.class);
+    private final SavedSearchPercolator percolator = mock(SavedSearchPercolator.class);
+    private final IndexGeneration generation = new IndexGeneration();
+
+    private FakeElasticsearch es;
+    private ElasticsearchEquipmentIndexer indexer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        es = FakeElasticsearch.start(request -> {
+            synchronized (requests) {
+                requests.add(json.readTree(request.body()));
+                return responses.isEmpty() ? FakeElasticsearch.Response.ok(UPDATED) : responses.poll();
+            }
+        });
+
+        ReferenceNameCache referenceNames = mock(ReferenceNameCache.class);
+        when(referenceNames.enrich(any())).thenAnswer(i -> i.getArgument(0));
+        indexer = new ElasticsearchEquipmentIndexer(es.client(), repository, generation,
+                referenceNames, percolator, new EquipmentRouting());
+        ReflectionTestUtils.setField(indexer, "indexName", "itinventory-equipments");
+        ReflectionTestUtils.setField(indexer, "refreshPolicy", "false");
+
+        when(repository.findById(10L)).thenReturn(Optional.of(equipment()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        es.close();
+    }
+
+    @Test
+    void update_shouldSendOnlyChangedFields_guardedByChangeSeq() {
+        assertTrue(indexer.update(10L, null, 8L, Map.of("status", "EM_MANUTENCAO")));
+
+        assertEquals(1, requests.size());
+        JsonNode params = requests.get(0).at("/script/params");
+        assertEquals(ElasticsearchEquipmentIndexer.SCRIPT_PARTIAL, requests.get(0).at("/script/source").asText());
+        assertEquals(8, params.get("changeSeq").asLong());
+        assertEquals("EM_MANUTENCAO", params.at("/doc/status").asText());
+        assertFalse(requests.get(0).has("upsert"));
+        verify(repository, never()).findById(anyLong());
+        assertEquals(1, generation.current());
+        verify(percolator).enqueue(10L, null);
+    }
+
+    @Test
+    void update_shouldReindexFromDatabase_whenEventArrivesAfterNewerVersion() {
+        responses.add(FakeElasticsearch.Response.ok(NOOP));
+
+        assertTrue(indexer.update(10L, null, 8L, Map.of("brand", "Lenovo")));
+
+        assertEquals(2, requests.size());
+        JsonNode replace = requests.get(1);
+        assertEquals(ElasticsearchEquipmentIndexer.SCRIPT_REPLACE, replace.at("/script/source").asText());
+        assertEquals(12, replace.at("/script/params/changeSeq").asLong()); // versão do MySQL
+        assertEquals("Dell", replace.at("/upsert/brand").asText());
+        verify(repository).findById(10L);
+    }
+
+    @Test
+    void update_shouldIndexFullDocument_whenDocumentIsMissing() {
+        responses.add(new FakeElasticsearch.Response(404, MISSING));
+
+        assertTrue(indexer.update(10L, null, 12L, Map.of("status", "EM_USO")));
+
+        assertEquals(2, requests.size());
+        assertEquals(12, requests.get(1).at("/upsert/changeSeq").asLong());
+        verify(repository).findById(10L);
+    }
+
+    @Test
+    void update_shouldIndexFullDocument_whenFieldBecameNull() {
+        Map<String, Object> changed = new HashMap<>();
+        changed.put("responsible", null);
+
+        assertTrue(indexer.update(10L, null, 12L, changed));
+
+        // Uma ida só, já com o documento completo relido do MySQL (sem "responsible")
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0).has("upsert"));
+        assertFalse(requests.get(0).at("/script/params/doc").has("responsible"));
+        verify(repository).findById(10L);
+    }
+
+    @Test
+    void update_shouldIndexFullDocument_whenReferenceChanges() {
+        assertTrue(indexer.update(10L, null, 12L, Map.of("fornecedorId", 7L)));
+
+        // Nome e refChecksum da referência nova só saem do documento completo
+        assertEquals(1, requests.size());
+        assertEquals(ElasticsearchEquipmentIndexer.SCRIPT_REPLACE, requests.get(0).at("/script/source").asText());
+        assertTrue(requests.get(0).at("/upsert").has("refChecksum"));
+        verify(repository).findById(10L);
+    }
+
+    @Test
+    void upsert_shouldKeepNewerIndexedVersion() {
+        responses.add(FakeElasticsearch.Response.ok(NOOP));
+
+        assertTrue(indexer.upsert(10L));
+
+        assertEquals(0, generation.current()); // nada mudou no índice
+        verify(percolator, never()).enqueue(anyLong(), any());
+    }
+
+    private static Equipment equipment() {
+        Equipment e = new Equipment();
+        e.setId(10L);
+        e.setAssetNumber("INV-00010");
+        e.setBrand("Dell");
+        e.setModel("Latitude 5420");
+        e.setType(EquipmentType.NOTEBOOK);
+        e.setStatus(EquipmentStatus.EM_USO);
+        e.setLocation("Matriz - TI");
+        e.setChangeSeq(12L);
+        return e;
+    }
+}
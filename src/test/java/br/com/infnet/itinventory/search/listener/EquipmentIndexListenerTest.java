@@ -0,0 +1,135 @@
+package br.com.infnet.itinventory.search.listener;
+
+import br.com.infnet.itinventory.search.event.EquipmentIndexEvent;
+import br.com.infnet.itinventory.search.event.EquipmentIndexOperation;
+import br.com.infnet.itinventory.search.index.EquipmentIndexer;
+import br.com.infnet.itinventory.search.metrics.IndexLagMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EquipmentIndexListenerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IndexLagMetrics lagMetrics = new IndexLagMetrics(registry, 1000);
+    private final EquipmentIndexer indexer = mock(EquipmentIndexer.class);
+
+    private ThreadPoolTaskExecutor executor;
+    private EquipmentIndexListener listener;
+    private SearchIndexLagHealthIndicator health;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+
+        listener = new EquipmentIndexListener(indexer, executor, lagMetrics, registry, 100);
+        health = new SearchIndexLagHealthIndicator(listener, lagMetrics);
+        ReflectionTestUtils.setField(health, "sloMillis", 5000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldRecordLagPerStage_andRetryRejectionWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Semaphore done = new Semaphore(0);
+        when(indexer.upsert(anyLong())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            done.release();
+            return true;
+        });
+
+        listener.onEquipmentIndexEvent(new EquipmentIndexEvent(1L, EquipmentIndexOperation.UPSERT)); // worker
+        Thread.sleep(50);
+        listener.onEquipmentIndexEvent(new EquipmentIndexEvent(2L, EquipmentIndexOperation.UPSERT)); // fila
+        assertTrue(listener.oldestQueuedCommit().isPresent());
+
+        // Fila cheia: não pode estourar no AFTER_COMMIT do CRUD
+        assertDoesNotThrow(() -> listener.onEquipmentIndexEvent(new EquipmentIndexEvent(3L, EquipmentIndexOperation.UPSERT)));
+        assertEquals(1, listener.pendingRetries());
+        assertEquals(1, registry.get("search.index.retry.pending").gauge().value());
+        verify(indexer, never()).upsert(3L);
+
+        release.countDown();
+        assertTrue(done.tryAcquire(2, 5, TimeUnit.SECONDS));
+
+        // Fila com espaço: o id rejeitado é reenviado
+        listener.retryRejected();
+        assertEquals(0, listener.pendingRetries());
+        assertTrue(done.tryAcquire(1, 5, TimeUnit.SECONDS));
+        executor.getThreadPoolExecutor().shutdown();
+        executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS);
+
+        verify(indexer).upsert(3L);
+        assertEquals(3, registry.get("search.index.lag").tag("stage", "dequeued").timer().count());
+        assertEquals(3, registry.get("search.index.lag").tag("stage", "indexed").timer().count());
+        // Indexador sem garantia de visibilidade no retorno: "searchable" = indexed + refresh interval
+        assertEquals(3, registry.get("search.index.lag").tag("stage", "searchable").timer().count());
+        assertTrue(registry.get("search.index.lag").tag("stage", "searchable").timer().max(TimeUnit.MILLISECONDS) >= 1000);
+    }
+
+    @Test
+    void rejectedPartialUpdates_shouldCollapseIntoOneFullReindex() {
+        executor.shutdown(); // toda submissão é rejeitada
+
+        listener.onEquipmentIndexEvent(EquipmentIndexEvent.partial(5L, 2L, 8L, Map.of("status", "EM_USO")));
+        listener.onEquipmentIndexEvent(EquipmentIndexEvent.partial(5L, 2L, 9L, Map.of("brand", "Dell")));
+
+        assertEquals(1, listener.pendingRetries());
+        // Reenvio recusado não conta como nova rejeição
+        listener.retryRejected();
+        assertEquals(2, registry.get("search.index.executor.rejected").counter().count());
+        @SuppressWarnings("unchecked")
+        EquipmentIndexEvent retry = ((Map<Long, EquipmentIndexEvent>)
+                ReflectionTestUtils.getField(listener, "rejected")).get(5L);
+        assertFalse(retry.isPartial());
+        assertEquals(2L, retry.filialId());
+        assertNotNull(retry.committedAt());
+    }
+
+    @Test
+    void health_shouldDegradeWhenLagExceedsSlo() {
+        assertEquals(Status.UP, health.health().getStatus());
+
+        when(indexer.delete(7L, null)).thenReturn(true);
+        listener.apply(new EquipmentIndexEvent(7L, EquipmentIndexOperation.DELETE).committed(Instant.now().minusSeconds(10)));
+
+        Health h = health.health();
+        assertEquals(SearchIndexLagHealthIndicator.DEGRADED, h.getStatus());
+        assertTrue((Long) h.getDetails().get("lagMs") >= 10_000);
+    }
+
+    @Test
+    void health_shouldCountEventsWaitingForRetry() {
+        executor.shutdown(); // toda submissão é rejeitada
+
+        listener.onEquipmentIndexEvent(new EquipmentIndexEvent(7L, EquipmentIndexOperation.UPSERT));
+
+        Health h = health.health();
+        assertEquals(1, h.getDetails().get("pendingRetries"));
+        assertEquals(0L, h.getDetails().get("oldestQueuedMs"));
+        assertTrue(listener.oldestRejectedCommit().isPresent());
+        assertEquals(h.getDetails().get("lagMs"), h.getDetails().get("oldestRetryMs"));
+    }
+}
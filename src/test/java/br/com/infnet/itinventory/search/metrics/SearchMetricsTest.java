@@ -0,0 +1,94 @@
+package br.com.infnet.itinventory.search.metrics;
+
+import br.com.infnet.itinventory.search.cache.SearchCacheKey;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchMetricsTest {
+
+    @Test
+    void record_shouldTagByTypeAndFilters_andKeepClientTimeApartFromTook() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SlowQueryLog slowLog = new SlowQueryLog(50, 10);
+        SearchMetrics metrics = new SearchMetrics(registry, slowLog);
+
+        SearchCacheKey key = SearchCacheKey.advanced(
+                new EquipmentSearchRequest("  Dell ", "em_uso", null, null, null, 100.0, null, null, null, null), 0, 10);
+
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(80);
+        metrics.record("advanced", key, start, 12L);
+
+        Timer client = registry.get("search.client.latency").tag("type", "advanced").tag("filters", "texto+status+value")
+                .tag("outcome", "success").timer();
+        Timer took = registry.get("search.es.took").tag("type", "advanced").tag("filters", "texto+status+value")
+                .tag("outcome", "success").timer();
+        assertEquals(1, client.count());
+        assertTrue(client.totalTime(TimeUnit.MILLISECONDS) >= 80);
+        assertEquals(12, took.totalTime(TimeUnit.MILLISECONDS), 0.001);
+
+        // 80ms > limite de 50ms: vai para o log com a busca normalizada
+        List<SlowQuery> slow = slowLog.recent();
+        assertEquals(1, slow.size());
+        assertEquals("dell", slow.get(0).request().texto());
+        assertEquals("EM_USO", slow.get(0).request().status());
+        assertEquals(SearchMetrics.SUCCESS, slow.get(0).outcome());
+
+        // Mesmas tags: o timer é reaproveitado
+        metrics.record("advanced", key, System.nanoTime(), 3L);
+        assertEquals(2, client.count());
+    }
+
+    @Test
+    void recordFailure_shouldTagTimeoutsApartFromErrors_andLogSlowFailures() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SlowQueryLog slowLog = new SlowQueryLog(50, 10);
+        SearchMetrics metrics = new SearchMetrics(registry, slowLog);
+        SearchCacheKey key = SearchCacheKey.text("dell", 0, 10);
+
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(80);
+        metrics.recordFailure("text", key, start, new CompletionException(new SocketTimeoutException("30,000 milliseconds")));
+        metrics.recordFailure("text", key, System.nanoTime(), new IllegalStateException("connection refused"));
+
+        assertEquals(1, registry.get("search.client.latency").tag("outcome", "timeout").timer().count());
+        assertEquals(1, registry.get("search.client.latency").tag("outcome", "error").timer().count());
+        assertTrue(registry.find("search.es.took").timers().isEmpty()); // sem resposta, sem took
+        assertTrue(registry.find("search.client.latency").tag("outcome", "success").timers().isEmpty());
+
+        List<SlowQuery> slow = slowLog.recent();
+        assertEquals(1, slow.size());
+        assertEquals(SearchMetrics.TIMEOUT, slow.get(0).outcome());
+    }
+
+    @Test
+    void record_shouldSkipSlowLogBelowThreshold() {
+        SlowQueryLog slowLog = new SlowQueryLog(10_000, 10);
+        new SearchMetrics(new SimpleMeterRegistry(), slowLog)
+                .record("text", SearchCacheKey.text("dell", 0, 10), System.nanoTime(), 1L);
+
+        assertTrue(slowLog.recent().isEmpty());
+        assertEquals("none", SearchMetrics.filtersTag(null));
+    }
+
+    @Test
+    void slowQueryLog_shouldOverwriteOldestWhenFull() {
+        SlowQueryLog slowLog = new SlowQueryLog(0, 3);
+        for (int i = 1; i <= 5; i++) {
+            slowLog.add(new SlowQuery(Instant.now(), "q" + i, "none", SearchMetrics.SUCCESS, i, null, null));
+        }
+
+        assertEquals(List.of("q5", "q4", "q3"), slowLog.recent().stream().map(SlowQuery::type).toList());
+
+        slowLog.clear();
+        assertTrue(slowLog.recent().isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.infnet.itinventory.search.reconcile;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.model.EquipmentStatus;
+import br.com.infnet.itinventory.model.EquipmentType;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.reconcile.EquipmentIndexReconciler.RangeChecksum;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquipmentChecksumTest {
+
+    private static long crc(String s) {
+        CRC32 crc = new CRC32();
+        crc.update(s.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static Equipment equipment() {
+        Equipment e = new Equipment();
+        e.setId(1L);
+        e.setType(EquipmentType.NOTEBOOK);
+        e.setBrand("Dell");
+        e.setModel("Latitude 5440");
+        e.setAssetNumber("INV-00001");
+        e.setStatus(EquipmentStatus.EM_USO);
+        e.setLocation("Sala 101");
+        e.setAcquisitionDate(LocalDate.of(2024, 3, 15));
+        e.setAcquisitionValue(new BigDecimal("4599.9"));
+        return e;
+    }
+
+    @Test
+    void canonical_shouldSkipNulls_likeConcatWs() {
+        // responsible nulo: omitido, sem "||"; valor sempre com 2 casas (DECIMAL(…,2) no MySQL)
+        assertEquals("NOTEBOOK|Dell|Latitude 5440|INV-00001|EM_USO|Sala 101|2024-03-15|4599.90",
+                EquipmentChecksum.canonical(equipment()));
+    }
+
+    @Test
+    void of_shouldMatchCrc32UsedByMysqlAndEtl() {
+        // zlib.crc32 / CRC32() do MySQL sobre a mesma string
+        assertEquals(1771032474L, EquipmentChecksum.of(equipment()));
+    }
+
+    @Test
+    void reference_shouldMatchConcatWsOfIdAndName() {
+        // CRC32(CONCAT_WS('|', id, nome)); sem referência (id e nome nulos) = CRC32('') = 0
+        assertEquals(crc("3|Filial SP"), EquipmentChecksum.reference(3L, "Filial SP"));
+        assertEquals(crc("3"), EquipmentChecksum.reference(3L, null));
+        assertEquals(0L, EquipmentChecksum.reference(null, null));
+    }
+
+    @Test
+    void ofReferences_shouldSumIndependentParts() {
+        EquipmentDoc doc = EquipmentDoc.builder()
+                .filialAtualId(3L).filialNome("Filial SP")
+                .categoriaId(5L).categoriaNome("Notebooks")
+                .build();
+
+        // Parcelas somadas: trocar um nome altera só a sua parcela (delta do update_by_query)
+        assertEquals(crc("3|Filial SP") + crc("5|Notebooks"), EquipmentChecksum.ofReferences(doc));
+    }
+
+    @Test
+    void differingRanges_shouldFlagMismatchedAndOneSidedRanges() {
+        Map<Long, RangeChecksum> db = Map.of(
+                0L, new RangeChecksum(10, 100),
+                1L, new RangeChecksum(10, 200),
+                2L, new RangeChecksum(5, 50));
+        Map<Long, RangeChecksum> es = Map.of(
+                0L, new RangeChecksum(10, 100),   // igual
+                1L, new RangeChecksum(10, 201),   // doc desatualizado
+                3L, new RangeChecksum(1, 7));     // só no ES
+
+        assertEquals(Set.of(1L, 2L, 3L), EquipmentIndexReconciler.differingRanges(db, es));
+    }
+}
@@ -0,0 +1,209 @@
+package br.com.infnet.itinventory.search.resilience;
+
+import br.com.infnet.itinventory.exception.SearchUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchGuardTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void execute_shouldFallBackAndOpenBreaker_whenClusterKeepsFailing() throws Exception {
+        SearchCircuitBreaker breaker = new SearchCircuitBreaker(4, 4, 0.5, 30_000, clock::get);
+        SearchGuard guard = new SearchGuard(breaker, new SimpleMeterRegistry(), 1_000, 10, 4);
+        AtomicInteger esCalls = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            GuardedResult<List<String>> r = guard.execute(
+                    () -> {
+                        esCalls.incrementAndGet();
+                        return CompletableFuture.failedFuture(new IOException("connection refused"));
+                    },
+                    () -> List.of("mysql")
+            ).get(5, TimeUnit.SECONDS);
+
+            assertTrue(r.degraded());
+            assertEquals(List.of("mysql"), r.value());
+        }
+
+        assertEquals(SearchCircuitBreaker.State.OPEN, guard.state());
+
+        // Aberto: nem tenta o ES
+        GuardedResult<List<String>> r = guard.execute(
+                () -> {
+                    esCalls.incrementAndGet();
+                    return CompletableFuture.completedFuture(List.of("es"));
+                },
+                () -> List.of("mysql")
+        ).get(5, TimeUnit.SECONDS);
+
+        assertTrue(r.degraded());
+        assertEquals(4, esCalls.get());
+    }
+
+    @Test
+    void execute_shouldBoundLatency_whenClusterHangs() throws Exception {
+        SearchGuard guard = new SearchGuard(new SearchCircuitBreaker(10, 5, 0.5, 30_000, clock::get),
+                new SimpleMeterRegistry(), 100, 10, 4);
+
+        long start = System.nanoTime();
+        GuardedResult<String> r = guard.execute(CompletableFuture::new, () -> "mysql") // nunca completa
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(r.degraded());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+    }
+
+    @Test
+    void execute_shouldHoldBulkheadPermit_untilClusterActuallyAnswers() throws Exception {
+        SearchGuard guard = new SearchGuard(new SearchCircuitBreaker(10, 10, 0.5, 30_000, clock::get),
+                new SimpleMeterRegistry(), 50, 1, 4);
+        AtomicInteger esCalls = new AtomicInteger();
+        CompletableFuture<String> hung = new CompletableFuture<>();
+
+        assertTrue(guard.execute(() -> {
+            esCalls.incrementAndGet();
+            return hung;
+        }, () -> "mysql").get(5, TimeUnit.SECONDS).degraded()); // timeout
+
+        // Requisição anterior ainda presa no ES: a vaga continua ocupada, nem tenta
+        assertTrue(guard.execute(() -> {
+            esCalls.incrementAndGet();
+            return CompletableFuture.completedFuture("es");
+        }, () -> "mysql").get(5, TimeUnit.SECONDS).degraded());
+        assertEquals(1, esCalls.get());
+
+        hung.complete("tarde");
+        GuardedResult<String> r = guard.execute(() -> {
+            esCalls.incrementAndGet();
+            return CompletableFuture.completedFuture("es");
+        }, () -> "mysql").get(5, TimeUnit.SECONDS);
+        assertFalse(r.degraded());
+        assertEquals(2, esCalls.get());
+    }
+
+    @Test
+    void execute_shouldRejectWith503_whenFallbackIsSaturated() throws Exception {
+        SearchCircuitBreaker breaker = new SearchCircuitBreaker(1, 1, 0.5, 30_000, clock::get);
+        SearchGuard guard = new SearchGuard(breaker, new SimpleMeterRegistry(), 100, 10, 1);
+        breaker.tryAcquirePermission();
+        breaker.onFailure(); // aberto: tudo vai ao fallback
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<GuardedResult<String>> slow = guard.execute(CompletableFuture::new, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "mysql";
+        });
+        Thread.sleep(20);
+
+        CompletableFuture<GuardedResult<String>> rejected = guard.execute(CompletableFuture::new, () -> "mysql");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SearchUnavailableException.class, e.getCause());
+
+        release.countDown();
+        assertEquals("mysql", slow.get(5, TimeUnit.SECONDS).value());
+    }
+
+    @Test
+    void breaker_shouldCloseAfterSuccessfulProbe_whenOpenPeriodElapses() throws Exception {
+        SearchCircuitBreaker breaker = new SearchCircuitBreaker(2, 2, 0.5, 30_000, clock::get);
+        SearchGuard guard = new SearchGuard(breaker, new SimpleMeterRegistry(), 1_000, 10, 4);
+
+        breaker.tryAcquirePermission();
+        breaker.onFailure();
+        breaker.tryAcquirePermission();
+        breaker.onFailure();
+        assertEquals(SearchCircuitBreaker.State.OPEN, breaker.state());
+
+        clock.addAndGet(30_000);
+
+        GuardedResult<String> r = guard.execute(() -> CompletableFuture.completedFuture("es"), () -> "mysql")
+                .get(5, TimeUnit.SECONDS);
+
+        assertFalse(r.degraded());
+        assertEquals("es", r.value());
+        assertEquals(SearchCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void execute_shouldPropagateClientErrors_withoutFallback() {
+        SearchCircuitBreaker breaker = new SearchCircuitBreaker(2, 1, 0.5, 30_000, clock::get);
+        SearchGuard guard = new SearchGuard(breaker, new SimpleMeterRegistry(), 1_000, 10, 4);
+
+        CompletableFuture<GuardedResult<String>> f = guard.execute(
+                () -> CompletableFuture.failedFuture(new IllegalArgumentException("Cursor de busca inválido.")),
+                () -> "mysql"
+        );
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals(SearchCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_shouldRejectWith503_whenBreakerIsOpen() {
+        SearchCircuitBreaker breaker = new SearchCircuitBreaker(1, 1, 0.5, 30_000, clock::get);
+        SearchGuard guard = new SearchGuard(breaker, new SimpleMeterRegistry(), 1_000, 10, 4);
+
+        assertThrows(SearchUnavailableException.class, () -> guard.call(() -> {
+            throw new IOException("timeout");
+        }));
+        assertEquals(SearchCircuitBreaker.State.OPEN, breaker.state());
+
+        assertThrows(SearchUnavailableException.class, () -> guard.call(() -> "es"));
+    }
+
+    @Test
+    void call_shouldBoundLatency_andHoldBulkheadPermit_whenClusterHangs() throws Exception {
+        SearchGuard guard = new SearchGuard(new SearchCircuitBreaker(10, 10, 0.5, 30_000, clock::get),
+                new SimpleMeterRegistry(), 100, 1, 4);
+        CountDownLatch answer = new CountDownLatch(1);
+        CountDownLatch answered = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        assertThrows(SearchUnavailableException.class, () -> guard.call(() -> {
+            try {
+                answer.await(); // ES travado
+                return "tarde";
+            } finally {
+                answered.countDown();
+            }
+        }));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+
+        // A chamada anterior ainda segura a vaga: 503 sem chegar ao ES
+        AtomicInteger esCalls = new AtomicInteger();
+        assertThrows(SearchUnavailableException.class, () -> guard.call(esCalls::incrementAndGet));
+        assertEquals(0, esCalls.get());
+
+        answer.countDown();
+        assertTrue(answered.await(5, TimeUnit.SECONDS));
+        // A vaga volta depois do finally da chamada presa; espera a devolução
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Integer value = null;
+        while (value == null && System.nanoTime() < deadline) {
+            try {
+                value = guard.call(esCalls::incrementAndGet);
+            } catch (SearchUnavailableException e) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(1, value);
+    }
+}
@@ -0,0 +1,185 @@
+package br.com.infnet.itinventory.search.saved;
+
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Lote de ids alterados contra um "ES" local: um _mget + um único percolate para todos os assinantes.
+ */
+class SavedSearchPercolatorTest {
+
+    private static final String MGET_RESPONSE = """
+            {"docs":[
+              {"_index":"itinventory-equipments","_id":"10","found":true,"_source":{"idEquipment":10,"status":"EM_MANUTENCAO","type":"SERVIDOR","changeSeq":7}},
+              {"_index":"itinventory-equipments","_id":"11","found":false},
+              {"_index":"itinventory-equipments","_id":"12","found":true,"_source":{"idEquipment":12,"status":"EM_MANUTENCAO","type":"NOTEBOOK"}}
+            ]}
+            """;
+
+    // Busca "a" (usuário 1) casa os dois docs; busca "b" (usuário 2) só o segundo (slot 1 = id 12)
+    private static final String PERCOLATE_RESPONSE = """
+            {"took":2,"timed_out":false,"_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+             "hits":{"max_score":1.0,"hits":[
+               {"_index":"itinventory-saved-searches","_id":"a","_score":1.0,
+                "_source":{"owner":"1","name":"Em manutenção"},"fields":{"_percolator_document_slot":[0,1]}},
+               {"_index":"itinventory-saved-searches","_id":"b","_score":1.0,
+                "_source":{"owner":"2","name":"Notebooks parados"},"fields":{"_percolator_document_slot":[1]}}
+             ]}}
+            """;
+
+    // Página do percolate com uma busca só (paginação com max-matches = 1)
+    private static final String PAGE_A = """
+            {"took":1,"timed_out":false,"_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+             "hits":{"max_score":1.0,"hits":[
+               {"_index":"itinventory-saved-searches","_id":"a","_score":1.0,
+                "_source":{"owner":"1","name":"Em manutenção"},"fields":{"_percolator_document_slot":[0]}}
+             ]}}
+            """;
+    private static final String PAGE_B = PAGE_A.replace("\"_id\":\"a\"", "\"_id\":\"b\"")
+            .replace("\"owner\":\"1\",\"name\":\"Em manutenção\"", "\"owner\":\"2\",\"name\":\"Notebooks parados\"");
+    private static final String EMPTY_PAGE = """
+            {"took":1,"timed_out":false,"_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+             "hits":{"max_score":null,"hits":[]}}
+            """;
+
+    private static final String FAIL = "fail";
+
+    private FakeElasticsearch es;
+    private final Deque<String> percolateResponses = new ArrayDeque<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger mgetCalls = new AtomicInteger();
+    private final AtomicInteger searchCalls = new AtomicInteger();
+
+    private final SavedSearchNotifier notifier = mock(SavedSearchNotifier.class);
+    private final List<List<SavedSearchNotifier.Alert>> published = new ArrayList<>();
+    private SavedSearchPercolator percolator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        es = FakeElasticsearch.start(request -> {
+            if (request.path().endsWith("_mget")) {
+                mgetCalls.incrementAndGet();
+                return FakeElasticsearch.Response.ok(MGET_RESPONSE);
+            }
+            searchCalls.incrementAndGet();
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                return new FakeElasticsearch.Response(503, "{\"error\":\"unavailable\",\"status\":503}");
+            }
+            synchronized (percolateResponses) {
+                String next = percolateResponses.poll();
+                if (FAIL.equals(next)) {
+                    return new FakeElasticsearch.Response(503, "{\"error\":\"unavailable\",\"status\":503}");
+                }
+                return FakeElasticsearch.Response.ok(next != null ? next : PERCOLATE_RESPONSE);
+            }
+        });
+
+        doAnswer(invocation -> published.add(List.copyOf(invocation.getArgument(0))))
+                .when(notifier).publish(anyList());
+
+        percolator = new SavedSearchPercolator(es.client(), notifier);
+        ReflectionTestUtils.setField(percolator, "equipmentIndex", "itinventory-equipments");
+        ReflectionTestUtils.setField(percolator, "savedIndex", "itinventory-saved-searches");
+        ReflectionTestUtils.setField(percolator, "batchSize", 100);
+        ReflectionTestUtils.setField(percolator, "maxMatches", 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        es.close();
+    }
+
+    @Test
+    void flush_shouldPercolateWholeBatchOnce_andNotifyEachOwner() {
+        percolator.enqueue(10L);
+        percolator.enqueue(11L);
+        percolator.enqueue(12L);
+        percolator.enqueue(10L); // repetido no intervalo: percolado uma vez
+
+        percolator.flush();
+
+        assertEquals(1, mgetCalls.get());
+        assertEquals(1, searchCalls.get());
+
+        // Uma página = um batch; changeSeq do documento (sem o campo = 0)
+        assertEquals(List.of(Set.of(
+                alert("1", "a", "Em manutenção", 10L, 7L),
+                alert("1", "a", "Em manutenção", 12L, 0L),
+                alert("2", "b", "Notebooks parados", 12L, 0L))), batches());
+
+        // Fila drenada: próximo flush não vai ao ES
+        percolator.flush();
+        assertEquals(List.of(1, 1), List.of(mgetCalls.get(), searchCalls.get()));
+    }
+
+    @Test
+    void flush_shouldRequeueBatch_whenPercolateFails() {
+        failures.set(1);
+        percolator.enqueue(10L);
+        percolator.enqueue(12L);
+
+        percolator.flush();
+        verifyNoInteractions(notifier);
+
+        // Lote devolvido à fila: o próximo flush percola os mesmos ids
+        percolator.flush();
+        assertEquals(2, searchCalls.get());
+        assertEquals(List.of(Set.of(
+                alert("1", "a", "Em manutenção", 10L, 7L),
+                alert("1", "a", "Em manutenção", 12L, 0L),
+                alert("2", "b", "Notebooks parados", 12L, 0L))), batches());
+    }
+
+    @Test
+    void flush_shouldRepublishSameAlertKeys_whenLaterPageFails() {
+        // Página 1 gravada, página 2 falha: o lote volta e a página 1 sai de novo com a mesma chave
+        // (busca, equipamento, changeSeq), que o INSERT IGNORE descarta
+        ReflectionTestUtils.setField(percolator, "maxMatches", 1);
+        percolateResponses.addAll(List.of(PAGE_A, FAIL, PAGE_A, PAGE_B, EMPTY_PAGE));
+        percolator.enqueue(10L);
+
+        percolator.flush();
+        percolator.flush();
+
+        assertEquals(List.of(
+                Set.of(alert("1", "a", "Em manutenção", 10L, 7L)),
+                Set.of(alert("1", "a", "Em manutenção", 10L, 7L)),
+                Set.of(alert("2", "b", "Notebooks parados", 10L, 7L))), batches());
+    }
+
+    @Test
+    void flush_shouldPageMatches_whenPageIsFull() {
+        ReflectionTestUtils.setField(percolator, "maxMatches", 1);
+        percolateResponses.addAll(List.of(PAGE_A, PAGE_B, EMPTY_PAGE));
+        percolator.enqueue(10L);
+
+        percolator.flush();
+
+        // Página cheia pede a seguinte; a vazia encerra
+        assertEquals(3, searchCalls.get());
+        assertEquals(List.of(
+                Set.of(alert("1", "a", "Em manutenção", 10L, 7L)),
+                Set.of(alert("2", "b", "Notebooks parados", 10L, 7L))), batches());
+    }
+
+    private List<Set<SavedSearchNotifier.Alert>> batches() {
+        return published.stream().map(Set::copyOf).toList();
+    }
+
+    private static SavedSearchNotifier.Alert alert(String owner, String id, String name, long equipmentId, long changeSeq) {
+        return new SavedSearchNotifier.Alert(owner, new SavedSearchMatch(id, name, equipmentId), changeSeq);
+    }
+}
@@ -0,0 +1,131 @@
+package br.com.infnet.itinventory.search.service;
+
+import br.com.infnet.itinventory.model.AssetNumbers;
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.model.EquipmentStatus;
+import br.com.infnet.itinventory.model.EquipmentType;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.cache.SearchQueryLog;
+import br.com.infnet.itinventory.search.cache.SearchResultCache;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchHit;
+import br.com.infnet.itinventory.search.enrich.ReferenceNameCache;
+import br.com.infnet.itinventory.search.metrics.SearchMetrics;
+import br.com.infnet.itinventory.search.metrics.SlowQueryLog;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Patrimônio exato na caixa de busca: resolvido no MySQL, sem ida ao "ES" local.
+ */
+class EquipmentSearchAssetNumberTest {
+
+    private static final String SEARCH_RESPONSE = """
+            {"took":2,"timed_out":false,
+             "_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+             "hits":{"max_score":1.0,"hits":[{"_index":"itinventory-equipments","_id":"31","_score":1.0,
+               "_source":{"idEquipment":31,"assetNumber":"INV-00031","brand":"HP"}}]}}
+            """;
+
+    private FakeElasticsearch es;
+    private final AtomicInteger esCalls = new AtomicInteger();
+
+    private final EquipmentRepository repository = mock(EquipmentRepository.class);
+    private EquipmentSearchService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        es = FakeElasticsearch.start(request -> {
+            esCalls.incrementAndGet();
+            return FakeElasticsearch.Response.ok(SEARCH_RESPONSE);
+        });
+
+        IndexGeneration generation = new IndexGeneration();
+        service = new EquipmentSearchService(
+                es.client(),
+                es.asyncClient(),
+                new SearchResultCache(generation, new SimpleMeterRegistry(), false, 0, 0, 0),
+                generation,
+                new SearchMetrics(new SimpleMeterRegistry(), new SlowQueryLog(500, 100)),
+                new AssetNumberLookup(repository, mock(ReferenceNameCache.class)),
+                new SearchQueryLog(100)
+        );
+        ReflectionTestUtils.setField(service, "indexName", "itinventory-equipments");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        es.close();
+    }
+
+    @Test
+    void exactAssetNumber_shouldResolveInDatabase_withoutCallingElasticsearch() throws Exception {
+        when(repository.findByAssetNumber("INV-00013")).thenReturn(Optional.of(equipment(13L, "INV-00013")));
+
+        List<EquipmentDoc> docs = service.buscarPorTexto("  inv-13 ", 0, 10).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("INV-00013"), docs.stream().map(EquipmentDoc::getAssetNumber).toList());
+
+        // Mesmo formato dos hits do ES: id + doc projetado nos campos pedidos
+        List<EquipmentSearchHit> hits = service.buscarPorTextoHits("INV-00013", 0, 10, List.of("assetNumber"), true)
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(13L, hits.get(0).id());
+        assertEquals("INV-00013", hits.get(0).doc().getAssetNumber());
+        assertNull(hits.get(0).doc().getBrand());
+
+        // Um único resultado: páginas seguintes vazias
+        assertTrue(service.buscarPorTexto("INV-13", 1, 10).get(5, TimeUnit.SECONDS).isEmpty());
+
+        assertEquals(0, esCalls.get());
+    }
+
+    @Test
+    void unknownAssetNumberOrFreeText_shouldFallThroughToElasticsearch() throws Exception {
+        when(repository.findByAssetNumber(anyString())).thenReturn(Optional.empty());
+
+        // Não existe no banco: ES ainda pode achar parecidos (fuzziness)
+        assertEquals("INV-00031", service.buscarPorTexto("INV-00013", 0, 10).get(5, TimeUnit.SECONDS)
+                .get(0).getAssetNumber());
+        assertEquals(1, esCalls.get());
+
+        service.buscarPorTexto("notebook dell", 0, 10).get(5, TimeUnit.SECONDS);
+        assertEquals(2, esCalls.get());
+        verify(repository, times(1)).findByAssetNumber(anyString()); // texto livre nem consulta o banco
+    }
+
+    @Test
+    void assetNumbers_shouldNormalizeOnlyValidPattern() {
+        assertEquals("INV-00013", AssetNumbers.normalize(" inv-0013 "));
+        assertEquals("ABC-99999", AssetNumbers.normalize("abc-99999"));
+        assertEquals("INV-123456", AssetNumbers.normalize("inv-123456")); // fora do padrão: só maiúsculas
+        assertTrue(AssetNumbers.matches("inv-1"));
+        assertFalse(AssetNumbers.matches("INV 13"));
+        assertFalse(AssetNumbers.matches(null));
+    }
+
+    private static Equipment equipment(Long id, String assetNumber) {
+        Equipment e = new Equipment();
+        e.setId(id);
+        e.setAssetNumber(assetNumber);
+        e.setBrand("Dell");
+        e.setModel("Latitude 5420");
+        e.setType(EquipmentType.NOTEBOOK);
+        e.setStatus(EquipmentStatus.EM_USO);
+        e.setLocation("Matriz - TI");
+        e.setResponsible("Ana");
+        return e;
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.infnet.itinventory.search.service;
+
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.cache.SearchQueryLog;
+import br.com.infnet.itinventory.search.cache.SearchCacheKey;
+import br.com.infnet.itinventory.search.cache.SearchResultCache;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.dto.EquipmentBatchResult;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.metrics.SearchMetrics;
+import br.com.infnet.itinventory.search.metrics.SlowQueryLog;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Busca em lote contra um "ES" local que responde o _msearch com um sucesso e uma falha.
+ */
+class EquipmentSearchBatchTest {
+
+    private static final String MSEARCH_RESPONSE = """
+            {"took":3,"responses":[
+              {"took":1,"timed_out":false,"status":200,
+               "_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+               "hits":{"max_score":1.0,"hits":[{"_index":"itinventory-equipments","_id":"2","_score":1.0,
+                 "_source":{"idEquipment":2,"assetNumber":"INV-00002","brand":"Dell"}}]}},
+              {"status":400,"error":{"type":"query_shard_exception","reason":"failed to create query"}}
+            ]}
+            """;
+
+    private FakeElasticsearch es;
+    private final AtomicInteger msearchCalls = new AtomicInteger();
+
+    private IndexGeneration generation;
+    private SearchResultCache cache;
+    private EquipmentSearchService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        es = FakeElasticsearch.start(request -> {
+            if (request.path().endsWith("_msearch")) {
+                msearchCalls.incrementAndGet();
+            }
+            return FakeElasticsearch.Response.ok(MSEARCH_RESPONSE);
+        });
+
+        generation = new IndexGeneration();
+        cache = new SearchResultCache(generation, new SimpleMeterRegistry(), true, 1_000_000, 0, 0);
+
+        service = new EquipmentSearchService(
+                es.client(),
+                es.asyncClient(),
+                cache,
+                generation,
+                new SearchMetrics(new SimpleMeterRegistry(), new SlowQueryLog(500, 100)),
+                mock(AssetNumberLookup.class),
+                new SearchQueryLog(100)
+        );
+        ReflectionTestUtils.setField(service, "indexName", "itinventory-equipments");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        es.close();
+    }
+
+    @Test
+    void buscaEmLote_shouldKeepOrder_isolateFailures_andSkipCachedQueries() throws Exception {
+        EquipmentSearchRequest cachedReq = new EquipmentSearchRequest(null, "EM_USO", null, null, null, null, null, null, null, null);
+        EquipmentSearchRequest okReq = new EquipmentSearchRequest("dell", null, null, null, null, null, null, null, null, null);
+        EquipmentSearchRequest badReq = new EquipmentSearchRequest(null, null, null, null, null, null, null, "ontem", null, null);
+
+        EquipmentDoc cachedDoc = EquipmentDoc.builder().idEquipment(1L).assetNumber("INV-00001").build();
+        cache.put(SearchCacheKey.advanced(cachedReq, 0, 5), generation.current(), List.of(cachedDoc));
+
+        List<EquipmentBatchResult> results = service.buscaEmLote(List.of(cachedReq, okReq, badReq), 0, 5)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, results.size());
+        assertEquals("INV-00001", results.get(0).items().get(0).getAssetNumber()); // do cache
+        assertEquals("INV-00002", results.get(1).items().get(0).getAssetNumber()); // do _msearch
+        assertNull(results.get(1).error());
+        assertEquals("failed to create query", results.get(2).error());          // falha isolada
+        assertTrue(results.get(2).items().isEmpty());
+
+        assertEquals(1, msearchCalls.get()); // uma única ida ao ES
+    }
+
+    @Test
+    void buscaEmLote_shouldRejectOversizedBatch() {
+        List<EquipmentSearchRequest> tooMany = java.util.Collections.nCopies(51,
+                new EquipmentSearchRequest("dell", null, null, null, null, null, null, null, null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> service.buscaEmLote(tooMany, 0, 5));
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.infnet.itinventory.search.service;
+
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.cache.SearchQueryLog;
+import br.com.infnet.itinventory.search.cache.SearchResultCache;
+import br.com.infnet.itinventory.search.doc.EquipmentBrowseSort;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.metrics.SearchMetrics;
+import br.com.infnet.itinventory.search.metrics.SlowQueryLog;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Corpo enviado ao ES pela busca avançada: navegação (sem texto) x relevância (com texto).
+ */
+class EquipmentSearchBrowseTest {
+
+    private static final String SEARCH_RESPONSE = """
+            {"took":1,"timed_out":false,
+             "_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+             "hits":{"max_score":null,"hits":[]}}
+            """;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final AtomicReference<JsonNode> lastBody = new AtomicReference<>();
+
+    private FakeElasticsearch es;
+    private EquipmentSearchService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        es = FakeElasticsearch.start(request -> {
+            lastBody.set(json.readTree(request.body()));
+            return FakeElasticsearch.Response.ok(SEARCH_RESPONSE);
+        });
+
+        IndexGeneration generation = new IndexGeneration();
+        service = new EquipmentSearchService(
+                es.client(),
+                es.asyncClient(),
+                new SearchResultCache(generation, new SimpleMeterRegistry(), false, 0, 0, 0),
+                generation,
+                new SearchMetrics(new SimpleMeterRegistry(), new SlowQueryLog(500, 100)),
+                mock(AssetNumberLookup.class),
+                new SearchQueryLog(100)
+        );
+        ReflectionTestUtils.setField(service, "indexName", "itinventory-equipments");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        es.close();
+    }
+
+    @Test
+    void buscaAvancada_withoutText_shouldBrowseInIndexSortOrder_withoutScoringOrTotals() throws Exception {
+        EquipmentSearchRequest byLocation = new EquipmentSearchRequest(
+                "  ", null, null, "Matriz - TI", null, null, null, null, null, null);
+
+        service.buscaAvancada(byLocation, EquipmentBrowseSort.parse(null), 0, 20).get(5, TimeUnit.SECONDS);
+
+        JsonNode body = lastBody.get();
+        assertTrue(body.at("/query/constant_score/filter/bool/filter").isArray());
+        assertFalse(body.at("/query/constant_score/filter/bool/must").isArray());
+        assertFalse(body.path("track_total_hits").asBoolean(true));
+        assertFalse(body.has("track_scores"));
+
+        // Só acquisitionDate desc: igual ao index sorting, sem desempate (early termination)
+        assertEquals(1, body.get("sort").size());
+        assertEquals("desc", body.at("/sort/0/acquisitionDate/order").asText());
+    }
+
+    @Test
+    void buscaAvancada_withoutText_andOtherSort_shouldAddIdTieBreaker() throws Exception {
+        EquipmentSearchRequest all = new EquipmentSearchRequest(
+                null, "EM_USO", null, null, null, null, null, null, null, null);
+
+        service.buscaAvancada(all, EquipmentBrowseSort.parse("acquisitionValue,asc"), 0, 20).get(5, TimeUnit.SECONDS);
+
+        JsonNode sort = lastBody.get().get("sort");
+        assertEquals("asc", sort.at("/0/acquisitionValue/order").asText());
+        assertEquals("asc", sort.at("/1/idEquipment/order").asText());
+    }
+
+    @Test
+    void buscaAvancada_withText_shouldKeepRelevanceOrder() throws Exception {
+        EquipmentSearchRequest dell = new EquipmentSearchRequest(
+                "dell", null, null, null, null, null, null, null, null, null);
+
+        service.buscaAvancada(dell, EquipmentBrowseSort.parse("assetNumber"), 0, 20).get(5, TimeUnit.SECONDS);
+
+        JsonNode body = lastBody.get();
+        assertTrue(body.at("/query/bool/must").isArray());
+        assertTrue(body.at("/sort/0/_score").isObject());
+        assertTrue(body.path("track_scores").asBoolean());
+    }
+
+    @Test
+    void browseSort_shouldRejectUnknownFieldOrDirection() {
+        assertEquals(new EquipmentBrowseSort("assetNumber", true), EquipmentBrowseSort.parse("assetNumber"));
+        assertThrows(IllegalArgumentException.class, () -> EquipmentBrowseSort.parse("brand"));
+        assertThrows(IllegalArgumentException.class, () -> EquipmentBrowseSort.parse("acquisitionValue,up"));
+    }
+}
@@ -0,0 +1,153 @@
+package br.com.infnet.itinventory.search.service;
+
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.cache.SearchQueryLog;
+import br.com.infnet.itinventory.search.cache.SearchResultCache;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.metrics.SearchMetrics;
+import br.com.infnet.itinventory.search.metrics.SlowQueryLog;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Carga contra um "ES" local que só responde quando todas as buscas chegaram (HttpServer do JDK).
+ *
+ * Com o cliente assíncrono, REQUESTS buscas disparadas de UMA única thread ficam em voo ao mesmo tempo.
+ * Com chamadas bloqueantes em uma thread a primeira nunca voltaria antes das outras chegarem: o "ES"
+ * desiste após ARRIVAL_TIMEOUT_SECONDS e o pico de requisições simultâneas fica abaixo de REQUESTS.
+ * A verificação é pelo pico medido no servidor, não por tempo de relógio.
+ *
+ * Vazão: contra um "ES" de latência fixa, as mesmas buscas disparadas de uma thread pelo cliente
+ * assíncrono e, como base, pelo cliente síncrono (uma por vez). A margem exigida (MIN_SPEEDUP) fica
+ * muito abaixo da esperada (~REQUESTS vezes), para não depender da máquina.
+ */
+class EquipmentSearchLoadTest {
+
+    private static final int REQUESTS = 200;
+    private static final long ARRIVAL_TIMEOUT_SECONDS = 10;
+    private static final int THROUGHPUT_REQUESTS = 100;
+    private static final long FIXED_LATENCY_MILLIS = 20;
+    private static final double MIN_SPEEDUP = 5;
+
+    private static final String SEARCH_RESPONSE = """
+            {"took":1,"timed_out":false,
+             "_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+             "hits":{"total":{"value":1,"relation":"eq"},"max_score":1.0,
+               "hits":[{"_index":"itinventory-equipments","_id":"1","_score":1.0,
+                 "_source":{"idEquipment":1,"assetNumber":"INV-00001","brand":"Dell","model":"Latitude 5420"}}]}}
+            """;
+
+    private FakeElasticsearch slowEs;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final CountDownLatch arrived = new CountDownLatch(REQUESTS);
+
+    private EquipmentSearchService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        slowEs = FakeElasticsearch.start(request -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            try {
+                arrived.countDown();
+                arrived.await(ARRIVAL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                return FakeElasticsearch.Response.ok(SEARCH_RESPONSE);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }, Executors.newVirtualThreadPerTaskExecutor(), REQUESTS, true);
+
+        service = newService(slowEs);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        slowEs.close();
+    }
+
+    @Test
+    void asyncSearch_shouldKeepRequestsInFlightConcurrently_underSlowCluster() throws Exception {
+        List<CompletableFuture<List<EquipmentDoc>>> futures = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(service.buscarPorTexto("dell " + i, 0, 10));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        for (CompletableFuture<List<EquipmentDoc>> f : futures) {
+            assertEquals("INV-00001", f.join().get(0).getAssetNumber());
+        }
+
+        // Todas em voo ao mesmo tempo: nenhuma resposta saiu antes da última busca chegar
+        assertEquals(0, arrived.getCount());
+        assertEquals(REQUESTS, maxInFlight.get());
+    }
+
+    @Test
+    void asyncSearch_shouldOutperformBlockingBaseline_underFixedLatency() throws Exception {
+        try (FakeElasticsearch fixedEs = FakeElasticsearch.start(request -> {
+            Thread.sleep(FIXED_LATENCY_MILLIS);
+            return FakeElasticsearch.Response.ok(SEARCH_RESPONSE);
+        }, Executors.newVirtualThreadPerTaskExecutor(), THROUGHPUT_REQUESTS, true)) {
+            EquipmentSearchService fixed = newService(fixedEs);
+            // Aquece conexão e (de)serialização fora da medição
+            fixed.buscarPorTextoRaw("aquecimento", 0, 10);
+            fixed.buscarPorTexto("aquecimento", 0, 10).get(5, TimeUnit.SECONDS);
+
+            long syncStart = System.nanoTime();
+            for (int i = 0; i < THROUGHPUT_REQUESTS; i++) {
+                assertEquals(1, fixed.buscarPorTextoRaw("dell " + i, 0, 10).hits().hits().size());
+            }
+            double syncPerSecond = perSecond(THROUGHPUT_REQUESTS, System.nanoTime() - syncStart);
+
+            long asyncStart = System.nanoTime();
+            List<CompletableFuture<List<EquipmentDoc>>> futures = new ArrayList<>(THROUGHPUT_REQUESTS);
+            for (int i = 0; i < THROUGHPUT_REQUESTS; i++) {
+                futures.add(fixed.buscarPorTexto("dell " + i, 0, 10));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            double asyncPerSecond = perSecond(THROUGHPUT_REQUESTS, System.nanoTime() - asyncStart);
+
+            // Síncrono: no máximo 1000 / FIXED_LATENCY_MILLIS req/s numa thread
+            assertTrue(syncPerSecond <= 1000.0 / FIXED_LATENCY_MILLIS, "sync req/s=" + syncPerSecond);
+            assertTrue(asyncPerSecond >= MIN_SPEEDUP * syncPerSecond,
+                    "async req/s=" + asyncPerSecond + " sync req/s=" + syncPerSecond);
+        }
+    }
+
+    private static double perSecond(int requests, long elapsedNanos) {
+        return requests / (elapsedNanos / 1e9);
+    }
+
+    private static EquipmentSearchService newService(FakeElasticsearch es) {
+        IndexGeneration generation = new IndexGeneration();
+        SearchResultCache disabledCache = new SearchResultCache(generation, new SimpleMeterRegistry(), false, 0, 0, 0);
+
+        EquipmentSearchService service = new EquipmentSearchService(
+                es.client(),
+                es.asyncClient(),
+                disabledCache,
+                generation,
+                new SearchMetrics(new SimpleMeterRegistry(), new SlowQueryLog(500, 100)),
+                mock(AssetNumberLookup.class),
+                new SearchQueryLog(100)
+        );
+        ReflectionTestUtils.setField(service, "indexName", "itinventory-equipments");
+        return service;
+    }
+}
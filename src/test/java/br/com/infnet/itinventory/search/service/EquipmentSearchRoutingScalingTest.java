@@ -0,0 +1,238 @@
+package br.com.infnet.itinventory.search.service;
+
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.cache.SearchQueryLog;
+import br.com.infnet.itinventory.search.cache.SearchResultCache;
+import br.com.infnet.itinventory.search.config.ElasticsearchClientConfig;
+import br.com.infnet.itinventory.search.doc.EquipmentDoc;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.metrics.SearchMetrics;
+import br.com.infnet.itinventory.search.metrics.SlowQueryLog;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Escala: busca de uma filial em fan-out (todos os shards) x com routing (um shard), em um ES real.
+ *
+ * Só roda com ES_SCALING_URL definido (ex.: ES_SCALING_URL=http://localhost:9200 mvn test); o parâmetro
+ * routing enviado pelo serviço é coberto no build por {@link EquipmentSearchRoutingTest}.
+ * Cria um índice temporário com SHARDS shards, grava DOCS equipamentos distribuídos em FILIAIS filiais
+ * com _routing = filial e mede a latência das mesmas buscas com e sem routing. Registra também os
+ * documentos por shard: filiais que caem no mesmo shard o deixam maior que os outros.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "ES_SCALING_URL", matches = ".+")
+class EquipmentSearchRoutingScalingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EquipmentSearchRoutingScalingTest.class);
+
+    private static final int SHARDS = 8;
+    private static final int FILIAIS = 40;
+    private static final int DOCS = 40_000;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 300;
+
+    private static final String[] BRANDS = {"Dell", "Lenovo", "HP", "Samsung", "Positivo", "AOC", "Brother"};
+    private static final String[] STATUSES = {"EM_USO", "EM_ESTOQUE", "EM_MANUTENCAO"};
+
+    private final String indexName = "itinventory-routing-scaling-" + System.currentTimeMillis();
+
+    private RestClient restClient;
+    private ElasticsearchClient esClient;
+    private EquipmentSearchService fanOut;
+    private EquipmentSearchService routed;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        URI url = URI.create(System.getenv("ES_SCALING_URL"));
+
+        ElasticsearchClientConfig config = FakeElasticsearch.config(
+                url.getHost(), url.getPort() > 0 ? url.getPort() : 9200, 20, 60000, false);
+
+        restClient = config.restClient();
+        ElasticsearchTransport transport = config.transport(restClient, config.elasticsearchObjectMapper());
+        esClient = new ElasticsearchClient(transport);
+
+        esClient.indices().create(c -> c
+                .index(indexName)
+                .settings(s -> s.numberOfShards(String.valueOf(SHARDS)).numberOfReplicas("0"))
+                .mappings(m -> m
+                        .properties("idEquipment", p -> p.long_(l -> l))
+                        .properties("filialAtualId", p -> p.long_(l -> l))
+                        .properties("status", p -> p.keyword(k -> k))
+                        .properties("brand", p -> p.text(t -> t))
+                        .properties("model", p -> p.text(t -> t))
+                        .properties("acquisitionValue", p -> p.double_(d -> d)))
+        );
+        load();
+
+        fanOut = service(new ElasticsearchAsyncClient(transport), false);
+        routed = service(new ElasticsearchAsyncClient(transport), true);
+    }
+
+    @AfterAll
+    void tearDown() throws Exception {
+        if (esClient != null) {
+            esClient.indices().delete(d -> d.index(indexName).ignoreUnavailable(true));
+        }
+        if (restClient != null) {
+            restClient.close();
+        }
+    }
+
+    @Test
+    void filialSearch_withRouting_shouldHitOneShard_andReturnSameResults() throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            search(fanOut, i);
+            search(routed, i);
+        }
+
+        long[] fanOutNanos = new long[ITERATIONS];
+        long[] routedNanos = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            // Alterna para que os dois modos vejam o mesmo estado de cache do nó
+            long start = System.nanoTime();
+            List<EquipmentDoc> a = search(fanOut, i);
+            fanOutNanos[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<EquipmentDoc> b = search(routed, i);
+            routedNanos[i] = System.nanoTime() - start;
+
+            assertEquals(ids(a), ids(b), "routing não pode mudar o resultado (iteração " + i + ")");
+        }
+
+        // Shards consultados pela mesma busca de cada filial, fora da medição
+        for (long filial = 1; filial <= FILIAIS; filial++) {
+            assertEquals(SHARDS, shardsQueried(filial, null), "fan-out da filial " + filial);
+            assertEquals(1, shardsQueried(filial, String.valueOf(filial)), "routing da filial " + filial);
+        }
+
+        long[] perShard = docsPerShard();
+        log.info("routing: shards={} docs={} filiais={} buscas={} docsPorShard={} maior/menor={}",
+                SHARDS, DOCS, FILIAIS, ITERATIONS, Arrays.toString(perShard), String.format("%.2f", skew(perShard)));
+        log.info("fan-out: p50={}ms p95={}ms p99={}ms",
+                percentile(fanOutNanos, 50), percentile(fanOutNanos, 95), percentile(fanOutNanos, 99));
+        log.info("routed : p50={}ms p95={}ms p99={}ms",
+                percentile(routedNanos, 50), percentile(routedNanos, 95), percentile(routedNanos, 99));
+    }
+
+    private List<EquipmentDoc> search(EquipmentSearchService service, int i) throws Exception {
+        long filial = 1 + (i % FILIAIS);
+        String brand = BRANDS[i % BRANDS.length].toLowerCase();
+        EquipmentSearchRequest req = new EquipmentSearchRequest(
+                brand, STATUSES[i % STATUSES.length], null, null, null, null, null, null, null, filial);
+        return service.buscaAvancada(req, 0, 20).get(30, TimeUnit.SECONDS);
+    }
+
+    private long shardsQueried(long filial, String routing) throws Exception {
+        SearchResponse<Void> response = esClient.search(s -> s
+                        .index(indexName)
+                        .routing(routing)
+                        .size(0)
+                        .query(q -> q.term(t -> t.field("filialAtualId").value(filial))),
+                Void.class
+        );
+        return response.shards().total().longValue();
+    }
+
+    private long[] docsPerShard() throws Exception {
+        long[] counts = new long[SHARDS];
+        for (int shard = 0; shard < SHARDS; shard++) {
+            String preference = "_shards:" + shard;
+            counts[shard] = esClient.count(c -> c.index(indexName).preference(preference)).count();
+        }
+        return counts;
+    }
+
+    private static double skew(long[] counts) {
+        long max = Arrays.stream(counts).max().orElse(0);
+        long min = Arrays.stream(counts).min().orElse(0);
+        return min == 0 ? Double.POSITIVE_INFINITY : (double) max / min;
+    }
+
+    private void load() throws Exception {
+        List<BulkOperation> ops = new ArrayList<>(5_000);
+        for (long id = 1; id <= DOCS; id++) {
+            long filial = 1 + (id % FILIAIS);
+            Map<String, Object> doc = Map.of(
+                    "idEquipment", id,
+                    "filialAtualId", filial,
+                    "status", STATUSES[(int) (id % STATUSES.length)],
+                    "brand", BRANDS[(int) (id % BRANDS.length)],
+                    "model", "Modelo " + (id % 500),
+                    "acquisitionValue", 1000.0 + (id % 9000)
+            );
+            String docId = String.valueOf(id);
+            ops.add(BulkOperation.of(o -> o.index(x -> x
+                    .index(indexName)
+                    .id(docId)
+                    .routing(String.valueOf(filial))
+                    .document(doc))));
+
+            if (ops.size() == 5_000 || id == DOCS) {
+                List<BulkOperation> chunk = List.copyOf(ops);
+                BulkResponse response = esClient.bulk(b -> b.operations(chunk).refresh(Refresh.False));
+                assertFalse(response.errors(), "falha ao carregar o índice de teste");
+                ops.clear();
+            }
+        }
+        esClient.indices().refresh(r -> r.index(indexName));
+    }
+
+    private EquipmentSearchService service(ElasticsearchAsyncClient asyncClient, boolean routingEnabled) {
+        IndexGeneration generation = new IndexGeneration();
+        SearchResultCache disabledCache = new SearchResultCache(generation, new SimpleMeterRegistry(), false, 0, 0, 0);
+
+        EquipmentSearchService service = new EquipmentSearchService(
+                esClient,
+                asyncClient,
+                disabledCache,
+                generation,
+                new SearchMetrics(new SimpleMeterRegistry(), new SlowQueryLog(500, 100)),
+                mock(AssetNumberLookup.class),
+                new SearchQueryLog(100)
+        );
+        ReflectionTestUtils.setField(service, "indexName", indexName);
+        ReflectionTestUtils.setField(service, "routingEnabled", routingEnabled);
+        return service;
+    }
+
+    private static List<Long> ids(List<EquipmentDoc> docs) {
+        return docs.stream().map(EquipmentDoc::getIdEquipment).filter(Objects::nonNull).sorted().toList();
+    }
+
+    private static String percentile(long[] nanos, int p) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return String.format("%.2f", sorted[Math.max(0, idx)] / 1_000_000.0);
+    }
+}
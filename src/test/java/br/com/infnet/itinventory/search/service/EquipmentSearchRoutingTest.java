@@ -0,0 +1,115 @@
+package br.com.infnet.itinventory.search.service;
+
+import br.com.infnet.itinventory.search.cache.IndexGeneration;
+import br.com.infnet.itinventory.search.cache.SearchQueryLog;
+import br.com.infnet.itinventory.search.cache.SearchResultCache;
+import br.com.infnet.itinventory.search.dto.EquipmentSearchRequest;
+import br.com.infnet.itinventory.search.metrics.SearchMetrics;
+import br.com.infnet.itinventory.search.metrics.SlowQueryLog;
+import br.com.infnet.itinventory.search.support.FakeElasticsearch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Parâmetro routing enviado ao ES pela busca avançada: um shard só quando o routing está ligado e a
+ * busca é de uma filial; nos demais casos, fan-out. A latência contra um ES real fica no
+ * {@link EquipmentSearchRoutingScalingTest}.
+ */
+class EquipmentSearchRoutingTest {
+
+    private static final String SEARCH_RESPONSE = """
+            {"took":1,"timed_out":false,
+             "_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+             "hits":{"max_score":null,"hits":[]}}
+            """;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final AtomicReference<FakeElasticsearch.Request> lastRequest = new AtomicReference<>();
+
+    private FakeElasticsearch es;
+    private EquipmentSearchService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        es = FakeElasticsearch.start(request -> {
+            lastRequest.set(request);
+            return FakeElasticsearch.Response.ok(SEARCH_RESPONSE);
+        });
+
+        IndexGeneration generation = new IndexGeneration();
+        service = new EquipmentSearchService(
+                es.client(),
+                es.asyncClient(),
+                new SearchResultCache(generation, new SimpleMeterRegistry(), false, 0, 0, 0),
+                generation,
+                new SearchMetrics(new SimpleMeterRegistry(), new SlowQueryLog(500, 100)),
+                mock(AssetNumberLookup.class),
+                new SearchQueryLog(100)
+        );
+        ReflectionTestUtils.setField(service, "indexName", "itinventory-equipments");
+        ReflectionTestUtils.setField(service, "routingEnabled", true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        es.close();
+    }
+
+    @Test
+    void buscaAvancada_withFilial_shouldRouteToFilialShard_andKeepFilialFilter() throws Exception {
+        search(7L);
+
+        assertEquals("7", routingParam());
+        // O shard da filial guarda outras filiais: o filtro continua na query
+        JsonNode filters = json.readTree(lastRequest.get().body()).at("/query/constant_score/filter/bool/filter");
+        boolean filialFilter = false;
+        for (JsonNode filter : filters) {
+            filialFilter |= "7".equals(filter.at("/term/filialAtualId/value").asText());
+        }
+        assertTrue(filialFilter, filters.toString());
+    }
+
+    @Test
+    void buscaAvancada_withoutFilial_shouldFanOut() throws Exception {
+        search(null);
+
+        assertNull(routingParam());
+    }
+
+    @Test
+    void buscaAvancada_withRoutingDisabled_shouldFanOut() throws Exception {
+        ReflectionTestUtils.setField(service, "routingEnabled", false);
+
+        search(7L);
+
+        assertNull(routingParam());
+    }
+
+    private void search(Long filialId) throws Exception {
+        EquipmentSearchRequest req = new EquipmentSearchRequest(
+                null, "EM_USO", null, null, null, null, null, null, null, filialId);
+        service.buscaAvancada(req, 0, 20).get(5, TimeUnit.SECONDS);
+    }
+
+    private String routingParam() {
+        String query = lastRequest.get().query();
+        if (query == null) return null;
+        for (String param : query.split("&")) {
+            if (param.startsWith("routing=")) {
+                return param.substring("routing=".length());
+            }
+        }
+        return null;
+    }
+}
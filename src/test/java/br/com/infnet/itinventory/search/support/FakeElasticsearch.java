@@ -0,0 +1,133 @@
+package br.com.infnet.itinventory.search.support;
+
+import br.com.infnet.itinventory.search.config.ElasticsearchClientConfig;
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import com.sun.net.httpserver.HttpServer;
+import org.elasticsearch.client.RestClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * "ES" local para os testes: HttpServer do JDK que responde com o handler do teste, mais o cliente
+ * montado pelo {@link ElasticsearchClientConfig} real (mesmo transporte e mapper da aplicação).
+ *
+ * <pre>
+ * es = FakeElasticsearch.start(request -> FakeElasticsearch.Response.ok(SEARCH_RESPONSE));
+ * new ElasticsearchClient(es.transport());
+ * ...
+ * es.close();
+ * </pre>
+ */
+public final class FakeElasticsearch implements AutoCloseable {
+
+    /**
+     * query = query string crua (null sem parâmetros), ex.: routing=7&typed_keys=true.
+     */
+    public record Request(String method, String path, String query, byte[] body) {
+
+        public String bodyAsString() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    public record Response(int status, String body) {
+
+        public static Response ok(String body) {
+            return new Response(200, body);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        Response handle(Request request) throws Exception;
+    }
+
+    private final HttpServer server;
+    private final RestClient restClient;
+    private final ElasticsearchTransport transport;
+
+    private FakeElasticsearch(HttpServer server, int maxConnections, boolean compression) {
+        this.server = server;
+        ElasticsearchClientConfig config = config("127.0.0.1", server.getAddress().getPort(),
+                maxConnections, 5000, compression);
+        this.restClient = config.restClient();
+        this.transport = config.transport(restClient, config.elasticsearchObjectMapper());
+    }
+
+    public static FakeElasticsearch start(Handler handler) throws IOException {
+        return start(handler, null, 10, false);
+    }
+
+    /**
+     * executor null = thread única do HttpServer (requisições atendidas uma por vez).
+     */
+    public static FakeElasticsearch start(Handler handler, Executor executor, int maxConnections, boolean compression)
+            throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        if (executor != null) {
+            server.setExecutor(executor);
+        }
+        server.createContext("/", exchange -> {
+            try {
+                Request request = new Request(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                        exchange.getRequestURI().getRawQuery(), exchange.getRequestBody().readAllBytes());
+                Response response = handler.handle(request);
+
+                byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+                exchange.sendResponseHeaders(response.status(), body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        return new FakeElasticsearch(server, maxConnections, compression);
+    }
+
+    /**
+     * Config do cliente apontando para host:port (também usada contra um ES real).
+     */
+    public static ElasticsearchClientConfig config(String host, int port, int maxConnections, int socketTimeoutMs,
+                                                   boolean compression) {
+        ElasticsearchClientConfig config = new ElasticsearchClientConfig();
+        ReflectionTestUtils.setField(config, "host", host);
+        ReflectionTestUtils.setField(config, "port", port);
+        ReflectionTestUtils.setField(config, "maxConnections", maxConnections);
+        ReflectionTestUtils.setField(config, "maxConnectionsPerRoute", maxConnections);
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 2000);
+        ReflectionTestUtils.setField(config, "socketTimeoutMs", socketTimeoutMs);
+        ReflectionTestUtils.setField(config, "connectionRequestTimeoutMs", 5000);
+        ReflectionTestUtils.setField(config, "compression", compression);
+        return config;
+    }
+
+    public ElasticsearchTransport transport() {
+        return transport;
+    }
+
+    public ElasticsearchClient client() {
+        return new ElasticsearchClient(transport);
+    }
+
+    public ElasticsearchAsyncClient asyncClient() {
+        return new ElasticsearchAsyncClient(transport);
+    }
+
+    @Override
+    public void close() throws IOException {
+        restClient.close();
+        server.stop(0);
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.exception.EquipmentBusinessException;
+import br.com.infnet.itinventory.model.AssetNumberSequence;
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.repository.AssetNumberSequenceRepository;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AssetNumberAllocatorTest {
+
+    private final AssetNumberSequenceRepository sequenceRepository = mock(AssetNumberSequenceRepository.class);
+    private final AssetNumberRegistry registry = mock(AssetNumberRegistry.class);
+    private final EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+
+    // Tabela asset_number_sequence em memória
+    private final Map<String, AssetNumberSequence> table = new HashMap<>();
+
+    @BeforeEach
+    void setup() {
+        when(sequenceRepository.findForUpdate(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        when(sequenceRepository.save(any(AssetNumberSequence.class))).thenAnswer(this::store);
+        when(sequenceRepository.saveAndFlush(any(AssetNumberSequence.class))).thenAnswer(this::store);
+        when(sequenceRepository.findMaxAssetNumber(anyString())).thenReturn(Optional.empty());
+        when(registry.idOf(anyString())).thenReturn(AssetNumberRegistry.ABSENT);
+    }
+
+    @Test
+    void next_shouldHitDatabaseOncePerBlock() {
+        AssetNumberAllocator allocator = allocator(100);
+
+        for (int i = 1; i <= 250; i++) {
+            assertEquals(String.format("INV-%05d", i), allocator.next("inv"));
+        }
+
+        verify(sequenceRepository, times(3)).findForUpdate("INV");
+        assertEquals(301, table.get("INV").getNextValue());
+    }
+
+    @Test
+    void next_shouldStartAfterHighestExisting_andSkipNumbersTakenByClients() {
+        when(sequenceRepository.findMaxAssetNumber("NTB")).thenReturn(Optional.of("NTB-00041"));
+        when(registry.idOf("NTB-00043")).thenReturn(7L);
+
+        AssetNumberAllocator allocator = allocator(10);
+
+        assertEquals("NTB-00042", allocator.next("NTB"));
+        assertEquals("NTB-00044", allocator.next("NTB"));
+    }
+
+    @Test
+    void next_shouldCheckDatabase_whenRegistryCannotAnswer() {
+        when(registry.idOf(anyString())).thenReturn(AssetNumberRegistry.UNKNOWN);
+        when(equipmentRepository.findByAssetNumber(anyString())).thenReturn(Optional.empty());
+        when(equipmentRepository.findByAssetNumber("INV-00001")).thenReturn(Optional.of(new Equipment()));
+
+        AssetNumberAllocator allocator = allocator(10);
+
+        assertEquals("INV-00002", allocator.next("INV"));
+        verify(equipmentRepository).findByAssetNumber("INV-00001");
+        verify(equipmentRepository).findByAssetNumber("INV-00002");
+    }
+
+    @Test
+    void next_shouldNotOverlap_betweenInstancesSharingTheSequence() {
+        AssetNumberAllocator nodeA = allocator(5);
+        AssetNumberAllocator nodeB = allocator(5);
+
+        Set<String> issued = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            assertTrue(issued.add((i % 3 == 0 ? nodeB : nodeA).next("INV")));
+        }
+    }
+
+    @Test
+    void next_shouldRejectInvalidPrefix_andExhaustedSequence() {
+        AssetNumberAllocator allocator = allocator(10);
+        assertThrows(EquipmentBusinessException.class, () -> allocator.next("IN1"));
+
+        table.put("ZZZ", new AssetNumberSequence("ZZZ", 100_000));
+        assertThrows(EquipmentBusinessException.class, () -> allocator.next("ZZZ"));
+    }
+
+    private AssetNumberAllocator allocator(int blockSize) {
+        return new AssetNumberAllocator(sequenceRepository, registry, equipmentRepository, mock(PlatformTransactionManager.class), blockSize);
+    }
+
+    private AssetNumberSequence store(InvocationOnMock invocation) {
+        AssetNumberSequence sequence = invocation.getArgument(0);
+        table.put(sequence.getPrefix(), new AssetNumberSequence(sequence.getPrefix(), sequence.getNextValue()));
+        return sequence;
+    }
+}
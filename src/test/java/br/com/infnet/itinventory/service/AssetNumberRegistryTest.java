@@ -0,0 +1,151 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.model.AssetNumbers;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AssetNumberRegistryTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void pack_shouldFollowNormalizeRules_andRoundTrip() {
+        assertEquals(AssetNumbers.pack("INV-00013"), AssetNumbers.pack(" inv-13 "));
+        assertEquals("INV-00013", AssetNumbers.unpack(AssetNumbers.pack("inv-0013")));
+        assertEquals("ZZZ-99999", AssetNumbers.unpack(AssetNumbers.pack("ZZZ-99999")));
+        assertEquals(0, AssetNumbers.pack("AAA-0"));
+
+        assertEquals(AssetNumbers.INVALID, AssetNumbers.pack("INV-123456"));
+        assertEquals(AssetNumbers.INVALID, AssetNumbers.pack("IN1-00013"));
+        assertEquals(AssetNumbers.INVALID, AssetNumbers.pack("INV 00013"));
+        assertEquals(AssetNumbers.INVALID, AssetNumbers.pack(null));
+        assertThrows(IllegalArgumentException.class, () -> AssetNumbers.unpack(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void idOf_shouldBeUnknown_untilLoaded_andForOutOfPatternValues() throws Exception {
+        AssetNumberRegistry registry = registry(Map.of(1L, "INV-00001", 2L, "LEGADO-7"));
+        assertEquals(AssetNumberRegistry.UNKNOWN, registry.idOf("INV-00001"));
+
+        registry.load();
+
+        assertEquals(1L, registry.idOf("inv-1"));
+        assertEquals(AssetNumberRegistry.ABSENT, registry.idOf("INV-00002"));
+        assertEquals(AssetNumberRegistry.UNKNOWN, registry.idOf("LEGADO-7")); // fora do padrão: banco decide
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void onCommit_shouldApplyOnlyAfterCommit() throws Exception {
+        AssetNumberRegistry registry = registry(Map.of());
+        registry.load();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.onCommit(5L, null, "INV-00005");
+            assertEquals(AssetNumberRegistry.ABSENT, registry.idOf("INV-00005"));
+
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(5L, registry.idOf("INV-00005"));
+
+        // Troca de patrimônio: libera o antigo; remoção atrasada de outro id não apaga o dono atual
+        registry.onCommit(5L, "INV-00005", "INV-00006");
+        registry.onCommit(9L, "INV-00006", null);
+        assertEquals(AssetNumberRegistry.ABSENT, registry.idOf("INV-00005"));
+        assertEquals(5L, registry.idOf("INV-00006"));
+    }
+
+    @Test
+    void table_shouldMatchHashMap_underRandomPutsAndRemoves() throws Exception {
+        AssetNumberRegistry registry = registry(Map.of());
+        registry.load();
+
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            // Poucos prefixos e números próximos: muitas colisões e sondagens longas
+            String asset = "IN" + (char) ('A' + random.nextInt(3)) + "-" + random.nextInt(5_000);
+            String canonical = AssetNumbers.normalize(asset);
+            Long owner = expected.get(canonical);
+            if (owner != null && random.nextInt(3) == 0) {
+                registry.change(owner, canonical, null);
+                expected.remove(canonical);
+            } else if (owner == null) {
+                registry.change(i + 1, null, canonical);
+                expected.put(canonical, i + 1L);
+            }
+        }
+
+        assertEquals(expected.size(), registry.size());
+        List<String> probes = List.of("INA-00001", "INB-04999", "INC-02500", "INZ-00001");
+        long[] ids = registry.idsOf(probes);
+        for (int i = 0; i < probes.size(); i++) {
+            assertEquals(expected.getOrDefault(probes.get(i), AssetNumberRegistry.ABSENT), ids[i]);
+        }
+        expected.forEach((asset, id) -> assertEquals(id, registry.idOf(asset)));
+    }
+
+    @Test
+    void reload_shouldKeepCommitsAppliedWhileLoading() throws Exception {
+        AssetNumberRegistry registry = registry(Map.of(1L, "INV-00001"));
+        doAnswer(invocation -> {
+            // Commit concorrente enquanto o SELECT roda: não pode se perder na troca do snapshot
+            registry.change(2L, null, "INV-00002");
+            rows(Map.of(1L, "INV-00001")).processRow(invocation.getArgument(1));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        registry.load();
+
+        assertEquals(1L, registry.idOf("INV-00001"));
+        assertEquals(2L, registry.idOf("INV-00002"));
+    }
+
+    private AssetNumberRegistry registry(Map<Long, String> rows) throws Exception {
+        doAnswer(invocation -> {
+            rows(rows).processRow(invocation.getArgument(1));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        AssetNumberRegistry registry = new AssetNumberRegistry(jdbcTemplate);
+        ReflectionTestUtils.setField(registry, "enabled", true);
+        return registry;
+    }
+
+    // Alimenta o handler com as linhas (id, asset_number)
+    private static ResultSetFeeder rows(Map<Long, String> rows) {
+        return handler -> {
+            for (Map.Entry<Long, String> row : rows.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(row.getKey());
+                when(rs.getString(2)).thenReturn(row.getValue());
+                handler.processRow(rs);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface ResultSetFeeder {
+        void processRow(RowCallbackHandler handler) throws Exception;
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.dto.AuditReportDTO;
+import br.com.infnet.itinventory.dto.EquipmentLookupRequest;
+import br.com.infnet.itinventory.exception.EquipmentBusinessException;
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AuditSessionServiceTest {
+
+    private final EquipmentRepository repository = mock(EquipmentRepository.class);
+    private final EquipmentLookupService lookupService = mock(EquipmentLookupService.class);
+
+    private final AuditSessionService service = new AuditSessionService(repository, lookupService, 2, 100, 60);
+
+    @Test
+    void scans_shouldSplitIntoFoundMissingUnexpectedAndUnknown() {
+        // Esperados na localização: 1..5
+        when(repository.findIdsByLocationIn(List.of("Matriz – TI"))).thenReturn(List.of(1L, 2L, 3L, 4L, 5L));
+        AuditReportDTO opened = service.open(List.of(" Matriz – TI ", "Matriz – TI"));
+        assertEquals(5, opened.getExpectedCount());
+        assertNull(opened.getMissing());
+
+        // Leituras: 2, 4 (esperados), 9 (de outra localização) e um patrimônio sem cadastro
+        resolveScansTo(List.of(2L, 4L, 9L), List.of("XYZ-00001"));
+        AuditReportDTO afterScan = service.scan(opened.getSessionId(), new EquipmentLookupRequest(List.of(2L, 4L, 9L), List.of("XYZ-1")));
+        assertEquals(3, afterScan.getScannedCount());
+        assertEquals(1, afterScan.getUnexpectedCount());
+        assertNull(afterScan.getFound()); // lote responde só contagens
+
+        // Releitura do 2 e do 9: contagens não andam
+        resolveScansTo(List.of(2L, 9L), List.of());
+        AuditReportDTO rescan = service.scan(opened.getSessionId(), new EquipmentLookupRequest(List.of(2L, 9L), null));
+        assertEquals(List.of(3, 2, 3, 1),
+                List.of(rescan.getScannedCount(), rescan.getFoundCount(), rescan.getMissingCount(), rescan.getUnexpectedCount()));
+
+        AuditReportDTO closed = service.close(opened.getSessionId());
+        assertTrue(closed.isClosed());
+        assertEquals(List.of(2L, 4L), closed.getFound());
+        assertEquals(List.of(1L, 3L, 5L), closed.getMissing());
+        assertEquals(List.of(9L), closed.getUnexpected());
+        assertEquals(List.of("XYZ-00001"), closed.getUnknown());
+
+        assertThrows(ResponseStatusException.class, () -> service.report(opened.getSessionId()));
+    }
+
+    @Test
+    void report_shouldDiffLargeSetsQuickly() {
+        List<Long> expected = LongStream.rangeClosed(1, 300_000).boxed().toList();
+        when(repository.findIdsByLocationIn(anyList())).thenReturn(expected);
+        String id = service.open(List.of("Depósito")).getSessionId();
+
+        // Lê os pares e mais 1.000 ids de fora
+        List<Long> scanned = new ArrayList<>(LongStream.rangeClosed(1, 301_000).filter(i -> i % 2 == 0).boxed().toList());
+        resolveScansTo(scanned, List.of());
+        service.scan(id, new EquipmentLookupRequest(scanned, null));
+
+        long start = System.nanoTime();
+        AuditReportDTO report = service.report(id);
+        long tookMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(150_000, report.getFoundCount());
+        assertEquals(150_000, report.getMissingCount());
+        assertEquals(500, report.getUnexpectedCount());
+        assertTrue(tookMillis < 1_000, "relatório levou " + tookMillis + " ms");
+    }
+
+    @Test
+    void open_shouldRequireLocations_andRespectSessionLimit() {
+        assertThrows(EquipmentBusinessException.class, () -> service.open(List.of(" ")));
+
+        when(repository.findIdsByLocationIn(anyList())).thenReturn(List.of());
+        service.open(List.of("A"));
+        service.open(List.of("B"));
+        assertThrows(EquipmentBusinessException.class, () -> service.open(List.of("C")));
+    }
+
+    private void resolveScansTo(List<Long> ids, List<String> notFound) {
+        doAnswer(invocation -> {
+            Consumer<Equipment> onFound = invocation.getArgument(1);
+            for (Long id : ids) {
+                Equipment e = new Equipment();
+                e.setId(id);
+                onFound.accept(e);
+            }
+            return notFound;
+        }).when(lookupService).lookup(any(), any());
+    }
+}
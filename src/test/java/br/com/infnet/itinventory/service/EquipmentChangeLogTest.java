@@ -0,0 +1,178 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.model.EquipmentChangeSequence;
+import br.com.infnet.itinventory.model.EquipmentTombstone;
+import br.com.infnet.itinventory.repository.EquipmentChangeAllocationRepository;
+import br.com.infnet.itinventory.repository.EquipmentChangeSequenceRepository;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import br.com.infnet.itinventory.repository.EquipmentTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class EquipmentChangeLogTest {
+
+    private final EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+    private final EquipmentTombstoneRepository tombstoneRepository = mock(EquipmentTombstoneRepository.class);
+    private final EquipmentChangeSequenceRepository sequenceRepository = mock(EquipmentChangeSequenceRepository.class);
+    private final EquipmentChangeAllocationRepository allocationRepository = mock(EquipmentChangeAllocationRepository.class);
+
+    private final EquipmentChangeLog changeLog = new EquipmentChangeLog(
+            equipmentRepository, tombstoneRepository, sequenceRepository, allocationRepository, 5000, 90, 10_000);
+
+    // Estado do banco: equipamentos (change_seq, id) e lápides
+    private final List<Equipment> equipments = new ArrayList<>();
+    private final List<EquipmentTombstone> tombstones = new ArrayList<>();
+    private final EquipmentChangeSequence sequence = new EquipmentChangeSequence(1, 0L);
+    // Maior número reservado há mais de commit-lag-ms
+    private long horizon = Long.MAX_VALUE;
+
+    @BeforeEach
+    void setup() {
+        when(sequenceRepository.findById(1)).thenAnswer(invocation -> Optional.of(sequence));
+        when(sequenceRepository.findForUpdate(1)).thenAnswer(invocation -> Optional.of(sequence));
+        when(allocationRepository.findHorizon(10_000)).thenAnswer(invocation -> Optional.of(horizon));
+
+        when(equipmentRepository.findChangedAfter(anyLong(), anyLong(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long seq = invocation.getArgument(0);
+            long id = invocation.getArgument(1);
+            long max = invocation.getArgument(2);
+            Pageable page = invocation.getArgument(3);
+            return equipments.stream()
+                    .filter(e -> e.getChangeSeq() <= max)
+                    .filter(e -> e.getChangeSeq() > seq || (e.getChangeSeq() == seq && e.getId() > id))
+                    .sorted(Comparator.comparing(Equipment::getChangeSeq).thenComparing(Equipment::getId))
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+        when(tombstoneRepository.findChangedAfter(anyLong(), anyLong(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long seq = invocation.getArgument(0);
+            long id = invocation.getArgument(1);
+            long max = invocation.getArgument(2);
+            Pageable page = invocation.getArgument(3);
+            return tombstones.stream()
+                    .filter(t -> t.getChangeSeq() <= max)
+                    .filter(t -> t.getChangeSeq() > seq || (t.getChangeSeq() == seq && t.getId() > id))
+                    .sorted(Comparator.comparing(EquipmentTombstone::getChangeSeq))
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+    }
+
+    @Test
+    void since_shouldPageThroughChangesAndDeletes_inCommitOrder() {
+        // Carga inicial (change_seq 0) e depois: altera 2 (seq 1), exclui 3 (seq 2), cria 4 (seq 3)
+        equipments.add(equipment(1L, 0L));
+        equipments.add(equipment(2L, 1L));
+        tombstones.add(new EquipmentTombstone(3L, 2L, Instant.now()));
+        equipments.add(equipment(4L, 3L));
+
+        EquipmentChangeLog.Changes first = changeLog.since(null, 2);
+        assertEquals(List.of(1L, 2L), ids(first.equipments()));
+        assertTrue(first.deleted().isEmpty());
+        assertTrue(first.hasMore());
+
+        EquipmentChangeLog.Changes second = changeLog.since(first.nextToken(), 2);
+        assertEquals(List.of(4L), ids(second.equipments()));
+        assertEquals(List.of(3L), second.deleted());
+        assertFalse(second.hasMore());
+
+        // Nada novo: mesmo token de volta, página vazia
+        EquipmentChangeLog.Changes idle = changeLog.since(second.nextToken(), 2);
+        assertTrue(idle.equipments().isEmpty() && idle.deleted().isEmpty());
+        assertEquals(second.nextToken(), idle.nextToken());
+
+        // Alteração posterior aparece a partir do token guardado
+        equipments.get(0).setChangeSeq(4L);
+        assertEquals(List.of(1L), ids(changeLog.since(idle.nextToken(), 2).equipments()));
+    }
+
+    @Test
+    void since_shouldAskForReset_whenTokenIsOlderThanPrunedTombstones() {
+        String oldToken = EquipmentChangeLog.encode(5, 10, 0);
+        sequence.setPrunedUpTo(8L);
+
+        EquipmentChangeLog.Changes changes = changeLog.since(oldToken, 100);
+
+        assertTrue(changes.reset());
+        verify(equipmentRepository, never()).findChangedAfter(anyLong(), anyLong(), anyLong(), any());
+
+        // Seguindo o token do reset, a recarga pagina até o fim sem cair em novo reset,
+        // mesmo com páginas cuja posição fica abaixo do expurgo
+        equipments.add(equipment(1L, 0L));
+        equipments.add(equipment(2L, 3L));
+        equipments.add(equipment(3L, 9L));
+        List<Long> reloaded = new ArrayList<>();
+        String token = changes.nextToken();
+        EquipmentChangeLog.Changes page;
+        do {
+            page = changeLog.since(token, 1);
+            assertFalse(page.reset());
+            reloaded.addAll(ids(page.equipments()));
+            token = page.nextToken();
+        } while (page.hasMore());
+        assertEquals(List.of(1L, 2L, 3L), reloaded);
+
+        // Novo expurgo depois da recarga, além da posição do token: reset de novo
+        sequence.setPrunedUpTo(20L);
+        assertTrue(changeLog.since(token, 1).reset());
+    }
+
+    @Test
+    void since_shouldStopAtHorizon_soALateCommitWithASmallerNumberIsNotSkipped() {
+        // seq 2 reservado antes de seq 3, mas ainda sem commit quando seq 3 já está visível
+        equipments.add(equipment(1L, 1L));
+        equipments.add(equipment(3L, 3L));
+        horizon = 1L;
+
+        EquipmentChangeLog.Changes first = changeLog.since(null, 10);
+        assertEquals(List.of(1L), ids(first.equipments()));
+        assertFalse(first.hasMore());
+
+        // A gravação lenta commita e o horizonte passa dos dois
+        equipments.add(equipment(2L, 2L));
+        horizon = 3L;
+
+        assertEquals(List.of(2L, 3L), ids(changeLog.since(first.nextToken(), 10).equipments()));
+    }
+
+    @Test
+    void next_shouldReserveFromAllocationLog_withoutTouchingTheSequenceRow() {
+        when(allocationRepository.lastAllocated()).thenReturn(42L);
+
+        assertEquals(42L, changeLog.next());
+        verify(allocationRepository).allocate();
+        verify(sequenceRepository, never()).findForUpdate(anyInt());
+    }
+
+    @Test
+    void decode_shouldRejectTamperedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> changeLog.since("not-a-token", 10));
+        assertThrows(IllegalArgumentException.class, () -> changeLog.since("AAAA", 10));
+        assertArrayEquals(new long[]{42, 7, 3}, EquipmentChangeLog.decode(EquipmentChangeLog.encode(42, 7, 3)));
+    }
+
+    private static Equipment equipment(Long id, Long changeSeq) {
+        Equipment e = new Equipment();
+        e.setId(id);
+        e.setChangeSeq(changeSeq);
+        return e;
+    }
+
+    private static List<Long> ids(List<Equipment> equipments) {
+        return equipments.stream().map(Equipment::getId).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.infnet.itinventory.service;
+
+import br.com.infnet.itinventory.dto.EquipmentLookupRequest;
+import br.com.infnet.itinventory.exception.EquipmentBusinessException;
+import br.com.infnet.itinventory.model.Equipment;
+import br.com.infnet.itinventory.repository.EquipmentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class EquipmentLookupServiceTest {
+
+    private final EquipmentRepository repository = mock(EquipmentRepository.class);
+    private final AssetNumberRegistry registry = mock(AssetNumberRegistry.class);
+
+    // Banco: ids 1..5 com patrimônios INV-00001..INV-00005, mais um legado fora do padrão
+    private final Map<Long, String> rows = Map.of(
+            1L, "INV-00001", 2L, "INV-00002", 3L, "INV-00003", 4L, "INV-00004", 5L, "INV-00005", 6L, "LEGADO-7");
+
+    @Test
+    void lookup_shouldResolveIdsAndAssetNumbers_inChunks_andReportMissingAsSent() {
+        stubDatabase();
+        // Registro: INV-00002 -> 2 (conferido na linha), INV-00099 livre, LEGADO-7 desconhecido
+        when(registry.idsOf(anyList())).thenAnswer(invocation -> {
+            List<String> assets = invocation.getArgument(0);
+            return assets.stream().mapToLong(a -> switch (a) {
+                case "INV-00002" -> 2L;
+                case "INV-00099" -> AssetNumberRegistry.ABSENT;
+                default -> AssetNumberRegistry.UNKNOWN;
+            }).toArray();
+        });
+
+        EquipmentLookupRequest request = new EquipmentLookupRequest(
+                List.of(1L, 3L, 4L, 1L, 999L),
+                List.of("inv-2", "INV-99", "legado-7", "INV-00001"));
+
+        List<Long> found = new ArrayList<>();
+        List<String> notFound = service(2).lookup(request, e -> found.add(e.getId()));
+
+        // id 1 pedido duas vezes e também pelo patrimônio: sai uma vez só
+        assertEquals(List.of(1L, 3L, 4L, 2L, 6L), found);
+        assertEquals(List.of("999", "INV-99"), notFound);
+        verify(repository, times(3)).findAllById(anyList()); // 4 ids pedidos + 1 do registro, em blocos de 2
+        verify(repository, never()).findByAssetNumber(any());
+    }
+
+    @Test
+    void lookup_shouldCheckDatabase_whenRegistrySaysFree() {
+        stubDatabase();
+        // INV-00003 cadastrado fora da API depois da última recarga do registro
+        when(registry.idsOf(anyList())).thenReturn(new long[]{AssetNumberRegistry.ABSENT});
+
+        List<Long> found = new ArrayList<>();
+        List<String> notFound = service(100).lookup(
+                new EquipmentLookupRequest(null, List.of("INV-00003")), e -> found.add(e.getId()));
+
+        assertEquals(List.of(3L), found);
+        assertTrue(notFound.isEmpty());
+    }
+
+    @Test
+    void lookup_shouldFallBackToAssetNumber_whenRegistryIsStale() {
+        stubDatabase();
+        // Registro acha que INV-00005 é do id 4 (mudou fora da API)
+        when(registry.idsOf(anyList())).thenReturn(new long[]{4L});
+
+        List<Long> found = new ArrayList<>();
+        List<String> notFound = service(100).lookup(
+                new EquipmentLookupRequest(null, List.of("INV-00005")), e -> found.add(e.getId()));
+
+        assertEquals(List.of(5L), found);
+        assertTrue(notFound.isEmpty());
+    }
+
+    @Test
+    void validate_shouldRejectEmptyAndOversizedBatches() {
+        EquipmentLookupService service = service(100);
+
+        assertThrows(EquipmentBusinessException.class, () -> service.validate(new EquipmentLookupRequest()));
+        List<Long> tooMany = LongStream.rangeClosed(1, 11).boxed().toList();
+        assertThrows(EquipmentBusinessException.class, () -> service.validate(new EquipmentLookupRequest(tooMany, null)));
+    }
+
+    private EquipmentLookupService service(int chunkSize) {
+        return new EquipmentLookupService(repository, registry, 10, chunkSize);
+    }
+
+    private void stubDatabase() {
+        when(repository.findAllById(anyList())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(rows::containsKey).map(id -> equipment(id, rows.get(id))).toList();
+        });
+        when(repository.findByAssetNumberIn(anyList())).thenAnswer(invocation -> {
+            Collection<String> assets = invocation.getArgument(0);
+            return rows.entrySet().stream()
+                    .filter(r -> assets.contains(r.getValue()))
+                    .map(r -> equipment(r.getKey(), r.getValue()))
+                    .toList();
+        });
+    }
+
+    private static Equipment equipment(Long id, String assetNumber) {
+        Equipment e = new Equipment();
+        e.setId(id);
+        e.setAssetNumber(assetNumber);
+        return e;
+    }
+}
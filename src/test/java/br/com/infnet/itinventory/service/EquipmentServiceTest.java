@@ -23,6 +23,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,6 +39,13 @@ class EquipmentServiceTest {
     @Mock
     private ApplicationEventPublisher publisher;
 
+    // Mock devolve UNKNOWN (0) por padrão: os testes acima seguem pelo banco
+    @Mock
+    private AssetNumberRegistry assetNumberRegistry;
+
+    @Mock
+    private EquipmentChangeLog changeLog;
+
     @InjectMocks
     private EquipmentService service;
 
@@ -52,7 +60,7 @@ class EquipmentServiceTest {
         Equipment located = buildValidEquipment("INV-00010");
         located.setId(10L);
 
-        when(equipmentRepository.findById(10L)).thenReturn(Optional.of(located));
+        when(equipmentRepository.findForUpdate(10L)).thenReturn(Optional.of(located));
 
         // E existe outro registro (id=20) com assetNumber "INV-00013"
         Equipment other = buildValidEquipment("INV-00013");
@@ -81,7 +89,7 @@ class EquipmentServiceTest {
         Equipment located = buildValidEquipment("INV-00010");
         located.setId(10L);
 
-        when(equipmentRepository.findById(10L)).thenReturn(Optional.of(located));
+        when(equipmentRepository.findForUpdate(10L)).thenReturn(Optional.of(located));
 
         // E NÃO existe nenhum outro registro com "INV-00013"
         when(equipmentRepository.findByAssetNumber("INV-00013"))
@@ -104,6 +112,10 @@ class EquipmentServiceTest {
         EquipmentIndexEvent event = captor.getValue();
         assertEquals(10L, event.equipmentId());
         assertEquals(EquipmentIndexOperation.UPSERT, event.operation());
+        // Só o campo alterado (+ checksum novo) vai para o índice
+        assertTrue(event.isPartial());
+        assertEquals(Set.of("assetNumber", "checksum"), event.changedFields().keySet());
+        assertEquals("INV-00013", event.changedFields().get("assetNumber"));
         //  ===========================================================================
 
         // Então: deve salvar e o assetNumber deve estar normalizado
@@ -112,10 +124,73 @@ class EquipmentServiceTest {
         verify(equipmentRepository, times(1)).save(any(Equipment.class));
     }
 
+    @Test
+    void update_shouldNotPublishIndexEvent_whenNoIndexedFieldChanged() {
+        Equipment located = buildValidEquipment("INV-00010");
+        located.setId(10L);
+
+        when(equipmentRepository.findForUpdate(10L)).thenReturn(Optional.of(located));
+        when(equipmentRepository.findByAssetNumber("INV-00010")).thenReturn(Optional.of(located));
+        when(equipmentRepository.save(any(Equipment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.update(10L, buildValidEquipment("INV-10"));
+
+        verify(equipmentRepository, times(1)).save(any(Equipment.class));
+        verify(publisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void save_shouldConfirmRegistryHit_inDatabase() {
+        Equipment owner = buildValidEquipment("INV-00013");
+        owner.setId(20L);
+        when(assetNumberRegistry.idOf("INV-00013")).thenReturn(20L);
+        when(equipmentRepository.findByAssetNumber("INV-00013")).thenReturn(Optional.of(owner));
+
+        EquipmentBusinessException ex = assertThrows(
+                EquipmentBusinessException.class,
+                () -> service.save(buildValidEquipment("inv-13"))
+        );
+
+        assertTrue(ex.getMessage().contains("assetNumber já existe: INV-00013"));
+        verify(equipmentRepository, never()).save(any());
+    }
+
+    @Test
+    void save_shouldAccept_whenRegistryHitIsStale() {
+        when(assetNumberRegistry.idOf("INV-00013")).thenReturn(20L);
+        when(equipmentRepository.findByAssetNumber("INV-00013")).thenReturn(Optional.empty());
+        when(equipmentRepository.save(any(Equipment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Equipment saved = service.save(buildValidEquipment("inv-13"));
+
+        assertEquals("INV-00013", saved.getAssetNumber());
+    }
+
+    @Test
+    void update_shouldTrustRegistry_andRecordAssetNumberChange() {
+        Equipment located = buildValidEquipment("INV-00010");
+        located.setId(10L);
+
+        when(equipmentRepository.findForUpdate(10L)).thenReturn(Optional.of(located));
+        when(assetNumberRegistry.idOf("INV-00013")).thenReturn(AssetNumberRegistry.ABSENT);
+        when(equipmentRepository.save(any(Equipment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.update(10L, buildValidEquipment("INV-13"));
+
+        verify(equipmentRepository, never()).findByAssetNumber(any());
+        verify(assetNumberRegistry).onCommit(10L, "INV-00010", "INV-00013");
+    }
+
+    @Test
+    void save_shouldRequireAssetNumberOrPrefix() {
+        assertThrows(EquipmentBusinessException.class, () -> service.save(buildValidEquipment(" ")));
+        verify(equipmentRepository, never()).save(any());
+    }
+
     @Test
     void delete_shouldThrowNotFound_whenIdDoesNotExist() {
         // Dado: id inexistente
-        when(equipmentRepository.findById(999L)).thenReturn(Optional.empty());
+        when(equipmentRepository.findForUpdate(999L)).thenReturn(Optional.empty());
 
         // Quando / Então: deve lançar NotFound e não deve chamar delete
         assertThrows(EquipmentNotFoundException.class, () -> service.delete(999L));
@@ -128,7 +203,7 @@ class EquipmentServiceTest {
         Equipment located = buildValidEquipment("INV-00010");
         located.setId(10L);
 
-        when(equipmentRepository.findById(10L)).thenReturn(Optional.of(located));
+        when(equipmentRepository.findForUpdate(10L)).thenReturn(Optional.of(located));
 
         // Quando
         service.delete(10L);